@@ -24,8 +24,9 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.io.Writer;
-import java.util.ArrayList;
+import java.nio.file.Paths;
 import java.util.List;
 
 import org.apache.commons.cli.CommandLine;
@@ -38,10 +39,17 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.search.nibrs.common.NIBRSError;
 import org.search.nibrs.flatfile.errorexport.ErrorExporter;
+import org.search.nibrs.flatfile.errorexport.ErrorSink;
 import org.search.nibrs.flatfile.importer.IncidentBuilder;
 import org.search.nibrs.importer.ReportListener;
 import org.search.nibrs.model.AbstractReport;
+import org.search.nibrs.validation.PipelinedValidationListener;
+import org.search.nibrs.validation.SubmissionConsistencyListener;
 import org.search.nibrs.validation.SubmissionValidator;
+import org.search.nibrs.validation.duplicate.IncidentKeyIndex;
+import org.search.nibrs.validation.duplicate.PendingIncidentKeys;
+import org.search.nibrs.validation.ori.FileOriSource;
+import org.search.nibrs.validation.ori.OriRegistry;
 
 /**
  * Executable class (via main) that accepts a submission file (via stdin, or
@@ -90,25 +98,70 @@ public class NIBRSValidator {
 				outputWriter = new BufferedWriter(new OutputStreamWriter(System.out));
 			}
 
+			int workerCount = Runtime.getRuntime().availableProcessors();
+			if (cl.hasOption("w")) {
+				workerCount = Integer.parseInt(cl.getOptionValue("w"));
+			}
+
 			IncidentBuilder incidentBuilder = new IncidentBuilder();
 			SubmissionValidator submissionValidator = new SubmissionValidator();
 			ErrorExporter errorExporter = ErrorExporter.getInstance();
 
-			final List<NIBRSError> errorList = new ArrayList<>();
+			if (cl.hasOption("r")) {
+				submissionValidator.setOriRegistry(new OriRegistry(new FileOriSource(Paths.get(cl.getOptionValue("r")))));
+			}
 
-			incidentBuilder.addIncidentListener(new ReportListener() {
-				@Override
-				public void newReport(AbstractReport report, List<NIBRSError> el) {
-					errorList.addAll(el);
-					errorList.addAll(submissionValidator.validateReport(report));
-				}
-			});
+			if (cl.hasOption("a") && !cl.hasOption("d")) {
+				System.err.println("Option -a requires an index directory (-d).");
+				System.exit(1);
+			}
 
-			incidentBuilder.buildIncidents(inputReader, readerLocationName);
+			IncidentKeyIndex incidentKeyIndex = null;
+			PendingIncidentKeys pendingIncidentKeys = null;
+			if (cl.hasOption("d")) {
+				incidentKeyIndex = new IncidentKeyIndex(Paths.get(cl.getOptionValue("d")));
+				submissionValidator.setIncidentKeyIndex(incidentKeyIndex);
+				if (cl.hasOption("a")) {
+					pendingIncidentKeys = new PendingIncidentKeys(incidentKeyIndex);
+				}
+			}
+			PendingIncidentKeys acceptedIncidentKeys = pendingIncidentKeys;
+
+			// errors are written out as each report is validated, so neither the errors nor their reports are held onto
+			try (ErrorSink errorSink = errorExporter.openErrorReport(outputWriter);
+					SubmissionConsistencyListener consistencyListener = new SubmissionConsistencyListener(new ReportListener() {
+						@Override
+						public void newReport(AbstractReport report, List<NIBRSError> el) {
+							try {
+								for (NIBRSError e : el) {
+									errorSink.accept(e);
+								}
+								if (acceptedIncidentKeys != null && el.isEmpty()) {
+									acceptedIncidentKeys.recordAcceptedReport(report);
+								}
+							} catch (IOException ioe) {
+								throw new UncheckedIOException(ioe);
+							}
+						}
+					})) {
+
+				PipelinedValidationListener validationListener = new PipelinedValidationListener(submissionValidator, consistencyListener, workerCount);
+				incidentBuilder.addIncidentListener(validationListener);
+
+				incidentBuilder.buildIncidents(inputReader, readerLocationName);
+				validationListener.finish();
+
+				// the index only changes once every report has been checked against it
+				if (pendingIncidentKeys != null) {
+					pendingIncidentKeys.commit();
+				}
 
-			errorExporter.createErrorReport(errorList, outputWriter);
+			} finally {
+				if (incidentKeyIndex != null) {
+					incidentKeyIndex.close();
+				}
+			}
 
-			outputWriter.close();
 			inputReader.close();
 
 		}
@@ -120,6 +173,10 @@ public class NIBRSValidator {
 		options.addOption("h", "help", false, "Print usage and options info");
 		options.addOption("f", "in", true, "Input submission file");
 		options.addOption("o", "out", true, "Output error file");
+		options.addOption("d", "duplicates", true, "Directory of the index of previously accepted incidents, checked for duplicates (error 056)");
+		options.addOption("a", "accept", false, "Once the submission has been validated, add its error-free incidents to the index given by -d (and remove its deleted ones)");
+		options.addOption("r", "oris", true, "File of valid ORIs, one per line, checked against report and officer other-jurisdiction ORIs (error 052)");
+		options.addOption("w", "workers", true, "Number of validation worker threads (defaults to the number of processors)");
 		return options;
 	}
 
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.util;
+
+import java.text.ParseException;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * Thread-safe decoder for the date formats used in NIBRS submissions: YYYYMMDD in the flat file, and YYYY-MM-DD in the IEPD.
+ * <br/>
+ * Digits are read directly from the value and the result is checked for calendar validity, the way a non-lenient SimpleDateFormat would;
+ * anything that is not a full, valid date in one of the two formats is rejected with a ParseException.  A submission uses the same few dates over and over,
+ * so recently decoded dates are kept in a small shared cache.  The Date instances handed out are therefore shared, and must not be modified.
+ * Dates represent the start of the day in the default time zone.
+ */
+public final class DateDecoder {
+
+	private static final int CACHE_SIZE = 512;
+
+	private static final class Entry {
+
+		private final int key;
+		private final LocalDate localDate;
+		private final Date date;
+
+		Entry(int key, LocalDate localDate, Date date) {
+			this.key = key;
+			this.localDate = localDate;
+			this.date = date;
+		}
+
+	}
+
+	// entries are immutable, so unsynchronized reads and writes are safe; a lost race just means a date is decoded again
+	private static final Entry[] CACHE = new Entry[CACHE_SIZE];
+
+	private DateDecoder() {
+	}
+
+	/**
+	 * Decode a date in YYYYMMDD or YYYY-MM-DD format.
+	 * @param value the value
+	 * @return the date
+	 * @throws ParseException if the value is not a valid date in either format
+	 */
+	public static Date decodeDate(CharSequence value) throws ParseException {
+		return decode(value, 0, value.length()).date;
+	}
+
+	/**
+	 * Decode a date in YYYYMMDD or YYYY-MM-DD format from a region of a value.
+	 * @param value the value
+	 * @param from the 0-based index of the first character of the date
+	 * @param to the 0-based index just past the last character of the date
+	 * @return the date
+	 * @throws ParseException if the region is not a valid date in either format
+	 */
+	public static Date decodeDate(CharSequence value, int from, int to) throws ParseException {
+		return decode(value, from, to).date;
+	}
+
+	/**
+	 * Decode a date in YYYYMMDD or YYYY-MM-DD format.
+	 * @param value the value
+	 * @return the date
+	 * @throws ParseException if the value is not a valid date in either format
+	 */
+	public static LocalDate decodeLocalDate(CharSequence value) throws ParseException {
+		return decode(value, 0, value.length()).localDate;
+	}
+
+	private static Entry decode(CharSequence value, int from, int to) throws ParseException {
+
+		int year;
+		int month;
+		int day;
+
+		if (to - from == 8) {
+			year = digits(value, from, from + 4);
+			month = digits(value, from + 4, from + 6);
+			day = digits(value, from + 6, to);
+		} else if (to - from == 10 && value.charAt(from + 4) == '-' && value.charAt(from + 7) == '-') {
+			year = digits(value, from, from + 4);
+			month = digits(value, from + 5, from + 7);
+			day = digits(value, from + 8, to);
+		} else {
+			throw invalid(value, from, to);
+		}
+
+		// a field with a non-digit decodes as -1, and fails the range checks
+		if (year < 1 || month < 1 || month > 12 || day < 1 || day > Month.of(month).length(Year.isLeap(year))) {
+			throw invalid(value, from, to);
+		}
+
+		int key = year * 10000 + month * 100 + day;
+		int slot = (key ^ (key >>> 9)) & (CACHE_SIZE - 1);
+		Entry entry = CACHE[slot];
+		if (entry == null || entry.key != key) {
+			LocalDate localDate = LocalDate.of(year, month, day);
+			entry = new Entry(key, localDate, Date.from(localDate.atStartOfDay(ZoneId.systemDefault()).toInstant()));
+			CACHE[slot] = entry;
+		}
+		return entry;
+
+	}
+
+	private static int digits(CharSequence value, int from, int to) {
+		int ret = 0;
+		for (int i = from; i < to; i++) {
+			char c = value.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			ret = ret * 10 + (c - '0');
+		}
+		return ret;
+	}
+
+	private static ParseException invalid(CharSequence value, int from, int to) {
+		return new ParseException("Unparseable date: \"" + value.subSequence(from, to) + "\"", from);
+	}
+
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+
+import org.junit.Test;
+
+public class TestDateDecoder {
+
+	@Test
+	public void testMatchesSimpleDateFormat() throws Exception {
+		SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMdd");
+		dateFormat.setLenient(false);
+		for (LocalDate d = LocalDate.of(2015, 12, 1); d.isBefore(LocalDate.of(2017, 3, 1)); d = d.plusDays(1)) {
+			String value = String.format("%04d%02d%02d", d.getYear(), d.getMonthValue(), d.getDayOfMonth());
+			assertEquals(dateFormat.parse(value), DateDecoder.decodeDate(value));
+			assertEquals(dateFormat.parse(value), DateDecoder.decodeDate(d.toString()));
+			assertEquals(d, DateDecoder.decodeLocalDate(value));
+		}
+	}
+
+	@Test
+	public void testRegion() throws Exception {
+		assertEquals(LocalDate.of(2016, 2, 29), DateDecoder.decodeLocalDate("2016-02-29"));
+		assertEquals(DateDecoder.decodeDate("20160229"), DateDecoder.decodeDate("xx20160229xx", 2, 10));
+	}
+
+	@Test
+	public void testCached() throws Exception {
+		assertSame(DateDecoder.decodeDate("20160704"), DateDecoder.decodeDate("2016-07-04"));
+	}
+
+	@Test
+	public void testInvalid() {
+		for (String value : new String[] {"20150229", "20161301", "20160001", "20160100", "20160431", "00000101", "2016010", "201601011",
+				"2016O101", "2016-0101", "2016/01/01", "2016-1-01", " 20160101", ""}) {
+			try {
+				DateDecoder.decodeDate(value);
+				fail("Expected ParseException for " + value);
+			} catch (ParseException pe) {
+				// expected
+			}
+		}
+	}
+
+}
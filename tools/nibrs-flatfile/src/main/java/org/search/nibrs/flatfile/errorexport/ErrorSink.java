@@ -0,0 +1,90 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.flatfile.errorexport;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+
+import org.search.nibrs.common.NIBRSError;
+
+/**
+ * An error report in the standard FBI format that is written one error at a time.  Each error is formatted and handed to the writer as
+ * soon as it is accepted, and the sink keeps no reference to it (or to its report) afterwards, so memory use does not depend on the number
+ * of errors.  Obtain one from ErrorExporter.openErrorReport(Writer).
+ * <br/>
+ * A sink is not thread-safe; errors should be accepted from one thread at a time.
+ */
+public final class ErrorSink implements Closeable {
+
+	private final ErrorExporter errorExporter;
+	private final BufferedWriter writer;
+
+	private int errorCount;
+	private int lineCount;
+	private boolean closed;
+
+	ErrorSink(ErrorExporter errorExporter, BufferedWriter writer) {
+		this.errorExporter = errorExporter;
+		this.writer = writer;
+	}
+
+	/**
+	 * Write the line(s) for the specified error to the report.
+	 * @param error the error
+	 * @throws IOException if the report cannot be written
+	 */
+	public void accept(NIBRSError error) throws IOException {
+		if (closed) {
+			throw new IllegalStateException("Error report has been closed");
+		}
+		lineCount += errorExporter.writeError(error, writer);
+		errorCount++;
+	}
+
+	/**
+	 * Flush the lines written so far to the underlying writer.
+	 */
+	public void flush() throws IOException {
+		writer.flush();
+	}
+
+	/**
+	 * The number of errors accepted so far.
+	 */
+	public int getErrorCount() {
+		return errorCount;
+	}
+
+	/**
+	 * The number of error lines written so far (some errors take more than one line, and errors without a report take none).
+	 */
+	public int getLineCount() {
+		return lineCount;
+	}
+
+	/**
+	 * Write the trailer line and close the underlying writer.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (!closed) {
+			closed = true;
+			errorExporter.writeTrailer(writer);
+		}
+	}
+
+}
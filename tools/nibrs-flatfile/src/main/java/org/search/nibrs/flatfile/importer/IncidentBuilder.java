@@ -15,24 +15,37 @@
  */
 package org.search.nibrs.flatfile.importer;
 
-import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.Reader;
+import java.io.StringReader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.text.ParseException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.search.nibrs.common.NIBRSError;
 import org.search.nibrs.common.ParsedObject;
-import org.search.nibrs.common.ReportSource;
 import org.search.nibrs.flatfile.FlatfileConstants;
 import org.search.nibrs.flatfile.NIBRSAgeBuilder;
-import org.search.nibrs.flatfile.util.StringUtils;
+import org.search.nibrs.flatfile.util.FixedWidthFieldReader;
+import org.search.nibrs.flatfile.util.LineReader;
 import org.search.nibrs.importer.AbstractIncidentBuilder;
 import org.search.nibrs.importer.ReportListener;
 import org.search.nibrs.model.AbstractReport;
@@ -65,10 +78,34 @@ public class IncidentBuilder extends AbstractIncidentBuilder {
 	
 	private static final Log log = LogFactory.getLog(IncidentBuilder.class);;
 
+	private static final AtomicInteger POOL_NUMBER = new AtomicInteger(1);
+
+	private static final class ParsedChunk {
+		private final List<AbstractReport> reports = new ArrayList<>();
+		private final List<List<NIBRSError>> errorLists = new ArrayList<>();
+		private int lineCount;
+	}
+
+	private int mappedChunkSize = 8 * 1024 * 1024;
+
 	public IncidentBuilder() {
 		super();
 	}
 
+	/**
+	 * The size in bytes at which buildIncidents(Path, String, int) ends a chunk, at the next report boundary.
+	 */
+	public int getMappedChunkSize() {
+		return mappedChunkSize;
+	}
+
+	public void setMappedChunkSize(int mappedChunkSize) {
+		if (mappedChunkSize < 1) {
+			throw new IllegalArgumentException("Chunk size must be at least one byte, was " + mappedChunkSize);
+		}
+		this.mappedChunkSize = mappedChunkSize;
+	}
+
 	public void addIncidentListener(ReportListener listener) {
 		getListeners().add(listener);
 	}
@@ -85,29 +122,123 @@ public class IncidentBuilder extends AbstractIncidentBuilder {
 	@Override
 	public void buildIncidents(Reader reader, String readerLocationName) throws IOException {
 
-		BufferedReader br = null;
+		log.info("Processing NIBRS flat file");
 		
-		// we buffer to improve performance in reading big files
-		if (!(reader instanceof BufferedReader)) {
-			br = new BufferedReader(reader);
-		} else {
-			br = (BufferedReader) reader;
+		// lines are read into a reused buffer, which also does the buffering that a BufferedReader would
+		int lineNumber = buildIncidents(new LineReader(reader), readerLocationName, 1, this::handleNewReport);
+
+		log.info("finished processing file, read " + (lineNumber - 1) + " lines.");
+		log.info("Encountered " + getLogListener().errorCount + " error(s).");
+		log.info("Created " + getLogListener().reportCount + " incident(s).");
+
+	}
+
+	/**
+	 * Read NIBRS incidents from a flatfile by memory-mapping it, splitting it into chunks at report boundaries, and parsing the chunks on
+	 * a pool of worker threads.  Listeners are called on the calling thread, in the order in which the reports appear in the file, with the
+	 * same reports, errors and line numbers that buildIncidents(Reader, String) would produce.  The file is decoded with the platform default
+	 * charset, as FileReader would do.
+	 * @param path the file to read
+	 * @param readerLocationName the name to record as the source of each report
+	 * @param workerCount the number of worker threads that parse chunks
+	 * @throws IOException exception encountered in reading the file
+	 */
+	public void buildIncidents(Path path, String readerLocationName, int workerCount) throws IOException {
+
+		if (workerCount < 1) {
+			throw new IllegalArgumentException("Worker count must be at least one, was " + workerCount);
 		}
-		
-		String line = null;
+
+		log.info("Processing NIBRS flat file " + path + " with " + workerCount + " worker(s)");
+
+		String threadNamePrefix = "nibrs-flatfile-" + POOL_NUMBER.getAndIncrement() + "-worker-";
+		AtomicInteger threadNumber = new AtomicInteger(1);
+		ExecutorService executor = Executors.newFixedThreadPool(workerCount, r -> {
+			Thread t = new Thread(r, threadNamePrefix + threadNumber.getAndIncrement());
+			t.setDaemon(true);
+			return t;
+		});
+
+		int lineCount = 0;
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			// chunks are parsed ahead of delivery, but only a couple per worker, so memory use does not grow with the size of the file
+			Deque<Future<ParsedChunk>> pendingChunks = new ArrayDeque<>();
+			ReportChunkScanner scanner = new ReportChunkScanner(channel, getMappedChunkSize());
+			ReportChunkScanner.Chunk chunk;
+			while ((chunk = scanner.next()) != null) {
+				if (chunk.getLength() > Integer.MAX_VALUE) {
+					throw new IOException("No report boundary found in " + chunk.getLength() + " bytes starting at line " + chunk.getFirstLineNumber());
+				}
+				while (pendingChunks.size() >= workerCount * 2) {
+					lineCount += deliver(pendingChunks.removeFirst());
+				}
+				ReportChunkScanner.Chunk c = chunk;
+				pendingChunks.addLast(executor.submit(() -> parseChunk(channel, c, readerLocationName)));
+			}
+			while (!pendingChunks.isEmpty()) {
+				lineCount += deliver(pendingChunks.removeFirst());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		log.info("finished processing file, read " + lineCount + " lines.");
+		log.info("Encountered " + getLogListener().errorCount + " error(s).");
+		log.info("Created " + getLogListener().reportCount + " incident(s).");
+
+	}
+
+	private ParsedChunk parseChunk(FileChannel channel, ReportChunkScanner.Chunk chunk, String readerLocationName) throws IOException {
+		MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk.getOffset(), chunk.getLength());
+		LineReader lineReader = new LineReader(new StringReader(Charset.defaultCharset().decode(buffer).toString()));
+		ParsedChunk ret = new ParsedChunk();
+		int nextLineNumber = buildIncidents(lineReader, readerLocationName, chunk.getFirstLineNumber(), (report, errorList) -> {
+			ret.reports.add(report);
+			ret.errorLists.add(errorList);
+		});
+		ret.lineCount = nextLineNumber - chunk.getFirstLineNumber();
+		return ret;
+	}
+
+	private int deliver(Future<ParsedChunk> pendingChunk) throws IOException {
+		ParsedChunk chunk;
+		try {
+			chunk = pendingChunk.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while parsing flat file");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new RuntimeException(cause);
+		}
+		for (int i = 0; i < chunk.reports.size(); i++) {
+			handleNewReport(chunk.reports.get(i), chunk.errorLists.get(i));
+		}
+		return chunk.lineCount;
+	}
+
+	/**
+	 * Read segments from the reader, and pass each report that they make up to the report handler along with its errors.
+	 * @return the line number following the last line read
+	 */
+	private int buildIncidents(LineReader lineReader, String readerLocationName, int firstLineNumber, ReportListener reportHandler) throws IOException {
+
+		CharSequence line = null;
 		AbstractReport currentReport = null;
-		int lineNumber = 1;
-		
-		log.info("Processing NIBRS flat file");
+		int lineNumber = firstLineNumber;
 		
 		List<NIBRSError> errorList = new ArrayList<NIBRSError>();
 		
-		while ((line = br.readLine()) != null) {
+		while ((line = lineReader.readLine()) != null) {
 			Segment s = new Segment();
-			ReportSource reportSource = new ReportSource();
-			reportSource.setSourceLocation(String.valueOf(lineNumber));
-			reportSource.setSourceName(readerLocationName);
-			List<NIBRSError> segmentErrors = s.setData(reportSource, line);
+			List<NIBRSError> segmentErrors = s.setData(readerLocationName, lineNumber, line);
 			errorList.addAll(segmentErrors);
 			if (segmentErrors.isEmpty()) {
 				char level = s.getSegmentLevel();
@@ -115,7 +246,9 @@ public class IncidentBuilder extends AbstractIncidentBuilder {
 						|| level == GroupAIncidentReport.ADMIN_SEGMENT_TYPE_IDENTIFIER 
 						|| level == ArresteeSegment.GROUP_B_ARRESTEE_SEGMENT_TYPE_IDENTIFIER 
 						|| !Objects.equals(currentReport.getIdentifier(), s.getSegmentUniqueIdentifier())) {
-					handleNewReport(currentReport, errorList);
+					if (currentReport != null) {
+						reportHandler.newReport(currentReport, errorList);
+					}
 					errorList = new ArrayList<NIBRSError>();
 					currentReport = buildReport(errorList, s, readerLocationName);
 				} else {
@@ -131,11 +264,11 @@ public class IncidentBuilder extends AbstractIncidentBuilder {
 			lineNumber++;
 		}
 		
-		handleNewReport(currentReport, errorList);
-
-		log.info("finished processing file, read " + (lineNumber - 1) + " lines.");
-		log.info("Encountered " + getLogListener().errorCount + " error(s).");
-		log.info("Created " + getLogListener().reportCount + " incident(s).");
+		if (currentReport != null) {
+			reportHandler.newReport(currentReport, errorList);
+		}
+		
+		return lineNumber;
 
 	}
 
@@ -170,7 +303,7 @@ public class IncidentBuilder extends AbstractIncidentBuilder {
 		if (length == 43) {
 			ret.setMonthOfTape(getIntValueFromSegment(s, 7, 8, newErrorList, NIBRSErrorCode._001));
 			ret.setYearOfTape(getIntValueFromSegment(s, 9, 12, newErrorList, NIBRSErrorCode._001));
-			ret.setCityIndicator(StringUtils.getStringBetween(13, 16, s.getData()));
+			ret.setCityIndicator(s.getFields().getString(13, 16));
 		} else {
 			NIBRSError e = new NIBRSError();
 			e.setContext(s.getReportSource());
@@ -196,19 +329,19 @@ public class IncidentBuilder extends AbstractIncidentBuilder {
 		GroupBArrestReport ret = new GroupBArrestReport();
 		ArresteeSegment arrestee = new ArresteeSegment(ArresteeSegment.GROUP_B_ARRESTEE_SEGMENT_TYPE_IDENTIFIER);
 		arrestee.setParentReport(ret);
-		String segmentData = s.getData();
+		FixedWidthFieldReader fields = s.getFields();
 		ret.setOri(s.getOri());
 		ret.setReportActionType(s.getActionType());
 		int length = s.getSegmentLength();
 		if (length == 66) {
 			ret.setMonthOfTape(getIntValueFromSegment(s, 7, 8, newErrorList, NIBRSErrorCode._701));
 			ret.setYearOfTape(getIntValueFromSegment(s, 9, 12, newErrorList, NIBRSErrorCode._701));
-			ret.setCityIndicator(StringUtils.getStringBetween(13, 16, segmentData));
+			ret.setCityIndicator(fields.getString(13, 16));
 			
 			ParsedObject<Integer> sequenceNumber = arrestee.getArresteeSequenceNumber();
 			sequenceNumber.setMissing(false);
 			sequenceNumber.setInvalid(false);
-			String sequenceNumberString = StringUtils.getStringBetween(38, 39, segmentData);
+			String sequenceNumberString = fields.getString(38, 39);
 			if (sequenceNumberString == null) {
 				sequenceNumber.setMissing(true);
 				sequenceNumber.setValue(null);
@@ -232,25 +365,24 @@ public class IncidentBuilder extends AbstractIncidentBuilder {
 			
 			arrestee.setArresteeSequenceNumber(sequenceNumber);
 			
-			arrestee.setArrestTransactionNumber(StringUtils.getStringBetween(26, 37, segmentData));
+			arrestee.setArrestTransactionNumber(fields.getString(26, 37));
 			
 			ParsedObject<Date> arrestDate = arrestee.getArrestDate();
 			arrestDate.setMissing(false);
 			arrestDate.setInvalid(false);
-			String arrestDateString = StringUtils.getStringBetween(40, 47, segmentData);
-			if (arrestDateString == null) {
+			if (fields.isBlank(40, 47)) {
 				arrestDate.setMissing(true);
 				arrestDate.setValue(null);
 			} else {
 				try {
-					Date d = getDateFormat().parse(arrestDateString);
+					Date d = fields.getDate(40, 47);
 					arrestDate.setValue(d);
 				} catch (ParseException pe) {
 					NIBRSError e = new NIBRSError();
 					e.setContext(s.getReportSource());
 					e.setReportUniqueIdentifier(s.getSegmentUniqueIdentifier());
 					e.setSegmentType(s.getSegmentType());
-					e.setValue(arrestDateString);
+					e.setValue(fields.getString(40, 47));
 					e.setNIBRSErrorCode(NIBRSErrorCode._705);
 					e.setDataElementIdentifier("42");
 					newErrorList.add(e);
@@ -260,19 +392,19 @@ public class IncidentBuilder extends AbstractIncidentBuilder {
 			}
 			arrestee.setArrestDate(arrestDate);
 			
-			arrestee.setTypeOfArrest(StringUtils.getStringBetween(48, 48, segmentData));
-			arrestee.setUcrArrestOffenseCode(StringUtils.getStringBetween(49, 51, segmentData));
+			arrestee.setTypeOfArrest(fields.getString(48, 48));
+			arrestee.setUcrArrestOffenseCode(fields.getString(49, 51));
 			for (int i = 0; i < 2; i++) {
-				arrestee.setArresteeArmedWith(i, StringUtils.getStringBetween(52 + 3 * i, 53 + 3 * i, segmentData));
-				arrestee.setAutomaticWeaponIndicator(i, StringUtils.getStringBetween(54 + 3 * i, 54 + 3 * i, segmentData));
+				arrestee.setArresteeArmedWith(i, fields.getString(52 + 3 * i, 53 + 3 * i));
+				arrestee.setAutomaticWeaponIndicator(i, fields.getString(54 + 3 * i, 54 + 3 * i));
 			}
-			NIBRSAge arresteeAge = NIBRSAgeBuilder.buildAgeFromRawString(StringUtils.getStringBetween(58, 61, segmentData), arrestee);
+			NIBRSAge arresteeAge = NIBRSAgeBuilder.buildAgeFromRawString(fields.getString(58, 61), arrestee);
 			arrestee.setAge(arresteeAge);
-			arrestee.setSex(StringUtils.getStringBetween(62, 62, segmentData));
-			arrestee.setRace(StringUtils.getStringBetween(63, 63, segmentData));
-			arrestee.setEthnicity(StringUtils.getStringBetween(64, 64, segmentData));
-			arrestee.setResidentStatus(StringUtils.getStringBetween(65, 65, segmentData));
-			arrestee.setDispositionOfArresteeUnder18(StringUtils.getStringBetween(66, 66, segmentData));
+			arrestee.setSex(fields.getString(62, 62));
+			arrestee.setRace(fields.getString(63, 63));
+			arrestee.setEthnicity(fields.getString(64, 64));
+			arrestee.setResidentStatus(fields.getString(65, 65));
+			arrestee.setDispositionOfArresteeUnder18(fields.getString(66, 66));
 		} else {
 			NIBRSError e = new NIBRSError();
 			e.setContext(s.getReportSource());
@@ -308,29 +440,28 @@ public class IncidentBuilder extends AbstractIncidentBuilder {
 		newIncident.setIncidentNumber(s.getSegmentUniqueIdentifier());
 		newIncident.setOri(s.getOri());
 		newIncident.setReportActionType(s.getActionType());
-		String segmentData = s.getData();
+		FixedWidthFieldReader fields = s.getFields();
 		int length = s.getSegmentLength();
 		if (length == 87 || length == 88) {
 			newIncident.setMonthOfTape(getIntValueFromSegment(s, 7, 8, newErrorList, NIBRSErrorCode._101));
 			newIncident.setYearOfTape(getIntValueFromSegment(s, 9, 12, newErrorList, NIBRSErrorCode._101));
-			newIncident.setCityIndicator(StringUtils.getStringBetween(13, 16, segmentData));
+			newIncident.setCityIndicator(fields.getString(13, 16));
 			ParsedObject<Date> incidentDate = newIncident.getIncidentDate();
 			incidentDate.setMissing(false);
 			incidentDate.setInvalid(false);
-			String incidentDateString = StringUtils.getStringBetween(38, 45, segmentData);
-			if (incidentDateString == null) {
+			if (fields.isBlank(38, 45)) {
 				incidentDate.setMissing(true);
 				incidentDate.setValue(null);
 			} else {
 				try {
-					Date d = getDateFormat().parse(incidentDateString);
+					Date d = fields.getDate(38, 45);
 					incidentDate.setValue(d);
 				} catch (ParseException pe) {
 					NIBRSError e = new NIBRSError();
 					e.setContext(s.getReportSource());
 					e.setReportUniqueIdentifier(s.getSegmentUniqueIdentifier());
 					e.setSegmentType(s.getSegmentType());
-					e.setValue(incidentDateString);
+					e.setValue(fields.getString(38, 45));
 					e.setNIBRSErrorCode(NIBRSErrorCode._105);
 					e.setDataElementIdentifier("3");
 					newErrorList.add(e);
@@ -340,9 +471,9 @@ public class IncidentBuilder extends AbstractIncidentBuilder {
 			}
 			newIncident.setIncidentDate(incidentDate);
 			
-			newIncident.setReportDateIndicator(StringUtils.getStringBetween(46, 46, segmentData));
+			newIncident.setReportDateIndicator(fields.getString(46, 46));
 			
-			String hourString = StringUtils.getStringBetween(47, 48, segmentData);
+			String hourString = fields.getString(47, 48);
 			ParsedObject<Integer> hour = newIncident.getIncidentHour();
 			hour.setMissing(false);
 			hour.setInvalid(false);
@@ -380,25 +511,24 @@ public class IncidentBuilder extends AbstractIncidentBuilder {
 				hour.setMissing(true);
 			}
 			
-			newIncident.setExceptionalClearanceCode(StringUtils.getStringBetween(49, 49, segmentData));
+			newIncident.setExceptionalClearanceCode(fields.getString(49, 49));
 			
 			ParsedObject<Date> clearanceDate = newIncident.getExceptionalClearanceDate();
 			clearanceDate.setMissing(false);
 			clearanceDate.setInvalid(false);
-			String clearanceDateString = StringUtils.getStringBetween(50, 57, segmentData);
-			if (clearanceDateString == null) {
+			if (fields.isBlank(50, 57)) {
 				clearanceDate.setMissing(true);
 				clearanceDate.setValue(null);
 			} else {
 				try {
-					Date d = getDateFormat().parse(clearanceDateString);
+					Date d = fields.getDate(50, 57);
 					clearanceDate.setValue(d);
 				} catch (ParseException pe) {
 					NIBRSError e = new NIBRSError();
 					e.setContext(s.getReportSource());
 					e.setReportUniqueIdentifier(s.getSegmentUniqueIdentifier());
 					e.setSegmentType(s.getSegmentType());
-					e.setValue(clearanceDateString);
+					e.setValue(fields.getString(50, 57));
 					e.setNIBRSErrorCode(NIBRSErrorCode._105);
 					e.setDataElementIdentifier("5");
 					newErrorList.add(e);
@@ -410,7 +540,7 @@ public class IncidentBuilder extends AbstractIncidentBuilder {
 			
 			boolean cargoTheft = length == 88;
 			if (cargoTheft) {
-				String cargoTheftYN = StringUtils.getStringBetween(88, 88, segmentData);
+				String cargoTheftYN = fields.getString(88, 88);
 				
 				if (org.apache.commons.lang3.StringUtils.isNotBlank(cargoTheftYN)){
 					newIncident.setCargoTheftIndicator(cargoTheftYN);
@@ -449,12 +579,12 @@ public class IncidentBuilder extends AbstractIncidentBuilder {
 		newIncident.setIncidentNumber(s.getSegmentUniqueIdentifier());
 		newIncident.setOri(s.getOri());
 		newIncident.setReportActionType(s.getActionType());
-		String segmentData = s.getData();
+		FixedWidthFieldReader fields = s.getFields();
 		int length = s.getSegmentLength();
 		if (length >=38 ) {
 			newIncident.setMonthOfTape(getIntValueFromSegment(s, 7, 8, newErrorList, NIBRSErrorCode._101));
 			newIncident.setYearOfTape(getIntValueFromSegment(s, 9, 12, newErrorList, NIBRSErrorCode._101));
-			newIncident.setCityIndicator(StringUtils.getStringBetween(13, 16, segmentData));
+			newIncident.setCityIndicator(fields.getString(13, 16));
 		}
 		
 		NIBRSError e = new NIBRSError();
@@ -470,11 +600,15 @@ public class IncidentBuilder extends AbstractIncidentBuilder {
 	}
 
 	private Integer getIntValueFromSegment(Segment s, int startPos, int endPos, List<NIBRSError> errorList, NIBRSErrorCode errorCode) {
-		String sv = StringUtils.getStringBetween(startPos, endPos, s.getData());
+		FixedWidthFieldReader fields = s.getFields();
 		Integer i = null;
 		try {
-			i = new Integer(sv);
+			i = fields.getInteger(startPos, endPos);
 		} catch (NumberFormatException nfe) {
+			// handled below
+		}
+		if (i == null) {
+			String sv = fields.getString(startPos, endPos);
 			NIBRSError e = new NIBRSError();
 			e.setContext(s.getReportSource());
 			e.setReportUniqueIdentifier(s.getSegmentUniqueIdentifier());
@@ -490,23 +624,23 @@ public class IncidentBuilder extends AbstractIncidentBuilder {
 	private final void addSegmentToIncident(GroupAIncidentReport currentIncident, Segment s, List<NIBRSError> errorList) {
 		if (Objects.isNull(currentIncident)) return; 
 		
-		List<NIBRSError> newErrorList = new ArrayList<>();
+		int errorListSize = errorList.size();
 		char segmentType = s.getSegmentType();
 		switch (segmentType) {
 		case OffenseSegment.OFFENSE_SEGMENT_TYPE_IDENTIFIER:
-			currentIncident.addOffense(buildOffenseSegment(s, currentIncident, newErrorList));
+			currentIncident.addOffense(buildOffenseSegment(s, currentIncident, errorList));
 			break;
 		case PropertySegment.PROPERTY_SEGMENT_TYPE_IDENTIFIER:
-			currentIncident.addProperty(buildPropertySegment(s, currentIncident, newErrorList));
+			currentIncident.addProperty(buildPropertySegment(s, currentIncident, errorList));
 			break;
 		case VictimSegment.VICTIM_SEGMENT_TYPE_IDENTIFIER:
-			currentIncident.addVictim(buildVictimSegment(s, currentIncident, newErrorList));
+			currentIncident.addVictim(buildVictimSegment(s, currentIncident, errorList));
 			break;
 		case OffenderSegment.OFFENDER_SEGMENT_TYPE_IDENTIFIER:
-			currentIncident.addOffender(buildOffenderSegment(s, currentIncident, newErrorList));
+			currentIncident.addOffender(buildOffenderSegment(s, currentIncident, errorList));
 			break;
 		case ArresteeSegment.GROUP_A_ARRESTEE_SEGMENT_TYPE_IDENTIFIER:
-			currentIncident.addArrestee(buildGroupAArresteeSegment(s, currentIncident, newErrorList));
+			currentIncident.addArrestee(buildGroupAArresteeSegment(s, currentIncident, errorList));
 			break;
 		default:
 			NIBRSError error = new NIBRSError();
@@ -514,25 +648,24 @@ public class IncidentBuilder extends AbstractIncidentBuilder {
 			error.setReportUniqueIdentifier(s.getSegmentUniqueIdentifier());
 			error.setNIBRSErrorCode(NIBRSErrorCode._051);
 			error.setValue(segmentType);
-			newErrorList.add(error);
+			errorList.add(error);
 		}
-		for (NIBRSError e : newErrorList) {
-			e.setReport(currentIncident);
+		for (int i = errorListSize; i < errorList.size(); i++) {
+			errorList.get(i).setReport(currentIncident);
 		}
-		errorList.addAll(newErrorList);
 	}
 
 	private ArresteeSegment buildGroupAArresteeSegment(Segment s, GroupAIncidentReport parent, List<NIBRSError> errorList) {
 		ArresteeSegment newArrestee = new ArresteeSegment(ArresteeSegment.GROUP_A_ARRESTEE_SEGMENT_TYPE_IDENTIFIER);
 		newArrestee.setParentReport(parent);
-		String segmentData = s.getData();
+		FixedWidthFieldReader fields = s.getFields();
 		int length = s.getSegmentLength();
 		if (length == FlatfileConstants.GROUP_A_ARRESTEE_SEGMENT_LENGTH) {
 			
 			ParsedObject<Integer> sequenceNumber = newArrestee.getArresteeSequenceNumber();
 			sequenceNumber.setMissing(false);
 			sequenceNumber.setInvalid(false);
-			String sequenceNumberString = StringUtils.getStringBetween(38, 39, segmentData);
+			String sequenceNumberString = fields.getString(38, 39);
 			if (sequenceNumberString == null) {
 				sequenceNumber.setMissing(true);
 				sequenceNumber.setValue(null);
@@ -556,25 +689,24 @@ public class IncidentBuilder extends AbstractIncidentBuilder {
 			
 			newArrestee.setArresteeSequenceNumber(sequenceNumber);
 			
-			newArrestee.setArrestTransactionNumber(StringUtils.getStringBetween(40, 51, segmentData));
+			newArrestee.setArrestTransactionNumber(fields.getString(40, 51));
 			
 			ParsedObject<Date> arrestDate = newArrestee.getArrestDate();
 			arrestDate.setMissing(false);
 			arrestDate.setInvalid(false);
-			String arrestDateString = StringUtils.getStringBetween(52, 59, segmentData);
-			if (arrestDateString == null) {
+			if (fields.isBlank(52, 59)) {
 				arrestDate.setMissing(true);
 				arrestDate.setValue(null);
 			} else {
 				try {
-					Date d = getDateFormat().parse(arrestDateString);
+					Date d = fields.getDate(52, 59);
 					arrestDate.setValue(d);
 				} catch (ParseException pe) {
 					NIBRSError e = new NIBRSError();
 					e.setContext(s.getReportSource());
 					e.setReportUniqueIdentifier(s.getSegmentUniqueIdentifier());
 					e.setSegmentType(s.getSegmentType());
-					e.setValue(arrestDateString);
+					e.setValue(fields.getString(52, 59));
 					e.setNIBRSErrorCode(NIBRSErrorCode._705);
 					e.setDataElementIdentifier("42");
 					errorList.add(e);
@@ -584,22 +716,22 @@ public class IncidentBuilder extends AbstractIncidentBuilder {
 			}
 			newArrestee.setArrestDate(arrestDate);
 			
-			newArrestee.setTypeOfArrest(StringUtils.getStringBetween(60, 60, segmentData));
-			newArrestee.setMultipleArresteeSegmentsIndicator(StringUtils.getStringBetween(61, 61, segmentData));
-			newArrestee.setUcrArrestOffenseCode(StringUtils.getStringBetween(62, 64, segmentData));
+			newArrestee.setTypeOfArrest(fields.getString(60, 60));
+			newArrestee.setMultipleArresteeSegmentsIndicator(fields.getString(61, 61));
+			newArrestee.setUcrArrestOffenseCode(fields.getString(62, 64));
 			for (int i = 0; i < ArresteeSegment.ARRESTEE_ARMED_WITH_COUNT; i++) {
-				newArrestee.setArresteeArmedWith(i, StringUtils.getStringBetween(65 + 3 * i, 66 + 3 * i, segmentData));
+				newArrestee.setArresteeArmedWith(i, fields.getString(65 + 3 * i, 66 + 3 * i));
 			}
 			for (int i = 0; i < ArresteeSegment.AUTOMATIC_WEAPON_INDICATOR_COUNT; i++) {
-				newArrestee.setAutomaticWeaponIndicator(i, StringUtils.getStringBetween(67 + 3 * i, 67 + 3 * i, segmentData));
+				newArrestee.setAutomaticWeaponIndicator(i, fields.getString(67 + 3 * i, 67 + 3 * i));
 			}
-			NIBRSAge arresteeAge = NIBRSAgeBuilder.buildAgeFromRawString(StringUtils.getStringBetween(71, 74, segmentData), newArrestee);
+			NIBRSAge arresteeAge = NIBRSAgeBuilder.buildAgeFromRawString(fields.getString(71, 74), newArrestee);
 			newArrestee.setAge(arresteeAge);
-			newArrestee.setSex(StringUtils.getStringBetween(75, 75, segmentData));
-			newArrestee.setRace(StringUtils.getStringBetween(76, 76, segmentData));
-			newArrestee.setEthnicity(StringUtils.getStringBetween(77, 77, segmentData));
-			newArrestee.setResidentStatus(StringUtils.getStringBetween(78, 78, segmentData));
-			newArrestee.setDispositionOfArresteeUnder18(StringUtils.getStringBetween(79, 79, segmentData));
+			newArrestee.setSex(fields.getString(75, 75));
+			newArrestee.setRace(fields.getString(76, 76));
+			newArrestee.setEthnicity(fields.getString(77, 77));
+			newArrestee.setResidentStatus(fields.getString(78, 78));
+			newArrestee.setDispositionOfArresteeUnder18(fields.getString(79, 79));
 		} else {
 			NIBRSError e = new NIBRSError();
 			e.setContext(s.getReportSource());
@@ -615,14 +747,14 @@ public class IncidentBuilder extends AbstractIncidentBuilder {
 	private OffenderSegment buildOffenderSegment(Segment s, GroupAIncidentReport parent, List<NIBRSError> errorList) {
 		OffenderSegment newOffender = new OffenderSegment();
 		newOffender.setParentReport(parent);
-		String segmentData = s.getData();
+		FixedWidthFieldReader fields = s.getFields();
 		int length = s.getSegmentLength();
 		if (length == FlatfileConstants.OFFENDER_WITHOUT_ETHNICITY_SEGMENT_LENGTH || length == FlatfileConstants.OFFENDER_WITH_ETHNICITY_SEGMENT_LENGTH) {
 			
 			ParsedObject<Integer> sequenceNumber = newOffender.getOffenderSequenceNumber();
 			sequenceNumber.setMissing(false);
 			sequenceNumber.setInvalid(false);
-			String sequenceNumberString = StringUtils.getStringBetween(38, 39, segmentData);
+			String sequenceNumberString = fields.getString(38, 39);
 			if (sequenceNumberString == null) {
 				sequenceNumber.setMissing(true);
 				sequenceNumber.setValue(null);
@@ -644,13 +776,13 @@ public class IncidentBuilder extends AbstractIncidentBuilder {
 				}
 			}
 			
-			NIBRSAge offenderAge = NIBRSAgeBuilder.buildAgeFromRawString(StringUtils.getStringBetween(40, 43, segmentData), newOffender);
+			NIBRSAge offenderAge = NIBRSAgeBuilder.buildAgeFromRawString(fields.getString(40, 43), newOffender);
 			newOffender.setAge(offenderAge);
-			newOffender.setSex(StringUtils.getStringBetween(44, 44, segmentData));
-			newOffender.setRace(StringUtils.getStringBetween(45, 45, segmentData));
+			newOffender.setSex(fields.getString(44, 44));
+			newOffender.setRace(fields.getString(45, 45));
 			boolean hasOffenderEthnicity = length == FlatfileConstants.OFFENDER_WITH_ETHNICITY_SEGMENT_LENGTH;
 			if (hasOffenderEthnicity) {
-				newOffender.setEthnicity(StringUtils.getStringBetween(46, 46, segmentData));
+				newOffender.setEthnicity(fields.getString(46, 46));
 			}
 		} else {
 			NIBRSError e = new NIBRSError();
@@ -668,7 +800,7 @@ public class IncidentBuilder extends AbstractIncidentBuilder {
 
 		VictimSegment newVictim = new VictimSegment();
 		newVictim.setParentReport(parentIncident);
-		String segmentData = s.getData();
+		FixedWidthFieldReader fields = s.getFields();
 		int length = s.getSegmentLength();
 
 // comment out temporarily for Hawaii file validation. TODO  -hw		
@@ -678,7 +810,7 @@ public class IncidentBuilder extends AbstractIncidentBuilder {
 			ParsedObject<Integer> sequenceNumber = newVictim.getVictimSequenceNumber();
 			sequenceNumber.setMissing(false);
 			sequenceNumber.setInvalid(false);
-			String sequenceNumberString = StringUtils.getStringBetween(38, 40, segmentData);
+			String sequenceNumberString = fields.getString(38, 40);
 			if (sequenceNumberString == null) {
 				sequenceNumber.setMissing(true);
 				sequenceNumber.setValue(null);
@@ -701,10 +833,10 @@ public class IncidentBuilder extends AbstractIncidentBuilder {
 			}
 
 			for (int i = 0; i < VictimSegment.UCR_OFFENSE_CODE_CONNECTION_COUNT; i++) {
-				newVictim.setUcrOffenseCodeConnection(i, StringUtils.getStringBetween(41 + 3 * i, 43 + 3 * i, segmentData));
+				newVictim.setUcrOffenseCodeConnection(i, fields.getString(41 + 3 * i, 43 + 3 * i));
 			}
 			for (int i = 0; i < VictimSegment.OFFENDER_NUMBER_RELATED_COUNT; i++) {
-				String offenderNumberRelatedString = StringUtils.getStringBetween(90 + 4 * i, 91 + 4 * i, segmentData);
+				String offenderNumberRelatedString = fields.getString(90 + 4 * i, 91 + 4 * i);
 				ParsedObject<Integer> offenderNumberRelated = newVictim.getOffenderNumberRelated(i);
 				offenderNumberRelated.setInvalid(false);
 				offenderNumberRelated.setMissing(false);
@@ -720,7 +852,7 @@ public class IncidentBuilder extends AbstractIncidentBuilder {
 						e.setContext(s.getReportSource());
 						e.setReportUniqueIdentifier(s.getSegmentUniqueIdentifier());
 						e.setSegmentType(s.getSegmentType());
-						e.setValue(StringUtils.getStringBetween(90 + 4 * i, 91 + 4 * i, segmentData));
+						e.setValue(fields.getString(90 + 4 * i, 91 + 4 * i));
 						e.setNIBRSErrorCode(NIBRSErrorCode._402);
 						e.setWithinSegmentIdentifier(sequenceNumberI);
 						e.setDataElementIdentifier("34");
@@ -731,32 +863,32 @@ public class IncidentBuilder extends AbstractIncidentBuilder {
 				}
 			}
 			for (int i = 0; i < VictimSegment.OFFENDER_NUMBER_RELATED_COUNT; i++) {
-				newVictim.setVictimOffenderRelationship(i, StringUtils.getStringBetween(92 + 4 * i, 93 + 4 * i, segmentData));
+				newVictim.setVictimOffenderRelationship(i, fields.getString(92 + 4 * i, 93 + 4 * i));
 			}
 
-			newVictim.setTypeOfVictim(StringUtils.getStringBetween(71, 71, segmentData));
+			newVictim.setTypeOfVictim(fields.getString(71, 71));
 			
-			NIBRSAge victimAge = NIBRSAgeBuilder.buildAgeFromRawString(StringUtils.getStringBetween(72, 75, segmentData), newVictim);
+			NIBRSAge victimAge = NIBRSAgeBuilder.buildAgeFromRawString(fields.getString(72, 75), newVictim);
 			newVictim.setAge(victimAge);
 			
-			newVictim.setSex(StringUtils.getStringBetween(76, 76, segmentData));
-			newVictim.setRace(StringUtils.getStringBetween(77, 77, segmentData));
-			newVictim.setEthnicity(StringUtils.getStringBetween(78, 78, segmentData));
-			newVictim.setResidentStatus(StringUtils.getStringBetween(79, 79, segmentData));
-			newVictim.setAggravatedAssaultHomicideCircumstances(0, StringUtils.getStringBetween(80, 81, segmentData));
-			newVictim.setAggravatedAssaultHomicideCircumstances(1, StringUtils.getStringBetween(82, 83, segmentData));
-			newVictim.setAdditionalJustifiableHomicideCircumstances(StringUtils.getStringBetween(84, 84, segmentData));
+			newVictim.setSex(fields.getString(76, 76));
+			newVictim.setRace(fields.getString(77, 77));
+			newVictim.setEthnicity(fields.getString(78, 78));
+			newVictim.setResidentStatus(fields.getString(79, 79));
+			newVictim.setAggravatedAssaultHomicideCircumstances(0, fields.getString(80, 81));
+			newVictim.setAggravatedAssaultHomicideCircumstances(1, fields.getString(82, 83));
+			newVictim.setAdditionalJustifiableHomicideCircumstances(fields.getString(84, 84));
 
 			for (int i = 0; i < VictimSegment.TYPE_OF_INJURY_COUNT; i++) {
-				newVictim.setTypeOfInjury(i, StringUtils.getStringBetween(85 + i, 85 + i, segmentData));
+				newVictim.setTypeOfInjury(i, fields.getString(85 + i, 85 + i));
 			}
 
 			boolean leoka = length == 141;
 
 			if (leoka) {
-				newVictim.setTypeOfOfficerActivityCircumstance(StringUtils.getStringBetween(130, 131, segmentData));
-				newVictim.setOfficerAssignmentType(StringUtils.getStringBetween(132, 132, segmentData));
-				newVictim.setOfficerOtherJurisdictionORI(StringUtils.getStringBetween(133, 141, segmentData));
+				newVictim.setTypeOfOfficerActivityCircumstance(fields.getString(130, 131));
+				newVictim.setOfficerAssignmentType(fields.getString(132, 132));
+				newVictim.setOfficerOtherJurisdictionORI(fields.getString(133, 141));
 			}
 			
 			parentIncident.setIncludesLeoka(leoka);
@@ -780,19 +912,19 @@ public class IncidentBuilder extends AbstractIncidentBuilder {
 
 		PropertySegment newProperty = new PropertySegment();
 		newProperty.setParentReport(parentIncident);
-		String segmentData = s.getData();
+		FixedWidthFieldReader fields = s.getFields();
 		int length = s.getSegmentLength();
 
 		if (length == FlatfileConstants.PROPERTY_SEGMENT_LENGTH) {
 
-			String typeOfPropertyLoss = StringUtils.getStringBetween(38, 38, segmentData);
+			String typeOfPropertyLoss = fields.getString(38, 38);
 			newProperty.setTypeOfPropertyLoss(typeOfPropertyLoss);
 
 			for (int i = 0; i < PropertySegment.PROPERTY_DESCRIPTION_COUNT; i++) {
-				newProperty.setPropertyDescription(i, StringUtils.getStringBetween(39 + 19 * i, 40 + 19 * i, segmentData));
+				newProperty.setPropertyDescription(i, fields.getString(39 + 19 * i, 40 + 19 * i));
 			}
 			for (int i = 0; i < PropertySegment.VALUE_OF_PROPERTY_COUNT; i++) {
-				String propertyValueString = StringUtils.getStringBetween(41 + 19 * i, 49 + 19 * i, segmentData);
+				String propertyValueString = fields.getString(41 + 19 * i, 49 + 19 * i);
 				ParsedObject<Integer> propertyValue = newProperty.getValueOfProperty(i);
 				propertyValue.setInvalid(false);
 				propertyValue.setMissing(false);
@@ -830,20 +962,19 @@ public class IncidentBuilder extends AbstractIncidentBuilder {
 				ParsedObject<Date> d = newProperty.getDateRecovered(i);
 				d.setMissing(false);
 				d.setInvalid(false);
-				String ds = StringUtils.getStringBetween(50 + 19 * i, 57 + 19 * i, segmentData);
-				if (ds == null) {
+				if (fields.isBlank(50 + 19 * i, 57 + 19 * i)) {
 					d.setMissing(true);
 					d.setValue(null);
 				} else {
 					try {
-						Date dd = getDateFormat().parse(ds);
+						Date dd = fields.getDate(50 + 19 * i, 57 + 19 * i);
 						d.setValue(dd);
 					} catch (ParseException pe) {
 						NIBRSError e = new NIBRSError();
 						e.setContext(s.getReportSource());
 						e.setReportUniqueIdentifier(s.getSegmentUniqueIdentifier());
 						e.setSegmentType(s.getSegmentType());
-						e.setValue(ds);
+						e.setValue(fields.getString(50 + 19 * i, 57 + 19 * i));
 						e.setNIBRSErrorCode(NIBRSErrorCode._305);
 						e.setDataElementIdentifier("17");
 						errorList.add(e);
@@ -854,13 +985,13 @@ public class IncidentBuilder extends AbstractIncidentBuilder {
 				
 			}
 
-			parseIntegerObject(segmentData, newProperty.getNumberOfStolenMotorVehicles(), 229, 230);
-			parseIntegerObject(segmentData, newProperty.getNumberOfRecoveredMotorVehicles(), 231, 232);
+			parseIntegerObject(fields, newProperty.getNumberOfStolenMotorVehicles(), 229, 230);
+			parseIntegerObject(fields, newProperty.getNumberOfRecoveredMotorVehicles(), 231, 232);
 
 			for (int i = 0; i < PropertySegment.SUSPECTED_DRUG_TYPE_COUNT; i++) {
-				newProperty.setSuspectedDrugType(i, StringUtils.getStringBetween(233 + 15 * i, 233 + 15 * i, segmentData));
-				String drugQuantityWholePartString = StringUtils.getStringBetween(234 + 15 * i, 242 + 15 * i, segmentData);
-				String drugQuantityFractionalPartString = StringUtils.getStringBetween(243 + 15 * i, 245 + 15 * i, segmentData);
+				newProperty.setSuspectedDrugType(i, fields.getString(233 + 15 * i, 233 + 15 * i));
+				String drugQuantityWholePartString = fields.getString(234 + 15 * i, 242 + 15 * i);
+				String drugQuantityFractionalPartString = fields.getString(243 + 15 * i, 245 + 15 * i);
 				if (drugQuantityWholePartString != null || drugQuantityFractionalPartString != null) {
 					String fractionalValueString = "000";
 					String value = org.apache.commons.lang3.StringUtils.isBlank(drugQuantityWholePartString)? "0":drugQuantityWholePartString.trim();
@@ -896,7 +1027,7 @@ public class IncidentBuilder extends AbstractIncidentBuilder {
 					newProperty.setEstimatedDrugQuantity(i, ParsedObject.getMissingParsedObject());
 				}
 				
-				newProperty.setTypeDrugMeasurement(i, StringUtils.getStringBetween(246 + 15 * i, 247 + 15 * i, segmentData));
+				newProperty.setTypeDrugMeasurement(i, fields.getString(246 + 15 * i, 247 + 15 * i));
 			}
 
 		} else {
@@ -913,7 +1044,7 @@ public class IncidentBuilder extends AbstractIncidentBuilder {
 
 	}
 
-	private void parseIntegerObject(String segmentData,
+	private void parseIntegerObject(FixedWidthFieldReader fields,
 			ParsedObject<Integer> parsedObject, 
 			int startPosition, 
 			int endPosition) {
@@ -922,7 +1053,7 @@ public class IncidentBuilder extends AbstractIncidentBuilder {
 		parsedObject.setInvalid(false);
 		
 		String parsedString = 
-				StringUtils.getStringBetween(startPosition, endPosition, segmentData);
+				fields.getString(startPosition, endPosition);
 		if (parsedString == null) {
 			parsedObject.setMissing(true);
 			parsedObject.setValue(null);
@@ -940,16 +1071,16 @@ public class IncidentBuilder extends AbstractIncidentBuilder {
 		OffenseSegment newOffense = new OffenseSegment();
 		newOffense.setParentReport(parentIncident);
 
-		String segmentData = s.getData();
+		FixedWidthFieldReader fields = s.getFields();
 		int length = s.getSegmentLength();
 
 		if (length == FlatfileConstants.OFFENSE_SINGLE_BIAS_SEGMENT_LENGTH || length == FlatfileConstants.OFFENSE_MULTIPLE_BIAS_SEGMENT_LENGTH) {
 
-			newOffense.setUcrOffenseCode(StringUtils.getStringBetween(38, 40, segmentData));
-			newOffense.setOffenseAttemptedCompleted(StringUtils.getStringBetween(41, 41, segmentData));
-			newOffense.setLocationType(StringUtils.getStringBetween(45, 46, segmentData));
+			newOffense.setUcrOffenseCode(fields.getString(38, 40));
+			newOffense.setOffenseAttemptedCompleted(fields.getString(41, 41));
+			newOffense.setLocationType(fields.getString(45, 46));
 			
-			String premisesEnteredString = StringUtils.getStringBetween(47, 48, segmentData);
+			String premisesEnteredString = fields.getString(47, 48);
 			ParsedObject<Integer> premisesEntered = newOffense.getNumberOfPremisesEntered();
 			
 			if (premisesEnteredString == null) {
@@ -978,25 +1109,25 @@ public class IncidentBuilder extends AbstractIncidentBuilder {
 				
 			}
 			
-			newOffense.setMethodOfEntry(StringUtils.getStringBetween(49, 49, segmentData));
+			newOffense.setMethodOfEntry(fields.getString(49, 49));
 
 			int biasMotivationFields = length == FlatfileConstants.OFFENSE_SINGLE_BIAS_SEGMENT_LENGTH ? 1 : OffenseSegment.BIAS_MOTIVATION_COUNT;
 
 			for (int i = 0; i < biasMotivationFields; i++) {
-				newOffense.setBiasMotivation(i, StringUtils.getStringBetween(62 + 2*i, 63 + 2*i, segmentData));
+				newOffense.setBiasMotivation(i, fields.getString(62 + 2*i, 63 + 2*i));
 			}
 
 			for (int i = 0; i < OffenseSegment.OFFENDERS_SUSPECTED_OF_USING_COUNT; i++) {
-				newOffense.setOffendersSuspectedOfUsing(i, StringUtils.getStringBetween(42 + i, 42 + i, segmentData));
+				newOffense.setOffendersSuspectedOfUsing(i, fields.getString(42 + i, 42 + i));
 			}
 			for (int i = 0; i < OffenseSegment.TYPE_OF_CRIMINAL_ACTIVITY_COUNT; i++) {
-				newOffense.setTypeOfCriminalActivity(i, StringUtils.getStringBetween(50 + i, 50 + i, segmentData));
+				newOffense.setTypeOfCriminalActivity(i, fields.getString(50 + i, 50 + i));
 			}
 			for (int i = 0; i < OffenseSegment.TYPE_OF_WEAPON_FORCE_INVOLVED_COUNT; i++) {
-				newOffense.setTypeOfWeaponForceInvolved(i, StringUtils.getStringBetween(53 + 3 * i, 54 + 3 * i, segmentData));
+				newOffense.setTypeOfWeaponForceInvolved(i, fields.getString(53 + 3 * i, 54 + 3 * i));
 			}
 			for (int i = 0; i < OffenseSegment.AUTOMATIC_WEAPON_INDICATOR_COUNT; i++) {
-				newOffense.setAutomaticWeaponIndicator(i, StringUtils.getStringBetween(55 + 3 * i, 55 + 3 * i, segmentData));
+				newOffense.setAutomaticWeaponIndicator(i, fields.getString(55 + 3 * i, 55 + 3 * i));
 			}
 
 		} else {
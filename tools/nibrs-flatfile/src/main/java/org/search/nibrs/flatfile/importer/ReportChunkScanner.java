@@ -0,0 +1,162 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.flatfile.importer;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.search.nibrs.model.ArresteeSegment;
+import org.search.nibrs.model.GroupAIncidentReport;
+import org.search.nibrs.model.ZeroReport;
+
+/**
+ * Splits a memory-mapped NIBRS flat file into chunks that can be parsed independently of each other.
+ * <br/>
+ * Every chunk after the first begins with a segment that the IncidentBuilder would treat as the start of a new report (a well-formed
+ * Administrative, Group B Arrest or Zero Report segment), so parsing the chunks one after another produces exactly the reports that parsing
+ * the whole file would.  The scanner counts lines as it goes, so each chunk knows the line number of its first line.  Lines end with \n, \r\n
+ * or \r, as for BufferedReader.readLine().
+ */
+class ReportChunkScanner {
+
+	private static final int WINDOW_SIZE = 64 * 1024 * 1024;
+
+	// the shortest line that Segment accepts, and that the scanner therefore needs to see before splitting at it
+	private static final int MINIMUM_SEGMENT_LENGTH = 37;
+
+	static final class Chunk {
+
+		private final long offset;
+		private final long length;
+		private final int firstLineNumber;
+
+		Chunk(long offset, long length, int firstLineNumber) {
+			this.offset = offset;
+			this.length = length;
+			this.firstLineNumber = firstLineNumber;
+		}
+
+		long getOffset() {
+			return offset;
+		}
+
+		long getLength() {
+			return length;
+		}
+
+		int getFirstLineNumber() {
+			return firstLineNumber;
+		}
+
+	}
+
+	private final FileChannel channel;
+	private final long size;
+	private final long targetChunkSize;
+
+	private MappedByteBuffer window;
+	private long windowStart;
+	private long position;
+	private int lineNumber = 1;
+
+	/**
+	 * Create a scanner.
+	 * @param channel the channel for the file
+	 * @param targetChunkSize the size in bytes at which a chunk is ended at the next report boundary
+	 */
+	ReportChunkScanner(FileChannel channel, long targetChunkSize) throws IOException {
+		this.channel = channel;
+		this.size = channel.size();
+		this.targetChunkSize = targetChunkSize;
+	}
+
+	/**
+	 * Find the next chunk of the file.
+	 * @return the chunk, or null if the whole file has been scanned
+	 */
+	Chunk next() throws IOException {
+
+		if (position >= size) {
+			return null;
+		}
+
+		long chunkStart = position;
+		int chunkFirstLineNumber = lineNumber;
+		long minimumEnd = chunkStart + targetChunkSize;
+		long p = position;
+
+		while (p < size) {
+			byte b = byteAt(p++);
+			if (b == '\n' || (b == '\r' && (p == size || byteAt(p) != '\n'))) {
+				lineNumber++;
+				if (p >= minimumEnd && isReportStart(p)) {
+					break;
+				}
+			}
+		}
+
+		position = p;
+		return new Chunk(chunkStart, p - chunkStart, chunkFirstLineNumber);
+
+	}
+
+	/**
+	 * Whether the line at the specified position is one that starts a new report.  This errs on the side of caution: a line with anything
+	 * unusual in its first 37 bytes (such as a non-ASCII character) is not split at, which is always safe, since the IncidentBuilder makes the
+	 * final decision about where reports start.
+	 */
+	private boolean isReportStart(long lineStart) throws IOException {
+		if (lineStart + MINIMUM_SEGMENT_LENGTH > size) {
+			return false;
+		}
+		for (long p = lineStart; p < lineStart + MINIMUM_SEGMENT_LENGTH; p++) {
+			byte b = byteAt(p);
+			if (b < 0 || b == '\n' || b == '\r') {
+				return false;
+			}
+		}
+		// the segment length must be a number (possibly padded with spaces), or Segment rejects the line
+		boolean digitSeen = false;
+		boolean trailingSpaceSeen = false;
+		for (long p = lineStart; p < lineStart + 4; p++) {
+			byte b = byteAt(p);
+			if (b >= '0' && b <= '9') {
+				if (trailingSpaceSeen) {
+					return false;
+				}
+				digitSeen = true;
+			} else if (b <= ' ') {
+				trailingSpaceSeen = digitSeen;
+			} else {
+				return false;
+			}
+		}
+		byte level = byteAt(lineStart + 4);
+		return digitSeen && (level == GroupAIncidentReport.ADMIN_SEGMENT_TYPE_IDENTIFIER
+				|| level == ArresteeSegment.GROUP_B_ARRESTEE_SEGMENT_TYPE_IDENTIFIER
+				|| level == ZeroReport.ZERO_REPORT_TYPE_IDENTIFIER);
+	}
+
+	private byte byteAt(long p) throws IOException {
+		if (window == null || p < windowStart || p >= windowStart + window.limit()) {
+			windowStart = p;
+			window = channel.map(FileChannel.MapMode.READ_ONLY, p, Math.min(WINDOW_SIZE, size - p));
+		}
+		return window.get((int) (p - windowStart));
+	}
+
+}
@@ -16,13 +16,14 @@
 package org.search.nibrs.flatfile.importer;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.search.nibrs.common.NIBRSError;
 import org.search.nibrs.common.ReportSource;
-import org.search.nibrs.flatfile.util.*;
+import org.search.nibrs.flatfile.util.FixedWidthFieldReader;
 import org.search.nibrs.model.codes.NIBRSErrorCode;
 
 /**
@@ -38,10 +39,13 @@ public class Segment
     private String ori;
     private char segmentType;
     private char actionType;
-    private String data;
+    private CharSequence data;
     private int segmentLength;
     private char segmentLevel;
     private ReportSource reportSource;
+    private String sourceName;
+    private int lineNumber;
+    private FixedWidthFieldReader fields;
     
     public char getSegmentLevel() {
 		return segmentLevel;
@@ -49,59 +53,90 @@ public class Segment
 
 	public List<NIBRSError> setData(ReportSource reportSource, String data)
     {
-    	List<NIBRSError> ret = new ArrayList<NIBRSError>();
-        this.data = data;
         this.reportSource = reportSource;
+        return setData(data);
+    }
+
+	/**
+	 * Set the data of a segment read from a line of a file.  The data may be a view of a line buffer that is reused for the next line, so
+	 * the segment must be finished with before then.  The ReportSource is only created when something asks for it, which for most
+	 * segments is never.
+	 */
+	List<NIBRSError> setData(String sourceName, int lineNumber, CharSequence data)
+    {
+        this.reportSource = null;
+        this.sourceName = sourceName;
+        this.lineNumber = lineNumber;
+        return setData(data);
+    }
+
+	private List<NIBRSError> setData(CharSequence data)
+    {
+    	List<NIBRSError> ret = Collections.emptyList();
+        this.data = data;
+        this.fields = new FixedWidthFieldReader(data);
         NIBRSError e = null;
         if (data == null || data.length() < 37) {
         	e = new NIBRSError();
-        	e.setContext(reportSource);
+        	e.setContext(getReportSource());
         	e.setNIBRSErrorCode(NIBRSErrorCode._001);
         	e.setDataElementIdentifier("Segment Length");
         	if (data != null) {
         		e.setValue(data.length());
         	}
+			ret = new ArrayList<NIBRSError>();
 			ret.add(e);
         }
 		if (data.length() >= 5) {
-			segmentType = StringUtils.getStringBetween(5, 5, data).charAt(0);
+			segmentType = fields.getString(5, 5).charAt(0);
 			if (e != null) {
 				e.setSegmentType(segmentType);
 			}
 		}
 		if (e == null) {
-			String sv = StringUtils.getStringBetween(1, 4, data);
-	        Integer i = null;
+			String sv = fields.getString(1, 4);
 	        try {
-				i = Integer.parseInt(sv);
-				this.segmentLength = i;
+				this.segmentLength = Integer.parseInt(sv);
+		        if (segmentLength != data.length()) {
+		        	LOG.warn("Warning at line " + getReportSource().getSourceLocation() + ":  expected segment length of " + segmentLength + ", actual length was " + data.length());
+		        }
 	        } catch (NumberFormatException nfe) {
 	        	e = new NIBRSError();
-	        	e.setContext(reportSource);
+	        	e.setContext(getReportSource());
 	        	e.setNIBRSErrorCode(NIBRSErrorCode._001);
 	        	e.setDataElementIdentifier("Segment Length");
 	        	e.setValue(sv);
+				ret = new ArrayList<NIBRSError>();
 	        	ret.add(e);
 	        }
-	        if (i != data.length()) {
-	        	LOG.warn("Warning at line " + reportSource.getSourceLocation() + ":  expected segment length of " + i + ", actual length was " + data.length());
-	        }
 	        if (e == null) {
-	        	this.segmentUniqueIdentifier = StringUtils.getStringBetween(26, 37, data);
-	        	this.ori = StringUtils.getStringBetween(17, 25, data);
+	        	this.segmentUniqueIdentifier = fields.getString(26, 37);
+	        	this.ori = fields.getString(17, 25);
 	        	this.actionType =  data.charAt(5);
-	        	this.segmentLevel = StringUtils.getStringBetween(5, 5, data).charAt(0);
+	        	this.segmentLevel = fields.getString(5, 5).charAt(0);
 	        }
 		}
         return ret;
     }
 
 	public ReportSource getReportSource() {
+		if (reportSource == null) {
+			reportSource = new ReportSource();
+			reportSource.setSourceLocation(String.valueOf(lineNumber));
+			reportSource.setSourceName(sourceName);
+		}
 		return reportSource;
 	}
     public String getData()
     {
-        return data;
+        return data == null ? null : data.toString();
+    }
+    /**
+     * Get a reader for the fixed-width fields of this segment, which reads them without copying the segment data.
+     */
+    public FixedWidthFieldReader getFields()
+    {
+        return fields;
     }
     public String getSegmentUniqueIdentifier()
     {
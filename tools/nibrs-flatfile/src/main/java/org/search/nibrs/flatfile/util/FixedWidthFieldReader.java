@@ -0,0 +1,220 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.flatfile.util;
+
+import java.text.ParseException;
+import java.util.Date;
+
+import org.search.nibrs.util.DateDecoder;
+
+/**
+ * Reads fixed-width fields directly from a line of NIBRS flat file data, without copying the line.  Positions are 1-based and inclusive,
+ * to correspond to the NIBRS spec, and fields have the same semantics as StringUtils.getStringBetween(int, int, String): leading and
+ * trailing whitespace is ignored, and a field that is blank, or that extends past the end of the line, is null.
+ * <br/>
+ * Blank fields never allocate.  Short non-blank fields (coded values, which repeat constantly in a submission) are materialized through a
+ * shared table of previously seen values, so the same String instance is handed out again rather than a new one allocated per segment.
+ */
+public final class FixedWidthFieldReader
+{
+
+    private static final int MAX_CODE_LENGTH = 4;
+    private static final int CODE_TABLE_SIZE = 4096;
+
+    // values are immutable Strings, so unsynchronized reads and writes are safe; a lost race just means a value is allocated again
+    private static final String[] CODE_TABLE = new String[CODE_TABLE_SIZE];
+
+    private final CharSequence data;
+
+    public FixedWidthFieldReader(CharSequence data)
+    {
+        this.data = data;
+    }
+
+    /**
+     * The length of the underlying line.
+     */
+    public int length()
+    {
+        return data == null ? 0 : data.length();
+    }
+
+    /**
+     * Get the character at the 1-based position.
+     * @param position the 1-based position
+     * @return the character
+     * @throws IndexOutOfBoundsException if the position is not within the line
+     */
+    public char charAt(int position)
+    {
+        return data.charAt(position - 1);
+    }
+
+    /**
+     * Whether the field between the 1-based beginning and ending positions is blank (all whitespace, or not present on the line).
+     */
+    public boolean isBlank(int begin, int end)
+    {
+        if (!isPresent(end))
+        {
+            return true;
+        }
+        for (int i = begin - 1; i < end; i++)
+        {
+            if (data.charAt(i) > ' ')
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the trimmed value of the field between the 1-based beginning and ending positions.
+     * @param begin the 1-based beginning position
+     * @param end the 1-based ending position
+     * @return the value, or null if the field is blank
+     */
+    public String getString(int begin, int end)
+    {
+        if (!isPresent(end))
+        {
+            return null;
+        }
+        int from = trimmedStart(begin - 1, end);
+        int to = trimmedEnd(from, end);
+        return from == to ? null : materialize(from, to);
+    }
+
+    /**
+     * Get the integer value of the field between the 1-based beginning and ending positions.  Fields that are all digits are decoded in
+     * place; anything else is handled by Integer.parseInt.
+     * @param begin the 1-based beginning position
+     * @param end the 1-based ending position
+     * @return the value, or null if the field is blank
+     * @throws NumberFormatException if the field is not blank and is not an integer
+     */
+    public Integer getInteger(int begin, int end)
+    {
+        if (!isPresent(end))
+        {
+            return null;
+        }
+        int from = trimmedStart(begin - 1, end);
+        int to = trimmedEnd(from, end);
+        if (from == to)
+        {
+            return null;
+        }
+        if (to - from > 9)
+        {
+            return Integer.parseInt(materialize(from, to));
+        }
+        int value = 0;
+        for (int i = from; i < to; i++)
+        {
+            char c = data.charAt(i);
+            if (c < '0' || c > '9')
+            {
+                return Integer.parseInt(materialize(from, to));
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Get the date value of the field between the 1-based beginning and ending positions, in YYYYMMDD (or YYYY-MM-DD) format.  The digits
+     * are decoded in place, and the Date instance may be shared with other fields that hold the same date, so it must not be modified.
+     * @param begin the 1-based beginning position
+     * @param end the 1-based ending position
+     * @return the value, or null if the field is blank
+     * @throws ParseException if the field is not blank and is not a valid date
+     */
+    public Date getDate(int begin, int end) throws ParseException
+    {
+        if (!isPresent(end))
+        {
+            return null;
+        }
+        int from = trimmedStart(begin - 1, end);
+        int to = trimmedEnd(from, end);
+        return from == to ? null : DateDecoder.decodeDate(data, from, to);
+    }
+
+    private boolean isPresent(int end)
+    {
+        return data != null && data.length() != 0 && data.length() >= end;
+    }
+
+    private int trimmedStart(int from, int to)
+    {
+        while (from < to && data.charAt(from) <= ' ')
+        {
+            from++;
+        }
+        return from;
+    }
+
+    private int trimmedEnd(int from, int to)
+    {
+        while (to > from && data.charAt(to - 1) <= ' ')
+        {
+            to--;
+        }
+        return to;
+    }
+
+    private String materialize(int from, int to)
+    {
+        int length = to - from;
+        if (length > MAX_CODE_LENGTH)
+        {
+            return data.subSequence(from, to).toString();
+        }
+        int hash = 0;
+        for (int i = from; i < to; i++)
+        {
+            hash = 31 * hash + data.charAt(i);
+        }
+        int slot = (hash ^ (hash >>> 12)) & (CODE_TABLE_SIZE - 1);
+        String cached = CODE_TABLE[slot];
+        if (cached != null && regionMatches(cached, from, length))
+        {
+            return cached;
+        }
+        String value = data.subSequence(from, to).toString();
+        CODE_TABLE[slot] = value;
+        return value;
+    }
+
+    private boolean regionMatches(String s, int from, int length)
+    {
+        if (s.length() != length)
+        {
+            return false;
+        }
+        for (int i = 0; i < length; i++)
+        {
+            if (s.charAt(i) != data.charAt(from + i))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.flatfile.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Reads lines from a Reader into a buffer that is reused from line to line, and hands each one out as a view of the buffer rather than
+ * as a new String.  Lines end at '\n', '\r' or "\r\n", as with BufferedReader.readLine().
+ * <br/>
+ * The view returned by readLine() is only valid until the next call to readLine(); anything that needs to keep part of the line must
+ * copy it, as FixedWidthFieldReader does for the fields it hands out.
+ */
+public final class LineReader
+{
+
+    private static final int INITIAL_BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final Line line = new Line();
+    private char[] buffer = new char[INITIAL_BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private boolean skipLineFeed;
+
+    public LineReader(Reader reader)
+    {
+        this.reader = reader;
+    }
+
+    /**
+     * Read the next line.
+     * @return a view of the line, without its terminator, or null at the end of the stream
+     * @throws IOException exception encountered in reading from the underlying Reader
+     */
+    public CharSequence readLine() throws IOException
+    {
+        if (skipLineFeed)
+        {
+            skipLineFeed = false;
+            if (position == limit && !fill())
+            {
+                return null;
+            }
+            if (buffer[position] == '\n')
+            {
+                position++;
+            }
+        }
+        int scan = position;
+        while (true)
+        {
+            for (; scan < limit; scan++)
+            {
+                char c = buffer[scan];
+                if (c == '\n' || c == '\r')
+                {
+                    line.set(position, scan);
+                    position = scan + 1;
+                    skipLineFeed = c == '\r';
+                    return line;
+                }
+            }
+            int lineLength = scan - position;
+            if (!fill())
+            {
+                if (lineLength == 0)
+                {
+                    return null;
+                }
+                line.set(position, limit);
+                position = limit;
+                return line;
+            }
+            scan = position + lineLength;
+        }
+    }
+
+    /**
+     * Read more characters into the buffer, moving the unread ones to the front of it (or growing it, for a line longer than the buffer).
+     * @return false at the end of the stream
+     */
+    private boolean fill() throws IOException
+    {
+        if (position > 0)
+        {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+        if (limit == buffer.length)
+        {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        int count = reader.read(buffer, limit, buffer.length - limit);
+        if (count < 0)
+        {
+            return false;
+        }
+        limit += count;
+        return true;
+    }
+
+    private final class Line implements CharSequence
+    {
+
+        private int start;
+        private int end;
+
+        void set(int start, int end)
+        {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length()
+        {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index)
+        {
+            if (index < 0 || index >= end - start)
+            {
+                throw new IndexOutOfBoundsException("index " + index + ", length " + (end - start));
+            }
+            return buffer[start + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to)
+        {
+            if (from < 0 || to > end - start || from > to)
+            {
+                throw new IndexOutOfBoundsException("from " + from + ", to " + to + ", length " + (end - start));
+            }
+            return new String(buffer, start + from, to - from);
+        }
+
+        @Override
+        public String toString()
+        {
+            return new String(buffer, start, end - start);
+        }
+
+    }
+
+}
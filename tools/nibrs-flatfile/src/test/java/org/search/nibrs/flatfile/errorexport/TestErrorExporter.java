@@ -158,6 +158,20 @@ public class TestErrorExporter {
 				new SimpleDateFormat("MM/dd/yy").format(new Date()) + StringUtils.repeat(' ', 31) + StringUtils.repeat(' ', 6), line);
 	}
 	
+	@Test
+	public void testErrorSinkMatchesErrorReport() throws IOException {
+		String contents = exportErrorListToString();
+		StringWriter writer = new StringWriter();
+		try (ErrorSink errorSink = errorExporter.openErrorReport(writer)) {
+			for (NIBRSError e : errorList) {
+				errorSink.accept(e);
+			}
+			assertEquals(errorList.size(), errorSink.getErrorCount());
+			assertEquals(StringUtils.split(contents, System.lineSeparator()).length - 1, errorSink.getLineCount());
+		}
+		assertEquals(contents, writer.toString());
+	}
+	
 	@Test
 	public void testErrorReport() throws IOException {
 		String contents = exportErrorListToString();
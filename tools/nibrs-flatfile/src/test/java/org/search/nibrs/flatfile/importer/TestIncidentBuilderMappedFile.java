@@ -0,0 +1,139 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.flatfile.importer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.search.nibrs.common.NIBRSError;
+import org.search.nibrs.model.AbstractReport;
+
+public class TestIncidentBuilderMappedFile {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private static final class CollectingListener {
+		private final List<AbstractReport> reports = new ArrayList<>();
+		private final List<NIBRSError> errors = new ArrayList<>();
+	}
+
+	@Test
+	public void testMatchesReaderWithCrLf() throws Exception {
+		assertMappedMatchesReader(makeTestSubmission().replace("\n", "\r\n"));
+	}
+
+	@Test
+	public void testMatchesReaderWithLf() throws Exception {
+		assertMappedMatchesReader(makeTestSubmission());
+	}
+
+	@Test
+	public void testSingleChunk() throws Exception {
+		String data = makeTestSubmission();
+		Path path = temporaryFolder.newFile().toPath();
+		Files.write(path, data.getBytes());
+		CollectingListener expected = buildFromReader(data);
+		IncidentBuilder incidentBuilder = new IncidentBuilder();
+		CollectingListener actual = buildFromPath(incidentBuilder, path, 1);
+		assertEquals(expected.reports.size(), actual.reports.size());
+		assertEquals(expected.errors.size(), actual.errors.size());
+	}
+
+	private void assertMappedMatchesReader(String data) throws Exception {
+
+		Path path = temporaryFolder.newFile().toPath();
+		Files.write(path, data.getBytes());
+
+		CollectingListener expected = buildFromReader(data);
+
+		IncidentBuilder incidentBuilder = new IncidentBuilder();
+		// small chunks, so that the file is split in many places
+		incidentBuilder.setMappedChunkSize(2000);
+		CollectingListener actual = buildFromPath(incidentBuilder, path, 4);
+
+		assertTrue(expected.reports.size() > 100);
+		assertFalse(expected.errors.isEmpty());
+		assertEquals(expected.reports.size(), actual.reports.size());
+		for (int i = 0; i < expected.reports.size(); i++) {
+			AbstractReport expectedReport = expected.reports.get(i);
+			AbstractReport actualReport = actual.reports.get(i);
+			assertEquals(expectedReport.getClass(), actualReport.getClass());
+			assertEquals(expectedReport.getUniqueReportDescription(), actualReport.getUniqueReportDescription());
+			assertEquals(expectedReport.getSource().getSourceLocation(), actualReport.getSource().getSourceLocation());
+			assertEquals(expectedReport.getHasUpstreamErrors(), actualReport.getHasUpstreamErrors());
+		}
+
+		assertEquals(expected.errors.size(), actual.errors.size());
+		for (int i = 0; i < expected.errors.size(); i++) {
+			NIBRSError expectedError = expected.errors.get(i);
+			NIBRSError actualError = actual.errors.get(i);
+			assertEquals(expectedError.getNIBRSErrorCode(), actualError.getNIBRSErrorCode());
+			assertEquals(expectedError.getContext().getSourceLocation(), actualError.getContext().getSourceLocation());
+			assertEquals(expectedError.getValue(), actualError.getValue());
+		}
+
+	}
+
+	private CollectingListener buildFromReader(String data) throws IOException {
+		CollectingListener ret = new CollectingListener();
+		IncidentBuilder incidentBuilder = new IncidentBuilder();
+		incidentBuilder.addIncidentListener((report, errorList) -> {
+			ret.reports.add(report);
+			ret.errors.addAll(errorList);
+		});
+		incidentBuilder.buildIncidents(new StringReader(data), "test");
+		return ret;
+	}
+
+	private CollectingListener buildFromPath(IncidentBuilder incidentBuilder, Path path, int workerCount) throws IOException {
+		CollectingListener ret = new CollectingListener();
+		Thread callingThread = Thread.currentThread();
+		incidentBuilder.addIncidentListener((report, errorList) -> {
+			assertEquals(callingThread, Thread.currentThread());
+			ret.reports.add(report);
+			ret.errors.addAll(errorList);
+		});
+		incidentBuilder.buildIncidents(path, "test", workerCount);
+		return ret;
+	}
+
+	/**
+	 * The new-format test data repeated until it spans many chunks, with a segment that is too short (error 001) in every third copy.
+	 */
+	private String makeTestSubmission() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 40; i++) {
+			sb.append(TestIncidentBuilderNewFormat.TESTDATA_NEWFORMAT);
+			if (i % 3 == 0) {
+				sb.append("00465I022003    TN006000002\n");
+			}
+		}
+		return sb.toString();
+	}
+
+}
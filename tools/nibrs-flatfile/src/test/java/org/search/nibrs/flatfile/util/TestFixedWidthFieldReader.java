@@ -0,0 +1,108 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.flatfile.util;
+
+import static org.junit.Assert.*;
+
+import java.text.ParseException;
+import java.util.Calendar;
+
+import org.junit.*;
+
+public class TestFixedWidthFieldReader
+{
+
+    @Test
+    public void testGetString()
+    {
+        FixedWidthFieldReader fields = new FixedWidthFieldReader("abc 13A  ORI123456789");
+        assertEquals("a", fields.getString(1, 1));
+        assertEquals("b", fields.getString(2, 2));
+        assertEquals("ab", fields.getString(1, 2));
+        assertEquals("13A", fields.getString(4, 8));
+        assertEquals("ORI123456789", fields.getString(10, 21));
+        for (int begin = 1; begin <= 21; begin++)
+        {
+            for (int end = begin; end <= 23; end++)
+            {
+                assertEquals(StringUtils.getStringBetween(begin, end, "abc 13A  ORI123456789"), fields.getString(begin, end));
+            }
+        }
+    }
+
+    @Test
+    public void testCodedValuesShared()
+    {
+        String s1 = new FixedWidthFieldReader("  13A ").getString(1, 6);
+        String s2 = new FixedWidthFieldReader("13A").getString(1, 3);
+        assertEquals("13A", s1);
+        assertSame(s1, s2);
+    }
+
+    @Test
+    public void testNullHandling()
+    {
+        assertNull(new FixedWidthFieldReader("").getString(1, 1));
+        assertNull(new FixedWidthFieldReader("       ").getString(1, 2));
+        assertNull(new FixedWidthFieldReader(null).getString(1, 1));
+        assertNull(new FixedWidthFieldReader("abc").getString(2, 4));
+        assertTrue(new FixedWidthFieldReader("a   ").isBlank(2, 4));
+        assertTrue(new FixedWidthFieldReader("a").isBlank(2, 4));
+        assertFalse(new FixedWidthFieldReader("a  b").isBlank(2, 4));
+    }
+
+    @Test
+    public void testGetInteger()
+    {
+        FixedWidthFieldReader fields = new FixedWidthFieldReader("10 007   -5");
+        assertEquals(new Integer(10), fields.getInteger(1, 2));
+        assertEquals(new Integer(7), fields.getInteger(3, 6));
+        assertEquals(new Integer(-5), fields.getInteger(10, 11));
+        assertNull(fields.getInteger(7, 9));
+        assertNull(fields.getInteger(7, 20));
+    }
+
+    @Test(expected=NumberFormatException.class)
+    public void testGetIntegerInvalid()
+    {
+        new FixedWidthFieldReader("1A").getInteger(1, 2);
+    }
+
+    @Test
+    public void testGetDate() throws ParseException
+    {
+        FixedWidthFieldReader fields = new FixedWidthFieldReader("A20160229          2016-02-29");
+        assertEquals(DateUtils.makeDate(2016, Calendar.FEBRUARY, 29), fields.getDate(2, 9));
+        assertNull(fields.getDate(10, 17));
+        assertSame(fields.getDate(2, 9), fields.getDate(20, 29));
+    }
+
+    @Test(expected=ParseException.class)
+    public void testGetDateInvalid() throws ParseException
+    {
+        new FixedWidthFieldReader("20150229").getDate(1, 8);
+    }
+
+    @Test
+    public void testCharAt()
+    {
+        FixedWidthFieldReader fields = new FixedWidthFieldReader("0123");
+        assertEquals('0', fields.charAt(1));
+        assertEquals('3', fields.charAt(4));
+        assertEquals(4, fields.length());
+    }
+
+}
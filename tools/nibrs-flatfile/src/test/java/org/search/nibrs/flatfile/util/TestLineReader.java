@@ -0,0 +1,115 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.flatfile.util;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.*;
+
+public class TestLineReader
+{
+
+    @Test
+    public void testLineTerminators() throws IOException
+    {
+        String[] inputs = {"", "a", "a\n", "a\r\n", "a\r", "a\n\nb", "a\r\rb\r\n", "\r\n\r\n", "a\r\nb\nc\rd", "\n", "\r"};
+        for (String input : inputs)
+        {
+            assertEquals(input, bufferedReaderLines(input), lineReaderLines(new LineReader(new StringReader(input))));
+        }
+    }
+
+    @Test
+    public void testLinesSpanningReads() throws IOException
+    {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 2000; i++)
+        {
+            for (int j = 0; j < i % 37; j++)
+            {
+                sb.append((char) ('a' + j % 26));
+            }
+            sb.append(i % 3 == 0 ? "\r\n" : i % 3 == 1 ? "\n" : "\r");
+        }
+        // one line that is longer than the initial buffer
+        for (int i = 0; i < 20000; i++)
+        {
+            sb.append('x');
+        }
+        String input = sb.toString();
+        // a reader that hands out a few characters at a time, so that lines and terminators are split across reads
+        StringReader trickle = new StringReader(input)
+        {
+            @Override
+            public int read(char[] cbuf, int off, int len) throws IOException
+            {
+                return super.read(cbuf, off, Math.min(len, 7));
+            }
+        };
+        assertEquals(bufferedReaderLines(input), lineReaderLines(new LineReader(trickle)));
+    }
+
+    @Test
+    public void testLineView() throws IOException
+    {
+        LineReader lineReader = new LineReader(new StringReader("abcdef\nxyz"));
+        CharSequence line = lineReader.readLine();
+        assertEquals(6, line.length());
+        assertEquals('c', line.charAt(2));
+        assertEquals("cde", line.subSequence(2, 5).toString());
+        assertEquals("abcdef", line.toString());
+        try
+        {
+            line.charAt(6);
+            fail("Expected IndexOutOfBoundsException");
+        }
+        catch (IndexOutOfBoundsException e)
+        {
+            // expected
+        }
+        assertEquals("xyz", lineReader.readLine().toString());
+        assertNull(lineReader.readLine());
+        assertNull(lineReader.readLine());
+    }
+
+    private static List<String> bufferedReaderLines(String input) throws IOException
+    {
+        List<String> ret = new ArrayList<>();
+        BufferedReader br = new BufferedReader(new StringReader(input));
+        for (String line = br.readLine(); line != null; line = br.readLine())
+        {
+            ret.add(line);
+        }
+        return ret;
+    }
+
+    private static List<String> lineReaderLines(LineReader lineReader) throws IOException
+    {
+        List<String> ret = new ArrayList<>();
+        for (CharSequence line = lineReader.readLine(); line != null; line = lineReader.readLine())
+        {
+            ret.add(line.toString());
+        }
+        return ret;
+    }
+
+}
@@ -25,7 +25,18 @@ public class AppProperties {
     private String multicastEndpoints = "direct:createErrorReport,direct:persistReport";
     private String nibrsFileFolderPath = "/tmp/nibrs";
 	private String stagingDataRestServiceBaseUrl = "http://localhost:8080/";
-
+	private int stagingDataBatchSize = 100;
+	private int stagingDataConcurrency = 4;
+	private boolean stagingDataGzip = true;
+	private int stagingDataMaxAttempts = 3;
+	private long stagingDataRetryBackoffMillis = 1000;
+	private boolean stagingDataJobs = false;
+	private long stagingDataJobPollMillis = 1000;
+	private int concurrentConsumers = 1;
+	private boolean streaming = false;
+	private int errorAggregationSize = 100;
+	private long errorAggregationTimeoutMillis = 1000;
+	private int archiveEntryConcurrency = 2;
 
 	public String getMulticastEndpoints() {
 		return multicastEndpoints;
@@ -51,10 +62,112 @@ public class AppProperties {
 		this.stagingDataRestServiceBaseUrl = stagingDataRestServiceBaseUrl;
 	}
 
+	public int getStagingDataBatchSize() {
+		return stagingDataBatchSize;
+	}
+
+	public void setStagingDataBatchSize(int stagingDataBatchSize) {
+		this.stagingDataBatchSize = stagingDataBatchSize;
+	}
+
+	public int getStagingDataConcurrency() {
+		return stagingDataConcurrency;
+	}
+
+	public void setStagingDataConcurrency(int stagingDataConcurrency) {
+		this.stagingDataConcurrency = stagingDataConcurrency;
+	}
+
+	public boolean isStagingDataGzip() {
+		return stagingDataGzip;
+	}
+
+	public void setStagingDataGzip(boolean stagingDataGzip) {
+		this.stagingDataGzip = stagingDataGzip;
+	}
+
+	public int getStagingDataMaxAttempts() {
+		return stagingDataMaxAttempts;
+	}
+
+	public void setStagingDataMaxAttempts(int stagingDataMaxAttempts) {
+		this.stagingDataMaxAttempts = stagingDataMaxAttempts;
+	}
+
+	public long getStagingDataRetryBackoffMillis() {
+		return stagingDataRetryBackoffMillis;
+	}
+
+	public void setStagingDataRetryBackoffMillis(long stagingDataRetryBackoffMillis) {
+		this.stagingDataRetryBackoffMillis = stagingDataRetryBackoffMillis;
+	}
+
+	public boolean isStagingDataJobs() {
+		return stagingDataJobs;
+	}
+
+	public void setStagingDataJobs(boolean stagingDataJobs) {
+		this.stagingDataJobs = stagingDataJobs;
+	}
+
+	public long getStagingDataJobPollMillis() {
+		return stagingDataJobPollMillis;
+	}
+
+	public void setStagingDataJobPollMillis(long stagingDataJobPollMillis) {
+		this.stagingDataJobPollMillis = stagingDataJobPollMillis;
+	}
+
+	public int getConcurrentConsumers() {
+		return concurrentConsumers;
+	}
+
+	public void setConcurrentConsumers(int concurrentConsumers) {
+		this.concurrentConsumers = concurrentConsumers;
+	}
+
+	public boolean isStreaming() {
+		return streaming;
+	}
+
+	public void setStreaming(boolean streaming) {
+		this.streaming = streaming;
+	}
+
+	public int getErrorAggregationSize() {
+		return errorAggregationSize;
+	}
+
+	public void setErrorAggregationSize(int errorAggregationSize) {
+		this.errorAggregationSize = errorAggregationSize;
+	}
+
+	public long getErrorAggregationTimeoutMillis() {
+		return errorAggregationTimeoutMillis;
+	}
+
+	public void setErrorAggregationTimeoutMillis(long errorAggregationTimeoutMillis) {
+		this.errorAggregationTimeoutMillis = errorAggregationTimeoutMillis;
+	}
+
+	public int getArchiveEntryConcurrency() {
+		return archiveEntryConcurrency;
+	}
+
+	public void setArchiveEntryConcurrency(int archiveEntryConcurrency) {
+		this.archiveEntryConcurrency = archiveEntryConcurrency;
+	}
+
 	@Override
 	public String toString() {
 		return "AppProperties [multicastEndpoints=" + multicastEndpoints + ", nibrsFileFolderPath="
-				+ nibrsFileFolderPath + ", stagingDataRestServiceBaseUrl=" + stagingDataRestServiceBaseUrl + "]";
+				+ nibrsFileFolderPath + ", stagingDataRestServiceBaseUrl=" + stagingDataRestServiceBaseUrl
+				+ ", stagingDataBatchSize=" + stagingDataBatchSize + ", stagingDataConcurrency=" + stagingDataConcurrency
+				+ ", stagingDataGzip=" + stagingDataGzip + ", stagingDataMaxAttempts=" + stagingDataMaxAttempts
+				+ ", stagingDataRetryBackoffMillis=" + stagingDataRetryBackoffMillis + ", stagingDataJobs=" + stagingDataJobs
+				+ ", stagingDataJobPollMillis=" + stagingDataJobPollMillis + ", concurrentConsumers=" + concurrentConsumers
+				+ ", streaming=" + streaming + ", errorAggregationSize=" + errorAggregationSize
+				+ ", errorAggregationTimeoutMillis=" + errorAggregationTimeoutMillis + ", archiveEntryConcurrency=" + archiveEntryConcurrency + "]";
 	}
 
 }
\ No newline at end of file
@@ -14,7 +14,14 @@
  * limitations under the License.
  */
 package org.search.nibrs.route;
+import java.util.Arrays;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.LoggingLevel;
 import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.model.ProcessorDefinition;
+import org.apache.camel.model.RouteDefinition;
+import org.search.nibrs.route.service.ValidatedReportAggregationStrategy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -32,11 +39,22 @@ public class CamelRouter extends RouteBuilder {
 	
     @Override
     public void configure() throws Exception {
-        fromF("file:%s/input?idempotent=true&moveFailed=%s/error&move=processed/", 
-        		appProperties.getNibrsFileFolderPath(), appProperties.getNibrsFileFolderPath()).routeId("validate")
-        		.transform().method("flatFileValidator", "validate")
+        RouteDefinition validate = fromF("file:%s/input?idempotent=true&moveFailed=%s/error&move=processed/", 
+        		appProperties.getNibrsFileFolderPath(), appProperties.getNibrsFileFolderPath()).routeId("validate");
+        
+        // files are validated concurrently by a pool of consumer threads, each with its own parsing and validation context
+        int concurrentConsumers = Math.max(1, appProperties.getConcurrentConsumers());
+        ProcessorDefinition<?> files = concurrentConsumers > 1 ? validate.threads(concurrentConsumers).threadName("nibrs-validate") : validate;
+        if (appProperties.isStreaming()) {
+        	// a file that fails part way through leaves its error report behind, to be discarded
+        	validate.onCompletion().onFailureOnly().bean("flatFileValidator", "abandonReportStream").end();
+        	configureStreaming(files);
+        }
+        else {
+        	files.transform().method("flatFileValidator", "validate")
         		.multicast().to(appProperties.getMulticastEndpoints().split(","))
                 .end();
+        }
         
         from("direct:createErrorReport").routeId("createErrorReport")
         	.transform().method("flatFileValidator", "createErrorReport")
@@ -47,4 +65,50 @@ public class CamelRouter extends RouteBuilder {
         	.end(); 
     }
 
+    /**
+     * Split each file into one exchange per report, processed in parallel as the file is read.  A valid report is persisted at once 
+     * (if persistReport is one of the multicast endpoints); the errors are aggregated, and written to the error report a group at a 
+     * time.  When the whole file has been split, the last group of errors is completed and the error report created as usual.  Valid
+     * reports are checkpointed as they are persisted, so a file that is processed again after a failure skips the reports it has done.
+     */
+    private void configureStreaming(ProcessorDefinition<?> files) {
+    	boolean persist = Arrays.asList(appProperties.getMulticastEndpoints().split(",")).contains("direct:persistReport");
+    	
+    	ProcessorDefinition<?> split = files.split().method("flatFileValidator", "splitReports").streaming().parallelProcessing()
+    			.doTry()
+    				.choice()
+    					.when(simple("${body.valid}")).to(persist ? "direct:persistValidatedReport" : "direct:discardValidatedReport")
+    					.otherwise().to("direct:aggregateErrors")
+    				.end().endDoTry()
+    			.doFinally()
+    				.bean("flatFileValidator", "reportProcessed")
+    			.end()
+    		.end()
+    		.setBody(constant(null))
+    		.setHeader(Exchange.AGGREGATION_COMPLETE_CURRENT_GROUP, constant(true))
+    		.to("direct:aggregateErrors")
+    		.removeHeader(Exchange.AGGREGATION_COMPLETE_CURRENT_GROUP);
+    	if (persist) {
+    		split = split.bean("stagingDataRestClient", "completeCheckpoint");
+    	}
+    	split.transform().method("flatFileValidator", "finishErrorReport")
+    		.to("direct:createErrorReport")
+    		.end();
+    	
+    	from("direct:persistValidatedReport").routeId("persistValidatedReport")
+    		.bean("stagingDataRestClient", "persistValidatedReport")
+    		.end();
+    	
+    	from("direct:discardValidatedReport").routeId("discardValidatedReport")
+    		.log(LoggingLevel.DEBUG, "${body} is valid, but persistReport is not one of the multicast endpoints")
+    		.end();
+    	
+    	from("direct:aggregateErrors").routeId("aggregateErrors")
+    		.aggregate(header(Exchange.FILE_NAME), new ValidatedReportAggregationStrategy())
+    			.completionSize(appProperties.getErrorAggregationSize())
+    			.completionTimeout(appProperties.getErrorAggregationTimeoutMillis())
+    			.bean("flatFileValidator", "appendErrors")
+    		.end();
+    }
+
 }
\ No newline at end of file
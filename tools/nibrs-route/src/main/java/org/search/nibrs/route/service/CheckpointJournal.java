@@ -0,0 +1,194 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.route.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.search.nibrs.route.AppProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records how far the persistence of each file has got, so that a file whose persistence is cut short (by a crash, or because the
+ * stagingData Rest service could not be reached) can be resumed where it stopped rather than from its first report.
+ * <br/>
+ * The reports of a file without errors (those for which neither the parser nor the validator reported anything) are numbered in file 
+ * order, from zero, in the same way by the batch and the streaming routes, so a journal left by either route is good for the other.  
+ * The checkpoint of a file is the number of those reports, counting from the first, that have all been persisted; reports persisted
+ * out of order beyond that are not counted until the gap is filled.  It is kept in a journal file in the checkpoint folder, next to the input, result and error folders, which is replaced 
+ * atomically (at most once a second) as the checkpoint moves, and deleted when the file has been persisted completely.  Reports
+ * persisted after the last write are persisted again when the file is resumed, which is harmless, as the service replaces a report
+ * with the same identifier.
+ * <br/>
+ * The journal records the length and modification time of the file, so it is only used for the same file: a file that is dropped into
+ * the input folder again (or moved back from the error folder) after a failure resumes from its checkpoint, while a new file with the
+ * same name starts from the beginning.
+ * <br/>
+ * Only the persistence of a resumed file is cut short: the whole file is parsed and validated again, as the error report is written 
+ * afresh for the whole file, and a report's number is only known once every report before it has been validated.
+ */
+@Component
+public class CheckpointJournal {
+
+	private final Log log = LogFactory.getLog(this.getClass());
+
+	private static final long WRITE_INTERVAL_MILLIS = 1000;
+
+	@Autowired
+	private AppProperties appProperties;
+
+	private final ConcurrentMap<String, Checkpoint> checkpoints = new ConcurrentHashMap<>();
+
+	/**
+	 * Get the checkpoint of a file, from its journal if it has one.
+	 * @param fileName the name of the file, relative to the input folder
+	 * @param fileLength the length of the file
+	 * @param lastModified the modification time of the file
+	 */
+	public Checkpoint open(String fileName, long fileLength, long lastModified) {
+		return checkpoints.compute(fileName, (name, checkpoint) -> {
+			if (checkpoint != null && checkpoint.fileLength == fileLength && checkpoint.lastModified == lastModified) {
+				return checkpoint;
+			}
+			Path journal = Paths.get(appProperties.getNibrsFileFolderPath(), "checkpoint", name + ".checkpoint");
+			return new Checkpoint(name, journal, fileLength, lastModified, readCommittedCount(journal, fileLength, lastModified));
+		});
+	}
+
+	private int readCommittedCount(Path journal, long fileLength, long lastModified) {
+		if (!Files.exists(journal)) {
+			return 0;
+		}
+		Properties properties = new Properties();
+		try (InputStream inputStream = Files.newInputStream(journal)) {
+			properties.load(inputStream);
+			if (Long.parseLong(properties.getProperty("fileLength")) != fileLength 
+					|| Long.parseLong(properties.getProperty("lastModified")) != lastModified) {
+				log.info("Ignoring the checkpoint " + journal + ", which is for an earlier file with the same name");
+				return 0;
+			}
+			int committedCount = Integer.parseInt(properties.getProperty("committedCount"));
+			log.info("Resuming after the first " + committedCount + " reports, from the checkpoint " + journal);
+			return committedCount;
+		} catch (IOException | RuntimeException e) {
+			log.warn("Ignoring the unreadable checkpoint " + journal, e);
+			return 0;
+		}
+	}
+
+	/**
+	 * The checkpoint of one file.
+	 */
+	public final class Checkpoint {
+
+		private final String fileName;
+		private final Path journal;
+		private final long fileLength;
+		private final long lastModified;
+		private final int resumedCount;
+		private final BitSet persisted = new BitSet();
+		private int committedCount;
+		private long lastWrittenMillis;
+
+		private Checkpoint(String fileName, Path journal, long fileLength, long lastModified, int committedCount) {
+			this.fileName = fileName;
+			this.journal = journal;
+			this.fileLength = fileLength;
+			this.lastModified = lastModified;
+			this.resumedCount = committedCount;
+			this.committedCount = committedCount;
+		}
+
+		/**
+		 * Whether the report with the given number was persisted before the file was resumed, and so should be skipped.
+		 */
+		public boolean isCommitted(int reportNumber) {
+			return reportNumber < resumedCount;
+		}
+
+		/**
+		 * The number of reports, counting from the first, that have all been persisted.
+		 */
+		public synchronized int getCommittedCount() {
+			return committedCount;
+		}
+
+		/**
+		 * Record that a report has been persisted (or has failed in a way that persisting it again would not fix).
+		 */
+		public synchronized void persisted(int reportNumber) {
+			persisted.set(reportNumber);
+			if (reportNumber != committedCount) {
+				return;
+			}
+			committedCount = persisted.nextClearBit(committedCount);
+			persisted.clear(0, committedCount);
+			if (System.currentTimeMillis() - lastWrittenMillis >= WRITE_INTERVAL_MILLIS) {
+				write();
+				lastWrittenMillis = System.currentTimeMillis();
+			}
+		}
+
+		/**
+		 * Record that every report in the file has been persisted, and delete the journal.
+		 */
+		public void complete() {
+			checkpoints.remove(fileName, this);
+			try {
+				Files.deleteIfExists(journal);
+			} catch (IOException e) {
+				log.warn("Unable to delete the checkpoint " + journal, e);
+			}
+		}
+
+		private void write() {
+			Properties properties = new Properties();
+			properties.setProperty("fileLength", String.valueOf(fileLength));
+			properties.setProperty("lastModified", String.valueOf(lastModified));
+			properties.setProperty("committedCount", String.valueOf(committedCount));
+			try {
+				Files.createDirectories(journal.getParent());
+				Path temp = journal.resolveSibling(journal.getFileName() + ".tmp");
+				try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, 
+						StandardOpenOption.TRUNCATE_EXISTING)) {
+					properties.store(Channels.newOutputStream(channel), "Checkpoint written " + new Date());
+					channel.force(true);
+				}
+				Files.move(temp, journal, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Unable to write the checkpoint " + journal, e);
+			}
+		}
+
+	}
+
+}
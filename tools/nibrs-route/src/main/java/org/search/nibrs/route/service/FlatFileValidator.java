@@ -15,83 +15,563 @@
  */
 package org.search.nibrs.route.service;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
 import java.io.File;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.Reader;
-import java.io.Writer;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.xml.parsers.ParserConfigurationException;
 
 import org.apache.camel.Body;
+import org.apache.camel.Exchange;
 import org.apache.camel.Header;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.search.nibrs.common.NIBRSError;
 import org.search.nibrs.flatfile.errorexport.ErrorExporter;
+import org.search.nibrs.flatfile.errorexport.ErrorSink;
 import org.search.nibrs.flatfile.importer.IncidentBuilder;
+import org.search.nibrs.importer.AbstractIncidentBuilder;
+import org.search.nibrs.importer.AbstractIncidentBuilder.LogListener;
 import org.search.nibrs.importer.ReportListener;
 import org.search.nibrs.model.AbstractReport;
+import org.search.nibrs.route.AppProperties;
+import org.search.nibrs.validation.PipelinedValidationListener;
+import org.search.nibrs.validation.SubmissionConsistencyListener;
 import org.search.nibrs.validation.SubmissionValidator;
-import org.springframework.context.annotation.Scope;
+import org.search.nibrs.xmlfile.importer.XmlIncidentBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+/**
+ * Validates NIBRS submissions: flat or XML files, gzip files, or zip archives of any number of either, as described in SubmissionFile.
+ * Any number of submissions can be validated at the same time: each is parsed and validated with a context (incident builders and a 
+ * SubmissionValidator) of its own, taken from a pool and returned to it when the submission is done, so no parsing state, listeners 
+ * or date formats are shared between submissions.
+ */
 @Component
-@Scope("prototype")
 public class FlatFileValidator {
 	private final Log log = LogFactory.getLog(FlatFileValidator.class);
 
-	//TODO look into auto wire these as beans. 
-	IncidentBuilder incidentBuilder;
-	SubmissionValidator submissionValidator;
+	private static final int STREAM_QUEUE_CAPACITY = 1000;
+	private static final AtomicInteger POOL_NUMBER = new AtomicInteger(1);
+
+	@Autowired
+	private AppProperties appProperties;
+	
 	ErrorExporter errorExporter;
 	private DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+	private int validationWorkerCount;
+	private BlockingQueue<ValidationContext> validationContexts;
+	private final ConcurrentMap<String, ReportStream> reportStreams = new ConcurrentHashMap<>();
 	
 	public FlatFileValidator() {
 		super();
-		incidentBuilder = new IncidentBuilder();
-		submissionValidator = new SubmissionValidator();
 		errorExporter = ErrorExporter.getInstance();
 	}
 	
+	@PostConstruct
+	void init() {
+		int concurrentConsumers = Math.max(1, appProperties.getConcurrentConsumers());
+		validationContexts = new ArrayBlockingQueue<>(concurrentConsumers * Math.max(1, appProperties.getArchiveEntryConcurrency()));
+		if (validationWorkerCount < 1) {
+			// share the processors out among the files being validated at the same time
+			validationWorkerCount = Math.max(1, Runtime.getRuntime().availableProcessors() / concurrentConsumers);
+		}
+	}
+	
 	public ValidationResults validate(@Body File file) throws IOException{
 		ValidationResults validationResults = new ValidationResults();
 		
-		Reader inputReader = new BufferedReader(new FileReader(file));
-		String readerLocationName = file.getAbsolutePath();
-
-		incidentBuilder.addIncidentListener(new ReportListener() {
-			@Override
-			public void newReport(AbstractReport report, List<NIBRSError> el) {
-				validationResults.getErrorList().addAll(el);
-				validationResults.getErrorList().addAll(submissionValidator.validateReport(report));
-				addReportWithoutErrors(validationResults, report);
+		// errors are spooled to the error report as they are found, rather than kept (with their reports) until the end
+		File errorReportFile = File.createTempFile("nibrs-errors-", ".txt");
+		validationResults.setErrorReportFile(errorReportFile);
+		boolean validated = false;
+		try {
+			validate(file, errorReportFile, validationResults);
+			validated = true;
+		} finally {
+			// the error report of a file that failed is never moved to the result folder, so it is deleted here
+			if (!validated) {
+				Files.deleteIfExists(errorReportFile.toPath());
 			}
+		}
+		
+		return validationResults; 
 
-		});
+	}
+	
+	private void validate(File file, File errorReportFile, ValidationResults validationResults) throws IOException {
+		ErrorSink errorSink = errorExporter.openErrorReport(new FileWriter(errorReportFile));
 
-		incidentBuilder.buildIncidents(inputReader, readerLocationName);
+		try (SubmissionFile submissionFile = SubmissionFile.open(file)) {
+			// the reports of each submission are kept apart, and put together in the order of the submissions when all are done
+			List<List<AbstractReport>> reportsWithoutErrors = new ArrayList<>();
+			List<Callable<Void>> submissionValidations = new ArrayList<>();
+			List<SubmissionFile.Entry> entries = submissionFile.getEntries();
+			EntryErrors entryErrors = new EntryErrors(errorSink, entries.size());
+			for (int i = 0; i < entries.size(); i++) {
+				SubmissionFile.Entry entry = entries.get(i);
+				int entryIndex = i;
+				List<AbstractReport> entryReportsWithoutErrors = new ArrayList<>();
+				reportsWithoutErrors.add(entryReportsWithoutErrors);
+				submissionValidations.add(() -> {
+					validateSubmission(entry, (report, el) -> {
+						entryErrors.accept(entryIndex, el);
+						// the same test as ValidatedReport.isValid, so that both routes number the reports without errors alike
+						if (el.isEmpty()) {
+							entryReportsWithoutErrors.add(report);
+						}
+					});
+					entryErrors.entryDone(entryIndex);
+					return null;
+				});
+			}
+			
+			validateSubmissions(submissionValidations);
+			reportsWithoutErrors.forEach(validationResults.getReportsWithoutErrors()::addAll);
+			validationResults.setErrorCount(errorSink.getErrorCount());
+		} finally {
+			errorSink.close();
+		}
+	}
+	
+	/**
+	 * Run the validations of the submissions in a file, those in an archive in parallel, up to app.archiveEntryConcurrency at a time.
+	 */
+	private void validateSubmissions(List<Callable<Void>> submissionValidations) throws IOException {
+		if (submissionValidations.size() == 1) {
+			try {
+				submissionValidations.get(0).call();
+			} catch (IOException | RuntimeException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+			return;
+		}
+		
+		String threadNamePrefix = "nibrs-archive-" + POOL_NUMBER.getAndIncrement() + "-entry-";
+		AtomicInteger threadNumber = new AtomicInteger(1);
+		ExecutorService executor = Executors.newFixedThreadPool(
+				Math.max(1, Math.min(submissionValidations.size(), appProperties.getArchiveEntryConcurrency())), r -> {
+			Thread t = new Thread(r, threadNamePrefix + threadNumber.getAndIncrement());
+			t.setDaemon(true);
+			return t;
+		});
+		try {
+			for (Future<Void> future : executor.invokeAll(submissionValidations)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while validating an archive", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Parse and validate one submission with a pooled context, using the IncidentBuilder or XmlIncidentBuilder according to its format, 
+	 * and pass each report with its errors to the listener.
+	 */
+	private void validateSubmission(SubmissionFile.Entry entry, ReportListener reportListener) throws IOException {
+		ValidationContext validationContext = borrowValidationContext();
+		PipelinedValidationListener validationListener = new PipelinedValidationListener(validationContext.submissionValidator, 
+				new SubmissionConsistencyListener(reportListener), validationWorkerCount);
 
-		inputReader.close();
-		return validationResults; 
+		boolean completed = false;
+		try (BufferedInputStream inputStream = entry.open()) {
+			if (SubmissionFile.sniff(inputStream) == SubmissionFile.Format.XML) {
+				log.info("Validating " + entry.getName() + " as XML");
+				XmlIncidentBuilder xmlIncidentBuilder = validationContext.getXmlIncidentBuilder();
+				xmlIncidentBuilder.addIncidentListener(validationListener);
+				xmlIncidentBuilder.buildIncidents(inputStream, entry.getName());
+			}
+			else {
+				log.info("Validating " + entry.getName() + " as a flat file");
+				validationContext.incidentBuilder.addIncidentListener(validationListener);
+				validationContext.incidentBuilder.buildIncidents(new InputStreamReader(inputStream), entry.getName());
+			}
+			validationListener.finish();
+			completed = true;
+		} finally {
+			// a context that failed part way through a file may be left in a bad state, so it is not reused
+			if (completed) {
+				returnValidationContext(validationContext);
+			}
+		}
+	}
+	
+	/**
+	 * Split a file into its reports, for the streaming route.  The file is parsed and validated on a thread of its own, and each report 
+	 * is returned by the iterator, with its errors, as soon as it has been validated, so that it can be persisted while the rest of the 
+	 * file is still being read.  The errors are written to the file's error report by appendErrors, and the error report is finished by 
+	 * finishErrorReport once every report has been processed.
+	 * <br/>
+	 * When a report has the same identifier as an earlier report that may still be in process (a delete followed by a replacement, for 
+	 * example), the iterator waits for every earlier report to be processed (reportProcessed) before returning it, so that reports for 
+	 * the same incident or arrest are applied in file order.
+	 */
+	public Iterator<ValidatedReport> splitReports(@Body File file, @Header(Exchange.FILE_NAME) String fileName) throws IOException {
+		File errorReportFile = File.createTempFile("nibrs-errors-", ".txt");
+		ReportStream reportStream;
+		try {
+			reportStream = new ReportStream(file, errorReportFile, errorExporter.openErrorReport(new FileWriter(errorReportFile)));
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(errorReportFile.toPath());
+			throw e;
+		}
+		ReportStream abandoned = reportStreams.put(fileName, reportStream);
+		if (abandoned != null) {
+			// left behind when an earlier attempt at the same file failed before its error report was finished
+			abandoned.abandon();
+		}
+		reportStream.start(fileName);
+		return reportStream;
+	}
+	
+	/**
+	 * Record that a report split from a file by splitReports has been processed (persisted, or its errors aggregated).
+	 */
+	public void reportProcessed(@Header(Exchange.FILE_NAME) String fileName) {
+		getReportStream(fileName).reportProcessed();
+	}
+	
+	/**
+	 * Write the errors in an aggregated group of reports to the error report of the file they came from.
+	 */
+	public void appendErrors(@Body List<ValidatedReport> validatedReports, @Header(Exchange.FILE_NAME) String fileName) throws IOException {
+		getReportStream(fileName).appendErrors(validatedReports);
+	}
+	
+	/**
+	 * Wait for all of the errors in a file split by splitReports to be written, and close its error report.
+	 * @return the results, with the error report, but without the reports, which have already been processed
+	 */
+	public ValidationResults finishErrorReport(@Header(Exchange.FILE_NAME) String fileName) throws IOException, InterruptedException {
+		ReportStream reportStream = getReportStream(fileName);
+		try {
+			return reportStream.finish();
+		} finally {
+			reportStreams.remove(fileName);
+		}
+	}
+	
+	/**
+	 * Discard the error report of a file split by splitReports whose route failed before finishErrorReport, and stop parsing the file.
+	 */
+	public void abandonReportStream(@Header(Exchange.FILE_NAME) String fileName) throws IOException {
+		ReportStream reportStream = reportStreams.remove(fileName);
+		if (reportStream != null) {
+			reportStream.abandon();
+		}
+	}
+	
+	private ReportStream getReportStream(String fileName) {
+		ReportStream reportStream = reportStreams.get(fileName);
+		if (reportStream == null) {
+			throw new IllegalStateException("The file " + fileName + " is not being validated");
+		}
+		return reportStream;
+	}
+	
+	private ValidationContext borrowValidationContext() {
+		ValidationContext validationContext = validationContexts.poll();
+		if (validationContext == null) {
+			validationContext = new ValidationContext();
+			log.debug("Created a new validation context");
+		}
+		return validationContext;
+	}
+	
+	private void returnValidationContext(ValidationContext validationContext) {
+		validationContext.reset();
+		// if the pool is already full the context is simply dropped
+		validationContexts.offer(validationContext);
+	}
+	
+	public int getValidationWorkerCount() {
+		return validationWorkerCount;
+	}
 
+	public void setValidationWorkerCount(int validationWorkerCount) {
+		this.validationWorkerCount = validationWorkerCount;
 	}
 	
-	private void addReportWithoutErrors(ValidationResults validationResults, AbstractReport report) {
-		if (validationResults.getErrorList().isEmpty()){
-			validationResults.getReportsWithoutErrors().add(report);
+	private static final class ValidationContext {
+		
+		private final IncidentBuilder incidentBuilder = new IncidentBuilder();
+		private final SubmissionValidator submissionValidator = new SubmissionValidator();
+		private XmlIncidentBuilder xmlIncidentBuilder;
+		
+		XmlIncidentBuilder getXmlIncidentBuilder() {
+			if (xmlIncidentBuilder == null) {
+				try {
+					xmlIncidentBuilder = new XmlIncidentBuilder();
+				} catch (ParserConfigurationException e) {
+					throw new IllegalStateException("Unable to create an XML incident builder", e);
+				}
+			}
+			return xmlIncidentBuilder;
 		}
-		else{
-			NIBRSError nibrsError = validationResults.getErrorList().get(validationResults.getErrorList().size()-1);
-			if (report.getIdentifier() != null && 
-					!report.getIdentifier().equals(nibrsError.getReportUniqueIdentifier())) {
-				validationResults.getReportsWithoutErrors().add(report);
+		
+		/**
+		 * Remove the file's listeners, and start the counts in the incident builders' logs afresh, for the next file.
+		 */
+		void reset() {
+			reset(incidentBuilder);
+			if (xmlIncidentBuilder != null) {
+				reset(xmlIncidentBuilder);
 			}
 		}
+		
+		private static void reset(AbstractIncidentBuilder incidentBuilder) {
+			LogListener logListener = new LogListener();
+			incidentBuilder.setListeners(new ArrayList<>());
+			incidentBuilder.setLogListener(logListener);
+			incidentBuilder.addIncidentListener(logListener);
+		}
+		
+	}
+	
+	/**
+	 * Writes the errors of the submissions in a file to its error report in the order of the submissions, although the submissions in
+	 * an archive are validated in parallel.  The errors of the first submission not yet done are written as they are found; those of 
+	 * later submissions are held until every submission before them is done.
+	 */
+	private static final class EntryErrors {
+		
+		private final ErrorSink errorSink;
+		private final List<List<NIBRSError>> heldErrors = new ArrayList<>();
+		private final BitSet done = new BitSet();
+		private int head;
+		
+		EntryErrors(ErrorSink errorSink, int entryCount) {
+			this.errorSink = errorSink;
+			for (int i = 0; i < entryCount; i++) {
+				heldErrors.add(new ArrayList<>());
+			}
+		}
+		
+		synchronized void accept(int entryIndex, List<NIBRSError> errors) {
+			if (entryIndex == head) {
+				write(errors);
+			}
+			else {
+				heldErrors.get(entryIndex).addAll(errors);
+			}
+		}
+		
+		synchronized void entryDone(int entryIndex) {
+			done.set(entryIndex);
+			while (done.get(head)) {
+				head++;
+				if (head < heldErrors.size()) {
+					write(heldErrors.get(head));
+					heldErrors.set(head, Collections.emptyList());
+				}
+			}
+		}
+		
+		private void write(List<NIBRSError> errors) {
+			try {
+				for (NIBRSError e : errors) {
+					errorSink.accept(e);
+				}
+			} catch (IOException ioe) {
+				throw new UncheckedIOException(ioe);
+			}
+		}
+		
+	}
+	
+	/**
+	 * The reports of one file, split by splitReports, and the state of its error report.
+	 */
+	private final class ReportStream implements Iterator<ValidatedReport>, Closeable {
+		
+		private final ValidatedReport endOfFile = new ValidatedReport(null, Collections.emptyList(), -1);
+		
+		private final File file;
+		private final File errorReportFile;
+		private final ErrorSink errorSink;
+		private final BlockingQueue<ValidatedReport> validatedReports = new ArrayBlockingQueue<>(STREAM_QUEUE_CAPACITY);
+		private final Set<String> identifiersInProcess = new HashSet<>();
+		private Thread parser;
+		private volatile Exception parseFailure;
+		private ValidatedReport next;
+		private int validReportCount;
+		private int returnedCount;
+		private int processedCount;
+		private int pendingErrorReportCount;
+		
+		ReportStream(File file, File errorReportFile, ErrorSink errorSink) {
+			this.file = file;
+			this.errorReportFile = errorReportFile;
+			this.errorSink = errorSink;
+		}
+		
+		void start(String fileName) {
+			parser = new Thread(this::parse, "nibrs-parse-" + fileName);
+			parser.setDaemon(true);
+			parser.start();
+		}
+		
+		private void parse() {
+			ReportListener reportListener = (report, el) -> {
+				try {
+					validatedReports.put(new ValidatedReport(report, el, el.isEmpty() ? validReportCount++ : -1));
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("Interrupted while splitting " + file, e);
+				}
+			};
+			
+			// the submissions in an archive are split one after another, so that the reports are numbered the same way every time
+			try (SubmissionFile submissionFile = SubmissionFile.open(file)) {
+				for (SubmissionFile.Entry entry : submissionFile.getEntries()) {
+					validateSubmission(entry, reportListener);
+				}
+			} catch (Exception e) {
+				parseFailure = e;
+			} finally {
+				try {
+					validatedReports.put(endOfFile);
+				} catch (InterruptedException e) {
+					// the splitter has closed the stream, so nothing is waiting for the end of the file
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+		
+		@Override
+		public boolean hasNext() {
+			if (next == null) {
+				try {
+					next = validatedReports.take();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("Interrupted while splitting " + file, e);
+				}
+			}
+			if (next == endOfFile) {
+				if (parseFailure != null) {
+					throw new IllegalStateException("Failed to split " + file, parseFailure);
+				}
+				return false;
+			}
+			return true;
+		}
+		
+		@Override
+		public ValidatedReport next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			ValidatedReport ret = next;
+			next = null;
+			
+			String identifier = ret.getReport().getClass().getName() + ":" + ret.getReport().getIdentifier();
+			synchronized (this) {
+				if (!identifiersInProcess.add(identifier)) {
+					while (processedCount < returnedCount) {
+						try {
+							wait();
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+							throw new IllegalStateException("Interrupted while splitting " + file, e);
+						}
+					}
+					identifiersInProcess.clear();
+					identifiersInProcess.add(identifier);
+				}
+				returnedCount++;
+				if (!ret.isValid()) {
+					pendingErrorReportCount++;
+				}
+			}
+			return ret;
+		}
+		
+		synchronized void reportProcessed() {
+			processedCount++;
+			notifyAll();
+		}
+		
+		synchronized void appendErrors(List<ValidatedReport> group) throws IOException {
+			for (ValidatedReport validatedReport : group) {
+				for (NIBRSError e : validatedReport.getErrors()) {
+					errorSink.accept(e);
+				}
+			}
+			errorSink.flush();
+			pendingErrorReportCount -= group.size();
+			notifyAll();
+		}
+		
+		synchronized ValidationResults finish() throws IOException, InterruptedException {
+			while (pendingErrorReportCount > 0) {
+				wait();
+			}
+			errorSink.close();
+			ValidationResults validationResults = new ValidationResults();
+			validationResults.setErrorReportFile(errorReportFile);
+			validationResults.setErrorCount(errorSink.getErrorCount());
+			log.info("Split " + returnedCount + " reports from " + file + ", with " + errorSink.getErrorCount() + " errors");
+			return validationResults;
+		}
+		
+		void abandon() throws IOException {
+			close();
+			errorSink.close();
+			Files.deleteIfExists(errorReportFile.toPath());
+		}
+		
+		/**
+		 * Called by the splitter when it is done with the iterator, which is early if the route failed.
+		 */
+		@Override
+		public void close() throws IOException {
+			if (parser != null && parser.isAlive()) {
+				parser.interrupt();
+			}
+		}
+		
 	}
 	
 	public File createErrorReport(@Body ValidationResults validationResults,
@@ -104,10 +584,7 @@ public class FlatFileValidator {
 		
 		String fileName = resultPath + File.separator + fileNameOnly.replace(".", "-" + formatter.format(LocalDateTime.now()) + ".");
 		File file = new File(fileName);
-		FileWriter filewriter = new FileWriter(file);
-		Writer outputWriter = new BufferedWriter(filewriter);
-		errorExporter.createErrorReport(validationResults.getErrorList(), outputWriter);
-		outputWriter.close();
+		Files.move(validationResults.getErrorReportFile().toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
 		log.info("The error report is writen to " + fileName); 
 		
 		return file; 
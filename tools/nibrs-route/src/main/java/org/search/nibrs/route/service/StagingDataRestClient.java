@@ -1,4 +1,3 @@
-
 /*
  * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
  *
@@ -17,10 +16,25 @@
 
 package org.search.nibrs.route.service;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 import org.apache.camel.Body;
 import org.apache.camel.Header;
@@ -30,48 +44,133 @@ import org.search.nibrs.model.AbstractReport;
 import org.search.nibrs.model.GroupAIncidentReport;
 import org.search.nibrs.model.GroupBArrestReport;
 import org.search.nibrs.route.AppProperties;
+import org.search.nibrs.route.service.CheckpointJournal.Checkpoint;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Persists the reports of a validated submission by calling the stagingData Rest service.
+ * <br/>
+ * Reports are posted in batches of app.stagingDataBatchSize to the services' bulk endpoints, with up to app.stagingDataConcurrency
+ * batches in flight at once, and (by default) gzip request bodies.  A batch that cannot reach the service, or that the service reports
+ * as unavailable, is retried with exponential backoff.  A batch that the service rejects is posted again one report at a time, so
+ * that only the bad reports are lost.  With app.stagingDataJobs, each batch is instead submitted to the service's jobs endpoints, which
+ * queue it and answer at once, and the job is polled until the service has persisted it; a batch still counts as in flight until then.  When a report has the same identifier as one already on its way (a resubmission or a delete
+ * later in the same file), the batches in flight are allowed to finish first, so that reports are applied in file order.
+ * <br/>
+ * How far each file has got is recorded by the CheckpointJournal, so that a file that is processed again after a failure skips the
+ * reports that were persisted the first time.
+ * <br/>
+ * Requests go through the JDK's HttpURLConnection, which keeps connections alive and reuses them; its pool holds http.maxConnections
+ * (default 5) idle connections per host, which should be at least app.stagingDataConcurrency.
+ */
 @Service
 public class StagingDataRestClient {
 
 	private final Log log = LogFactory.getLog(this.getClass());
 
+	private static final int CONNECT_TIMEOUT_MILLIS = 10 * 1000;
+	private static final int READ_TIMEOUT_MILLIS = 10 * 60 * 1000;
+
+	private static final AtomicInteger POOL_NUMBER = new AtomicInteger(1);
+
 	private RestTemplate restTemplate;
 	@Autowired
 	private AppProperties appProperties;
+	@Autowired
+	private CheckpointJournal checkpointJournal;
 
 	public StagingDataRestClient() {
 		super();
-		restTemplate = new RestTemplate(); 
+		SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+		requestFactory.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+		requestFactory.setReadTimeout(READ_TIMEOUT_MILLIS);
+		restTemplate = new RestTemplate(requestFactory);
 		restTemplate.setMessageConverters(getMessageConverters());
+		restTemplate.setInterceptors(Collections.<ClientHttpRequestInterceptor>singletonList(this::gzipRequestBody));
 	}
-	
-	public void persistIncidentReports(@Body ValidationResults validationResults, @Header("CamelFileName") String fileName) {
-		List<AbstractReport> abstractReports = validationResults.getReportsWithoutErrors(); 
-		
+
+	public void persistIncidentReports(@Body ValidationResults validationResults, @Header("CamelFileName") String fileName,
+			@Header("CamelFileLength") Long fileLength, @Header("CamelFileLastModified") Long lastModified) {
+		List<AbstractReport> abstractReports = validationResults.getReportsWithoutErrors();
+		Checkpoint checkpoint = checkpointJournal.open(fileName, valueOf(fileLength), valueOf(lastModified));
+
 		logCountsOfReports(abstractReports);
-		int count = 0; 
-		for(AbstractReport abstractReport: abstractReports){
-			try{
-				persistAbstractReport(abstractReport);
-				log.info("Progress: " + (++count) + "/" + abstractReports.size());
-			}
-			catch(ResourceAccessException rae){
-				log.error("Failed to connect to the rest service to process the reports in " + fileName);
-				throw rae;
+
+		int batchSize = Math.max(1, appProperties.getStagingDataBatchSize());
+		int concurrency = Math.max(1, appProperties.getStagingDataConcurrency());
+		String threadNamePrefix = "staging-data-rest-client-" + POOL_NUMBER.getAndIncrement() + "-";
+		AtomicInteger threadNumber = new AtomicInteger(1);
+		ExecutorService executor = Executors.newFixedThreadPool(concurrency, r -> {
+			Thread t = new Thread(r, threadNamePrefix + threadNumber.getAndIncrement());
+			t.setDaemon(true);
+			return t;
+		});
+
+		Progress progress = new Progress(fileName, abstractReports.size(), checkpoint);
+		Deque<Future<?>> inFlight = new ArrayDeque<>();
+		List<AbstractReport> groupAIncidentReports = new ArrayList<>();
+		List<AbstractReport> groupBArrestReports = new ArrayList<>();
+		Set<String> pendingIdentifiers = new HashSet<>();
+
+		try{
+			for(int reportNumber = 0; reportNumber < abstractReports.size(); reportNumber++){
+				AbstractReport abstractReport = abstractReports.get(reportNumber);
+				if (checkpoint.isCommitted(reportNumber)){
+					continue;
+				}
+				progress.numberReport(abstractReport, reportNumber);
+				String identifierKey = abstractReport.getClass().getName() + ":" + abstractReport.getIdentifier();
+				if (!pendingIdentifiers.add(identifierKey)){
+					submitBatch(executor, inFlight, concurrency, "groupAIncidentReports", groupAIncidentReports, progress);
+					submitBatch(executor, inFlight, concurrency, "arrestReports", groupBArrestReports, progress);
+					while (!inFlight.isEmpty()){
+						await(inFlight.removeFirst());
+					}
+					pendingIdentifiers.clear();
+					pendingIdentifiers.add(identifierKey);
+				}
+
+				if (abstractReport instanceof GroupAIncidentReport && abstractReport.getReportActionType() != 'D'){
+					groupAIncidentReports.add(abstractReport);
+					if (groupAIncidentReports.size() == batchSize){
+						submitBatch(executor, inFlight, concurrency, "groupAIncidentReports", groupAIncidentReports, progress);
+					}
+				}
+				else if (abstractReport instanceof GroupBArrestReport && abstractReport.getReportActionType() != 'D'){
+					groupBArrestReports.add(abstractReport);
+					if (groupBArrestReports.size() == batchSize){
+						submitBatch(executor, inFlight, concurrency, "arrestReports", groupBArrestReports, progress);
+					}
+				}
+				else{
+					submit(executor, inFlight, concurrency, () -> persistReport(abstractReport, progress));
+				}
 			}
-			catch(Exception e){
-				log.warn("Failed to persist incident " + abstractReport.getIdentifier());
-				log.error(e);
-				log.info("Progress: " + (++count) + "/" + abstractReports.size());
+			submitBatch(executor, inFlight, concurrency, "groupAIncidentReports", groupAIncidentReports, progress);
+			submitBatch(executor, inFlight, concurrency, "arrestReports", groupBArrestReports, progress);
+			while (!inFlight.isEmpty()){
+				await(inFlight.removeFirst());
 			}
 		}
+		finally{
+			executor.shutdownNow();
+		}
+		checkpoint.complete();
 		log.info("All reports from the file " + fileName + " are procesed.");
 	}
 
@@ -110,10 +209,226 @@ public class StagingDataRestClient {
 		
 	}
 	
+	/**
+	 * Post a batch of reports to the bulk endpoint of a resource, or submit it as a job and wait for the job to finish.  If the service 
+	 * rejects the batch, fall back to posting its reports one at a time.
+	 */
+	private void postBatch(String resource, List<AbstractReport> reports, Progress progress) {
+		try{
+			if (appProperties.isStagingDataJobs()){
+				runJob(resource, reports);
+			}
+			else{
+				withRetry(() -> restTemplate.postForLocation(appProperties.getStagingDataRestServiceBaseUrl() + resource + "/bulk", 
+						reports.toArray()));
+			}
+			progress.add(reports);
+		}
+		catch(ResourceAccessException rae){
+			log.error("Failed to connect to the rest service to process the reports in " + progress.fileName);
+			throw rae;
+		}
+		catch(Exception e){
+			if (reports.size() == 1){
+				log.warn("Failed to persist incident " + reports.get(0).getIdentifier());
+				log.error(e);
+				progress.add(reports);
+			}
+			else{
+				log.warn("Failed to persist the batch of reports " + reports.stream().map(AbstractReport::getIdentifier).collect(Collectors.toList())
+					+ ", posting them one at a time");
+				reports.forEach(report -> persistReport(report, progress));
+			}
+		}
+	}
+
+	/**
+	 * Submit a batch of reports to the jobs endpoint of a resource, which queues them and returns at once, then poll the job until the
+	 * service has finished with it.  Reports of the job that the service failed to persist are logged, as they would be when posted
+	 * one at a time.  A job that the service no longer knows (because it was restarted) is an error, so the batch is posted again one
+	 * report at a time.
+	 */
+	private void runJob(String resource, List<AbstractReport> reports) {
+		String baseUrl = appProperties.getStagingDataRestServiceBaseUrl();
+		JsonNode job = withRetry(() -> restTemplate.postForObject(baseUrl + resource + "/jobs", reports.toArray(), JsonNode.class));
+		String jobId = job.path("jobId").asText();
+		while (!job.path("status").asText().startsWith("COMPLETED")){
+			try{
+				Thread.sleep(appProperties.getStagingDataJobPollMillis());
+			}
+			catch(InterruptedException e){
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting for the job " + jobId, e);
+			}
+			job = withRetry(() -> restTemplate.getForObject(baseUrl + "jobs/" + jobId, JsonNode.class));
+		}
+		if (job.path("failedCount").asInt() > 0){
+			log.warn("Failed to persist " + job.path("failedCount").asInt() + " of the " + reports.size() + " reports of the job " + jobId 
+					+ ": " + job.path("failureMessages"));
+		}
+	}
+
+	/**
+	 * Persist one report split from a file by the streaming route, as soon as it has been validated.
+	 */
+	public void persistValidatedReport(@Body ValidatedReport validatedReport, @Header("CamelFileName") String fileName,
+			@Header("CamelFileLength") Long fileLength, @Header("CamelFileLastModified") Long lastModified) {
+		Checkpoint checkpoint = checkpointJournal.open(fileName, valueOf(fileLength), valueOf(lastModified));
+		if (checkpoint.isCommitted(validatedReport.getReportNumber())){
+			return;
+		}
+		persistReport(validatedReport.getReport(), fileName);
+		checkpoint.persisted(validatedReport.getReportNumber());
+	}
+
+	/**
+	 * Record that every report split from a file by the streaming route has been persisted.
+	 */
+	public void completeCheckpoint(@Header("CamelFileName") String fileName, @Header("CamelFileLength") Long fileLength, 
+			@Header("CamelFileLastModified") Long lastModified) {
+		checkpointJournal.open(fileName, valueOf(fileLength), valueOf(lastModified)).complete();
+	}
+
+	private void persistReport(AbstractReport abstractReport, Progress progress) {
+		persistReport(abstractReport, progress.fileName);
+		progress.add(Collections.singletonList(abstractReport));
+	}
+
+	private void persistReport(AbstractReport abstractReport, String fileName) {
+		try{
+			withRetry(() -> persistAbstractReport(abstractReport));
+		}
+		catch(ResourceAccessException rae){
+			log.error("Failed to connect to the rest service to process the reports in " + fileName);
+			throw rae;
+		}
+		catch(Exception e){
+			log.warn("Failed to persist incident " + abstractReport.getIdentifier());
+			log.error(e);
+		}
+	}
+
+	/**
+	 * Make a call, retrying with exponential backoff if it cannot reach the service or the service is temporarily unavailable.
+	 */
+	private void withRetry(Runnable call) {
+		withRetry(() -> {
+			call.run();
+			return null;
+		});
+	}
+
+	private <T> T withRetry(Supplier<T> call) {
+		long backoffMillis = appProperties.getStagingDataRetryBackoffMillis();
+		for (int attempt = 1; ; attempt++){
+			try{
+				return call.get();
+			}
+			catch(ResourceAccessException | HttpServerErrorException e){
+				if (attempt >= appProperties.getStagingDataMaxAttempts() || !isRetryable(e)){
+					throw e;
+				}
+				log.warn("Attempt " + attempt + " to call the rest service failed (" + e.getMessage() + "), retrying in " + backoffMillis + " ms");
+				try{
+					Thread.sleep(backoffMillis);
+				}
+				catch(InterruptedException ie){
+					Thread.currentThread().interrupt();
+					throw e;
+				}
+				backoffMillis *= 2;
+			}
+		}
+	}
+
+	private static boolean isRetryable(RuntimeException e) {
+		if (e instanceof HttpServerErrorException){
+			HttpStatus statusCode = ((HttpServerErrorException) e).getStatusCode();
+			return statusCode == HttpStatus.BAD_GATEWAY || statusCode == HttpStatus.SERVICE_UNAVAILABLE || statusCode == HttpStatus.GATEWAY_TIMEOUT;
+		}
+		return true;
+	}
+
+	private void submitBatch(ExecutorService executor, Deque<Future<?>> inFlight, int concurrency, String path, List<AbstractReport> reports,
+			Progress progress) {
+		if (!reports.isEmpty()){
+			List<AbstractReport> batch = new ArrayList<>(reports);
+			reports.clear();
+			submit(executor, inFlight, concurrency, () -> postBatch(path, batch, progress));
+		}
+	}
+
+	private void submit(ExecutorService executor, Deque<Future<?>> inFlight, int concurrency, Runnable task) {
+		while (inFlight.size() >= concurrency){
+			await(inFlight.removeFirst());
+		}
+		inFlight.add(executor.submit(task));
+	}
+
+	private void await(Future<?> future) {
+		try{
+			future.get();
+		}
+		catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while persisting reports", e);
+		}
+		catch(ExecutionException e){
+			if (e.getCause() instanceof RuntimeException){
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	private static long valueOf(Long header) {
+		return header == null ? 0 : header;
+	}
+
+	private ClientHttpResponse gzipRequestBody(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+		if (body.length == 0 || !appProperties.isStagingDataGzip()){
+			return execution.execute(request, body);
+		}
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 64);
+		try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(compressed)){
+			gzipOutputStream.write(body);
+		}
+		request.getHeaders().set(HttpHeaders.CONTENT_ENCODING, "gzip");
+		return execution.execute(request, compressed.toByteArray());
+	}
+
 	private List<HttpMessageConverter<?>> getMessageConverters() {
 	    List<HttpMessageConverter<?>> converters = 
 	      new ArrayList<HttpMessageConverter<?>>();
 	    converters.add(new MappingJackson2HttpMessageConverter());
 	    return converters;
 	}
+
+	private final class Progress {
+
+		private final String fileName;
+		private final int total;
+		private final Checkpoint checkpoint;
+		private final Map<AbstractReport, Integer> reportNumbers = new IdentityHashMap<>();
+		private final AtomicInteger count = new AtomicInteger();
+
+		Progress(String fileName, int total, Checkpoint checkpoint) {
+			this.fileName = fileName;
+			this.total = total;
+			this.checkpoint = checkpoint;
+			count.set(checkpoint.getCommittedCount());
+		}
+
+		synchronized void numberReport(AbstractReport report, int reportNumber) {
+			reportNumbers.put(report, reportNumber);
+		}
+
+		void add(List<AbstractReport> reports) {
+			synchronized (this) {
+				reports.forEach(report -> checkpoint.persisted(reportNumbers.remove(report)));
+			}
+			log.info("Progress: " + count.addAndGet(reports.size()) + "/" + total);
+		}
+
+	}
 }
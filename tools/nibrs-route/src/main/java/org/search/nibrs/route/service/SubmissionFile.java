@@ -0,0 +1,153 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.route.service;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * A file dropped into the input folder, and the submissions in it.  A flat or XML file is a single submission; a gzip file is a single
+ * submission, decompressed as it is read; a zip archive holds a submission in each entry.  What kind of file it is, and what format each
+ * submission is in, is worked out from the first bytes, not the file name.  Nothing is unpacked to disk, and the entries of a zip archive
+ * can be read at the same time, each on its own thread.
+ */
+final class SubmissionFile implements Closeable {
+
+	enum Format {
+		FLAT, XML
+	}
+
+	/**
+	 * One submission in the file.
+	 */
+	interface Entry {
+
+		/**
+		 * The name to record as the source of each report in the submission.
+		 */
+		String getName();
+
+		/**
+		 * Open the submission, decompressed, with enough buffering to sniff its format.
+		 */
+		BufferedInputStream open() throws IOException;
+
+	}
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final int SNIFF_LENGTH = 512;
+
+	private final ZipFile zipFile;
+	private final List<Entry> entries;
+
+	private SubmissionFile(ZipFile zipFile, List<Entry> entries) {
+		this.zipFile = zipFile;
+		this.entries = entries;
+	}
+
+	static SubmissionFile open(File file) throws IOException {
+		String name = file.getAbsolutePath();
+		byte[] magic = new byte[4];
+		int magicLength;
+		try (InputStream inputStream = new FileInputStream(file)) {
+			magicLength = inputStream.read(magic);
+		}
+
+		if (magicLength == 4 && magic[0] == 'P' && magic[1] == 'K' && magic[2] == 3 && magic[3] == 4) {
+			ZipFile zipFile = new ZipFile(file);
+			List<Entry> entries = new ArrayList<>();
+			for (Enumeration<? extends ZipEntry> e = zipFile.entries(); e.hasMoreElements(); ) {
+				ZipEntry zipEntry = e.nextElement();
+				// skip folders, and the resource forks that the Mac adds to archives
+				if (!zipEntry.isDirectory() && !zipEntry.getName().startsWith("__MACOSX/")) {
+					entries.add(entry(name + "!" + zipEntry.getName(), () -> zipFile.getInputStream(zipEntry)));
+				}
+			}
+			return new SubmissionFile(zipFile, entries);
+		}
+		if (magicLength >= 2 && (magic[0] & 0xff) == 0x1f && (magic[1] & 0xff) == 0x8b) {
+			return new SubmissionFile(null, Collections.singletonList(entry(name, () -> new GZIPInputStream(new FileInputStream(file), BUFFER_SIZE))));
+		}
+		return new SubmissionFile(null, Collections.singletonList(entry(name, () -> new FileInputStream(file))));
+	}
+
+	List<Entry> getEntries() {
+		return entries;
+	}
+
+	/**
+	 * Work out the format of a submission from its first bytes, leaving the stream where it was: XML if the first character other than
+	 * a byte order mark or white space is '<', and flat otherwise.
+	 */
+	static Format sniff(BufferedInputStream inputStream) throws IOException {
+		inputStream.mark(SNIFF_LENGTH);
+		try {
+			for (int i = 0; i < SNIFF_LENGTH; i++) {
+				int b = inputStream.read();
+				if (b == -1) {
+					break;
+				}
+				// skip the UTF-8 byte order mark as well as white space
+				if (b == 0xef || b == 0xbb || b == 0xbf || Character.isWhitespace(b)) {
+					continue;
+				}
+				return b == '<' ? Format.XML : Format.FLAT;
+			}
+			return Format.FLAT;
+		} finally {
+			inputStream.reset();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (zipFile != null) {
+			zipFile.close();
+		}
+	}
+
+	private interface Opener {
+		InputStream open() throws IOException;
+	}
+
+	private static Entry entry(String name, Opener opener) {
+		return new Entry() {
+
+			@Override
+			public String getName() {
+				return name;
+			}
+
+			@Override
+			public BufferedInputStream open() throws IOException {
+				return new BufferedInputStream(opener.open(), BUFFER_SIZE);
+			}
+
+		};
+	}
+
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.route.service;
+
+import java.util.List;
+
+import org.search.nibrs.common.NIBRSError;
+import org.search.nibrs.model.AbstractReport;
+
+/**
+ * One report from a submission, with the errors found in it.  The body of each exchange split from a file by 
+ * FlatFileValidator.splitReports.
+ */
+public class ValidatedReport {
+
+	private final AbstractReport report;
+	private final List<NIBRSError> errors;
+	private final int reportNumber;
+	
+	public ValidatedReport(AbstractReport report, List<NIBRSError> errors, int reportNumber) {
+		this.report = report;
+		this.errors = errors;
+		this.reportNumber = reportNumber;
+	}
+
+	public AbstractReport getReport() {
+		return report;
+	}
+
+	public List<NIBRSError> getErrors() {
+		return errors;
+	}
+
+	/**
+	 * The position of the report among the valid reports in the file, counting from zero, or -1 if the report is not valid.
+	 */
+	public int getReportNumber() {
+		return reportNumber;
+	}
+
+	/**
+	 * Whether the report has no errors, and so can be persisted.
+	 */
+	public boolean isValid() {
+		return errors.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return "ValidatedReport [identifier=" + report.getIdentifier() + ", errorCount=" + errors.size() + "]";
+	}
+
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.route.service;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.processor.aggregate.AbstractListAggregationStrategy;
+
+/**
+ * Aggregates the ValidatedReport bodies of exchanges into a list.  Exchanges with any other body (such as the empty exchange sent to
+ * complete a group) add nothing to the list.
+ */
+public class ValidatedReportAggregationStrategy extends AbstractListAggregationStrategy<ValidatedReport> {
+
+	@Override
+	public ValidatedReport getValue(Exchange exchange) {
+		Object body = exchange.getIn().getBody();
+		return body instanceof ValidatedReport ? (ValidatedReport) body : null;
+	}
+
+}
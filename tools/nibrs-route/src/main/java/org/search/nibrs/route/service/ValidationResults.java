@@ -15,30 +15,48 @@
  */
 package org.search.nibrs.route.service;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.search.nibrs.common.NIBRSError;
 import org.search.nibrs.model.AbstractReport;
 
 public class ValidationResults{
 
-	private final List<NIBRSError> errorList;
+	private int errorCount;
+	private File errorReportFile;
 	private List<AbstractReport> reportsWithoutErrors;
 	
 	public ValidationResults() {
 		super();
-		errorList = new ArrayList<>();
 		reportsWithoutErrors = new ArrayList<>();
 	}
 
-	public List<NIBRSError> getErrorList() {
-		return errorList;
+	/**
+	 * The number of errors found in the submission.
+	 */
+	public int getErrorCount() {
+		return errorCount;
+	}
+
+	public void setErrorCount(int errorCount) {
+		this.errorCount = errorCount;
+	}
+
+	/**
+	 * The error report for the submission, in FBI format, which is written while the submission is validated.
+	 */
+	public File getErrorReportFile() {
+		return errorReportFile;
+	}
+
+	public void setErrorReportFile(File errorReportFile) {
+		this.errorReportFile = errorReportFile;
 	}
 
 	@Override
 	public String toString() {
-		return "ValidationResults [errorList=" + errorList + ", incidentReportsWithoutErrors=" + getReportsWithoutErrors() + "]";
+		return "ValidationResults [errorCount=" + errorCount + ", errorReportFile=" + errorReportFile + ", incidentReportsWithoutErrors=" + getReportsWithoutErrors() + "]";
 	}
 
 	public List<AbstractReport> getReportsWithoutErrors() {
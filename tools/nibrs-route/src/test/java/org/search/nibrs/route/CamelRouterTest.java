@@ -0,0 +1,145 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.route;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.camel.builder.NotifyBuilder;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.impl.SimpleRegistry;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.search.nibrs.route.service.FlatFileValidator;
+import org.search.nibrs.route.service.StagingDataRestClient;
+import org.search.nibrs.route.service.ValidationResults;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.StreamUtils;
+
+public class CamelRouterTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private AppProperties appProperties;
+	private byte[] submission;
+
+	@Before
+	public void setUp() throws IOException {
+		appProperties = new AppProperties();
+		appProperties.setNibrsFileFolderPath(temporaryFolder.getRoot().getPath());
+		appProperties.setMulticastEndpoints("direct:createErrorReport");
+		appProperties.setStreaming(true);
+		appProperties.setErrorAggregationSize(2);
+		appProperties.setErrorAggregationTimeoutMillis(100);
+		try (InputStream inputStream = getClass().getResourceAsStream("/submission-1.txt")) {
+			submission = StreamUtils.copyToByteArray(inputStream);
+		}
+	}
+
+	@Test
+	public void testStreaming() throws Exception {
+		File batchFile = temporaryFolder.newFile("batch.txt");
+		Files.write(batchFile.toPath(), submission);
+		ValidationResults batchResults = newFlatFileValidator().validate(batchFile);
+		List<String> expectedErrorReport = Files.readAllLines(batchResults.getErrorReportFile().toPath());
+		Files.delete(batchResults.getErrorReportFile().toPath());
+
+		runRoute("submission-1.txt", submission);
+
+		File[] errorReports = new File(temporaryFolder.getRoot(), "result").listFiles();
+		assertEquals(1, errorReports.length);
+		List<String> errorReport = Files.readAllLines(errorReports[0].toPath());
+		// the groups of errors are written in the order they complete, which varies
+		Collections.sort(expectedErrorReport);
+		Collections.sort(errorReport);
+		assertEquals(expectedErrorReport, errorReport);
+		assertTrue(new File(temporaryFolder.getRoot(), "input/processed/submission-1.txt").exists());
+	}
+
+	@Test
+	public void testStreamingFailsPartWayThrough() throws Exception {
+		// a gzip file, of many more reports than are read at once, cut off half way through
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(bytes)) {
+			for (int i = 0; i < 50; i++) {
+				gzipOutputStream.write(submission);
+			}
+		}
+		Set<String> errorReportsBefore = listErrorReports();
+
+		runRoute("submission-1.txt.gz", Arrays.copyOf(bytes.toByteArray(), bytes.size() / 2));
+
+		assertTrue(new File(temporaryFolder.getRoot(), "error/submission-1.txt.gz").exists());
+		assertFalse(new File(temporaryFolder.getRoot(), "result").exists() 
+				&& new File(temporaryFolder.getRoot(), "result").list().length > 0);
+		assertEquals(errorReportsBefore, listErrorReports());
+	}
+
+	/**
+	 * Put a file in the input folder, and run the routes until it has been processed.
+	 */
+	private void runRoute(String fileName, byte[] content) throws Exception {
+		File input = temporaryFolder.newFolder("input");
+		Files.write(new File(input, fileName).toPath(), content);
+
+		SimpleRegistry registry = new SimpleRegistry();
+		registry.put("flatFileValidator", newFlatFileValidator());
+		// persistReport is not a multicast endpoint, so the client is never called
+		registry.put("stagingDataRestClient", new StagingDataRestClient());
+		CamelRouter camelRouter = new CamelRouter();
+		ReflectionTestUtils.setField(camelRouter, "appProperties", appProperties);
+		DefaultCamelContext camelContext = new DefaultCamelContext(registry);
+		camelContext.addRoutes(camelRouter);
+		NotifyBuilder notifyBuilder = new NotifyBuilder(camelContext).fromRoute("validate").whenDone(1).create();
+		camelContext.start();
+		try {
+			assertTrue(notifyBuilder.matches(30, TimeUnit.SECONDS));
+		} finally {
+			camelContext.stop();
+		}
+	}
+
+	private FlatFileValidator newFlatFileValidator() {
+		FlatFileValidator ret = new FlatFileValidator();
+		ReflectionTestUtils.setField(ret, "appProperties", appProperties);
+		ReflectionTestUtils.invokeMethod(ret, "init");
+		return ret;
+	}
+
+	private static Set<String> listErrorReports() {
+		String[] names = new File(System.getProperty("java.io.tmpdir")).list((dir, name) -> name.startsWith("nibrs-errors-"));
+		return new HashSet<>(Arrays.asList(names));
+	}
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.route.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.search.nibrs.route.AppProperties;
+import org.search.nibrs.route.service.CheckpointJournal.Checkpoint;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class CheckpointJournalTest {
+
+	private static final String FILE_NAME = "test.txt";
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private AppProperties appProperties;
+
+	@Before
+	public void setUp() {
+		appProperties = new AppProperties();
+		appProperties.setNibrsFileFolderPath(temporaryFolder.getRoot().getPath());
+	}
+
+	@Test
+	public void testResumeAfterReportsPersistedOutOfOrder() throws Exception {
+		Checkpoint checkpoint = newCheckpointJournal().open(FILE_NAME, 1000, 2000);
+		assertEquals(0, checkpoint.getCommittedCount());
+		checkpoint.persisted(2);
+		checkpoint.persisted(1);
+		assertEquals(0, checkpoint.getCommittedCount());
+		assertFalse(getJournal().exists());
+		
+		// filling the gap moves the checkpoint past every report persisted so far, and writes the journal
+		checkpoint.persisted(0);
+		assertEquals(3, checkpoint.getCommittedCount());
+		assertTrue(getJournal().exists());
+		checkpoint.persisted(4);
+		assertEquals(3, checkpoint.getCommittedCount());
+		// within a second of the last write, the checkpoint moves without the journal being written again
+		checkpoint.persisted(3);
+		assertEquals(5, checkpoint.getCommittedCount());
+		
+		// resuming after a crash starts from the checkpoint last written
+		Checkpoint resumed = newCheckpointJournal().open(FILE_NAME, 1000, 2000);
+		assertEquals(3, resumed.getCommittedCount());
+		assertTrue(resumed.isCommitted(0));
+		assertTrue(resumed.isCommitted(2));
+		assertFalse(resumed.isCommitted(3));
+		resumed.persisted(4);
+		assertEquals(3, resumed.getCommittedCount());
+		Thread.sleep(1000);
+		resumed.persisted(3);
+		assertEquals(5, resumed.getCommittedCount());
+		assertEquals(5, newCheckpointJournal().open(FILE_NAME, 1000, 2000).getCommittedCount());
+		
+		resumed.complete();
+		assertFalse(getJournal().exists());
+		assertEquals(0, newCheckpointJournal().open(FILE_NAME, 1000, 2000).getCommittedCount());
+	}
+
+	@Test
+	public void testOpenReturnsCheckpointOfSameFile() throws Exception {
+		CheckpointJournal checkpointJournal = newCheckpointJournal();
+		Checkpoint checkpoint = checkpointJournal.open(FILE_NAME, 1000, 2000);
+		checkpoint.persisted(0);
+		assertEquals(checkpoint, checkpointJournal.open(FILE_NAME, 1000, 2000));
+		assertEquals(0, checkpointJournal.open(FILE_NAME, 1000, 3000).getCommittedCount());
+	}
+
+	@Test
+	public void testStaleJournalIsIgnored() throws Exception {
+		Checkpoint checkpoint = newCheckpointJournal().open(FILE_NAME, 1000, 2000);
+		checkpoint.persisted(0);
+		checkpoint.persisted(1);
+		assertTrue(getJournal().exists());
+		
+		// a new file with the same name, of a different length or modification time, starts from the beginning
+		Checkpoint changedLength = newCheckpointJournal().open(FILE_NAME, 1001, 2000);
+		assertEquals(0, changedLength.getCommittedCount());
+		assertFalse(changedLength.isCommitted(0));
+		assertEquals(0, newCheckpointJournal().open(FILE_NAME, 1000, 2001).getCommittedCount());
+		assertEquals(1, newCheckpointJournal().open(FILE_NAME, 1000, 2000).getCommittedCount());
+		
+		// as does a file whose journal cannot be read
+		Files.write(getJournal().toPath(), "committedCount=x".getBytes());
+		assertEquals(0, newCheckpointJournal().open(FILE_NAME, 1000, 2000).getCommittedCount());
+	}
+
+	private CheckpointJournal newCheckpointJournal() {
+		CheckpointJournal ret = new CheckpointJournal();
+		ReflectionTestUtils.setField(ret, "appProperties", appProperties);
+		return ret;
+	}
+
+	private File getJournal() {
+		return new File(temporaryFolder.getRoot(), "checkpoint/" + FILE_NAME + ".checkpoint");
+	}
+
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.route.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.search.nibrs.model.AbstractReport;
+import org.search.nibrs.route.AppProperties;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.StreamUtils;
+
+public class FlatFileValidatorTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testFailedValidationDeletesErrorReport() throws Exception {
+		FlatFileValidator flatFileValidator = newFlatFileValidator(new AppProperties());
+		Set<String> errorReportsBefore = listErrorReports();
+		try {
+			flatFileValidator.validate(new File(temporaryFolder.getRoot(), "missing.txt"));
+			fail("Expected IOException");
+		} catch (IOException e) {
+			// expected
+		}
+		assertEquals(errorReportsBefore, listErrorReports());
+	}
+
+	@Test
+	public void testPooledContextIsIsolatedBetweenFiles() throws Exception {
+		File file1 = copyResource("submission-1.txt");
+		File file2 = copyResource("submission-2.txt");
+		List<String> expected1 = summarize(newFlatFileValidator(new AppProperties()).validate(file1));
+		List<String> expected2 = summarize(newFlatFileValidator(new AppProperties()).validate(file2));
+		
+		FlatFileValidator flatFileValidator = newFlatFileValidator(new AppProperties());
+		assertEquals(expected1, summarize(flatFileValidator.validate(file1)));
+		assertEquals(expected2, summarize(flatFileValidator.validate(file2)));
+		assertEquals(expected1, summarize(flatFileValidator.validate(file1)));
+		// the three files were validated with the same context
+		assertEquals(1, ((Collection<?>) ReflectionTestUtils.getField(flatFileValidator, "validationContexts")).size());
+	}
+
+	@Test
+	public void testSplitReportsWaitsForEarlierReportsOfRepeatedIdentifier() throws Exception {
+		FlatFileValidator flatFileValidator = newFlatFileValidator(new AppProperties());
+		Iterator<ValidatedReport> validatedReports = flatFileValidator.splitReports(copyResource("submission-2.txt"), "submission-2.txt");
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			// the first 16 reports are deletes of different incidents and arrests, and the 17th replaces the first
+			List<ValidatedReport> deletes = new ArrayList<>();
+			for (int i = 0; i < 16; i++) {
+				deletes.add(validatedReports.next());
+			}
+			assertEquals("OCT09A49407", deletes.get(0).getReport().getIdentifier());
+			Future<ValidatedReport> replacement = executor.submit(validatedReports::next);
+			for (ValidatedReport delete : deletes) {
+				assertNotDone(replacement);
+				flatFileValidator.reportProcessed("submission-2.txt");
+			}
+			assertEquals("OCT09A49407", replacement.get(5, TimeUnit.SECONDS).getReport().getIdentifier());
+			assertEquals('I', replacement.get().getReport().getReportActionType());
+			flatFileValidator.reportProcessed("submission-2.txt");
+			
+			List<ValidatedReport> invalid = new ArrayList<>();
+			deletes.stream().filter(validatedReport -> !validatedReport.isValid()).forEach(invalid::add);
+			if (!replacement.get().isValid()) {
+				invalid.add(replacement.get());
+			}
+			while (validatedReports.hasNext()) {
+				ValidatedReport validatedReport = validatedReports.next();
+				if (!validatedReport.isValid()) {
+					invalid.add(validatedReport);
+				}
+				flatFileValidator.reportProcessed("submission-2.txt");
+			}
+			flatFileValidator.appendErrors(invalid, "submission-2.txt");
+			Files.delete(flatFileValidator.finishErrorReport("submission-2.txt").getErrorReportFile().toPath());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testFinishErrorReportWaitsForErrorGroups() throws Exception {
+		File file = copyResource("submission-1.txt");
+		ValidationResults batchResults = newFlatFileValidator(new AppProperties()).validate(file);
+		List<String> expectedErrorReport = summarizeErrors(batchResults);
+		
+		FlatFileValidator flatFileValidator = newFlatFileValidator(new AppProperties());
+		List<ValidatedReport> invalid = new ArrayList<>();
+		List<String> valid = new ArrayList<>();
+		for (Iterator<ValidatedReport> i = flatFileValidator.splitReports(file, "submission-1.txt"); i.hasNext(); ) {
+			ValidatedReport validatedReport = i.next();
+			if (validatedReport.isValid()) {
+				assertEquals(valid.size(), validatedReport.getReportNumber());
+				valid.add(validatedReport.getReport().getIdentifier());
+			}
+			else {
+				invalid.add(validatedReport);
+			}
+			flatFileValidator.reportProcessed("submission-1.txt");
+		}
+		assertTrue(invalid.size() > 1);
+		// the batch and the streaming routes agree on which reports have no errors, and so on how they are numbered
+		assertEquals(batchResults.getReportsWithoutErrors().stream().map(AbstractReport::getIdentifier).collect(Collectors.toList()), valid);
+		
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<ValidationResults> finished = executor.submit(() -> flatFileValidator.finishErrorReport("submission-1.txt"));
+			flatFileValidator.appendErrors(invalid.subList(0, 1), "submission-1.txt");
+			assertNotDone(finished);
+			// the last group completes the error report
+			flatFileValidator.appendErrors(invalid.subList(1, invalid.size()), "submission-1.txt");
+			assertEquals(expectedErrorReport, summarizeErrors(finished.get(5, TimeUnit.SECONDS)));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testSplitReportsFailsPartWayThrough() throws Exception {
+		// a gzip file, of many more reports than are read at once, cut off half way through
+		byte[] reports;
+		try (InputStream inputStream = getClass().getResourceAsStream("/submission-1.txt")) {
+			reports = StreamUtils.copyToByteArray(inputStream);
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(bytes)) {
+			for (int i = 0; i < 50; i++) {
+				gzipOutputStream.write(reports);
+			}
+		}
+		byte[] compressed = bytes.toByteArray();
+		File file = temporaryFolder.newFile("submission-1.txt.gz");
+		Files.write(file.toPath(), Arrays.copyOf(compressed, compressed.length / 2));
+		
+		Set<String> errorReportsBefore = listErrorReports();
+		FlatFileValidator flatFileValidator = newFlatFileValidator(new AppProperties());
+		Iterator<ValidatedReport> validatedReports = flatFileValidator.splitReports(file, "submission-1.txt.gz");
+		int count = 0;
+		try {
+			while (validatedReports.hasNext()) {
+				validatedReports.next();
+				flatFileValidator.reportProcessed("submission-1.txt.gz");
+				count++;
+			}
+			fail("Expected IllegalStateException");
+		} catch (IllegalStateException e) {
+			assertTrue(e.getCause() instanceof EOFException);
+		}
+		assertTrue(count > 0);
+		flatFileValidator.abandonReportStream("submission-1.txt.gz");
+		assertEquals(errorReportsBefore, listErrorReports());
+	}
+
+	@Test
+	public void testArchiveErrorsInEntryOrder() throws Exception {
+		// the errors of each submission, without the trailer line, and the trailer of an error report
+		List<String> errors1 = summarizeErrors(newFlatFileValidator(new AppProperties()).validate(copyResource("submission-1.txt")));
+		List<String> errors2 = summarizeErrors(newFlatFileValidator(new AppProperties()).validate(copyResource("submission-2.txt")));
+		String trailer = errors1.remove(errors1.size() - 1);
+		errors1 = errors1.subList(1, errors1.size());
+		errors2 = errors2.subList(1, errors2.size() - 1);
+		
+		// the larger submission first, so that the later ones usually finish before it
+		File file = temporaryFolder.newFile("submissions.zip");
+		try (ZipOutputStream zipOutputStream = new ZipOutputStream(new FileOutputStream(file))) {
+			List<String> names = Arrays.asList("submission-2.txt", "submission-1.txt", "submission-2.txt", "submission-1.txt");
+			for (int i = 0; i < names.size(); i++) {
+				String name = names.get(i);
+				zipOutputStream.putNextEntry(new ZipEntry(i + "/" + name));
+				try (InputStream inputStream = getClass().getResourceAsStream("/" + name)) {
+					StreamUtils.copy(inputStream, zipOutputStream);
+				}
+				zipOutputStream.closeEntry();
+			}
+		}
+		List<String> expected = new ArrayList<>();
+		expected.addAll(errors2);
+		expected.addAll(errors1);
+		expected.addAll(errors2);
+		expected.addAll(errors1);
+		expected.add(trailer);
+		
+		AppProperties appProperties = new AppProperties();
+		appProperties.setArchiveEntryConcurrency(4);
+		FlatFileValidator flatFileValidator = newFlatFileValidator(appProperties);
+		for (int i = 0; i < 5; i++) {
+			ValidationResults validationResults = flatFileValidator.validate(file);
+			List<String> errorReport = Files.readAllLines(validationResults.getErrorReportFile().toPath());
+			Files.delete(validationResults.getErrorReportFile().toPath());
+			assertEquals(expected, errorReport);
+		}
+	}
+
+	static FlatFileValidator newFlatFileValidator(AppProperties appProperties) {
+		FlatFileValidator ret = new FlatFileValidator();
+		ReflectionTestUtils.setField(ret, "appProperties", appProperties);
+		ret.init();
+		return ret;
+	}
+
+	private File copyResource(String name) throws IOException {
+		File ret = temporaryFolder.newFile(name);
+		try (InputStream inputStream = getClass().getResourceAsStream("/" + name)) {
+			Files.copy(inputStream, ret.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		return ret;
+	}
+
+	/**
+	 * The error count, the lines of the error report and the identifiers of the reports without errors.
+	 */
+	private static List<String> summarize(ValidationResults validationResults) throws IOException {
+		List<String> ret = summarizeErrors(validationResults);
+		validationResults.getReportsWithoutErrors().forEach(report -> ret.add("valid: " + report.getIdentifier()));
+		return ret;
+	}
+
+	/**
+	 * The error count and the lines of the error report, which is deleted.
+	 */
+	private static List<String> summarizeErrors(ValidationResults validationResults) throws IOException {
+		List<String> ret = new ArrayList<>();
+		ret.add("errors: " + validationResults.getErrorCount());
+		ret.addAll(Files.readAllLines(validationResults.getErrorReportFile().toPath()));
+		Files.delete(validationResults.getErrorReportFile().toPath());
+		return ret;
+	}
+
+	private static void assertNotDone(Future<?> future) throws Exception {
+		try {
+			future.get(100, TimeUnit.MILLISECONDS);
+			fail("Expected the call to wait");
+		} catch (TimeoutException e) {
+			// expected
+		}
+	}
+
+	private static Set<String> listErrorReports() {
+		String[] names = new File(System.getProperty("java.io.tmpdir")).list((dir, name) -> name.startsWith("nibrs-errors-"));
+		return new HashSet<>(Arrays.asList(names));
+	}
+
+}
@@ -0,0 +1,349 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.route.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.search.nibrs.model.AbstractReport;
+import org.search.nibrs.model.ArresteeSegment;
+import org.search.nibrs.model.GroupAIncidentReport;
+import org.search.nibrs.model.GroupBArrestReport;
+import org.search.nibrs.route.AppProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class StagingDataRestClientTest {
+
+	private static final String FILE_NAME = "test.txt";
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private AppProperties appProperties;
+	private StagingDataRestClient stagingDataRestClient;
+	private FakeStagingDataService stagingDataService;
+
+	@Before
+	public void setUp() {
+		appProperties = new AppProperties();
+		appProperties.setNibrsFileFolderPath(temporaryFolder.getRoot().getPath());
+		appProperties.setStagingDataRetryBackoffMillis(20);
+		CheckpointJournal checkpointJournal = new CheckpointJournal();
+		ReflectionTestUtils.setField(checkpointJournal, "appProperties", appProperties);
+		stagingDataRestClient = new StagingDataRestClient();
+		ReflectionTestUtils.setField(stagingDataRestClient, "appProperties", appProperties);
+		ReflectionTestUtils.setField(stagingDataRestClient, "checkpointJournal", checkpointJournal);
+		stagingDataService = new FakeStagingDataService();
+		((RestTemplate) ReflectionTestUtils.getField(stagingDataRestClient, "restTemplate")).setRequestFactory(stagingDataService);
+	}
+
+	@Test
+	public void testBatches() throws Exception {
+		appProperties.setStagingDataBatchSize(3);
+		appProperties.setStagingDataConcurrency(1);
+		persist(incident("A1"), incident("A2"), arrest("B1"), incident("A3"), incident("A4"), arrest("B2"), incident("A5"), 
+				incident("A6"), incident("A7"));
+
+		assertEquals(Arrays.asList(
+				"POST groupAIncidentReports/bulk [A1, A2, A3]", 
+				"POST groupAIncidentReports/bulk [A4, A5, A6]", 
+				"POST groupAIncidentReports/bulk [A7]", 
+				"POST arrestReports/bulk [B1, B2]"), stagingDataService.getCalls());
+		assertTrue(stagingDataService.calls.stream().allMatch(call -> call.gzip));
+		assertFalse(new File(temporaryFolder.getRoot(), "checkpoint/" + FILE_NAME + ".checkpoint").exists());
+	}
+
+	@Test
+	public void testUncompressedBatches() throws Exception {
+		appProperties.setStagingDataGzip(false);
+		appProperties.setStagingDataConcurrency(1);
+		persist(incident("A1"), arrest("B1"));
+
+		assertEquals(Arrays.asList("POST groupAIncidentReports/bulk [A1]", "POST arrestReports/bulk [B1]"), stagingDataService.getCalls());
+		assertTrue(stagingDataService.calls.stream().noneMatch(call -> call.gzip));
+	}
+
+	@Test
+	public void testRepeatedIdentifierWaitsForReportsInFlight() throws Exception {
+		appProperties.setStagingDataBatchSize(2);
+		appProperties.setStagingDataConcurrency(4);
+		stagingDataService.delayMillis = 50;
+		persist(incident("A1"), incident("A2"), incident("A3"), arrest("B1"), incident("A1"), incident("A4"), 
+				delete(incident("A4")), arrest("A1"));
+
+		assertEquals(Arrays.asList(
+				"POST groupAIncidentReports/bulk [A1, A2]", 
+				"POST groupAIncidentReports/bulk [A3]", 
+				"POST arrestReports/bulk [B1]", 
+				"POST groupAIncidentReports/bulk [A1, A4]", 
+				"DELETE groupAIncidentReports/A4", 
+				"POST arrestReports/bulk [A1]"), sortWithinBarriers(stagingDataService.calls, 3, 4));
+		assertStartsAfterEarlierCallsEnd(stagingDataService.calls, 3);
+		assertStartsAfterEarlierCallsEnd(stagingDataService.calls, 4);
+		// the batches between the barriers were in flight together
+		assertTrue(stagingDataService.calls.get(1).startNanos < stagingDataService.calls.get(0).endNanos);
+	}
+
+	@Test
+	public void testRetryWhenUnavailable() throws Exception {
+		appProperties.setStagingDataMaxAttempts(4);
+		stagingDataService.responder = call -> {
+			switch (stagingDataService.calls.size()) {
+			case 1: return HttpStatus.BAD_GATEWAY;
+			case 2: return HttpStatus.SERVICE_UNAVAILABLE;
+			case 3: return HttpStatus.GATEWAY_TIMEOUT;
+			default: return HttpStatus.CREATED;
+			}
+		};
+		persist(incident("A1"), incident("A2"));
+
+		assertEquals(Collections.nCopies(4, "POST groupAIncidentReports/bulk [A1, A2]"), stagingDataService.getCalls());
+		List<FakeStagingDataService.Call> calls = stagingDataService.calls;
+		for (int i = 1; i < calls.size(); i++) {
+			long backoffMillis = (calls.get(i).startNanos - calls.get(i - 1).endNanos) / 1000000;
+			assertTrue("backoff before attempt " + (i + 1) + " was " + backoffMillis + " ms", backoffMillis >= 20 << (i - 1));
+		}
+	}
+
+	@Test
+	public void testRejectedBatchIsPostedOneReportAtATime() throws Exception {
+		appProperties.setStagingDataMaxAttempts(4);
+		stagingDataService.responder = call -> {
+			if (call.path.endsWith("/bulk")) {
+				return HttpStatus.INTERNAL_SERVER_ERROR;
+			}
+			return call.identifiers.contains("A2") ? HttpStatus.BAD_REQUEST : HttpStatus.CREATED;
+		};
+		persist(incident("A1"), incident("A2"), incident("A3"));
+
+		// a 500 is not retried, and the batch's reports are posted (once) on their own
+		assertEquals(Arrays.asList(
+				"POST groupAIncidentReports/bulk [A1, A2, A3]", 
+				"POST groupAIncidentReports [A1]", 
+				"POST groupAIncidentReports [A2]", 
+				"POST groupAIncidentReports [A3]"), stagingDataService.getCalls());
+		assertFalse(new File(temporaryFolder.getRoot(), "checkpoint/" + FILE_NAME + ".checkpoint").exists());
+	}
+
+	@Test
+	public void testJobs() throws Exception {
+		appProperties.setStagingDataJobs(true);
+		appProperties.setStagingDataJobPollMillis(10);
+		appProperties.setStagingDataBatchSize(2);
+		appProperties.setStagingDataConcurrency(1);
+		AtomicInteger jobCount = new AtomicInteger();
+		AtomicInteger pollCount = new AtomicInteger();
+		stagingDataService.responder = call -> call.method == HttpMethod.POST ? HttpStatus.ACCEPTED : HttpStatus.OK;
+		stagingDataService.bodies = call -> {
+			if (call.method == HttpMethod.POST) {
+				return "{\"jobId\":\"job-" + jobCount.incrementAndGet() + "\",\"status\":\"QUEUED\"}";
+			}
+			if (call.path.equals("jobs/job-2")) {
+				return "{\"jobId\":\"job-2\",\"status\":\"COMPLETED_WITH_FAILURES\",\"failedCount\":1,\"failureMessages\":[\"A3: bad\"]}";
+			}
+			return "{\"jobId\":\"job-1\",\"status\":\"" + (pollCount.incrementAndGet() == 1 ? "RUNNING" : "COMPLETED") + "\"}";
+		};
+		persist(incident("A1"), incident("A2"), incident("A3"));
+
+		assertEquals(Arrays.asList(
+				"POST groupAIncidentReports/jobs [A1, A2]", 
+				"GET jobs/job-1", 
+				"GET jobs/job-1", 
+				"POST groupAIncidentReports/jobs [A3]", 
+				"GET jobs/job-2"), stagingDataService.getCalls());
+		assertFalse(new File(temporaryFolder.getRoot(), "checkpoint/" + FILE_NAME + ".checkpoint").exists());
+	}
+
+	@Test
+	public void testLostJobIsPostedOneReportAtATime() throws Exception {
+		appProperties.setStagingDataJobs(true);
+		appProperties.setStagingDataJobPollMillis(10);
+		stagingDataService.responder = call -> call.method == HttpMethod.GET ? HttpStatus.NOT_FOUND 
+				: call.path.endsWith("/jobs") ? HttpStatus.ACCEPTED : HttpStatus.CREATED;
+		stagingDataService.bodies = call -> call.path.endsWith("/jobs") ? "{\"jobId\":\"job-1\",\"status\":\"QUEUED\"}" : null;
+		persist(incident("A1"), incident("A2"));
+
+		assertEquals(Arrays.asList(
+				"POST groupAIncidentReports/jobs [A1, A2]", 
+				"GET jobs/job-1", 
+				"POST groupAIncidentReports [A1]", 
+				"POST groupAIncidentReports [A2]"), stagingDataService.getCalls());
+	}
+
+	private void persist(AbstractReport... reports) {
+		ValidationResults validationResults = new ValidationResults();
+		validationResults.setReportsWithoutErrors(new ArrayList<>(Arrays.asList(reports)));
+		stagingDataRestClient.persistIncidentReports(validationResults, FILE_NAME, 1000L, 1000L);
+	}
+
+	private static GroupAIncidentReport incident(String incidentNumber) {
+		GroupAIncidentReport ret = new GroupAIncidentReport();
+		ret.setReportActionType('I');
+		ret.setIncidentNumber(incidentNumber);
+		return ret;
+	}
+
+	private static GroupBArrestReport arrest(String arrestTransactionNumber) {
+		GroupBArrestReport ret = new GroupBArrestReport();
+		ret.setReportActionType('A');
+		ArresteeSegment arrestee = new ArresteeSegment(ArresteeSegment.GROUP_B_ARRESTEE_SEGMENT_TYPE_IDENTIFIER);
+		arrestee.setArrestTransactionNumber(arrestTransactionNumber);
+		ret.addArrestee(arrestee);
+		return ret;
+	}
+
+	private static <T extends AbstractReport> T delete(T report) {
+		report.setReportActionType('D');
+		return report;
+	}
+
+	/**
+	 * The calls in a stable order: those between two barriers may be made in any order, so they are sorted.
+	 */
+	private static List<String> sortWithinBarriers(List<FakeStagingDataService.Call> calls, int... barriers) {
+		List<String> ret = new ArrayList<>();
+		int from = 0;
+		for (int to : barriers) {
+			ret.addAll(sortCalls(calls.subList(from, to)));
+			from = to;
+		}
+		ret.addAll(sortCalls(calls.subList(from, calls.size())));
+		return ret;
+	}
+
+	private static List<String> sortCalls(List<FakeStagingDataService.Call> calls) {
+		return calls.stream()
+				.sorted((c1, c2) -> c1.path.startsWith("arrest") == c2.path.startsWith("arrest") ? c1.toString().compareTo(c2.toString())
+						: c1.path.startsWith("arrest") ? 1 : -1)
+				.map(Object::toString).collect(Collectors.toList());
+	}
+
+	private static void assertStartsAfterEarlierCallsEnd(List<FakeStagingDataService.Call> calls, int index) {
+		long startNanos = calls.get(index).startNanos;
+		for (FakeStagingDataService.Call call : calls.subList(0, index)) {
+			assertTrue(call + " had not finished when " + calls.get(index) + " started", call.endNanos <= startNanos);
+		}
+	}
+
+	/**
+	 * Stands in for the stagingData Rest service, recording the calls made to it in the order they were started.
+	 */
+	private static final class FakeStagingDataService implements ClientHttpRequestFactory {
+
+		private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+		private final List<Call> calls = Collections.synchronizedList(new ArrayList<>());
+		private volatile Function<Call, HttpStatus> responder = call -> HttpStatus.CREATED;
+		private volatile Function<Call, String> bodies = call -> null;
+		private volatile long delayMillis;
+
+		@Override
+		public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) {
+			return new MockClientHttpRequest(httpMethod, uri) {
+				@Override
+				protected ClientHttpResponse executeInternal() throws IOException {
+					Call call = new Call(this);
+					calls.add(call);
+					try {
+						Thread.sleep(delayMillis);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					HttpStatus status = responder.apply(call);
+					String body = bodies.apply(call);
+					call.endNanos = System.nanoTime();
+					if (body == null) {
+						return new MockClientHttpResponse(new byte[0], status);
+					}
+					MockClientHttpResponse response = new MockClientHttpResponse(body.getBytes(StandardCharsets.UTF_8), status);
+					response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+					return response;
+				}
+			};
+		}
+
+		List<String> getCalls() {
+			synchronized (calls) {
+				return calls.stream().map(Object::toString).collect(Collectors.toList());
+			}
+		}
+
+		private static final class Call {
+
+			private final long startNanos = System.nanoTime();
+			private volatile long endNanos;
+			private final HttpMethod method;
+			private final String path;
+			private final boolean gzip;
+			private final List<String> identifiers = new ArrayList<>();
+
+			Call(MockClientHttpRequest request) throws IOException {
+				method = request.getMethod();
+				path = request.getURI().getPath().substring(1);
+				gzip = "gzip".equals(request.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+				if (method == HttpMethod.POST) {
+					byte[] body = request.getBodyAsBytes();
+					JsonNode reports = OBJECT_MAPPER.readTree(gzip ? new GZIPInputStream(new ByteArrayInputStream(body)) 
+							: new ByteArrayInputStream(body));
+					for (JsonNode report : reports) {
+						identifiers.add(report.has("incidentNumber") ? report.get("incidentNumber").asText() 
+								: report.get("arrestees").get(0).get("arrestTransactionNumber").asText());
+					}
+				}
+			}
+
+			@Override
+			public String toString() {
+				return method + " " + path + (method == HttpMethod.POST ? " " + identifiers : "");
+			}
+
+		}
+
+	}
+
+}
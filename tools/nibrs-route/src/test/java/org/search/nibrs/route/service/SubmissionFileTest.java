@@ -0,0 +1,160 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.route.service;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.search.nibrs.route.service.SubmissionFile.Format;
+import org.springframework.util.StreamUtils;
+
+public class SubmissionFileTest {
+
+	private static final byte[] BOM = {(byte) 0xef, (byte) 0xbb, (byte) 0xbf};
+	private static final String FLAT = "00881I012016    MNBCA0000OCT23F76322 20141213 05N\n";
+	private static final String XML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<nibrs:Submission/>\n";
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testSniff() throws Exception {
+		assertSniff(Format.FLAT, bytes(FLAT));
+		assertSniff(Format.XML, bytes(XML));
+		assertSniff(Format.XML, bytes(" \r\n\t" + XML));
+		assertSniff(Format.FLAT, new byte[0]);
+		assertSniff(Format.FLAT, bytes("  \n"));
+	}
+
+	@Test
+	public void testSniffWithByteOrderMark() throws Exception {
+		assertSniff(Format.XML, concat(BOM, bytes(XML)));
+		assertSniff(Format.XML, concat(BOM, bytes("\n" + XML)));
+		assertSniff(Format.FLAT, concat(BOM, bytes(FLAT)));
+	}
+
+	@Test
+	public void testFlatFile() throws Exception {
+		File file = write("submission.txt", bytes(FLAT));
+		try (SubmissionFile submissionFile = SubmissionFile.open(file)) {
+			List<SubmissionFile.Entry> entries = submissionFile.getEntries();
+			assertEquals(1, entries.size());
+			assertEquals(file.getAbsolutePath(), entries.get(0).getName());
+			assertArrayEquals(bytes(FLAT), read(entries.get(0)));
+		}
+	}
+
+	@Test
+	public void testGzipFile() throws Exception {
+		// the file is recognized by its first bytes, whatever it is called
+		File file = write("submission.txt", gzip(bytes(XML)));
+		try (SubmissionFile submissionFile = SubmissionFile.open(file)) {
+			List<SubmissionFile.Entry> entries = submissionFile.getEntries();
+			assertEquals(1, entries.size());
+			assertEquals(file.getAbsolutePath(), entries.get(0).getName());
+			assertArrayEquals(bytes(XML), read(entries.get(0)));
+		}
+	}
+
+	@Test
+	public void testZipFile() throws Exception {
+		File file = temporaryFolder.newFile("submissions.dat");
+		try (ZipOutputStream zipOutputStream = new ZipOutputStream(new FileOutputStream(file))) {
+			putEntry(zipOutputStream, "flat.txt", bytes(FLAT));
+			zipOutputStream.putNextEntry(new ZipEntry("xml/"));
+			zipOutputStream.closeEntry();
+			putEntry(zipOutputStream, "xml/submission.xml", concat(BOM, bytes(XML)));
+			putEntry(zipOutputStream, "__MACOSX/._flat.txt", new byte[] {0, 5, 22, 7});
+		}
+		
+		try (SubmissionFile submissionFile = SubmissionFile.open(file)) {
+			List<SubmissionFile.Entry> entries = submissionFile.getEntries();
+			assertEquals(2, entries.size());
+			assertEquals(file.getAbsolutePath() + "!flat.txt", entries.get(0).getName());
+			assertEquals(file.getAbsolutePath() + "!xml/submission.xml", entries.get(1).getName());
+			
+			// the entries can be read at the same time
+			try (BufferedInputStream flat = entries.get(0).open(); BufferedInputStream xml = entries.get(1).open()) {
+				assertEquals(Format.FLAT, SubmissionFile.sniff(flat));
+				assertEquals(Format.XML, SubmissionFile.sniff(xml));
+				assertArrayEquals(bytes(FLAT), StreamUtils.copyToByteArray(flat));
+				assertArrayEquals(concat(BOM, bytes(XML)), StreamUtils.copyToByteArray(xml));
+			}
+		}
+	}
+
+	private static void assertSniff(Format expected, byte[] content) throws IOException {
+		BufferedInputStream inputStream = new BufferedInputStream(new ByteArrayInputStream(content));
+		assertEquals(expected, SubmissionFile.sniff(inputStream));
+		// sniffing leaves the stream where it was
+		assertArrayEquals(content, StreamUtils.copyToByteArray(inputStream));
+	}
+
+	private File write(String name, byte[] content) throws IOException {
+		File ret = temporaryFolder.newFile(name);
+		Files.write(ret.toPath(), content);
+		return ret;
+	}
+
+	private static byte[] read(SubmissionFile.Entry entry) throws IOException {
+		try (InputStream inputStream = entry.open()) {
+			return StreamUtils.copyToByteArray(inputStream);
+		}
+	}
+
+	private static void putEntry(ZipOutputStream zipOutputStream, String name, byte[] content) throws IOException {
+		zipOutputStream.putNextEntry(new ZipEntry(name));
+		zipOutputStream.write(content);
+		zipOutputStream.closeEntry();
+	}
+
+	private static byte[] gzip(byte[] content) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(bytes)) {
+			gzipOutputStream.write(content);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static byte[] bytes(String s) {
+		return s.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static byte[] concat(byte[] b1, byte[] b2) {
+		byte[] ret = new byte[b1.length + b2.length];
+		System.arraycopy(b1, 0, ret, 0, b1.length);
+		System.arraycopy(b2, 0, ret, b1.length, b2.length);
+		return ret;
+	}
+
+}
@@ -48,6 +48,11 @@ public class ArrestReportController {
 		arrestReportService.saveGroupBArrestReports(groupBArrestReports);
 	}
 	
+	@RequestMapping(value="/arrestReports/bulk", method=RequestMethod.POST)
+	public void bulkSaveArrestReports(@RequestBody GroupBArrestReport... groupBArrestReports){
+		arrestReportService.bulkSaveGroupBArrestReports(groupBArrestReports);
+	}
+	
 	@RequestMapping(value="/arrestReports/{identifier}", method=RequestMethod.DELETE)
 	public void deleteArrestReport(@PathVariable("identifier") String identifier){
 		arrestReportService.deleteGroupBArrestReport(identifier);
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.stagingdata.controller;
+
+import java.util.Map;
+
+import org.search.nibrs.stagingdata.service.CodeTableService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class CodeTableController {
+
+	@Autowired
+	private CodeTableService codeTableService;
+	
+	/**
+	 * Reload the code table snapshot after the reference data has changed.
+	 * @return the number of rows loaded from each code table
+	 */
+	@RequestMapping(value="/codeTables/refresh", method=RequestMethod.POST)
+	public Map<String, Integer> refresh(){
+		return codeTableService.refreshCodeTables();
+	}
+
+}
@@ -15,24 +15,38 @@
  */
 package org.search.nibrs.stagingdata.controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
 
 import org.search.nibrs.model.GroupAIncidentReport;
 import org.search.nibrs.stagingdata.model.segment.AdministrativeSegment;
+import org.search.nibrs.stagingdata.service.AdministrativeSegmentPage;
 import org.search.nibrs.stagingdata.service.GroupAIncidentService;
 import org.search.nibrs.stagingdata.util.BaselineIncidentFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 @RestController
 public class GroupAIncidentReportController {
 
 	@Autowired
 	private GroupAIncidentService groupAIncidentService;
+	@Autowired
+	private ObjectMapper objectMapper;
 	
 	@RequestMapping("/groupAIncidentReports")
 	public List<AdministrativeSegment> getAllGroupAIncidentReport(){
@@ -49,6 +63,63 @@ public class GroupAIncidentReportController {
 		groupAIncidentService.saveGroupAIncidentReports(groupAIncidentReports);
 	}
 	
+	@RequestMapping(value="/groupAIncidentReports/bulk", method=RequestMethod.POST)
+	public void bulkSave(@RequestBody GroupAIncidentReport... groupAIncidentReports){
+		groupAIncidentService.bulkSaveGroupAIncidentReports(groupAIncidentReports);
+	}
+	
+	/**
+	 * One page of administrative segments.  To get the next page, pass the nextAfterId of this page as afterId.
+	 */
+	@RequestMapping(value="/groupAIncidentReports/page", method=RequestMethod.GET)
+	public AdministrativeSegmentPage getAdministrativeSegmentPage(
+			@RequestParam(value="ori", required=false) String ori,
+			@RequestParam(value="incidentDateFrom", required=false) @DateTimeFormat(iso=ISO.DATE) Date incidentDateFrom,
+			@RequestParam(value="incidentDateTo", required=false) @DateTimeFormat(iso=ISO.DATE) Date incidentDateTo,
+			@RequestParam(value="offenseCode", required=false) String offenseCode,
+			@RequestParam(value="afterId", required=false) Integer afterId,
+			@RequestParam(value="pageSize", defaultValue="100") int pageSize){
+		return groupAIncidentService.findAdministrativeSegmentPage(ori, incidentDateFrom, incidentDateTo, offenseCode, afterId, pageSize);
+	}
+	
+	/**
+	 * All of the administrative segments that meet the criteria, as newline-delimited JSON, written a page at a time as the pages are 
+	 * read.  No transaction is open while a page is written, however slowly the client reads it.
+	 */
+	@RequestMapping(value="/groupAIncidentReports/stream", method=RequestMethod.GET, produces="application/x-ndjson")
+	public StreamingResponseBody streamAdministrativeSegments(
+			@RequestParam(value="ori", required=false) String ori,
+			@RequestParam(value="incidentDateFrom", required=false) @DateTimeFormat(iso=ISO.DATE) Date incidentDateFrom,
+			@RequestParam(value="incidentDateTo", required=false) @DateTimeFormat(iso=ISO.DATE) Date incidentDateTo,
+			@RequestParam(value="offenseCode", required=false) String offenseCode){
+		return outputStream -> {
+			try {
+				groupAIncidentService.streamAdministrativeSegments(ori, incidentDateFrom, incidentDateTo, offenseCode, 
+						this::toJsonLine, jsonLine -> {
+							try {
+								outputStream.write(jsonLine);
+							} catch (IOException e) {
+								throw new UncheckedIOException(e);
+							}
+						});
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+			outputStream.flush();
+		};
+	}
+	
+	private byte[] toJsonLine(AdministrativeSegment administrativeSegment) {
+		try {
+			byte[] json = objectMapper.writeValueAsBytes(administrativeSegment);
+			byte[] ret = Arrays.copyOf(json, json.length + 1);
+			ret[json.length] = '\n';
+			return ret;
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Unable to write the administrative segment " + administrativeSegment.getAdministrativeSegmentId(), e);
+		}
+	}
+	
 	@RequestMapping(value="/groupAIncidentReports/{incidentNumber}", method=RequestMethod.DELETE)
 	public void deleteReport(@PathVariable("incidentNumber") String incidentNumber){
 		groupAIncidentService.deleteGroupAIncidentReport(incidentNumber);
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.stagingdata.controller;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Decompresses request bodies sent with Content-Encoding: gzip, such as the batches of reports posted by the route's
+ * StagingDataRestClient.  Other requests pass through unchanged.
+ */
+@Component
+public class GzipRequestFilter extends OncePerRequestFilter {
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		if ("gzip".equalsIgnoreCase(request.getHeader(HttpHeaders.CONTENT_ENCODING))) {
+			filterChain.doFilter(new GzipRequestWrapper(request), response);
+		} else {
+			filterChain.doFilter(request, response);
+		}
+	}
+
+	private static final class GzipRequestWrapper extends HttpServletRequestWrapper {
+
+		private ServletInputStream inputStream;
+
+		GzipRequestWrapper(HttpServletRequest request) {
+			super(request);
+		}
+
+		/**
+		 * Whether a header of the original request is hidden: the body is no longer encoded, and its decompressed length is unknown.
+		 */
+		private static boolean isHidden(String name) {
+			return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name) || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+		}
+
+		@Override
+		public String getHeader(String name) {
+			return isHidden(name) ? null : super.getHeader(name);
+		}
+
+		@Override
+		public Enumeration<String> getHeaders(String name) {
+			return isHidden(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+		}
+
+		@Override
+		public Enumeration<String> getHeaderNames() {
+			List<String> ret = Collections.list(super.getHeaderNames());
+			ret.removeIf(GzipRequestWrapper::isHidden);
+			return Collections.enumeration(ret);
+		}
+
+		@Override
+		public int getIntHeader(String name) {
+			return isHidden(name) ? -1 : super.getIntHeader(name);
+		}
+
+		@Override
+		public int getContentLength() {
+			return -1;
+		}
+
+		@Override
+		public long getContentLengthLong() {
+			return -1;
+		}
+
+		@Override
+		public ServletInputStream getInputStream() throws IOException {
+			if (inputStream == null) {
+				GZIPInputStream gzipInputStream = new GZIPInputStream(super.getInputStream(), 8192);
+				inputStream = new ServletInputStream() {
+
+					private boolean finished;
+
+					@Override
+					public int read() throws IOException {
+						int ret = gzipInputStream.read();
+						finished = ret == -1;
+						return ret;
+					}
+
+					@Override
+					public int read(byte[] b, int off, int len) throws IOException {
+						int ret = gzipInputStream.read(b, off, len);
+						finished = ret == -1;
+						return ret;
+					}
+
+					@Override
+					public boolean isFinished() {
+						return finished;
+					}
+
+					@Override
+					public boolean isReady() {
+						return true;
+					}
+
+					@Override
+					public void setReadListener(ReadListener readListener) {
+						throw new UnsupportedOperationException("Non-blocking reads of gzip request bodies are not supported");
+					}
+
+					@Override
+					public void close() throws IOException {
+						gzipInputStream.close();
+					}
+
+				};
+			}
+			return inputStream;
+		}
+
+		@Override
+		public BufferedReader getReader() throws IOException {
+			String encoding = getCharacterEncoding();
+			return new BufferedReader(new InputStreamReader(getInputStream(), encoding == null ? StandardCharsets.UTF_8.name() : encoding));
+		}
+
+	}
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.stagingdata.controller;
+
+import java.util.List;
+
+import org.search.nibrs.model.GroupAIncidentReport;
+import org.search.nibrs.model.GroupBArrestReport;
+import org.search.nibrs.stagingdata.service.IngestJob;
+import org.search.nibrs.stagingdata.service.IngestJobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Asynchronous counterparts of the save endpoints: a batch is accepted (202) as soon as it is queued, and the returned job can be
+ * polled for its progress.
+ */
+@RestController
+public class IngestJobController {
+
+	@Autowired
+	private IngestJobService ingestJobService;
+	
+	@RequestMapping(value="/groupAIncidentReports/jobs", method=RequestMethod.POST)
+	public ResponseEntity<IngestJob> submitGroupAIncidentReports(@RequestBody GroupAIncidentReport... groupAIncidentReports){
+		return new ResponseEntity<>(ingestJobService.submitGroupAIncidentReports(groupAIncidentReports), HttpStatus.ACCEPTED);
+	}
+	
+	@RequestMapping(value="/arrestReports/jobs", method=RequestMethod.POST)
+	public ResponseEntity<IngestJob> submitArrestReports(@RequestBody GroupBArrestReport... groupBArrestReports){
+		return new ResponseEntity<>(ingestJobService.submitGroupBArrestReports(groupBArrestReports), HttpStatus.ACCEPTED);
+	}
+	
+	@RequestMapping("/jobs")
+	public List<IngestJob> getJobs(){
+		return ingestJobService.getJobs();
+	}
+	
+	@RequestMapping("/jobs/{jobId}")
+	public ResponseEntity<IngestJob> getJob(@PathVariable("jobId") String jobId){
+		IngestJob job = ingestJobService.getJob(jobId);
+		return job == null ? new ResponseEntity<>(HttpStatus.NOT_FOUND) : new ResponseEntity<>(job, HttpStatus.OK);
+	}
+
+}
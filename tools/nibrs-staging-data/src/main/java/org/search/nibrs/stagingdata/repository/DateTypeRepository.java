@@ -16,6 +16,7 @@
 package org.search.nibrs.stagingdata.repository;
 
 import java.util.Date;
+import java.util.List;
 
 import org.search.nibrs.stagingdata.model.DateType;
 import org.springframework.data.repository.CrudRepository;
@@ -28,4 +29,5 @@ public interface DateTypeRepository extends CrudRepository<DateType, Integer>{
 	 * @return
 	 */
 	public DateType findFirstByDateMMDDYYYY(String dateMMDDYYYY);
+	public List<DateType> findByCalendarDateBetween(Date startDate, Date endDate);
 }
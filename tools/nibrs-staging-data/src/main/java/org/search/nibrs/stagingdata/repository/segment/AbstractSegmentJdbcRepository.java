@@ -0,0 +1,116 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.stagingdata.repository.segment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+/**
+ * Common plumbing for the set-based (JDBC batch) segment repositories.
+ */
+abstract class AbstractSegmentJdbcRepository {
+
+	static final int MAX_IN_LIST_SIZE = 1000;
+
+	final JdbcTemplate jdbcTemplate;
+	final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+	private SurrogateKeyAllocator keyAllocator;
+
+	AbstractSegmentJdbcRepository(DataSource dataSource) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+	}
+
+	public SurrogateKeyAllocator getKeyAllocator() {
+		return keyAllocator;
+	}
+
+	/**
+	 * Set the allocator of surrogate keys for the segment tables.  When one is set, segments are inserted with pre-assigned keys, and the
+	 * generated keys are not read back; when none is set (the default), the tables' identity columns generate the keys.
+	 */
+	public void setKeyAllocator(SurrogateKeyAllocator keyAllocator) {
+		this.keyAllocator = keyAllocator;
+	}
+
+	/**
+	 * Assign keys to the specified segments from the key allocator, and batch insert them with their keys.
+	 */
+	<T> void insertWithAssignedKeys(String tableName, String insertStatement, List<T> segments, BiConsumer<T, Integer> idSetter,
+			Function<T, Object[]> valuesFunction) {
+
+		if (segments.isEmpty()) {
+			return;
+		}
+
+		int id = keyAllocator.allocate(tableName, segments.size());
+		List<Object[]> values = new ArrayList<>(segments.size());
+		for (T segment : segments) {
+			idSetter.accept(segment, id);
+			Object[] segmentValues = valuesFunction.apply(segment);
+			Object[] row = new Object[segmentValues.length + 1];
+			row[0] = id++;
+			System.arraycopy(segmentValues, 0, row, 1, segmentValues.length);
+			values.add(row);
+		}
+		batchInsert(SurrogateKeyAllocator.withKeyColumn(insertStatement, tableName + "ID"), values);
+	}
+
+	void batchInsert(String insertStatement, List<Object[]> values) {
+		if (!values.isEmpty()) {
+			jdbcTemplate.batchUpdate(insertStatement, values);
+		}
+	}
+
+	static <T> List<Object[]> values(List<T> items, Function<T, Object[]> valuesFunction) {
+		List<Object[]> ret = new ArrayList<>(items.size());
+		items.forEach(item -> ret.add(valuesFunction.apply(item)));
+		return ret;
+	}
+
+	static <T> Set<T> nullToEmpty(Set<T> set) {
+		return set == null ? Collections.emptySet() : set;
+	}
+
+	static <T> Integer id(T codeTableRow, Function<T, Integer> idFunction) {
+		return Optional.ofNullable(codeTableRow).map(idFunction).orElse(null);
+	}
+
+	static java.sql.Date sqlDate(Date date) {
+		return date == null ? null : new java.sql.Date(date.getTime());
+	}
+
+	static <T> List<List<T>> chunks(List<T> items) {
+		List<List<T>> ret = new ArrayList<>();
+		for (int i = 0; i < items.size(); i += MAX_IN_LIST_SIZE) {
+			ret.add(items.subList(i, Math.min(items.size(), i + MAX_IN_LIST_SIZE)));
+		}
+		return ret;
+	}
+
+}
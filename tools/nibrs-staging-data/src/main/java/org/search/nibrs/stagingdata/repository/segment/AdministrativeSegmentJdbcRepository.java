@@ -0,0 +1,475 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.stagingdata.repository.segment;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import javax.sql.DataSource;
+
+import org.search.nibrs.stagingdata.model.AdditionalJustifiableHomicideCircumstancesType;
+import org.search.nibrs.stagingdata.model.Agency;
+import org.search.nibrs.stagingdata.model.AggravatedAssaultHomicideCircumstancesType;
+import org.search.nibrs.stagingdata.model.ArresteeSegmentWasArmedWith;
+import org.search.nibrs.stagingdata.model.ArresteeWasArmedWithType;
+import org.search.nibrs.stagingdata.model.BiasMotivationType;
+import org.search.nibrs.stagingdata.model.CargoTheftIndicatorType;
+import org.search.nibrs.stagingdata.model.ClearedExceptionallyType;
+import org.search.nibrs.stagingdata.model.DateType;
+import org.search.nibrs.stagingdata.model.DispositionOfArresteeUnder18Type;
+import org.search.nibrs.stagingdata.model.EthnicityOfPersonType;
+import org.search.nibrs.stagingdata.model.LocationType;
+import org.search.nibrs.stagingdata.model.MethodOfEntryType;
+import org.search.nibrs.stagingdata.model.MultipleArresteeSegmentsIndicatorType;
+import org.search.nibrs.stagingdata.model.OffenderSuspectedOfUsingType;
+import org.search.nibrs.stagingdata.model.OfficerActivityCircumstanceType;
+import org.search.nibrs.stagingdata.model.OfficerAssignmentTypeType;
+import org.search.nibrs.stagingdata.model.PropertyDescriptionType;
+import org.search.nibrs.stagingdata.model.PropertyType;
+import org.search.nibrs.stagingdata.model.RaceOfPersonType;
+import org.search.nibrs.stagingdata.model.ResidentStatusOfPersonType;
+import org.search.nibrs.stagingdata.model.SegmentActionTypeType;
+import org.search.nibrs.stagingdata.model.SexOfPersonType;
+import org.search.nibrs.stagingdata.model.SuspectedDrugType;
+import org.search.nibrs.stagingdata.model.SuspectedDrugTypeType;
+import org.search.nibrs.stagingdata.model.TypeDrugMeasurementType;
+import org.search.nibrs.stagingdata.model.TypeInjuryType;
+import org.search.nibrs.stagingdata.model.TypeOfArrestType;
+import org.search.nibrs.stagingdata.model.TypeOfCriminalActivityType;
+import org.search.nibrs.stagingdata.model.TypeOfVictimType;
+import org.search.nibrs.stagingdata.model.TypeOfWeaponForceInvolved;
+import org.search.nibrs.stagingdata.model.TypeOfWeaponForceInvolvedType;
+import org.search.nibrs.stagingdata.model.TypePropertyLossEtcType;
+import org.search.nibrs.stagingdata.model.UcrOffenseCodeType;
+import org.search.nibrs.stagingdata.model.VictimOffenderAssociation;
+import org.search.nibrs.stagingdata.model.VictimOffenderRelationshipType;
+import org.search.nibrs.stagingdata.model.segment.AdministrativeSegment;
+import org.search.nibrs.stagingdata.model.segment.ArresteeSegment;
+import org.search.nibrs.stagingdata.model.segment.OffenderSegment;
+import org.search.nibrs.stagingdata.model.segment.OffenseSegment;
+import org.search.nibrs.stagingdata.model.segment.PropertySegment;
+import org.search.nibrs.stagingdata.model.segment.VictimSegment;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Set-based persistence of Group A incident graphs (an AdministrativeSegment and all of its child segments), for loading many incidents
+ * at once.
+ * <br/>
+ * Deletes are bulk DELETE statements over the segment ids, children first, instead of loading each graph and removing it row by row.
+ * Inserts are JDBC batches, one table at a time.  The tables use identity keys, which cannot be returned reliably from a batch, so
+ * after each level of the graph is inserted its keys are read back with one query: administrative segments by incident number, and
+ * child segments by administrative segment id in key order, which is the order they were inserted in.  A loader with exclusive use of
+ * the database can set a {@link SurrogateKeyAllocator} instead, so that keys are assigned up front and nothing is read back.
+ * <br/>
+ * Callers are expected to run within a transaction, and to delete any existing incidents with the same incident numbers first.
+ */
+@Repository
+public class AdministrativeSegmentJdbcRepository extends AbstractSegmentJdbcRepository {
+
+	private static final String[] DELETE_STATEMENTS = {
+		"DELETE FROM TypeOfWeaponForceInvolved WHERE OffenseSegmentID IN (SELECT OffenseSegmentID FROM OffenseSegment WHERE AdministrativeSegmentID IN (:ids))",
+		"DELETE FROM TypeCriminalActivity WHERE OffenseSegmentID IN (SELECT OffenseSegmentID FROM OffenseSegment WHERE AdministrativeSegmentID IN (:ids))",
+		"DELETE FROM OffenderSuspectedOfUsing WHERE OffenseSegmentID IN (SELECT OffenseSegmentID FROM OffenseSegment WHERE AdministrativeSegmentID IN (:ids))",
+		"DELETE FROM BiasMotivation WHERE OffenseSegmentID IN (SELECT OffenseSegmentID FROM OffenseSegment WHERE AdministrativeSegmentID IN (:ids))",
+		"DELETE FROM VictimOffenseAssociation WHERE VictimSegmentID IN (SELECT VictimSegmentID FROM VictimSegment WHERE AdministrativeSegmentID IN (:ids))",
+		"DELETE FROM VictimOffenderAssociation WHERE VictimSegmentID IN (SELECT VictimSegmentID FROM VictimSegment WHERE AdministrativeSegmentID IN (:ids))",
+		"DELETE FROM TypeInjury WHERE VictimSegmentID IN (SELECT VictimSegmentID FROM VictimSegment WHERE AdministrativeSegmentID IN (:ids))",
+		"DELETE FROM AggravatedAssaultHomicideCircumstances WHERE VictimSegmentID IN (SELECT VictimSegmentID FROM VictimSegment WHERE AdministrativeSegmentID IN (:ids))",
+		"DELETE FROM PropertyType WHERE PropertySegmentID IN (SELECT PropertySegmentID FROM PropertySegment WHERE AdministrativeSegmentID IN (:ids))",
+		"DELETE FROM SuspectedDrugType WHERE PropertySegmentID IN (SELECT PropertySegmentID FROM PropertySegment WHERE AdministrativeSegmentID IN (:ids))",
+		"DELETE FROM ArresteeSegmentWasArmedWith WHERE ArresteeSegmentID IN (SELECT ArresteeSegmentID FROM ArresteeSegment WHERE AdministrativeSegmentID IN (:ids))",
+		"DELETE FROM OffenseSegment WHERE AdministrativeSegmentID IN (:ids)",
+		"DELETE FROM VictimSegment WHERE AdministrativeSegmentID IN (:ids)",
+		"DELETE FROM OffenderSegment WHERE AdministrativeSegmentID IN (:ids)",
+		"DELETE FROM ArresteeSegment WHERE AdministrativeSegmentID IN (:ids)",
+		"DELETE FROM PropertySegment WHERE AdministrativeSegmentID IN (:ids)",
+		"DELETE FROM AdministrativeSegment WHERE AdministrativeSegmentID IN (:ids)",
+	};
+
+	private static final String INSERT_ADMINISTRATIVE_SEGMENT = "INSERT INTO AdministrativeSegment (SegmentActionTypeTypeID, MonthOfTape, "
+			+ "YearOfTape, CityIndicator, ORI, AgencyID, IncidentNumber, IncidentDate, IncidentDateID, ReportDateIndicator, IncidentHour, "
+			+ "ClearedExceptionallyTypeID, ExceptionalClearanceDate, ExceptionalClearanceDateID, CargoTheftIndicatorTypeID) "
+			+ "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+	private static final String INSERT_OFFENSE_SEGMENT = "INSERT INTO OffenseSegment (SegmentActionTypeTypeID, AdministrativeSegmentID, "
+			+ "UCROffenseCodeTypeID, OffenseAttemptedCompleted, LocationTypeTypeID, NumberOfPremisesEntered, MethodOfEntryTypeID) "
+			+ "VALUES (?, ?, ?, ?, ?, ?, ?)";
+	private static final String INSERT_OFFENDER_SEGMENT = "INSERT INTO OffenderSegment (SegmentActionTypeTypeID, AdministrativeSegmentID, "
+			+ "OffenderSequenceNumber, AgeOfOffenderMin, AgeOfOffenderMax, SexOfPersonTypeID, RaceOfPersonTypeID, EthnicityOfPersonTypeID) "
+			+ "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+	private static final String INSERT_VICTIM_SEGMENT = "INSERT INTO VictimSegment (SegmentActionTypeTypeID, AdministrativeSegmentID, "
+			+ "VictimSequenceNumber, TypeOfVictimTypeID, OfficerActivityCircumstanceTypeID, OfficerAssignmentTypeTypeID, AgeOfVictimMin, "
+			+ "AgeOfVictimMax, AgeNeonateIndicator, AgeFirstWeekIndicator, AgeFirstYearIndicator, SexOfPersonTypeID, RaceOfPersonTypeID, "
+			+ "EthnicityOfPersonTypeID, ResidentStatusOfPersonTypeID, AdditionalJustifiableHomicideCircumstancesTypeID) "
+			+ "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+	private static final String INSERT_ARRESTEE_SEGMENT = "INSERT INTO ArresteeSegment (SegmentActionTypeTypeID, AdministrativeSegmentID, "
+			+ "ArresteeSequenceNumber, ArrestTransactionNumber, ArrestDate, ArrestDateID, TypeOfArrestTypeID, "
+			+ "MultipleArresteeSegmentsIndicatorTypeID, AgeOfArresteeMin, AgeOfArresteeMax, SexOfPersonTypeID, RaceOfPersonTypeID, "
+			+ "EthnicityOfPersonTypeID, ResidentStatusOfPersonTypeID, DispositionOfArresteeUnder18TypeID, UCROffenseCodeTypeID) "
+			+ "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+	private static final String INSERT_PROPERTY_SEGMENT = "INSERT INTO PropertySegment (SegmentActionTypeTypeID, AdministrativeSegmentID, "
+			+ "TypePropertyLossEtcTypeID, NumberOfStolenMotorVehicles, NumberOfRecoveredMotorVehicles) VALUES (?, ?, ?, ?, ?)";
+
+	@Autowired
+	public AdministrativeSegmentJdbcRepository(DataSource dataSource) {
+		super(dataSource);
+	}
+
+	/**
+	 * Find the ids of the administrative segments with the specified incident numbers.
+	 * @param incidentNumbers the incident numbers
+	 * @return the administrative segment ids, keyed by incident number
+	 */
+	public Map<String, List<Integer>> findAdministrativeSegmentIds(Collection<String> incidentNumbers) {
+		Map<String, List<Integer>> ret = new HashMap<>();
+		for (List<String> chunk : chunks(new ArrayList<>(incidentNumbers))) {
+			namedParameterJdbcTemplate.query(
+					"SELECT AdministrativeSegmentID, IncidentNumber FROM AdministrativeSegment WHERE IncidentNumber IN (:incidentNumbers) "
+							+ "ORDER BY AdministrativeSegmentID",
+					new MapSqlParameterSource("incidentNumbers", chunk),
+					rs -> {
+						ret.computeIfAbsent(rs.getString(2), k -> new ArrayList<>()).add(rs.getInt(1));
+					});
+		}
+		return ret;
+	}
+
+	/**
+	 * Find one page of administrative segment ids, in id order, for keyset pagination.  Every criterion is optional.
+	 * @param ori only segments with this ORI
+	 * @param incidentDateFrom only segments with an incident date on or after this date
+	 * @param incidentDateTo only segments with an incident date on or before this date
+	 * @param offenseCode only segments with an offense with this UCR offense code
+	 * @param afterId only segments with a greater id than this (the last id of the previous page)
+	 * @param limit the maximum number of ids
+	 * @return the ids
+	 */
+	public List<Integer> findAdministrativeSegmentIds(String ori, Date incidentDateFrom, Date incidentDateTo, String offenseCode,
+			Integer afterId, int limit) {
+		StringBuilder sql = new StringBuilder("SELECT a.AdministrativeSegmentID FROM AdministrativeSegment a WHERE 1 = 1");
+		MapSqlParameterSource parameters = new MapSqlParameterSource();
+		if (ori != null) {
+			sql.append(" AND a.ORI = :ori");
+			parameters.addValue("ori", ori);
+		}
+		if (incidentDateFrom != null) {
+			sql.append(" AND a.IncidentDate >= :incidentDateFrom");
+			parameters.addValue("incidentDateFrom", sqlDate(incidentDateFrom));
+		}
+		if (incidentDateTo != null) {
+			sql.append(" AND a.IncidentDate <= :incidentDateTo");
+			parameters.addValue("incidentDateTo", sqlDate(incidentDateTo));
+		}
+		if (offenseCode != null) {
+			sql.append(" AND EXISTS (SELECT 1 FROM OffenseSegment o JOIN UCROffenseCodeType u ON u.UCROffenseCodeTypeID = o.UCROffenseCodeTypeID "
+					+ "WHERE o.AdministrativeSegmentID = a.AdministrativeSegmentID AND u.UCROffenseCode = :offenseCode)");
+			parameters.addValue("offenseCode", offenseCode);
+		}
+		if (afterId != null) {
+			sql.append(" AND a.AdministrativeSegmentID > :afterId");
+			parameters.addValue("afterId", afterId);
+		}
+		sql.append(" ORDER BY a.AdministrativeSegmentID LIMIT :limit");
+		parameters.addValue("limit", limit);
+		return namedParameterJdbcTemplate.queryForList(sql.toString(), parameters, Integer.class);
+	}
+
+	/**
+	 * Delete the specified administrative segments, and all of their child segments.
+	 * @param administrativeSegmentIds the administrative segment ids
+	 * @return the number of administrative segments deleted
+	 */
+	public int deleteAdministrativeSegments(Collection<Integer> administrativeSegmentIds) {
+		int ret = 0;
+		for (List<Integer> chunk : chunks(new ArrayList<>(administrativeSegmentIds))) {
+			MapSqlParameterSource parameters = new MapSqlParameterSource("ids", chunk);
+			int count = 0;
+			for (String deleteStatement : DELETE_STATEMENTS) {
+				count = namedParameterJdbcTemplate.update(deleteStatement, parameters);
+			}
+			// the last statement deletes the administrative segments themselves
+			ret += count;
+		}
+		return ret;
+	}
+
+	/**
+	 * Insert the specified administrative segments and all of their child segments, setting the ids of the inserted segments.
+	 * @param administrativeSegments the administrative segments, which must have distinct incident numbers
+	 */
+	public void insertAdministrativeSegments(List<AdministrativeSegment> administrativeSegments) {
+
+		if (administrativeSegments.isEmpty()) {
+			return;
+		}
+
+		Function<AdministrativeSegment, Object[]> valuesFunction = a -> new Object[] {
+				id(a.getSegmentActionType(), SegmentActionTypeType::getSegmentActionTypeTypeId),
+				a.getMonthOfTape(),
+				a.getYearOfTape(),
+				a.getCityIndicator(),
+				a.getOri(),
+				id(a.getAgency(), Agency::getAgencyId),
+				a.getIncidentNumber(),
+				sqlDate(a.getIncidentDate()),
+				id(a.getIncidentDateType(), DateType::getDateTypeId),
+				a.getReportDateIndicator(),
+				a.getIncidentHour(),
+				id(a.getClearedExceptionallyType(), ClearedExceptionallyType::getClearedExceptionallyTypeId),
+				sqlDate(a.getExceptionalClearanceDate()),
+				id(a.getExceptionalClearanceDateType(), DateType::getDateTypeId),
+				id(a.getCargoTheftIndicatorType(), CargoTheftIndicatorType::getCargoTheftIndicatorTypeId)};
+
+		if (getKeyAllocator() != null) {
+			insertWithAssignedKeys("AdministrativeSegment", INSERT_ADMINISTRATIVE_SEGMENT, administrativeSegments,
+					AdministrativeSegment::setAdministrativeSegmentId, valuesFunction);
+		} else {
+			jdbcTemplate.batchUpdate(INSERT_ADMINISTRATIVE_SEGMENT, values(administrativeSegments, valuesFunction));
+
+			Map<String, AdministrativeSegment> segmentsByIncidentNumber = new LinkedHashMap<>();
+			administrativeSegments.forEach(a -> segmentsByIncidentNumber.put(a.getIncidentNumber(), a));
+			findAdministrativeSegmentIds(segmentsByIncidentNumber.keySet()).forEach((incidentNumber, ids) ->
+				segmentsByIncidentNumber.get(incidentNumber).setAdministrativeSegmentId(ids.get(ids.size() - 1)));
+		}
+
+		List<OffenseSegment> offenseSegments = children(administrativeSegments, AdministrativeSegment::getOffenseSegments);
+		List<OffenderSegment> offenderSegments = children(administrativeSegments, AdministrativeSegment::getOffenderSegments);
+		List<VictimSegment> victimSegments = children(administrativeSegments, AdministrativeSegment::getVictimSegments);
+		List<ArresteeSegment> arresteeSegments = children(administrativeSegments, AdministrativeSegment::getArresteeSegments);
+		List<PropertySegment> propertySegments = children(administrativeSegments, AdministrativeSegment::getPropertySegments);
+
+		insertChildSegments("OffenseSegment", INSERT_OFFENSE_SEGMENT, offenseSegments, OffenseSegment::getAdministrativeSegment,
+				OffenseSegment::setOffenseSegmentId, o -> new Object[] {
+					id(o.getSegmentActionType(), SegmentActionTypeType::getSegmentActionTypeTypeId),
+					o.getAdministrativeSegment().getAdministrativeSegmentId(),
+					id(o.getUcrOffenseCodeType(), UcrOffenseCodeType::getUcrOffenseCodeTypeId),
+					o.getOffenseAttemptedCompleted(),
+					id(o.getLocationType(), LocationType::getLocationTypeTypeId),
+					o.getNumberOfPremisesEntered(),
+					id(o.getMethodOfEntryType(), MethodOfEntryType::getMethodOfEntryTypeId)});
+
+		insertChildSegments("OffenderSegment", INSERT_OFFENDER_SEGMENT, offenderSegments, OffenderSegment::getAdministrativeSegment,
+				OffenderSegment::setOffenderSegmentId, o -> new Object[] {
+					id(o.getSegmentActionType(), SegmentActionTypeType::getSegmentActionTypeTypeId),
+					o.getAdministrativeSegment().getAdministrativeSegmentId(),
+					o.getOffenderSequenceNumber(),
+					o.getAgeOfOffenderMin(),
+					o.getAgeOfOffenderMax(),
+					id(o.getSexOfPersonType(), SexOfPersonType::getSexOfPersonTypeId),
+					id(o.getRaceOfPersonType(), RaceOfPersonType::getRaceOfPersonTypeId),
+					id(o.getEthnicityOfPersonType(), EthnicityOfPersonType::getEthnicityOfPersonTypeId)});
+
+		insertChildSegments("VictimSegment", INSERT_VICTIM_SEGMENT, victimSegments, VictimSegment::getAdministrativeSegment,
+				VictimSegment::setVictimSegmentId, v -> new Object[] {
+					id(v.getSegmentActionType(), SegmentActionTypeType::getSegmentActionTypeTypeId),
+					v.getAdministrativeSegment().getAdministrativeSegmentId(),
+					v.getVictimSequenceNumber(),
+					id(v.getTypeOfVictimType(), TypeOfVictimType::getTypeOfVictimTypeId),
+					id(v.getOfficerActivityCircumstanceType(), OfficerActivityCircumstanceType::getOfficerActivityCircumstanceTypeId),
+					id(v.getOfficerAssignmentTypeType(), OfficerAssignmentTypeType::getOfficerAssignmentTypeTypeId),
+					v.getAgeOfVictimMin(),
+					v.getAgeOfVictimMax(),
+					v.getAgeNeonateIndicator(),
+					v.getAgeFirstWeekIndicator(),
+					v.getAgeFirstYearIndicator(),
+					id(v.getSexOfPersonType(), SexOfPersonType::getSexOfPersonTypeId),
+					id(v.getRaceOfPersonType(), RaceOfPersonType::getRaceOfPersonTypeId),
+					id(v.getEthnicityOfPersonType(), EthnicityOfPersonType::getEthnicityOfPersonTypeId),
+					id(v.getResidentStatusOfPersonType(), ResidentStatusOfPersonType::getResidentStatusOfPersonTypeId),
+					id(v.getAdditionalJustifiableHomicideCircumstancesType(),
+							AdditionalJustifiableHomicideCircumstancesType::getAdditionalJustifiableHomicideCircumstancesTypeId)});
+
+		insertChildSegments("ArresteeSegment", INSERT_ARRESTEE_SEGMENT, arresteeSegments, ArresteeSegment::getAdministrativeSegment,
+				ArresteeSegment::setArresteeSegmentId, a -> new Object[] {
+					id(a.getSegmentActionType(), SegmentActionTypeType::getSegmentActionTypeTypeId),
+					a.getAdministrativeSegment().getAdministrativeSegmentId(),
+					a.getArresteeSequenceNumber(),
+					a.getArrestTransactionNumber(),
+					sqlDate(a.getArrestDate()),
+					id(a.getArrestDateType(), DateType::getDateTypeId),
+					id(a.getTypeOfArrestType(), TypeOfArrestType::getTypeOfArrestTypeId),
+					id(a.getMultipleArresteeSegmentsIndicatorType(),
+							MultipleArresteeSegmentsIndicatorType::getMultipleArresteeSegmentsIndicatorTypeId),
+					a.getAgeOfArresteeMin(),
+					a.getAgeOfArresteeMax(),
+					id(a.getSexOfPersonType(), SexOfPersonType::getSexOfPersonTypeId),
+					id(a.getRaceOfPersonType(), RaceOfPersonType::getRaceOfPersonTypeId),
+					id(a.getEthnicityOfPersonType(), EthnicityOfPersonType::getEthnicityOfPersonTypeId),
+					id(a.getResidentStatusOfPersonType(), ResidentStatusOfPersonType::getResidentStatusOfPersonTypeId),
+					id(a.getDispositionOfArresteeUnder18Type(), DispositionOfArresteeUnder18Type::getDispositionOfArresteeUnder18TypeId),
+					id(a.getUcrOffenseCodeType(), UcrOffenseCodeType::getUcrOffenseCodeTypeId)});
+
+		insertChildSegments("PropertySegment", INSERT_PROPERTY_SEGMENT, propertySegments, PropertySegment::getAdministrativeSegment,
+				PropertySegment::setPropertySegmentId, p -> new Object[] {
+					id(p.getSegmentActionType(), SegmentActionTypeType::getSegmentActionTypeTypeId),
+					p.getAdministrativeSegment().getAdministrativeSegmentId(),
+					id(p.getTypePropertyLossEtcType(), TypePropertyLossEtcType::getTypePropertyLossEtcTypeId),
+					p.getNumberOfStolenMotorVehicles(),
+					p.getNumberOfRecoveredMotorVehicles()});
+
+		List<Object[]> typeOfWeaponForceInvolveds = new ArrayList<>();
+		List<Object[]> typeCriminalActivities = new ArrayList<>();
+		List<Object[]> offenderSuspectedOfUsings = new ArrayList<>();
+		List<Object[]> biasMotivations = new ArrayList<>();
+		for (OffenseSegment offenseSegment : offenseSegments) {
+			Integer offenseSegmentId = offenseSegment.getOffenseSegmentId();
+			for (TypeOfWeaponForceInvolved typeOfWeaponForceInvolved : nullToEmpty(offenseSegment.getTypeOfWeaponForceInvolveds())) {
+				typeOfWeaponForceInvolveds.add(new Object[] {
+					offenseSegmentId,
+					id(typeOfWeaponForceInvolved.getTypeOfWeaponForceInvolvedType(), TypeOfWeaponForceInvolvedType::getTypeOfWeaponForceInvolvedTypeId),
+					typeOfWeaponForceInvolved.getAutomaticWeaponIndicator()});
+			}
+			for (TypeOfCriminalActivityType type : nullToEmpty(offenseSegment.getTypeOfCriminalActivityTypes())) {
+				typeCriminalActivities.add(new Object[] {offenseSegmentId, type.getTypeOfCriminalActivityTypeId()});
+			}
+			for (OffenderSuspectedOfUsingType type : nullToEmpty(offenseSegment.getOffenderSuspectedOfUsingTypes())) {
+				offenderSuspectedOfUsings.add(new Object[] {offenseSegmentId, type.getOffenderSuspectedOfUsingTypeId()});
+			}
+			for (BiasMotivationType type : nullToEmpty(offenseSegment.getBiasMotivationTypes())) {
+				biasMotivations.add(new Object[] {offenseSegmentId, type.getBiasMotivationTypeId()});
+			}
+		}
+		batchInsert("INSERT INTO TypeOfWeaponForceInvolved (OffenseSegmentID, TypeOfWeaponForceInvolvedTypeID, AutomaticWeaponIndicator) "
+				+ "VALUES (?, ?, ?)", typeOfWeaponForceInvolveds);
+		batchInsert("INSERT INTO TypeCriminalActivity (OffenseSegmentID, TypeOfCriminalActivityTypeID) VALUES (?, ?)", typeCriminalActivities);
+		batchInsert("INSERT INTO OffenderSuspectedOfUsing (OffenseSegmentID, OffenderSuspectedOfUsingTypeID) VALUES (?, ?)",
+				offenderSuspectedOfUsings);
+		batchInsert("INSERT INTO BiasMotivation (OffenseSegmentID, BiasMotivationTypeID) VALUES (?, ?)", biasMotivations);
+
+		List<Object[]> typeInjuries = new ArrayList<>();
+		List<Object[]> aggravatedAssaultHomicideCircumstances = new ArrayList<>();
+		List<Object[]> victimOffenseAssociations = new ArrayList<>();
+		List<Object[]> victimOffenderAssociations = new ArrayList<>();
+		for (VictimSegment victimSegment : victimSegments) {
+			Integer victimSegmentId = victimSegment.getVictimSegmentId();
+			for (TypeInjuryType type : nullToEmpty(victimSegment.getTypeInjuryTypes())) {
+				typeInjuries.add(new Object[] {victimSegmentId, type.getTypeInjuryTypeId()});
+			}
+			for (AggravatedAssaultHomicideCircumstancesType type : nullToEmpty(victimSegment.getAggravatedAssaultHomicideCircumstancesTypes())) {
+				aggravatedAssaultHomicideCircumstances.add(new Object[] {victimSegmentId, type.getAggravatedAssaultHomicideCircumstancesTypeId()});
+			}
+			for (OffenseSegment offenseSegment : nullToEmpty(victimSegment.getOffenseSegments())) {
+				victimOffenseAssociations.add(new Object[] {victimSegmentId, offenseSegment.getOffenseSegmentId()});
+			}
+			for (VictimOffenderAssociation association : nullToEmpty(victimSegment.getVictimOffenderAssociations())) {
+				victimOffenderAssociations.add(new Object[] {
+					victimSegmentId,
+					association.getOffenderSegment().getOffenderSegmentId(),
+					id(association.getVictimOffenderRelationshipType(), VictimOffenderRelationshipType::getVictimOffenderRelationshipTypeId)});
+			}
+		}
+		batchInsert("INSERT INTO TypeInjury (VictimSegmentID, TypeInjuryTypeID) VALUES (?, ?)", typeInjuries);
+		batchInsert("INSERT INTO AggravatedAssaultHomicideCircumstances (VictimSegmentID, AggravatedAssaultHomicideCircumstancesTypeID) "
+				+ "VALUES (?, ?)", aggravatedAssaultHomicideCircumstances);
+		batchInsert("INSERT INTO VictimOffenseAssociation (VictimSegmentID, OffenseSegmentID) VALUES (?, ?)", victimOffenseAssociations);
+		batchInsert("INSERT INTO VictimOffenderAssociation (VictimSegmentID, OffenderSegmentID, VictimOffenderRelationshipTypeID) "
+				+ "VALUES (?, ?, ?)", victimOffenderAssociations);
+
+		List<Object[]> armedWiths = new ArrayList<>();
+		for (ArresteeSegment arresteeSegment : arresteeSegments) {
+			for (ArresteeSegmentWasArmedWith armedWith : nullToEmpty(arresteeSegment.getArresteeSegmentWasArmedWiths())) {
+				armedWiths.add(new Object[] {
+					arresteeSegment.getArresteeSegmentId(),
+					id(armedWith.getArresteeWasArmedWithType(), ArresteeWasArmedWithType::getArresteeWasArmedWithTypeId),
+					armedWith.getAutomaticWeaponIndicator()});
+			}
+		}
+		batchInsert("INSERT INTO ArresteeSegmentWasArmedWith (ArresteeSegmentID, ArresteeWasArmedWithTypeID, AutomaticWeaponIndicator) "
+				+ "VALUES (?, ?, ?)", armedWiths);
+
+		List<Object[]> propertyTypes = new ArrayList<>();
+		List<Object[]> suspectedDrugTypes = new ArrayList<>();
+		for (PropertySegment propertySegment : propertySegments) {
+			Integer propertySegmentId = propertySegment.getPropertySegmentId();
+			for (PropertyType propertyType : nullToEmpty(propertySegment.getPropertyTypes())) {
+				propertyTypes.add(new Object[] {
+					propertySegmentId,
+					id(propertyType.getPropertyDescriptionType(), PropertyDescriptionType::getPropertyDescriptionTypeId),
+					propertyType.getValueOfProperty(),
+					sqlDate(propertyType.getRecoveredDate()),
+					id(propertyType.getRecoveredDateType(), DateType::getDateTypeId)});
+			}
+			for (SuspectedDrugType suspectedDrugType : nullToEmpty(propertySegment.getSuspectedDrugTypes())) {
+				suspectedDrugTypes.add(new Object[] {
+					propertySegmentId,
+					id(suspectedDrugType.getSuspectedDrugTypeType(), SuspectedDrugTypeType::getSuspectedDrugTypeTypeId),
+					id(suspectedDrugType.getTypeDrugMeasurementType(), TypeDrugMeasurementType::getTypeDrugMeasurementTypeId),
+					suspectedDrugType.getEstimatedDrugQuantity()});
+			}
+		}
+		batchInsert("INSERT INTO PropertyType (PropertySegmentID, PropertyDescriptionTypeID, ValueOfProperty, RecoveredDate, RecoveredDateID) "
+				+ "VALUES (?, ?, ?, ?, ?)", propertyTypes);
+		batchInsert("INSERT INTO SuspectedDrugType (PropertySegmentID, SuspectedDrugTypeTypeID, TypeDrugMeasurementTypeID, EstimatedDrugQuantity) "
+				+ "VALUES (?, ?, ?, ?)", suspectedDrugTypes);
+
+	}
+
+	/**
+	 * Batch insert one kind of child segment, with keys from the key allocator if there is one.  Otherwise read back the new keys in key order and assign them, per administrative segment, in the
+	 * order the segments were inserted.
+	 */
+	private <T> void insertChildSegments(String tableName, String insertStatement, List<T> segments,
+			Function<T, AdministrativeSegment> parentFunction, BiConsumer<T, Integer> idSetter, Function<T, Object[]> valuesFunction) {
+
+		if (segments.isEmpty()) {
+			return;
+		}
+
+		if (getKeyAllocator() != null) {
+			insertWithAssignedKeys(tableName, insertStatement, segments, idSetter, valuesFunction);
+			return;
+		}
+
+		batchInsert(insertStatement, values(segments, valuesFunction));
+
+		List<Integer> administrativeSegmentIds = new ArrayList<>();
+		segments.forEach(segment -> administrativeSegmentIds.add(parentFunction.apply(segment).getAdministrativeSegmentId()));
+
+		Map<Integer, Queue<Integer>> idsByAdministrativeSegmentId = new HashMap<>();
+		for (List<Integer> chunk : chunks(new ArrayList<>(new LinkedHashSet<>(administrativeSegmentIds)))) {
+			namedParameterJdbcTemplate.query(
+					"SELECT " + tableName + "ID, AdministrativeSegmentID FROM " + tableName + " WHERE AdministrativeSegmentID IN (:ids) "
+							+ "ORDER BY " + tableName + "ID",
+					new MapSqlParameterSource("ids", chunk),
+					rs -> {
+						idsByAdministrativeSegmentId.computeIfAbsent(rs.getInt(2), k -> new ArrayDeque<>()).add(rs.getInt(1));
+					});
+		}
+
+		for (int i = 0; i < segments.size(); i++) {
+			idSetter.accept(segments.get(i), idsByAdministrativeSegmentId.get(administrativeSegmentIds.get(i)).remove());
+		}
+	}
+
+	private static <T> List<T> children(List<AdministrativeSegment> administrativeSegments, Function<AdministrativeSegment, Set<T>> childrenFunction) {
+		List<T> ret = new ArrayList<>();
+		administrativeSegments.forEach(a -> ret.addAll(nullToEmpty(childrenFunction.apply(a))));
+		return ret;
+	}
+
+}
@@ -15,6 +15,9 @@
  */
 package org.search.nibrs.stagingdata.repository.segment;
 
+import java.util.Collection;
+import java.util.List;
+
 import javax.transaction.Transactional;
 
 import org.search.nibrs.stagingdata.model.segment.AdministrativeSegment;
@@ -35,4 +38,7 @@ public interface AdministrativeSegmentRepository
 	AdministrativeSegment findByAdministrativeSegmentId(Integer administrativeSegmentId);
 	
 	boolean existsByIncidentNumber(String incidentNumber);
+	
+	@EntityGraph(value="allAdministrativeSegmentJoins", type=EntityGraphType.LOAD)
+	List<AdministrativeSegment> findDistinctByAdministrativeSegmentIdIn(Collection<Integer> administrativeSegmentIds);
 }
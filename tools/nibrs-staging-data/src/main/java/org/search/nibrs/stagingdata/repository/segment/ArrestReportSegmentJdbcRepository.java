@@ -0,0 +1,156 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.stagingdata.repository.segment;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import javax.sql.DataSource;
+
+import org.search.nibrs.stagingdata.model.Agency;
+import org.search.nibrs.stagingdata.model.ArrestReportSegmentWasArmedWith;
+import org.search.nibrs.stagingdata.model.ArresteeWasArmedWithType;
+import org.search.nibrs.stagingdata.model.DateType;
+import org.search.nibrs.stagingdata.model.DispositionOfArresteeUnder18Type;
+import org.search.nibrs.stagingdata.model.EthnicityOfPersonType;
+import org.search.nibrs.stagingdata.model.RaceOfPersonType;
+import org.search.nibrs.stagingdata.model.ResidentStatusOfPersonType;
+import org.search.nibrs.stagingdata.model.SegmentActionTypeType;
+import org.search.nibrs.stagingdata.model.SexOfPersonType;
+import org.search.nibrs.stagingdata.model.TypeOfArrestType;
+import org.search.nibrs.stagingdata.model.UcrOffenseCodeType;
+import org.search.nibrs.stagingdata.model.segment.ArrestReportSegment;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Set-based persistence of Group B arrest reports (an ArrestReportSegment and its armed-with rows), the counterpart of
+ * {@link AdministrativeSegmentJdbcRepository} for Group B.
+ * <br/>
+ * Callers are expected to run within a transaction, and to delete any existing reports with the same arrest transaction numbers first.
+ */
+@Repository
+public class ArrestReportSegmentJdbcRepository extends AbstractSegmentJdbcRepository {
+
+	private static final String INSERT_ARREST_REPORT_SEGMENT = "INSERT INTO ArrestReportSegment (SegmentActionTypeTypeID, MonthOfTape, "
+			+ "YearOfTape, CityIndicator, AgencyID, ORI, ArrestTransactionNumber, ArresteeSequenceNumber, ArrestDate, ArrestDateID, "
+			+ "TypeOfArrestTypeID, AgeOfArresteeMin, AgeOfArresteeMax, SexOfPersonTypeID, RaceOfPersonTypeID, EthnicityOfPersonTypeID, "
+			+ "ResidentStatusOfPersonTypeID, DispositionOfArresteeUnder18TypeID, UCROffenseCodeTypeID) "
+			+ "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+	@Autowired
+	public ArrestReportSegmentJdbcRepository(DataSource dataSource) {
+		super(dataSource);
+	}
+
+	/**
+	 * Find the ids of the arrest report segments with the specified arrest transaction numbers.
+	 * @param arrestTransactionNumbers the arrest transaction numbers
+	 * @return the arrest report segment ids, keyed by arrest transaction number
+	 */
+	public Map<String, List<Integer>> findArrestReportSegmentIds(Collection<String> arrestTransactionNumbers) {
+		Map<String, List<Integer>> ret = new HashMap<>();
+		for (List<String> chunk : chunks(new ArrayList<>(arrestTransactionNumbers))) {
+			namedParameterJdbcTemplate.query(
+					"SELECT ArrestReportSegmentID, ArrestTransactionNumber FROM ArrestReportSegment "
+							+ "WHERE ArrestTransactionNumber IN (:arrestTransactionNumbers) ORDER BY ArrestReportSegmentID",
+					new MapSqlParameterSource("arrestTransactionNumbers", chunk),
+					rs -> {
+						ret.computeIfAbsent(rs.getString(2), k -> new ArrayList<>()).add(rs.getInt(1));
+					});
+		}
+		return ret;
+	}
+
+	/**
+	 * Delete the specified arrest report segments, and their armed-with rows.
+	 * @param arrestReportSegmentIds the arrest report segment ids
+	 * @return the number of arrest report segments deleted
+	 */
+	public int deleteArrestReportSegments(Collection<Integer> arrestReportSegmentIds) {
+		int ret = 0;
+		for (List<Integer> chunk : chunks(new ArrayList<>(arrestReportSegmentIds))) {
+			MapSqlParameterSource parameters = new MapSqlParameterSource("ids", chunk);
+			namedParameterJdbcTemplate.update("DELETE FROM ArrestReportSegmentWasArmedWith WHERE ArrestReportSegmentID IN (:ids)", parameters);
+			ret += namedParameterJdbcTemplate.update("DELETE FROM ArrestReportSegment WHERE ArrestReportSegmentID IN (:ids)", parameters);
+		}
+		return ret;
+	}
+
+	/**
+	 * Insert the specified arrest report segments and their armed-with rows, setting the ids of the inserted segments.
+	 * @param arrestReportSegments the arrest report segments, which must have distinct arrest transaction numbers
+	 */
+	public void insertArrestReportSegments(List<ArrestReportSegment> arrestReportSegments) {
+
+		if (arrestReportSegments.isEmpty()) {
+			return;
+		}
+
+		Function<ArrestReportSegment, Object[]> valuesFunction = a -> new Object[] {
+				id(a.getSegmentActionType(), SegmentActionTypeType::getSegmentActionTypeTypeId),
+				a.getMonthOfTape(),
+				a.getYearOfTape(),
+				a.getCityIndicator(),
+				id(a.getAgency(), Agency::getAgencyId),
+				a.getOri(),
+				a.getArrestTransactionNumber(),
+				a.getArresteeSequenceNumber(),
+				sqlDate(a.getArrestDate()),
+				id(a.getArrestDateType(), DateType::getDateTypeId),
+				id(a.getTypeOfArrestType(), TypeOfArrestType::getTypeOfArrestTypeId),
+				a.getAgeOfArresteeMin(),
+				a.getAgeOfArresteeMax(),
+				id(a.getSexOfPersonType(), SexOfPersonType::getSexOfPersonTypeId),
+				id(a.getRaceOfPersonType(), RaceOfPersonType::getRaceOfPersonTypeId),
+				id(a.getEthnicityOfPersonType(), EthnicityOfPersonType::getEthnicityOfPersonTypeId),
+				id(a.getResidentStatusOfPersonType(), ResidentStatusOfPersonType::getResidentStatusOfPersonTypeId),
+				id(a.getDispositionOfArresteeUnder18Type(), DispositionOfArresteeUnder18Type::getDispositionOfArresteeUnder18TypeId),
+				id(a.getUcrOffenseCodeType(), UcrOffenseCodeType::getUcrOffenseCodeTypeId)};
+
+		if (getKeyAllocator() != null) {
+			insertWithAssignedKeys("ArrestReportSegment", INSERT_ARREST_REPORT_SEGMENT, arrestReportSegments,
+					ArrestReportSegment::setArrestReportSegmentId, valuesFunction);
+		} else {
+			jdbcTemplate.batchUpdate(INSERT_ARREST_REPORT_SEGMENT, values(arrestReportSegments, valuesFunction));
+
+			Map<String, ArrestReportSegment> segmentsByArrestTransactionNumber = new LinkedHashMap<>();
+			arrestReportSegments.forEach(a -> segmentsByArrestTransactionNumber.put(a.getArrestTransactionNumber(), a));
+			findArrestReportSegmentIds(segmentsByArrestTransactionNumber.keySet()).forEach((arrestTransactionNumber, ids) ->
+				segmentsByArrestTransactionNumber.get(arrestTransactionNumber).setArrestReportSegmentId(ids.get(ids.size() - 1)));
+		}
+
+		List<Object[]> armedWiths = new ArrayList<>();
+		for (ArrestReportSegment arrestReportSegment : arrestReportSegments) {
+			for (ArrestReportSegmentWasArmedWith armedWith : nullToEmpty(arrestReportSegment.getArrestReportSegmentWasArmedWiths())) {
+				armedWiths.add(new Object[] {
+					arrestReportSegment.getArrestReportSegmentId(),
+					id(armedWith.getArresteeWasArmedWithType(), ArresteeWasArmedWithType::getArresteeWasArmedWithTypeId),
+					armedWith.getAutomaticWeaponIndicator()});
+			}
+		}
+		batchInsert("INSERT INTO ArrestReportSegmentWasArmedWith (ArrestReportSegmentID, ArresteeWasArmedWithTypeID, AutomaticWeaponIndicator) "
+				+ "VALUES (?, ?, ?)", armedWiths);
+
+	}
+
+}
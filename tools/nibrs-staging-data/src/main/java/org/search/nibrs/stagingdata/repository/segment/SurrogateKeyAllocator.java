@@ -0,0 +1,64 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.stagingdata.repository.segment;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Hands out blocks of surrogate keys for the segment tables, so that a loader can assign the keys of a whole graph of segments before
+ * inserting it, instead of reading the generated keys back after each level.
+ * <br/>
+ * The next key for each table is read once, as MAX(&lt;table&gt;ID) + 1, and after that keys are counted in memory.  The allocator
+ * therefore assumes that nothing else inserts into the tables while it is in use, which is the case for an offline bulk load.
+ */
+public class SurrogateKeyAllocator {
+
+	private final JdbcTemplate jdbcTemplate;
+	private final Map<String, Integer> nextKeys = new HashMap<>();
+
+	public SurrogateKeyAllocator(DataSource dataSource) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	/**
+	 * Allocate a block of consecutive keys.
+	 * @param tableName the table, whose key column is named &lt;table&gt;ID
+	 * @param count the number of keys
+	 * @return the first key of the block
+	 */
+	public synchronized int allocate(String tableName, int count) {
+		Integer nextKey = nextKeys.get(tableName);
+		if (nextKey == null) {
+			Integer maxKey = jdbcTemplate.queryForObject("SELECT MAX(" + tableName + "ID) FROM " + tableName, Integer.class);
+			nextKey = maxKey == null ? 1 : maxKey + 1;
+		}
+		nextKeys.put(tableName, nextKey + count);
+		return nextKey;
+	}
+
+	/**
+	 * Add a key column, as the first column and parameter, to an INSERT statement of the form INSERT INTO t (a, b) VALUES (?, ?).
+	 */
+	static String withKeyColumn(String insertStatement, String keyColumnName) {
+		return insertStatement.replaceFirst("\\(", "(" + keyColumnName + ", ").replaceFirst("VALUES \\(", "VALUES (?, ");
+	}
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.stagingdata.service;
+
+import java.util.List;
+
+import org.search.nibrs.stagingdata.model.segment.AdministrativeSegment;
+
+/**
+ * One page of administrative segments, in id order.  The next page is the one after nextAfterId, which is null on the last page.
+ */
+public class AdministrativeSegmentPage {
+
+	private final List<AdministrativeSegment> administrativeSegments;
+	private final Integer nextAfterId;
+
+	public AdministrativeSegmentPage(List<AdministrativeSegment> administrativeSegments, Integer nextAfterId) {
+		this.administrativeSegments = administrativeSegments;
+		this.nextAfterId = nextAfterId;
+	}
+
+	public List<AdministrativeSegment> getAdministrativeSegments() {
+		return administrativeSegments;
+	}
+
+	public Integer getNextAfterId() {
+		return nextAfterId;
+	}
+
+}
@@ -17,7 +17,9 @@ package org.search.nibrs.stagingdata.service;
 
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -41,35 +43,7 @@ import org.search.nibrs.stagingdata.model.SexOfPersonType;
 import org.search.nibrs.stagingdata.model.TypeOfArrestType;
 import org.search.nibrs.stagingdata.model.UcrOffenseCodeType;
 import org.search.nibrs.stagingdata.model.segment.ArrestReportSegment;
-import org.search.nibrs.stagingdata.repository.AdditionalJustifiableHomicideCircumstancesTypeRepository;
-import org.search.nibrs.stagingdata.repository.AgencyRepository;
-import org.search.nibrs.stagingdata.repository.AggravatedAssaultHomicideCircumstancesTypeRepository;
-import org.search.nibrs.stagingdata.repository.ArresteeWasArmedWithTypeRepository;
-import org.search.nibrs.stagingdata.repository.BiasMotivationTypeRepository;
-import org.search.nibrs.stagingdata.repository.ClearedExceptionallyTypeRepository;
-import org.search.nibrs.stagingdata.repository.DispositionOfArresteeUnder18TypeRepository;
-import org.search.nibrs.stagingdata.repository.EthnicityOfPersonTypeRepository;
-import org.search.nibrs.stagingdata.repository.LocationTypeRepository;
-import org.search.nibrs.stagingdata.repository.MethodOfEntryTypeRepository;
-import org.search.nibrs.stagingdata.repository.MultipleArresteeSegmentsIndicatorTypeRepository;
-import org.search.nibrs.stagingdata.repository.OffenderSuspectedOfUsingTypeRepository;
-import org.search.nibrs.stagingdata.repository.OfficerActivityCircumstanceTypeRepository;
-import org.search.nibrs.stagingdata.repository.OfficerAssignmentTypeTypeRepository;
-import org.search.nibrs.stagingdata.repository.PropertyDescriptionTypeRepository;
-import org.search.nibrs.stagingdata.repository.RaceOfPersonTypeRepository;
-import org.search.nibrs.stagingdata.repository.ResidentStatusOfPersonTypeRepository;
-import org.search.nibrs.stagingdata.repository.SegmentActionTypeRepository;
-import org.search.nibrs.stagingdata.repository.SexOfPersonTypeRepository;
-import org.search.nibrs.stagingdata.repository.SuspectedDrugTypeTypeRepository;
-import org.search.nibrs.stagingdata.repository.TypeDrugMeasurementTypeRepository;
-import org.search.nibrs.stagingdata.repository.TypeInjuryTypeRepository;
-import org.search.nibrs.stagingdata.repository.TypeOfArrestTypeRepository;
-import org.search.nibrs.stagingdata.repository.TypeOfCriminalActivityTypeRepository;
-import org.search.nibrs.stagingdata.repository.TypeOfVictimTypeRepository;
-import org.search.nibrs.stagingdata.repository.TypeOfWeaponForceInvolvedTypeRepository;
-import org.search.nibrs.stagingdata.repository.TypePropertyLossEtcTypeRepository;
-import org.search.nibrs.stagingdata.repository.UcrOffenseCodeTypeRepository;
-import org.search.nibrs.stagingdata.repository.VictimOffenderRelationshipTypeRepository;
+import org.search.nibrs.stagingdata.repository.segment.ArrestReportSegmentJdbcRepository;
 import org.search.nibrs.stagingdata.repository.segment.ArrestReportSegmentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -89,63 +63,7 @@ public class ArrestReportService {
 	@Autowired
 	ArrestReportSegmentRepository arrestReportSegmentRepository;
 	@Autowired
-	public AgencyRepository agencyRepository; 
-	@Autowired
-	public SegmentActionTypeRepository segmentActionTypeRepository; 
-	@Autowired
-	public ClearedExceptionallyTypeRepository clearedExceptionallyTypeRepository; 
-	@Autowired
-	public UcrOffenseCodeTypeRepository ucrOffenseCodeTypeRepository; 
-	@Autowired
-	public LocationTypeRepository locationTypeRepository; 
-	@Autowired
-	public MethodOfEntryTypeRepository methodOfEntryTypeRepository; 
-	@Autowired
-	public BiasMotivationTypeRepository biasMotivationTypeRepository; 
-	@Autowired
-	public TypeOfWeaponForceInvolvedTypeRepository typeOfWeaponForceInvolvedTypeRepository; 
-	@Autowired
-	public OffenderSuspectedOfUsingTypeRepository offenderSuspectedOfUsingTypeRepository; 
-	@Autowired
-	public TypeOfCriminalActivityTypeRepository typeOfCriminalActivityTypeRepository; 
-	@Autowired
-	public TypePropertyLossEtcTypeRepository typePropertyLossEtcTypeRepository; 
-	@Autowired
-	public TypeDrugMeasurementTypeRepository typeDrugMeasurementTypeRepository; 
-	@Autowired
-	public PropertyDescriptionTypeRepository propertyDescriptionTypeRepository; 
-	@Autowired
-	public SuspectedDrugTypeTypeRepository suspectedDrugTypeTypeRepository; 
-	@Autowired
-	public DispositionOfArresteeUnder18TypeRepository dispositionOfArresteeUnder18TypeRepository; 
-	@Autowired
-	public EthnicityOfPersonTypeRepository ethnicityOfPersonTypeRepository; 
-	@Autowired
-	public RaceOfPersonTypeRepository raceOfPersonTypeRepository; 
-	@Autowired
-	public SexOfPersonTypeRepository sexOfPersonTypeRepository; 
-	@Autowired
-	public TypeOfArrestTypeRepository typeOfArrestTypeRepository; 
-	@Autowired
-	public ResidentStatusOfPersonTypeRepository residentStatusOfPersonTypeRepository; 
-	@Autowired
-	public MultipleArresteeSegmentsIndicatorTypeRepository multipleArresteeSegmentsIndicatorTypeRepository; 
-	@Autowired
-	public ArresteeWasArmedWithTypeRepository arresteeWasArmedWithTypeRepository; 
-	@Autowired
-	public TypeOfVictimTypeRepository typeOfVictimTypeRepository; 
-	@Autowired
-	public OfficerActivityCircumstanceTypeRepository officerActivityCircumstanceTypeRepository; 
-	@Autowired
-	public OfficerAssignmentTypeTypeRepository officerAssignmentTypeTypeRepository; 
-	@Autowired
-	public AdditionalJustifiableHomicideCircumstancesTypeRepository additionalJustifiableHomicideCircumstancesTypeRepository; 
-	@Autowired
-	public TypeInjuryTypeRepository typeInjuryTypeRepository; 
-	@Autowired
-	public AggravatedAssaultHomicideCircumstancesTypeRepository aggravatedAssaultHomicideCircumstancesTypeRepository; 
-	@Autowired
-	public VictimOffenderRelationshipTypeRepository victimOffenderRelationshipTypeRepository; 
+	ArrestReportSegmentJdbcRepository arrestReportSegmentJdbcRepository;
 	@Autowired
 	public CodeTableService codeTableService; 
 	
@@ -188,84 +106,120 @@ public class ArrestReportService {
 			if (arrestReportSegmentRepository.existsByArrestTransactionNumber(groupBArrestReport.getIdentifier())){
 				arrestReportSegmentRepository.deleteByArrestTransactionNumber(groupBArrestReport.getIdentifier());
 			}
-			ArrestReportSegment arrestReportSegment = new ArrestReportSegment();
-			
+			arrestReportSegments.add(toArrestReportSegment(groupBArrestReport));
+		}
+		
+		return arrestReportSegmentRepository.save(arrestReportSegments);
+	}
+
+	/**
+	 * Save the reports as a set: the reports they replace are found with one query and deleted with bulk SQL, and the new segments are
+	 * inserted with JDBC batches.  If several reports have the same arrest transaction number, the last one wins.
+	 * @param groupBArrestReports the reports
+	 * @return the saved arrest report segments
+	 */
+	@Transactional
+	public List<ArrestReportSegment> bulkSaveGroupBArrestReports(GroupBArrestReport... groupBArrestReports){
+		Map<String, ArrestReportSegment> arrestReportSegments = new LinkedHashMap<>();
+		
+		for (GroupBArrestReport groupBArrestReport : groupBArrestReports){
+			if (groupBArrestReport.getArrestee() == null || StringUtils.isBlank(groupBArrestReport.getIdentifier())){
+				log.error(BAD_SAVE_REQUEST); 
+				continue;
+			}
+			arrestReportSegments.remove(groupBArrestReport.getIdentifier());
+			arrestReportSegments.put(groupBArrestReport.getIdentifier(), toArrestReportSegment(groupBArrestReport));
+		}
+		
+		List<Integer> existingArrestReportSegmentIds = new ArrayList<>();
+		arrestReportSegmentJdbcRepository.findArrestReportSegmentIds(arrestReportSegments.keySet())
+			.values().forEach(existingArrestReportSegmentIds::addAll);
+		if (!existingArrestReportSegmentIds.isEmpty()){
+			arrestReportSegmentJdbcRepository.deleteArrestReportSegments(existingArrestReportSegmentIds);
+		}
+		
+		List<ArrestReportSegment> ret = new ArrayList<>(arrestReportSegments.values());
+		arrestReportSegmentJdbcRepository.insertArrestReportSegments(ret);
+		log.info("Saved " + ret.size() + " arrest reports, replacing " + existingArrestReportSegmentIds.size());
+		return ret;
+	}
+
+	private ArrestReportSegment toArrestReportSegment(GroupBArrestReport groupBArrestReport) {
+		ArresteeSegment arrestee = groupBArrestReport.getArrestee(); 
+		ArrestReportSegment arrestReportSegment = new ArrestReportSegment();
+		
 //			Optional<ArrestReportSegment> existingArrestReportSegment = 
 //					Optional.ofNullable(arrestReportSegmentRepository.findFirstByArrestTransactionNumber(groupBArrestReport.getIdentifier()));
 //				
 //			ArrestReportSegment arrestReportSegment = existingArrestReportSegment.orElseGet(ArrestReportSegment::new); 
 
-			arrestReportSegment.setArrestTransactionNumber(groupBArrestReport.getIdentifier());
-			arrestReportSegment.setAgency(agencyRepository.findFirstByAgencyOri(groupBArrestReport.getOri()));
-			
-			String reportActionType = String.valueOf(groupBArrestReport.getReportActionType()).trim();
-			SegmentActionTypeType segmentActionType = codeTableService.getCodeTableType(reportActionType, 
-					segmentActionTypeRepository::findFirstBySegmentActionTypeCode, SegmentActionTypeType::new);
-			arrestReportSegment.setSegmentActionType(segmentActionType);
-			
-			Optional<Integer> monthOfTape = Optional.ofNullable(groupBArrestReport.getMonthOfTape());
-			monthOfTape.ifPresent( m-> {
-				arrestReportSegment.setMonthOfTape(StringUtils.leftPad(String.valueOf(m), 2, '0'));
-			});
-			
-			if (groupBArrestReport.getYearOfTape() != null){
-				arrestReportSegment.setYearOfTape(String.valueOf(groupBArrestReport.getYearOfTape()));
-			}
-			
-			arrestReportSegment.setCityIndicator(groupBArrestReport.getCityIndicator());
-			arrestReportSegment.setOri(groupBArrestReport.getOri());
-			Agency agency = codeTableService.getCodeTableType(groupBArrestReport.getOri(), 
-					agencyRepository::findFirstByAgencyOri, Agency::new); 
-			arrestReportSegment.setAgency(agency);
-	
-			arrestReportSegment.setArresteeSequenceNumber(groupBArrestReport.getArresteeSequenceNumber());
-			
-			arrestReportSegment.setArrestDate(groupBArrestReport.getArrestDate());
-			arrestReportSegment.setArrestDateType(codeTableService.getDateType(groupBArrestReport.getArrestDate()));
-			
-			TypeOfArrestType typeOfArrestType = codeTableService.getCodeTableType(
-					arrestee.getTypeOfArrest(), typeOfArrestTypeRepository::findFirstByTypeOfArrestCode, TypeOfArrestType::new);
-			arrestReportSegment.setTypeOfArrestType(typeOfArrestType );
-			
-			arrestReportSegment.setAgeOfArresteeMin(arrestee.getAge().getAgeMin());
-			arrestReportSegment.setAgeOfArresteeMax(arrestee.getAge().getAgeMax());
-	
-			SexOfPersonType sexOfPersonType = codeTableService.getCodeTableType(
-					arrestee.getSex(), sexOfPersonTypeRepository::findFirstBySexOfPersonCode, SexOfPersonType::new);
-			arrestReportSegment.setSexOfPersonType(sexOfPersonType);
-			
-			RaceOfPersonType raceOfPersonType = codeTableService.getCodeTableType(
-					arrestee.getRace(), raceOfPersonTypeRepository::findFirstByRaceOfPersonCode, RaceOfPersonType::new);
-			arrestReportSegment.setRaceOfPersonType(raceOfPersonType);
-			
-			EthnicityOfPersonType ethnicityOfPersonType = codeTableService.getCodeTableType(
-					arrestee.getEthnicity(), ethnicityOfPersonTypeRepository::findFirstByEthnicityOfPersonCode, EthnicityOfPersonType::new);
-			arrestReportSegment.setEthnicityOfPersonType(ethnicityOfPersonType);
-			
-			ResidentStatusOfPersonType residentStatusOfPersonType = codeTableService.getCodeTableType(
-					arrestee.getResidentStatus(), 
-					residentStatusOfPersonTypeRepository::findFirstByResidentStatusOfPersonCode, 
-					ResidentStatusOfPersonType::new);
-			arrestReportSegment.setResidentStatusOfPersonType(residentStatusOfPersonType);
-			
-			DispositionOfArresteeUnder18Type dispositionOfArresteeUnder18Type = codeTableService.getCodeTableType(
-					arrestee.getDispositionOfArresteeUnder18(), 
-					dispositionOfArresteeUnder18TypeRepository::findFirstByDispositionOfArresteeUnder18Code, 
-					DispositionOfArresteeUnder18Type::new);
-			arrestReportSegment.setDispositionOfArresteeUnder18Type(dispositionOfArresteeUnder18Type );
-			
-			UcrOffenseCodeType ucrOffenseCodeType = codeTableService.getCodeTableType(
-					arrestee.getUcrArrestOffenseCode(), 
-					ucrOffenseCodeTypeRepository::findFirstByUcrOffenseCode, 
-					UcrOffenseCodeType::new);;
-			arrestReportSegment.setUcrOffenseCodeType(ucrOffenseCodeType);
-			
-			processArrestReportSegmentArmedWiths(arrestReportSegment, arrestee);
-			
-			arrestReportSegments.add(arrestReportSegment);
+		arrestReportSegment.setArrestTransactionNumber(groupBArrestReport.getIdentifier());
+		
+		String reportActionType = String.valueOf(groupBArrestReport.getReportActionType()).trim();
+		SegmentActionTypeType segmentActionType = codeTableService.getCodeTableType(reportActionType, 
+				SegmentActionTypeType.class, SegmentActionTypeType::new);
+		arrestReportSegment.setSegmentActionType(segmentActionType);
+		
+		Optional<Integer> monthOfTape = Optional.ofNullable(groupBArrestReport.getMonthOfTape());
+		monthOfTape.ifPresent( m-> {
+			arrestReportSegment.setMonthOfTape(StringUtils.leftPad(String.valueOf(m), 2, '0'));
+		});
+		
+		if (groupBArrestReport.getYearOfTape() != null){
+			arrestReportSegment.setYearOfTape(String.valueOf(groupBArrestReport.getYearOfTape()));
 		}
 		
-		return arrestReportSegmentRepository.save(arrestReportSegments);
+		arrestReportSegment.setCityIndicator(groupBArrestReport.getCityIndicator());
+		arrestReportSegment.setOri(groupBArrestReport.getOri());
+		Agency agency = codeTableService.getCodeTableType(groupBArrestReport.getOri(), 
+				Agency.class, Agency::new); 
+		arrestReportSegment.setAgency(agency);
+
+		arrestReportSegment.setArresteeSequenceNumber(groupBArrestReport.getArresteeSequenceNumber());
+		
+		arrestReportSegment.setArrestDate(groupBArrestReport.getArrestDate());
+		arrestReportSegment.setArrestDateType(codeTableService.getDateType(groupBArrestReport.getArrestDate()));
+		
+		TypeOfArrestType typeOfArrestType = codeTableService.getCodeTableType(
+				arrestee.getTypeOfArrest(), TypeOfArrestType.class, TypeOfArrestType::new);
+		arrestReportSegment.setTypeOfArrestType(typeOfArrestType );
+		
+		arrestReportSegment.setAgeOfArresteeMin(arrestee.getAge().getAgeMin());
+		arrestReportSegment.setAgeOfArresteeMax(arrestee.getAge().getAgeMax());
+
+		SexOfPersonType sexOfPersonType = codeTableService.getCodeTableType(
+				arrestee.getSex(), SexOfPersonType.class, SexOfPersonType::new);
+		arrestReportSegment.setSexOfPersonType(sexOfPersonType);
+		
+		RaceOfPersonType raceOfPersonType = codeTableService.getCodeTableType(
+				arrestee.getRace(), RaceOfPersonType.class, RaceOfPersonType::new);
+		arrestReportSegment.setRaceOfPersonType(raceOfPersonType);
+		
+		EthnicityOfPersonType ethnicityOfPersonType = codeTableService.getCodeTableType(
+				arrestee.getEthnicity(), EthnicityOfPersonType.class, EthnicityOfPersonType::new);
+		arrestReportSegment.setEthnicityOfPersonType(ethnicityOfPersonType);
+		
+		ResidentStatusOfPersonType residentStatusOfPersonType = codeTableService.getCodeTableType(
+				arrestee.getResidentStatus(), 
+				ResidentStatusOfPersonType.class, 
+				ResidentStatusOfPersonType::new);
+		arrestReportSegment.setResidentStatusOfPersonType(residentStatusOfPersonType);
+		
+		DispositionOfArresteeUnder18Type dispositionOfArresteeUnder18Type = codeTableService.getCodeTableType(
+				arrestee.getDispositionOfArresteeUnder18(), 
+				DispositionOfArresteeUnder18Type.class, 
+				DispositionOfArresteeUnder18Type::new);
+		arrestReportSegment.setDispositionOfArresteeUnder18Type(dispositionOfArresteeUnder18Type );
+		
+		UcrOffenseCodeType ucrOffenseCodeType = codeTableService.getCodeTableType(
+				arrestee.getUcrArrestOffenseCode(), 
+				UcrOffenseCodeType.class, 
+				UcrOffenseCodeType::new);;
+		arrestReportSegment.setUcrOffenseCodeType(ucrOffenseCodeType);
+		
+		processArrestReportSegmentArmedWiths(arrestReportSegment, arrestee);
+		
+		return arrestReportSegment;
 	}
 
 	private void processArrestReportSegmentArmedWiths(ArrestReportSegment arrestReportSegment, ArresteeSegment arrestee) {
@@ -283,7 +237,7 @@ public class ArrestReportService {
 				if (StringUtils.isNotBlank(arresteeArmedWithCode)){
 					Optional<ArresteeWasArmedWithType> arresteeWasArmedWithType = 
 							Optional.ofNullable(codeTableService.getCodeTableType(arresteeArmedWithCode,
-									arresteeWasArmedWithTypeRepository::findFirstByArresteeWasArmedWithCode, 
+									ArresteeWasArmedWithType.class, 
 									null));
 					arresteeWasArmedWithType.ifPresent( type ->
 						armedWiths.add(new ArrestReportSegmentWasArmedWith(
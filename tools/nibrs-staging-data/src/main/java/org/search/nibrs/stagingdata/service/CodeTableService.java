@@ -15,18 +15,61 @@
  */
 package org.search.nibrs.stagingdata.service;
 
-import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
-import java.util.Optional;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.search.nibrs.stagingdata.model.AdditionalJustifiableHomicideCircumstancesType;
+import org.search.nibrs.stagingdata.model.Agency;
+import org.search.nibrs.stagingdata.model.AggravatedAssaultHomicideCircumstancesType;
+import org.search.nibrs.stagingdata.model.ArresteeWasArmedWithType;
+import org.search.nibrs.stagingdata.model.BiasMotivationType;
+import org.search.nibrs.stagingdata.model.CargoTheftIndicatorType;
+import org.search.nibrs.stagingdata.model.ClearedExceptionallyType;
 import org.search.nibrs.stagingdata.model.DateType;
+import org.search.nibrs.stagingdata.model.DispositionOfArresteeUnder18Type;
+import org.search.nibrs.stagingdata.model.EthnicityOfPersonType;
+import org.search.nibrs.stagingdata.model.LocationType;
+import org.search.nibrs.stagingdata.model.MethodOfEntryType;
+import org.search.nibrs.stagingdata.model.MultipleArresteeSegmentsIndicatorType;
+import org.search.nibrs.stagingdata.model.OffenderSuspectedOfUsingType;
+import org.search.nibrs.stagingdata.model.OfficerActivityCircumstanceType;
+import org.search.nibrs.stagingdata.model.OfficerAssignmentTypeType;
+import org.search.nibrs.stagingdata.model.PropertyDescriptionType;
+import org.search.nibrs.stagingdata.model.RaceOfPersonType;
+import org.search.nibrs.stagingdata.model.ResidentStatusOfPersonType;
+import org.search.nibrs.stagingdata.model.SegmentActionTypeType;
+import org.search.nibrs.stagingdata.model.SexOfPersonType;
+import org.search.nibrs.stagingdata.model.SuspectedDrugTypeType;
+import org.search.nibrs.stagingdata.model.TypeDrugMeasurementType;
+import org.search.nibrs.stagingdata.model.TypeInjuryType;
+import org.search.nibrs.stagingdata.model.TypeOfArrestType;
+import org.search.nibrs.stagingdata.model.TypeOfCriminalActivityType;
+import org.search.nibrs.stagingdata.model.TypeOfVictimType;
+import org.search.nibrs.stagingdata.model.TypeOfWeaponForceInvolvedType;
+import org.search.nibrs.stagingdata.model.TypePropertyLossEtcType;
+import org.search.nibrs.stagingdata.model.UcrOffenseCodeType;
+import org.search.nibrs.stagingdata.model.VictimOffenderRelationshipType;
 import org.search.nibrs.stagingdata.repository.AdditionalJustifiableHomicideCircumstancesTypeRepository;
 import org.search.nibrs.stagingdata.repository.AgencyRepository;
 import org.search.nibrs.stagingdata.repository.AggravatedAssaultHomicideCircumstancesTypeRepository;
 import org.search.nibrs.stagingdata.repository.ArresteeWasArmedWithTypeRepository;
 import org.search.nibrs.stagingdata.repository.BiasMotivationTypeRepository;
+import org.search.nibrs.stagingdata.repository.CargoTheftIndicatorTypeRepository;
 import org.search.nibrs.stagingdata.repository.ClearedExceptionallyTypeRepository;
 import org.search.nibrs.stagingdata.repository.DateTypeRepository;
 import org.search.nibrs.stagingdata.repository.DispositionOfArresteeUnder18TypeRepository;
@@ -52,16 +95,105 @@ import org.search.nibrs.stagingdata.repository.TypeOfWeaponForceInvolvedTypeRepo
 import org.search.nibrs.stagingdata.repository.TypePropertyLossEtcTypeRepository;
 import org.search.nibrs.stagingdata.repository.UcrOffenseCodeTypeRepository;
 import org.search.nibrs.stagingdata.repository.VictimOffenderRelationshipTypeRepository;
+import org.search.nibrs.stagingdata.util.DateTypeValues;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
- * Service to process Group B Arrest Report.  
- *
+ * Service to look up the rows of the code tables (and agencies) that staged segments refer to.
+ * <br/>
+ * Every code table is read once at startup into a read-only snapshot keyed by code, so persisting a report does not query the code tables
+ * at all.  The code tables only change when reference data is reloaded; call refreshCodeTables() (or POST /codeTables/refresh) afterwards
+ * to pick up the changes.  Agencies are loaded into the snapshot too, but agencies may be added at any time, so an ORI missing from the
+ * snapshot is looked up in the Agency table, and the agency found is added to the snapshot.
+ * <br/>
+ * Dates are resolved against an index of DateType rows keyed by epoch day, preloaded for the years staging.dateType.preloadFromYear
+ * (default: ten years ago) through staging.dateType.preloadToYear (default: next year).  A date outside the loaded years causes its whole
+ * year to be loaded, and any days missing from the DateType table are inserted with a single JDBC batch, so a date only resolves to the
+ * blank DateType (99998) when it is null.
  */
 @Service
 public class CodeTableService {
-	SimpleDateFormat formatter = new SimpleDateFormat("MMddyyyy");
+	private static final Log log = LogFactory.getLog(CodeTableService.class);
+	
+	private static final String INSERT_DATE_TYPE = "INSERT INTO DateType (" + DateTypeValues.COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+	
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+	@Autowired
+	private DataSource dataSource;
+	@Value("${staging.dateType.preloadFromYear:#{null}}")
+	private Integer dateTypePreloadFromYear;
+	@Value("${staging.dateType.preloadToYear:#{null}}")
+	private Integer dateTypePreloadToYear;
+	
+	private static final class CodeTable<R> {
+		
+		private final Class<R> type;
+		private final CrudRepository<R, Integer> repository;
+		private final Function<R, String> codeFunction;
+		private final Function<String, R> findByCodeFunction;
+		
+		CodeTable(Class<R> type, CrudRepository<R, Integer> repository, Function<R, String> codeFunction) {
+			this(type, repository, codeFunction, null);
+		}
+		
+		/**
+		 * @param findByCodeFunction looks up a row missing from the snapshot in the table, or null if the table only changes on a refresh
+		 */
+		CodeTable(Class<R> type, CrudRepository<R, Integer> repository, Function<R, String> codeFunction, Function<String, R> findByCodeFunction) {
+			this.type = type;
+			this.repository = repository;
+			this.codeFunction = codeFunction;
+			this.findByCodeFunction = findByCodeFunction;
+		}
+		
+		Map<String, R> load() {
+			Map<String, R> ret = findByCodeFunction == null ? new HashMap<>() : new ConcurrentHashMap<>();
+			for (R r : repository.findAll()) {
+				String code = codeFunction.apply(r);
+				if (code != null) {
+					ret.putIfAbsent(code.trim(), r);
+				}
+			}
+			return findByCodeFunction == null ? Collections.unmodifiableMap(ret) : ret;
+		}
+		
+		/**
+		 * Look up a row missing from the snapshot, adding it to the snapshot if it is found.
+		 * @return the row, or null if the table has none for the code (or only changes on a refresh)
+		 */
+		R findMissing(String code, Map<String, ?> rows) {
+			R ret = findByCodeFunction == null ? null : findByCodeFunction.apply(code);
+			if (ret != null) {
+				@SuppressWarnings("unchecked")
+				Map<String, R> typedRows = (Map<String, R>) rows;
+				typedRows.putIfAbsent(code, ret);
+			}
+			return ret;
+		}
+		
+	}
+	
+	private final Map<Class<?>, CodeTable<?>> codeTables = new LinkedHashMap<>();
+	private volatile Map<Class<?>, Map<String, ?>> codeTableSnapshot = Collections.emptyMap();
+	
+	/**
+	 * The DateType rows loaded so far, keyed by epoch day, and the years they cover.  A reload builds a new index and swaps it in with one
+	 * assignment, so a lookup never sees a partly loaded one.
+	 */
+	private static final class DateTypeIndex {
+		private final Map<Long, DateType> dateTypesByEpochDay = new ConcurrentHashMap<>();
+		private final Set<Integer> yearsLoaded = ConcurrentHashMap.newKeySet();
+	}
+	
+	private volatile DateTypeIndex dateTypeIndex = new DateTypeIndex();
 
 	@Autowired
 	public DateTypeRepository dateTypeRepository; 
@@ -80,6 +212,8 @@ public class CodeTableService {
 	@Autowired
 	public BiasMotivationTypeRepository biasMotivationTypeRepository; 
 	@Autowired
+	public CargoTheftIndicatorTypeRepository cargoTheftIndicatorTypeRepository; 
+	@Autowired
 	public TypeOfWeaponForceInvolvedTypeRepository typeOfWeaponForceInvolvedTypeRepository; 
 	@Autowired
 	public OffenderSuspectedOfUsingTypeRepository offenderSuspectedOfUsingTypeRepository; 
@@ -124,17 +258,200 @@ public class CodeTableService {
 	@Autowired
 	public VictimOffenderRelationshipTypeRepository victimOffenderRelationshipTypeRepository;
 	
+	/**
+	 * Look up the DateType row for a date, creating the rows for the date's year if they are missing.
+	 * @param date the date
+	 * @return the row, or the blank DateType (99998) if the date is null
+	 */
 	public DateType getDateType(Date date) {
 		
-		Optional<Date> optionalDate = Optional.ofNullable(date); 
+		if (date == null){
+			return new DateType(99998);
+		}
 		
-		DateType dateType = getCodeTableType( 
-				optionalDate.map(d -> formatter.format(d)).orElse(""), 
-				dateTypeRepository::findFirstByDateMMDDYYYY, 
-				DateType::new);  
+		LocalDate localDate = toLocalDate(date);
+		DateType dateType = dateTypeIndex.dateTypesByEpochDay.get(localDate.toEpochDay());
+		if (dateType == null){
+			loadDateTypes(localDate.getYear(), localDate.getYear());
+			dateType = dateTypeIndex.dateTypesByEpochDay.get(localDate.toEpochDay());
+		}
 		return dateType;
 	}
 	
+	/**
+	 * Load the DateType rows for the specified years into the index, first inserting (in one JDBC batch) the rows for any days the DateType
+	 * table does not have yet.  Years that are already loaded are skipped.
+	 * @param fromYear the first year
+	 * @param toYear the last year
+	 * @return the number of rows inserted
+	 */
+	public synchronized int loadDateTypes(int fromYear, int toYear) {
+		return loadDateTypes(dateTypeIndex, fromYear, toYear);
+	}
+	
+	private int loadDateTypes(DateTypeIndex index, int fromYear, int toYear) {
+		
+		while (fromYear <= toYear && index.yearsLoaded.contains(fromYear)){
+			fromYear++;
+		}
+		while (toYear >= fromYear && index.yearsLoaded.contains(toYear)){
+			toYear--;
+		}
+		if (fromYear > toYear){
+			return 0;
+		}
+		
+		java.sql.Date startDate = java.sql.Date.valueOf(LocalDate.of(fromYear, 1, 1));
+		java.sql.Date endDate = java.sql.Date.valueOf(LocalDate.of(toYear, 12, 31));
+		
+		Map<Long, DateType> loaded = findDateTypes(startDate, endDate);
+		
+		List<Object[]> missing = new ArrayList<>();
+		for (LocalDate localDate = startDate.toLocalDate(); !localDate.isAfter(endDate.toLocalDate()); localDate = localDate.plusDays(1)){
+			if (!loaded.containsKey(localDate.toEpochDay())){
+				missing.add(DateTypeValues.values(localDate));
+			}
+		}
+		
+		if (!missing.isEmpty()){
+			// the keys come from an identity column, which JPA cannot batch inserts for, so insert the rows with JDBC and read them back.
+			// Commit them on their own, so they are not rolled back with the report that happened to need them.
+			TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+			transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+			loaded = transactionTemplate.execute(status -> {
+				new JdbcTemplate(dataSource).batchUpdate(INSERT_DATE_TYPE, missing);
+				return findDateTypes(startDate, endDate);
+			});
+			log.info("Added " + missing.size() + " days from " + fromYear + " through " + toYear + " to the DateType table");
+		}
+		
+		index.dateTypesByEpochDay.putAll(loaded);
+		for (int year = fromYear; year <= toYear; year++){
+			index.yearsLoaded.add(year);
+		}
+		return missing.size();
+	}
+	
+	private Map<Long, DateType> findDateTypes(java.sql.Date startDate, java.sql.Date endDate) {
+		Map<Long, DateType> ret = new HashMap<>();
+		for (DateType dateType : dateTypeRepository.findByCalendarDateBetween(startDate, endDate)){
+			// skip the Unknown and Blank rows, which have year 0 and arbitrary calendar dates
+			if (dateType.getYear() != null && dateType.getYear() != 0){
+				ret.putIfAbsent(toLocalDate(dateType.getCalendarDate()).toEpochDay(), dateType);
+			}
+		}
+		return ret;
+	}
+	
+	private synchronized int reloadDateTypes() {
+		int currentYear = LocalDate.now().getYear();
+		int fromYear = dateTypePreloadFromYear == null ? currentYear - 10 : dateTypePreloadFromYear;
+		int toYear = dateTypePreloadToYear == null ? currentYear + 1 : dateTypePreloadToYear;
+		
+		// lookups keep using the current index until the new one is complete
+		DateTypeIndex index = new DateTypeIndex();
+		loadDateTypes(index, fromYear, toYear);
+		dateTypeIndex = index;
+		return index.dateTypesByEpochDay.size();
+	}
+	
+	private static LocalDate toLocalDate(Date date) {
+		return new java.sql.Date(date.getTime()).toLocalDate();
+	}
+	
+	@PostConstruct
+	void registerCodeTables() {
+		addCodeTable(new CodeTable<>(Agency.class, agencyRepository, Agency::getAgencyOri, agencyRepository::findFirstByAgencyOri));
+		addCodeTable(new CodeTable<>(SegmentActionTypeType.class, segmentActionTypeRepository, SegmentActionTypeType::getSegmentActionTypeCode));
+		addCodeTable(new CodeTable<>(ClearedExceptionallyType.class, clearedExceptionallyTypeRepository, ClearedExceptionallyType::getClearedExceptionallyCode));
+		addCodeTable(new CodeTable<>(CargoTheftIndicatorType.class, cargoTheftIndicatorTypeRepository, CargoTheftIndicatorType::getCargoTheftIndicatorCode));
+		addCodeTable(new CodeTable<>(UcrOffenseCodeType.class, ucrOffenseCodeTypeRepository, UcrOffenseCodeType::getUcrOffenseCode));
+		addCodeTable(new CodeTable<>(LocationType.class, locationTypeRepository, LocationType::getLocationTypeCode));
+		addCodeTable(new CodeTable<>(MethodOfEntryType.class, methodOfEntryTypeRepository, MethodOfEntryType::getMethodOfEntryCode));
+		addCodeTable(new CodeTable<>(BiasMotivationType.class, biasMotivationTypeRepository, BiasMotivationType::getBiasMotivationCode));
+		addCodeTable(new CodeTable<>(TypeOfWeaponForceInvolvedType.class, typeOfWeaponForceInvolvedTypeRepository, 
+				TypeOfWeaponForceInvolvedType::getTypeOfWeaponForceInvolvedCode));
+		addCodeTable(new CodeTable<>(OffenderSuspectedOfUsingType.class, offenderSuspectedOfUsingTypeRepository, 
+				OffenderSuspectedOfUsingType::getOffenderSuspectedOfUsingCode));
+		addCodeTable(new CodeTable<>(TypeOfCriminalActivityType.class, typeOfCriminalActivityTypeRepository, 
+				TypeOfCriminalActivityType::getTypeOfCriminalActivityCode));
+		addCodeTable(new CodeTable<>(TypePropertyLossEtcType.class, typePropertyLossEtcTypeRepository, TypePropertyLossEtcType::getTypePropertyLossEtcCode));
+		addCodeTable(new CodeTable<>(TypeDrugMeasurementType.class, typeDrugMeasurementTypeRepository, TypeDrugMeasurementType::getTypeDrugMeasurementCode));
+		addCodeTable(new CodeTable<>(PropertyDescriptionType.class, propertyDescriptionTypeRepository, PropertyDescriptionType::getPropertyDescriptionCode));
+		addCodeTable(new CodeTable<>(SuspectedDrugTypeType.class, suspectedDrugTypeTypeRepository, SuspectedDrugTypeType::getSuspectedDrugTypeCode));
+		addCodeTable(new CodeTable<>(DispositionOfArresteeUnder18Type.class, dispositionOfArresteeUnder18TypeRepository, 
+				DispositionOfArresteeUnder18Type::getDispositionOfArresteeUnder18Code));
+		addCodeTable(new CodeTable<>(EthnicityOfPersonType.class, ethnicityOfPersonTypeRepository, EthnicityOfPersonType::getEthnicityOfPersonCode));
+		addCodeTable(new CodeTable<>(RaceOfPersonType.class, raceOfPersonTypeRepository, RaceOfPersonType::getRaceOfPersonCode));
+		addCodeTable(new CodeTable<>(SexOfPersonType.class, sexOfPersonTypeRepository, SexOfPersonType::getSexOfPersonCode));
+		addCodeTable(new CodeTable<>(TypeOfArrestType.class, typeOfArrestTypeRepository, TypeOfArrestType::getTypeOfArrestCode));
+		addCodeTable(new CodeTable<>(ResidentStatusOfPersonType.class, residentStatusOfPersonTypeRepository, 
+				ResidentStatusOfPersonType::getResidentStatusOfPersonCode));
+		addCodeTable(new CodeTable<>(MultipleArresteeSegmentsIndicatorType.class, multipleArresteeSegmentsIndicatorTypeRepository, 
+				MultipleArresteeSegmentsIndicatorType::getMultipleArresteeSegmentsIndicatorCode));
+		addCodeTable(new CodeTable<>(ArresteeWasArmedWithType.class, arresteeWasArmedWithTypeRepository, ArresteeWasArmedWithType::getArresteeWasArmedWithCode));
+		addCodeTable(new CodeTable<>(TypeOfVictimType.class, typeOfVictimTypeRepository, TypeOfVictimType::getTypeOfVictimCode));
+		addCodeTable(new CodeTable<>(OfficerActivityCircumstanceType.class, officerActivityCircumstanceTypeRepository, 
+				OfficerActivityCircumstanceType::getOfficerActivityCircumstanceCode));
+		addCodeTable(new CodeTable<>(OfficerAssignmentTypeType.class, officerAssignmentTypeTypeRepository, OfficerAssignmentTypeType::getOfficerAssignmentTypeCode));
+		addCodeTable(new CodeTable<>(AdditionalJustifiableHomicideCircumstancesType.class, additionalJustifiableHomicideCircumstancesTypeRepository, 
+				AdditionalJustifiableHomicideCircumstancesType::getAdditionalJustifiableHomicideCircumstancesCode));
+		addCodeTable(new CodeTable<>(TypeInjuryType.class, typeInjuryTypeRepository, TypeInjuryType::getTypeInjuryCode));
+		addCodeTable(new CodeTable<>(AggravatedAssaultHomicideCircumstancesType.class, aggravatedAssaultHomicideCircumstancesTypeRepository, 
+				AggravatedAssaultHomicideCircumstancesType::getAggravatedAssaultHomicideCircumstancesCode));
+		addCodeTable(new CodeTable<>(VictimOffenderRelationshipType.class, victimOffenderRelationshipTypeRepository, 
+				VictimOffenderRelationshipType::getVictimOffenderRelationshipCode));
+		refreshCodeTables();
+	}
+	
+	private void addCodeTable(CodeTable<?> codeTable) {
+		codeTables.put(codeTable.type, codeTable);
+	}
+	
+	/**
+	 * Reload every code table into a new snapshot.  Lookups made while the tables are being read keep using the previous snapshot.
+	 * @return the number of rows loaded from each table, keyed by entity name
+	 */
+	public Map<String, Integer> refreshCodeTables() {
+		Map<Class<?>, Map<String, ?>> snapshot = new HashMap<>();
+		Map<String, Integer> ret = new LinkedHashMap<>();
+		for (CodeTable<?> codeTable : codeTables.values()) {
+			Map<String, ?> rows = codeTable.load();
+			snapshot.put(codeTable.type, rows);
+			ret.put(codeTable.type.getSimpleName(), rows.size());
+		}
+		codeTableSnapshot = Collections.unmodifiableMap(snapshot);
+		ret.put(DateType.class.getSimpleName(), reloadDateTypes());
+		log.info("Loaded code tables: " + ret);
+		return ret;
+	}
+	
+	/**
+	 * Look up a code table row in the snapshot.  An agency missing from the snapshot is looked up in the Agency table instead.
+	 * @param code the code (or ORI, for agencies)
+	 * @param codeTableType the code table entity class
+	 * @param constructorFunction creates the placeholder row (with id 99998) returned for a blank or unknown code, or null to return null instead
+	 * @return the row
+	 */
+	public <R> R getCodeTableType(String code, Class<R> codeTableType, Function<Integer, R> constructorFunction) {
+		R r = null;
+		if (StringUtils.isNotBlank(code)){
+			Map<String, ?> codeTable = codeTableSnapshot.get(codeTableType);
+			if (codeTable == null) {
+				throw new IllegalArgumentException(codeTableType.getName() + " is not a code table");
+			}
+			r = codeTableType.cast(codeTable.get(code.trim()));
+			if (r == null) {
+				r = codeTableType.cast(codeTables.get(codeTableType).findMissing(code.trim(), codeTable));
+			}
+		}
+		
+		if (r == null && constructorFunction != null){
+			r = constructorFunction.apply(99998);
+		}
+		return r;
+	}
+	
 	public <R> R getCodeTableType(String code,  Function<String, R> findByCodeFunction, Function<Integer, R> constructorFunction ) {
 		R r = null;
 		if (StringUtils.isNotBlank(code)){
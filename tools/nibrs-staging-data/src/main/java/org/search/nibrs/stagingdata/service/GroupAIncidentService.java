@@ -17,15 +17,21 @@ package org.search.nibrs.stagingdata.service;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import javax.transaction.Transactional;
 
 import org.apache.commons.lang3.BooleanUtils;
@@ -56,6 +62,7 @@ import org.search.nibrs.stagingdata.model.PropertyDescriptionType;
 import org.search.nibrs.stagingdata.model.PropertyType;
 import org.search.nibrs.stagingdata.model.RaceOfPersonType;
 import org.search.nibrs.stagingdata.model.ResidentStatusOfPersonType;
+import org.search.nibrs.stagingdata.model.SegmentActionTypeType;
 import org.search.nibrs.stagingdata.model.SexOfPersonType;
 import org.search.nibrs.stagingdata.model.SuspectedDrugType;
 import org.search.nibrs.stagingdata.model.SuspectedDrugTypeType;
@@ -76,40 +83,13 @@ import org.search.nibrs.stagingdata.model.segment.OffenderSegment;
 import org.search.nibrs.stagingdata.model.segment.OffenseSegment;
 import org.search.nibrs.stagingdata.model.segment.PropertySegment;
 import org.search.nibrs.stagingdata.model.segment.VictimSegment;
-import org.search.nibrs.stagingdata.repository.AdditionalJustifiableHomicideCircumstancesTypeRepository;
-import org.search.nibrs.stagingdata.repository.AgencyRepository;
-import org.search.nibrs.stagingdata.repository.AggravatedAssaultHomicideCircumstancesTypeRepository;
-import org.search.nibrs.stagingdata.repository.ArresteeWasArmedWithTypeRepository;
-import org.search.nibrs.stagingdata.repository.BiasMotivationTypeRepository;
-import org.search.nibrs.stagingdata.repository.CargoTheftIndicatorTypeRepository;
-import org.search.nibrs.stagingdata.repository.ClearedExceptionallyTypeRepository;
-import org.search.nibrs.stagingdata.repository.DispositionOfArresteeUnder18TypeRepository;
-import org.search.nibrs.stagingdata.repository.EthnicityOfPersonTypeRepository;
-import org.search.nibrs.stagingdata.repository.LocationTypeRepository;
-import org.search.nibrs.stagingdata.repository.MethodOfEntryTypeRepository;
-import org.search.nibrs.stagingdata.repository.MultipleArresteeSegmentsIndicatorTypeRepository;
-import org.search.nibrs.stagingdata.repository.OffenderSuspectedOfUsingTypeRepository;
-import org.search.nibrs.stagingdata.repository.OfficerActivityCircumstanceTypeRepository;
-import org.search.nibrs.stagingdata.repository.OfficerAssignmentTypeTypeRepository;
-import org.search.nibrs.stagingdata.repository.PropertyDescriptionTypeRepository;
-import org.search.nibrs.stagingdata.repository.RaceOfPersonTypeRepository;
-import org.search.nibrs.stagingdata.repository.ResidentStatusOfPersonTypeRepository;
-import org.search.nibrs.stagingdata.repository.SegmentActionTypeRepository;
-import org.search.nibrs.stagingdata.repository.SexOfPersonTypeRepository;
-import org.search.nibrs.stagingdata.repository.SuspectedDrugTypeTypeRepository;
-import org.search.nibrs.stagingdata.repository.TypeDrugMeasurementTypeRepository;
-import org.search.nibrs.stagingdata.repository.TypeInjuryTypeRepository;
-import org.search.nibrs.stagingdata.repository.TypeOfArrestTypeRepository;
-import org.search.nibrs.stagingdata.repository.TypeOfCriminalActivityTypeRepository;
-import org.search.nibrs.stagingdata.repository.TypeOfVictimTypeRepository;
-import org.search.nibrs.stagingdata.repository.TypeOfWeaponForceInvolvedTypeRepository;
-import org.search.nibrs.stagingdata.repository.TypePropertyLossEtcTypeRepository;
-import org.search.nibrs.stagingdata.repository.UcrOffenseCodeTypeRepository;
-import org.search.nibrs.stagingdata.repository.VictimOffenderRelationshipTypeRepository;
+import org.search.nibrs.stagingdata.repository.segment.AdministrativeSegmentJdbcRepository;
 import org.search.nibrs.stagingdata.repository.segment.AdministrativeSegmentRepository;
 import org.search.nibrs.stagingdata.repository.segment.OffenseSegmentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Service to process Group B Arrest Report.  
@@ -119,70 +99,18 @@ import org.springframework.stereotype.Service;
 public class GroupAIncidentService {
 	private static final Log log = LogFactory.getLog(GroupAIncidentService.class);
 	private static final String BAD_DELETE_REQUEST = "The incident number is required to delete an incident";
+	public static final int MAX_PAGE_SIZE = 1000;
+	private static final int STREAM_PAGE_SIZE = 100;
 	@Autowired
 	AdministrativeSegmentRepository administrativeSegmentRepository;
 	@Autowired
 	OffenseSegmentRepository offenseSegmentRepository;
 	@Autowired
-	public AgencyRepository agencyRepository; 
+	AdministrativeSegmentJdbcRepository administrativeSegmentJdbcRepository;
 	@Autowired
-	public SegmentActionTypeRepository segmentActionTypeRepository; 
-	@Autowired
-	public ClearedExceptionallyTypeRepository clearedExceptionallyTypeRepository; 
-	@Autowired
-	public UcrOffenseCodeTypeRepository ucrOffenseCodeTypeRepository; 
-	@Autowired
-	public LocationTypeRepository locationTypeRepository; 
-	@Autowired
-	public MethodOfEntryTypeRepository methodOfEntryTypeRepository; 
-	@Autowired
-	public BiasMotivationTypeRepository biasMotivationTypeRepository; 
-	@Autowired
-	public CargoTheftIndicatorTypeRepository cargoTheftIndicatorTypeRepository; 
-	@Autowired
-	public TypeOfWeaponForceInvolvedTypeRepository typeOfWeaponForceInvolvedTypeRepository; 
-	@Autowired
-	public OffenderSuspectedOfUsingTypeRepository offenderSuspectedOfUsingTypeRepository; 
-	@Autowired
-	public TypeOfCriminalActivityTypeRepository typeOfCriminalActivityTypeRepository; 
-	@Autowired
-	public TypePropertyLossEtcTypeRepository typePropertyLossEtcTypeRepository; 
-	@Autowired
-	public TypeDrugMeasurementTypeRepository typeDrugMeasurementTypeRepository; 
-	@Autowired
-	public PropertyDescriptionTypeRepository propertyDescriptionTypeRepository; 
-	@Autowired
-	public SuspectedDrugTypeTypeRepository suspectedDrugTypeTypeRepository; 
-	@Autowired
-	public DispositionOfArresteeUnder18TypeRepository dispositionOfArresteeUnder18TypeRepository; 
-	@Autowired
-	public EthnicityOfPersonTypeRepository ethnicityOfPersonTypeRepository; 
-	@Autowired
-	public RaceOfPersonTypeRepository raceOfPersonTypeRepository; 
-	@Autowired
-	public SexOfPersonTypeRepository sexOfPersonTypeRepository; 
-	@Autowired
-	public TypeOfArrestTypeRepository typeOfArrestTypeRepository; 
-	@Autowired
-	public ResidentStatusOfPersonTypeRepository residentStatusOfPersonTypeRepository; 
-	@Autowired
-	public MultipleArresteeSegmentsIndicatorTypeRepository multipleArresteeSegmentsIndicatorTypeRepository; 
-	@Autowired
-	public ArresteeWasArmedWithTypeRepository arresteeWasArmedWithTypeRepository; 
-	@Autowired
-	public TypeOfVictimTypeRepository typeOfVictimTypeRepository; 
-	@Autowired
-	public OfficerActivityCircumstanceTypeRepository officerActivityCircumstanceTypeRepository; 
-	@Autowired
-	public OfficerAssignmentTypeTypeRepository officerAssignmentTypeTypeRepository; 
-	@Autowired
-	public AdditionalJustifiableHomicideCircumstancesTypeRepository additionalJustifiableHomicideCircumstancesTypeRepository; 
-	@Autowired
-	public TypeInjuryTypeRepository typeInjuryTypeRepository; 
-	@Autowired
-	public AggravatedAssaultHomicideCircumstancesTypeRepository aggravatedAssaultHomicideCircumstancesTypeRepository; 
-	@Autowired
-	public VictimOffenderRelationshipTypeRepository victimOffenderRelationshipTypeRepository; 
+	PlatformTransactionManager transactionManager;
+	@PersistenceContext
+	EntityManager entityManager;
 	@Autowired
 	public CodeTableService codeTableService; 
 	
@@ -216,6 +144,63 @@ public class GroupAIncidentService {
 		return administrativeSegments;
 	}
 	
+	/**
+	 * Find one page of administrative segments, with all of their joins, using keyset pagination: the page starts after the last id of 
+	 * the previous page, so every page costs the same however deep into the results it is.  Every criterion is optional.
+	 * @param ori only segments with this ORI
+	 * @param incidentDateFrom only segments with an incident date on or after this date
+	 * @param incidentDateTo only segments with an incident date on or before this date
+	 * @param offenseCode only segments with an offense with this UCR offense code
+	 * @param afterId the nextAfterId of the previous page, or null for the first page
+	 * @param pageSize the page size, at most MAX_PAGE_SIZE
+	 * @return the page
+	 */
+	public AdministrativeSegmentPage findAdministrativeSegmentPage(String ori, Date incidentDateFrom, Date incidentDateTo, 
+			String offenseCode, Integer afterId, int pageSize){
+		int limit = Math.max(1, Math.min(MAX_PAGE_SIZE, pageSize));
+		List<Integer> ids = administrativeSegmentJdbcRepository.findAdministrativeSegmentIds(
+				ori, incidentDateFrom, incidentDateTo, offenseCode, afterId, limit);
+		if (ids.isEmpty()){
+			return new AdministrativeSegmentPage(new ArrayList<>(), null);
+		}
+		
+		List<AdministrativeSegment> administrativeSegments = 
+				new ArrayList<>(administrativeSegmentRepository.findDistinctByAdministrativeSegmentIdIn(ids));
+		administrativeSegments.sort(Comparator.comparing(AdministrativeSegment::getAdministrativeSegmentId));
+		return new AdministrativeSegmentPage(administrativeSegments, ids.size() < limit ? null : ids.get(ids.size() - 1));
+	}
+	
+	/**
+	 * Pass all of the administrative segments that meet the criteria to the consumer, in id order, each converted by the mapper.  The 
+	 * segments are loaded a page at a time, each page in its own read-only transaction in which its segments are mapped, and the 
+	 * persistence context is cleared after each page, so memory use does not grow with the number of segments.  The consumer is only 
+	 * called once the transaction of the page has ended, so a slow consumer (such as a client reading a response) does not hold a 
+	 * transaction open for longer than it takes to read and map one page.
+	 * @return the number of segments
+	 */
+	public <T> int streamAdministrativeSegments(String ori, Date incidentDateFrom, Date incidentDateTo, String offenseCode, 
+			Function<AdministrativeSegment, T> mapper, Consumer<T> consumer){
+		TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+		transactionTemplate.setReadOnly(true);
+		int count = 0;
+		Integer afterId = null;
+		do {
+			Integer pageAfterId = afterId;
+			List<T> mapped = new ArrayList<>(STREAM_PAGE_SIZE);
+			AdministrativeSegmentPage page = transactionTemplate.execute(status -> {
+				AdministrativeSegmentPage ret = 
+						findAdministrativeSegmentPage(ori, incidentDateFrom, incidentDateTo, offenseCode, pageAfterId, STREAM_PAGE_SIZE);
+				ret.getAdministrativeSegments().forEach(administrativeSegment -> mapped.add(mapper.apply(administrativeSegment)));
+				entityManager.clear();
+				return ret;
+			});
+			mapped.forEach(consumer);
+			count += mapped.size();
+			afterId = page.getNextAfterId();
+		} while (afterId != null);
+		return count;
+	}
+	
 	public OffenseSegment saveOffenseSegment(OffenseSegment offenseSegment){
 		return offenseSegmentRepository.save(offenseSegment);
 	}
@@ -232,63 +217,95 @@ public class GroupAIncidentService {
 				administrativeSegmentRepository.deleteByIncidentNumber(groupAIncidentReport.getIncidentNumber());
 			}
 			
-			AdministrativeSegment administrativeSegment = new AdministrativeSegment(); 
+			administrativeSegments.add(toAdministrativeSegment(groupAIncidentReport));
+		}
+		
+		return administrativeSegmentRepository.save(administrativeSegments);
+	}
+	
+	/**
+	 * Save the reports as a set: the incidents they replace are found with one query and deleted with bulk SQL, and the new segments are
+	 * inserted with JDBC batches.  If several reports have the same incident number, the last one wins.
+	 * @param groupAIncidentReports the reports
+	 * @return the saved administrative segments
+	 */
+	@Transactional
+	public List<AdministrativeSegment> bulkSaveGroupAIncidentReports(GroupAIncidentReport... groupAIncidentReports){
+		Map<String, AdministrativeSegment> administrativeSegments = new LinkedHashMap<>();
+		
+		for (GroupAIncidentReport groupAIncidentReport: groupAIncidentReports){
+			administrativeSegments.remove(groupAIncidentReport.getIncidentNumber());
+			administrativeSegments.put(groupAIncidentReport.getIncidentNumber(), toAdministrativeSegment(groupAIncidentReport));
+		}
+		
+		List<Integer> existingAdministrativeSegmentIds = new ArrayList<>();
+		administrativeSegmentJdbcRepository.findAdministrativeSegmentIds(administrativeSegments.keySet())
+			.values().forEach(existingAdministrativeSegmentIds::addAll);
+		if (!existingAdministrativeSegmentIds.isEmpty()){
+			administrativeSegmentJdbcRepository.deleteAdministrativeSegments(existingAdministrativeSegmentIds);
+		}
+		
+		List<AdministrativeSegment> ret = new ArrayList<>(administrativeSegments.values());
+		administrativeSegmentJdbcRepository.insertAdministrativeSegments(ret);
+		log.info("Saved " + ret.size() + " incidents, replacing " + existingAdministrativeSegmentIds.size());
+		return ret;
+	}
+	
+	private AdministrativeSegment toAdministrativeSegment(GroupAIncidentReport groupAIncidentReport) {
+		AdministrativeSegment administrativeSegment = new AdministrativeSegment(); 
 //			Optional<AdministrativeSegment> existingAdministrativeSegment = 
 //					Optional.ofNullable(administrativeSegmentRepository.findFirstByIncidentNumber(groupAIncidentReport.getIncidentNumber()));
 //				
 //			AdministrativeSegment administrativeSegment = existingAdministrativeSegment.orElseGet(AdministrativeSegment::new); 
 
-			administrativeSegment.setAgency(agencyRepository.findFirstByAgencyOri(groupAIncidentReport.getOri()));
-			
-			String reportActionType = String.valueOf(groupAIncidentReport.getReportActionType()).trim();
-			administrativeSegment.setSegmentActionType(segmentActionTypeRepository.findFirstBySegmentActionTypeCode(reportActionType));
-			
-			Optional<Integer> monthOfTape = Optional.ofNullable(groupAIncidentReport.getMonthOfTape());
-			monthOfTape.ifPresent( m-> {
-				administrativeSegment.setMonthOfTape(StringUtils.leftPad(String.valueOf(m), 2, '0'));
-			});
-			
-			if (groupAIncidentReport.getYearOfTape() != null){
-				administrativeSegment.setYearOfTape(String.valueOf(groupAIncidentReport.getYearOfTape()));
-			}
-			
-			administrativeSegment.setCityIndicator(groupAIncidentReport.getCityIndicator());
-			administrativeSegment.setOri(groupAIncidentReport.getOri());
-			administrativeSegment.setIncidentNumber(groupAIncidentReport.getIncidentNumber());
-			administrativeSegment.setIncidentDate(groupAIncidentReport.getIncidentDate().getValue());
-			administrativeSegment.setIncidentDateType(codeTableService.getDateType(groupAIncidentReport.getIncidentDate().getValue()));
-			administrativeSegment.setReportDateIndicator(groupAIncidentReport.getReportDateIndicator());
-			administrativeSegment.setReportDateIndicator(groupAIncidentReport.getReportDateIndicator());
-			administrativeSegment.setExceptionalClearanceDate(groupAIncidentReport.getExceptionalClearanceDate().getValue());
-			administrativeSegment.setExceptionalClearanceDateType(codeTableService.getDateType(groupAIncidentReport.getExceptionalClearanceDate().getValue()));
-			
-			Optional<Integer> incidentHour = Optional.ofNullable(groupAIncidentReport.getIncidentHour().getValue());
-			administrativeSegment.setIncidentHour(incidentHour.map(String::valueOf).orElse(""));
-			
-			ClearedExceptionallyType clearedExceptionallyType = 
-					codeTableService.getCodeTableType(groupAIncidentReport.getExceptionalClearanceCode(), 
-							clearedExceptionallyTypeRepository::findFirstByClearedExceptionallyCode, 
-							ClearedExceptionallyType::new); 
-			administrativeSegment.setClearedExceptionallyType(clearedExceptionallyType);
-			
-			Agency agency = codeTableService.getCodeTableType(groupAIncidentReport.getOri(), agencyRepository::findFirstByAgencyOri, Agency::new); 
-			administrativeSegment.setAgency(agency);
-			
-			CargoTheftIndicatorType cargoTheftIndicatorType = 
-					codeTableService.getCodeTableType(groupAIncidentReport.getCargoTheftIndicator(), 
-							cargoTheftIndicatorTypeRepository::findFirstByCargoTheftIndicatorCode, CargoTheftIndicatorType::new); 
-			administrativeSegment.setCargoTheftIndicatorType(cargoTheftIndicatorType);
-			
-			processProperties(administrativeSegment, groupAIncidentReport);
-			processOffenses(administrativeSegment, groupAIncidentReport);
-			processOffenders(administrativeSegment, groupAIncidentReport);
-			processArrestees(administrativeSegment, groupAIncidentReport);
-			processVictims(administrativeSegment, groupAIncidentReport);
-			administrativeSegments.add(administrativeSegment);
+		String reportActionType = String.valueOf(groupAIncidentReport.getReportActionType()).trim();
+		administrativeSegment.setSegmentActionType(codeTableService.getCodeTableType(reportActionType, 
+				SegmentActionTypeType.class, SegmentActionTypeType::new));
+		
+		Optional<Integer> monthOfTape = Optional.ofNullable(groupAIncidentReport.getMonthOfTape());
+		monthOfTape.ifPresent( m-> {
+			administrativeSegment.setMonthOfTape(StringUtils.leftPad(String.valueOf(m), 2, '0'));
+		});
+		
+		if (groupAIncidentReport.getYearOfTape() != null){
+			administrativeSegment.setYearOfTape(String.valueOf(groupAIncidentReport.getYearOfTape()));
 		}
 		
-		return administrativeSegmentRepository.save(administrativeSegments);
+		administrativeSegment.setCityIndicator(groupAIncidentReport.getCityIndicator());
+		administrativeSegment.setOri(groupAIncidentReport.getOri());
+		administrativeSegment.setIncidentNumber(groupAIncidentReport.getIncidentNumber());
+		administrativeSegment.setIncidentDate(groupAIncidentReport.getIncidentDate().getValue());
+		administrativeSegment.setIncidentDateType(codeTableService.getDateType(groupAIncidentReport.getIncidentDate().getValue()));
+		administrativeSegment.setReportDateIndicator(groupAIncidentReport.getReportDateIndicator());
+		administrativeSegment.setReportDateIndicator(groupAIncidentReport.getReportDateIndicator());
+		administrativeSegment.setExceptionalClearanceDate(groupAIncidentReport.getExceptionalClearanceDate().getValue());
+		administrativeSegment.setExceptionalClearanceDateType(codeTableService.getDateType(groupAIncidentReport.getExceptionalClearanceDate().getValue()));
+		
+		Optional<Integer> incidentHour = Optional.ofNullable(groupAIncidentReport.getIncidentHour().getValue());
+		administrativeSegment.setIncidentHour(incidentHour.map(String::valueOf).orElse(""));
+		
+		ClearedExceptionallyType clearedExceptionallyType = 
+				codeTableService.getCodeTableType(groupAIncidentReport.getExceptionalClearanceCode(), 
+						ClearedExceptionallyType.class, 
+						ClearedExceptionallyType::new); 
+		administrativeSegment.setClearedExceptionallyType(clearedExceptionallyType);
+		
+		Agency agency = codeTableService.getCodeTableType(groupAIncidentReport.getOri(), Agency.class, Agency::new); 
+		administrativeSegment.setAgency(agency);
+		
+		CargoTheftIndicatorType cargoTheftIndicatorType = 
+				codeTableService.getCodeTableType(groupAIncidentReport.getCargoTheftIndicator(), 
+						CargoTheftIndicatorType.class, CargoTheftIndicatorType::new); 
+		administrativeSegment.setCargoTheftIndicatorType(cargoTheftIndicatorType);
+		
+		processProperties(administrativeSegment, groupAIncidentReport);
+		processOffenses(administrativeSegment, groupAIncidentReport);
+		processOffenders(administrativeSegment, groupAIncidentReport);
+		processArrestees(administrativeSegment, groupAIncidentReport);
+		processVictims(administrativeSegment, groupAIncidentReport);
+		return administrativeSegment;
 	}
+	
 	private void processProperties(AdministrativeSegment administrativeSegment,
 			GroupAIncidentReport groupAIncidentReport) {
 		if (groupAIncidentReport.getPropertyCount() > 0){
@@ -302,7 +319,7 @@ public class GroupAIncidentService {
 				propertySegment.setAdministrativeSegment(administrativeSegment);
 				
 				TypePropertyLossEtcType typePropertyLossEtcType = codeTableService.getCodeTableType(
-						property.getTypeOfPropertyLoss(), typePropertyLossEtcTypeRepository::findFirstByTypePropertyLossEtcCode, TypePropertyLossEtcType::new);
+						property.getTypeOfPropertyLoss(), TypePropertyLossEtcType.class, TypePropertyLossEtcType::new);
 				propertySegment.setTypePropertyLossEtcType(typePropertyLossEtcType );
 				
 				Integer numberOfRecoveredMotorVehicles = Optional.ofNullable(property.getNumberOfRecoveredMotorVehicles())
@@ -335,7 +352,7 @@ public class GroupAIncidentService {
 				String suspectedDrugTypeString = StringUtils.trimToNull(property.getSuspectedDrugType(i)); 
 				
 				SuspectedDrugTypeType suspectedDrugTypeType = 
-						codeTableService.getCodeTableType(suspectedDrugTypeString, suspectedDrugTypeTypeRepository::findFirstBySuspectedDrugTypeCode, null);
+						codeTableService.getCodeTableType(suspectedDrugTypeString, SuspectedDrugTypeType.class, null);
 				
 				if (suspectedDrugTypeType != null){
 					SuspectedDrugType suspectedDrugType = new SuspectedDrugType(); 
@@ -348,7 +365,7 @@ public class GroupAIncidentService {
 					
 					
 					TypeDrugMeasurementType typeDrugMeasurementType = codeTableService.getCodeTableType(
-							property.getTypeDrugMeasurement(i), typeDrugMeasurementTypeRepository::findFirstByTypeDrugMeasurementCode, TypeDrugMeasurementType::new);
+							property.getTypeDrugMeasurement(i), TypeDrugMeasurementType.class, TypeDrugMeasurementType::new);
 					suspectedDrugType.setTypeDrugMeasurementType(typeDrugMeasurementType );
 					
 					suspectedDrugTypes.add(suspectedDrugType);
@@ -369,7 +386,7 @@ public class GroupAIncidentService {
 				String propertyDescription = StringUtils.trimToNull(property.getPropertyDescription(i)); 
 				
 				PropertyDescriptionType propertyDescriptionType = 
-						codeTableService.getCodeTableType(propertyDescription, propertyDescriptionTypeRepository::findFirstByPropertyDescriptionCode, null);
+						codeTableService.getCodeTableType(propertyDescription, PropertyDescriptionType.class, null);
 				
 				if (propertyDescriptionType != null){
 					PropertyType propertyType = new PropertyType(); 
@@ -433,49 +450,49 @@ public class GroupAIncidentService {
 				victimSegment.setVictimSequenceNumber(victim.getVictimSequenceNumber().getValue());
 
 				TypeOfVictimType typeOfVictimType = 
-						codeTableService.getCodeTableType(victim.getTypeOfVictim(), typeOfVictimTypeRepository::findFirstByTypeOfVictimCode, TypeOfVictimType::new);
+						codeTableService.getCodeTableType(victim.getTypeOfVictim(), TypeOfVictimType.class, TypeOfVictimType::new);
 				victimSegment.setTypeOfVictimType(typeOfVictimType);
 				
 				OfficerActivityCircumstanceType officerActivityCircumstanceType = 
 						codeTableService.getCodeTableType(victim.getTypeOfOfficerActivityCircumstance(), 
-								officerActivityCircumstanceTypeRepository::findFirstByOfficerActivityCircumstanceCode, 
+								OfficerActivityCircumstanceType.class, 
 								OfficerActivityCircumstanceType::new);
 				victimSegment.setOfficerActivityCircumstanceType(officerActivityCircumstanceType);
 				
 				OfficerAssignmentTypeType officerAssignmentTypeType = 
 						codeTableService.getCodeTableType(victim.getOfficerAssignmentType(), 
-								officerAssignmentTypeTypeRepository::findFirstByOfficerAssignmentTypeCode, 
+								OfficerAssignmentTypeType.class, 
 								OfficerAssignmentTypeType::new);
 				victimSegment.setOfficerAssignmentTypeType(officerAssignmentTypeType);
 				
 				Optional<NIBRSAge> victimAge = Optional.ofNullable(victim.getAge());
 				victimSegment.setAgeOfVictimMax(victimAge.map(NIBRSAge::getAgeMax).orElse(null));
 				victimSegment.setAgeOfVictimMin(victimAge.map(NIBRSAge::getAgeMin).orElse(null));
-				victimSegment.setAgeNeonateIndicator(BooleanUtils.toIntegerObject(victimAge.map(NIBRSAge::isNN).orElse(false)));
-				victimSegment.setAgeFirstWeekIndicator(BooleanUtils.toIntegerObject(victimAge.map(NIBRSAge::isNB).orElse(false)));
-				victimSegment.setAgeFirstYearIndicator(BooleanUtils.toIntegerObject(victimAge.map(NIBRSAge::isBB).orElse(false)));
+				victimSegment.setAgeNeonateIndicator(BooleanUtils.toIntegerObject(victimAge.map(NIBRSAge::isNeonate).orElse(false)));
+				victimSegment.setAgeFirstWeekIndicator(BooleanUtils.toIntegerObject(victimAge.map(NIBRSAge::isNewborn).orElse(false)));
+				victimSegment.setAgeFirstYearIndicator(BooleanUtils.toIntegerObject(victimAge.map(NIBRSAge::isBaby).orElse(false)));
 				
 				SexOfPersonType sexOfPersonType = codeTableService.getCodeTableType(
-						victim.getSex(), sexOfPersonTypeRepository::findFirstBySexOfPersonCode, SexOfPersonType::new);
+						victim.getSex(), SexOfPersonType.class, SexOfPersonType::new);
 				victimSegment.setSexOfPersonType(sexOfPersonType);
 				
 				RaceOfPersonType raceOfPersonType = codeTableService.getCodeTableType(
-						victim.getRace(), raceOfPersonTypeRepository::findFirstByRaceOfPersonCode, RaceOfPersonType::new);
+						victim.getRace(), RaceOfPersonType.class, RaceOfPersonType::new);
 				victimSegment.setRaceOfPersonType(raceOfPersonType);
 				
 				EthnicityOfPersonType ethnicityOfPersonType = codeTableService.getCodeTableType(
-						victim.getEthnicity(), ethnicityOfPersonTypeRepository::findFirstByEthnicityOfPersonCode, EthnicityOfPersonType::new);
+						victim.getEthnicity(), EthnicityOfPersonType.class, EthnicityOfPersonType::new);
 				victimSegment.setEthnicityOfPersonType(ethnicityOfPersonType);
 				
 				ResidentStatusOfPersonType residentStatusOfPersonType = codeTableService.getCodeTableType(
 						victim.getResidentStatus(), 
-						residentStatusOfPersonTypeRepository::findFirstByResidentStatusOfPersonCode, 
+						ResidentStatusOfPersonType.class, 
 						ResidentStatusOfPersonType::new);
 				victimSegment.setResidentStatusOfPersonType(residentStatusOfPersonType);
 				
 				AdditionalJustifiableHomicideCircumstancesType additionalJustifiableHomicideCircumstancesType = codeTableService.getCodeTableType(
 						victim.getAdditionalJustifiableHomicideCircumstances(), 
-						additionalJustifiableHomicideCircumstancesTypeRepository::findFirstByAdditionalJustifiableHomicideCircumstancesCode, 
+						AdditionalJustifiableHomicideCircumstancesType.class, 
 						AdditionalJustifiableHomicideCircumstancesType::new);
 				victimSegment.setAdditionalJustifiableHomicideCircumstancesType(additionalJustifiableHomicideCircumstancesType);
 				
@@ -520,7 +537,7 @@ public class GroupAIncidentService {
 					VictimOffenderRelationshipType victimOffenderRelationshipType = codeTableService
 							.getCodeTableType(
 									victimOffenderRelationship, 
-									victimOffenderRelationshipTypeRepository::findFirstByVictimOffenderRelationshipCode, 
+									VictimOffenderRelationshipType.class, 
 									VictimOffenderRelationshipType::new);
 					victimOffenderAssociation.setVictimOffenderRelationshipType(victimOffenderRelationshipType);	
 					victimOffenderAssociations.add(victimOffenderAssociation);
@@ -538,7 +555,7 @@ public class GroupAIncidentService {
 					.filter(StringUtils::isNotBlank)
 					.map(item -> codeTableService.getCodeTableType(
 								item, 
-								aggravatedAssaultHomicideCircumstancesTypeRepository::findFirstByAggravatedAssaultHomicideCircumstancesCode, 
+								AggravatedAssaultHomicideCircumstancesType.class, 
 								null) )
 					.filter(Objects::nonNull)
 					.forEach(aggravatedAssaultHomicideCircumstancesTypes::add);
@@ -551,7 +568,7 @@ public class GroupAIncidentService {
 			Set<TypeInjuryType> typeInjuryTypes = new HashSet<>();
 			Arrays.stream(victim.getTypeOfInjury())
 					.filter(StringUtils::isNotBlank)
-					.map(item -> codeTableService.getCodeTableType(item, typeInjuryTypeRepository::findFirstByTypeInjuryCode, null))
+					.map(item -> codeTableService.getCodeTableType(item, TypeInjuryType.class, null))
 					.filter(Objects::nonNull)
 					.forEach(typeInjuryTypes::add);
 			victimSegment.setTypeInjuryTypes(typeInjuryTypes);
@@ -571,7 +588,7 @@ public class GroupAIncidentService {
 				if (StringUtils.isNotBlank(arresteeArmedWithCode)){
 					Optional<ArresteeWasArmedWithType> arresteeWasArmedWithType = 
 							Optional.ofNullable(codeTableService.getCodeTableType(arresteeArmedWithCode,
-									arresteeWasArmedWithTypeRepository::findFirstByArresteeWasArmedWithCode, 
+									ArresteeWasArmedWithType.class, 
 									null));
 					arresteeWasArmedWithType.ifPresent( type ->
 						armedWiths.add(new ArresteeSegmentWasArmedWith(
@@ -602,13 +619,13 @@ public class GroupAIncidentService {
 				arresteeSegment.setArrestDateType(codeTableService.getDateType(arrestee.getArrestDate().getValue()));
 				
 				TypeOfArrestType typeOfArrestType = codeTableService.getCodeTableType(
-						arrestee.getTypeOfArrest(), typeOfArrestTypeRepository::findFirstByTypeOfArrestCode, TypeOfArrestType::new);
+						arrestee.getTypeOfArrest(), TypeOfArrestType.class, TypeOfArrestType::new);
 				arresteeSegment.setTypeOfArrestType(typeOfArrestType );
 				
 				MultipleArresteeSegmentsIndicatorType multipleArresteeSegmentsIndicatorType = 
 						codeTableService.getCodeTableType(
 							arrestee.getMultipleArresteeSegmentsIndicator(), 
-							multipleArresteeSegmentsIndicatorTypeRepository::findFirstByMultipleArresteeSegmentsIndicatorCode, 
+							MultipleArresteeSegmentsIndicatorType.class, 
 							MultipleArresteeSegmentsIndicatorType::new);
 				arresteeSegment.setMultipleArresteeSegmentsIndicatorType(multipleArresteeSegmentsIndicatorType);
 				
@@ -616,32 +633,32 @@ public class GroupAIncidentService {
 				arresteeSegment.setAgeOfArresteeMax(arrestee.getAge().getAgeMax());
 
 				SexOfPersonType sexOfPersonType = codeTableService.getCodeTableType(
-						arrestee.getSex(), sexOfPersonTypeRepository::findFirstBySexOfPersonCode, SexOfPersonType::new);
+						arrestee.getSex(), SexOfPersonType.class, SexOfPersonType::new);
 				arresteeSegment.setSexOfPersonType(sexOfPersonType);
 				
 				RaceOfPersonType raceOfPersonType = codeTableService.getCodeTableType(
-						arrestee.getRace(), raceOfPersonTypeRepository::findFirstByRaceOfPersonCode, RaceOfPersonType::new);
+						arrestee.getRace(), RaceOfPersonType.class, RaceOfPersonType::new);
 				arresteeSegment.setRaceOfPersonType(raceOfPersonType);
 				
 				EthnicityOfPersonType ethnicityOfPersonType = codeTableService.getCodeTableType(
-						arrestee.getEthnicity(), ethnicityOfPersonTypeRepository::findFirstByEthnicityOfPersonCode, EthnicityOfPersonType::new);
+						arrestee.getEthnicity(), EthnicityOfPersonType.class, EthnicityOfPersonType::new);
 				arresteeSegment.setEthnicityOfPersonType(ethnicityOfPersonType);
 				
 				ResidentStatusOfPersonType residentStatusOfPersonType = codeTableService.getCodeTableType(
 						arrestee.getResidentStatus(), 
-						residentStatusOfPersonTypeRepository::findFirstByResidentStatusOfPersonCode, 
+						ResidentStatusOfPersonType.class, 
 						ResidentStatusOfPersonType::new);
 				arresteeSegment.setResidentStatusOfPersonType(residentStatusOfPersonType);
 				
 				DispositionOfArresteeUnder18Type dispositionOfArresteeUnder18Type = codeTableService.getCodeTableType(
 						arrestee.getDispositionOfArresteeUnder18(), 
-						dispositionOfArresteeUnder18TypeRepository::findFirstByDispositionOfArresteeUnder18Code, 
+						DispositionOfArresteeUnder18Type.class, 
 						DispositionOfArresteeUnder18Type::new);
 				arresteeSegment.setDispositionOfArresteeUnder18Type(dispositionOfArresteeUnder18Type );
 				
 				UcrOffenseCodeType ucrOffenseCodeType = codeTableService.getCodeTableType(
 						arrestee.getUcrArrestOffenseCode(), 
-						ucrOffenseCodeTypeRepository::findFirstByUcrOffenseCode, 
+						UcrOffenseCodeType.class, 
 						UcrOffenseCodeType::new);;
 				arresteeSegment.setUcrOffenseCodeType(ucrOffenseCodeType);
 	
@@ -671,15 +688,15 @@ public class GroupAIncidentService {
 				offenderSegment.setOffenderSequenceNumber(offender.getOffenderSequenceNumber().getValue());
 				
 				SexOfPersonType sexOfPersonType = codeTableService.getCodeTableType(
-						offender.getSex(), sexOfPersonTypeRepository::findFirstBySexOfPersonCode, SexOfPersonType::new);
+						offender.getSex(), SexOfPersonType.class, SexOfPersonType::new);
 				offenderSegment.setSexOfPersonType(sexOfPersonType);
 				
 				RaceOfPersonType raceOfPersonType = codeTableService.getCodeTableType(
-						offender.getRace(), raceOfPersonTypeRepository::findFirstByRaceOfPersonCode, RaceOfPersonType::new);
+						offender.getRace(), RaceOfPersonType.class, RaceOfPersonType::new);
 				offenderSegment.setRaceOfPersonType(raceOfPersonType);
 				
 				EthnicityOfPersonType ethnicityOfPersonType = codeTableService.getCodeTableType(
-						offender.getEthnicity(), ethnicityOfPersonTypeRepository::findFirstByEthnicityOfPersonCode, EthnicityOfPersonType::new);
+						offender.getEthnicity(), EthnicityOfPersonType.class, EthnicityOfPersonType::new);
 				offenderSegment.setEthnicityOfPersonType(ethnicityOfPersonType);
 
 				offenderSegments.add(offenderSegment);
@@ -703,20 +720,20 @@ public class GroupAIncidentService {
 				
 				UcrOffenseCodeType ucrOffenseCodeType = 
 						codeTableService.getCodeTableType(offense.getUcrOffenseCode(), 
-								ucrOffenseCodeTypeRepository::findFirstByUcrOffenseCode, UcrOffenseCodeType::new);
+								UcrOffenseCodeType.class, UcrOffenseCodeType::new);
 				offenseSegment.setUcrOffenseCodeType(ucrOffenseCodeType);
 				offenseSegment.setOffenseAttemptedCompleted(offense.getOffenseAttemptedCompleted());
 				
 				LocationType locationType = 
 						codeTableService.getCodeTableType(offense.getLocationType(), 
-								locationTypeRepository::findFirstByLocationTypeCode, LocationType::new);
+								LocationType.class, LocationType::new);
 				offenseSegment.setLocationType(locationType);
 				
 				offenseSegment.setNumberOfPremisesEntered(offense.getNumberOfPremisesEntered().getValue());
 				
 				MethodOfEntryType methodOfEntryType = 
 						codeTableService.getCodeTableType(offense.getMethodOfEntry(), 
-								methodOfEntryTypeRepository::findFirstByMethodOfEntryCode, MethodOfEntryType::new);
+								MethodOfEntryType.class, MethodOfEntryType::new);
 				offenseSegment.setMethodOfEntryType(methodOfEntryType);
 				processTypeOfWeaponForceInvolved(offenseSegment, offense); 
 				processTypeOfCriminalActivityCount(offenseSegment, offense); 
@@ -726,7 +743,7 @@ public class GroupAIncidentService {
 				Arrays.stream(offense.getBiasMotivation())
 					.filter(StringUtils::isNotBlank)
 					.map(code -> codeTableService.getCodeTableType(code, 
-								biasMotivationTypeRepository::findFirstByBiasMotivationCode, null))
+								BiasMotivationType.class, null))
 					.filter(Objects::nonNull)
 					.forEach(biasMotivationTypes::add);
 					
@@ -747,7 +764,7 @@ public class GroupAIncidentService {
 			for (int i = 0; i < offense.getPopulatedOffendersSuspectedOfUsingCount(); i++){
 				String offenderSuspectedUsingCode = StringUtils.trimToNull(offense.getOffendersSuspectedOfUsing(i));
 				OffenderSuspectedOfUsingType offenderSuspectedOfUsingType = 
-						codeTableService.getCodeTableType(offenderSuspectedUsingCode, offenderSuspectedOfUsingTypeRepository::findFirstByOffenderSuspectedOfUsingCode, null);
+						codeTableService.getCodeTableType(offenderSuspectedUsingCode, OffenderSuspectedOfUsingType.class, null);
 				if (offenderSuspectedOfUsingType != null){
 					offenderSuspectedOfUsingTypes.add(offenderSuspectedOfUsingType); 
 				}
@@ -764,7 +781,7 @@ public class GroupAIncidentService {
 			for (int i = 0; i < offense.getPopulatedTypeOfCriminalActivityCount(); i++){
 				String typeOfCriminalActivityCode = StringUtils.trimToNull(offense.getTypeOfCriminalActivity(i));
 				TypeOfCriminalActivityType typeOfCriminalActivityType = 
-						codeTableService.getCodeTableType(typeOfCriminalActivityCode, typeOfCriminalActivityTypeRepository::findFirstByTypeOfCriminalActivityCode, null);
+						codeTableService.getCodeTableType(typeOfCriminalActivityCode, TypeOfCriminalActivityType.class, null);
 				if (typeOfCriminalActivityType != null){
 					typeOfCriminalActivityTypes.add(typeOfCriminalActivityType); 
 				}
@@ -786,7 +803,7 @@ public class GroupAIncidentService {
 				if (StringUtils.isNotBlank(typeOfWeaponForceInvolvedCode)){
 					Optional<TypeOfWeaponForceInvolvedType> typeOfWeaponForceInvolvedType = 
 							Optional.ofNullable(codeTableService.getCodeTableType(typeOfWeaponForceInvolvedCode,
-									typeOfWeaponForceInvolvedTypeRepository::findFirstByTypeOfWeaponForceInvolvedCode, 
+									TypeOfWeaponForceInvolvedType.class, 
 									null));
 					typeOfWeaponForceInvolvedType.ifPresent( type ->
 						typeOfWeaponForceInvolveds.add(new TypeOfWeaponForceInvolved(
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.stagingdata.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The progress of one batch of reports submitted to the IngestJobService.
+ */
+public class IngestJob {
+
+	public static final int MAX_FAILURE_MESSAGES = 20;
+
+	public enum Status {
+		QUEUED, RUNNING, COMPLETED, COMPLETED_WITH_FAILURES
+	}
+
+	private final String jobId;
+	private final int reportCount;
+	private final Date submittedTime = new Date();
+	private volatile Date startedTime;
+	private volatile Date finishedTime;
+	private final AtomicInteger persistedCount = new AtomicInteger();
+	private final AtomicInteger failedCount = new AtomicInteger();
+	private final List<String> failureMessages = Collections.synchronizedList(new ArrayList<>());
+
+	IngestJob(String jobId, int reportCount) {
+		this.jobId = jobId;
+		this.reportCount = reportCount;
+		if (reportCount == 0) {
+			startedTime = finishedTime = submittedTime;
+		}
+	}
+
+	public String getJobId() {
+		return jobId;
+	}
+
+	public Status getStatus() {
+		if (finishedTime != null) {
+			return failedCount.get() == 0 ? Status.COMPLETED : Status.COMPLETED_WITH_FAILURES;
+		}
+		return startedTime == null ? Status.QUEUED : Status.RUNNING;
+	}
+
+	public int getReportCount() {
+		return reportCount;
+	}
+
+	public int getPersistedCount() {
+		return persistedCount.get();
+	}
+
+	public int getFailedCount() {
+		return failedCount.get();
+	}
+
+	public List<String> getFailureMessages() {
+		synchronized (failureMessages) {
+			return new ArrayList<>(failureMessages);
+		}
+	}
+
+	public Date getSubmittedTime() {
+		return submittedTime;
+	}
+
+	public Date getStartedTime() {
+		return startedTime;
+	}
+
+	public Date getFinishedTime() {
+		return finishedTime;
+	}
+
+	/**
+	 * The number of reports processed (persisted or failed) per second since the job started.
+	 */
+	public double getReportsPerSecond() {
+		Date started = startedTime;
+		if (started == null) {
+			return 0;
+		}
+		Date finished = finishedTime;
+		long elapsedMillis = (finished == null ? System.currentTimeMillis() : finished.getTime()) - started.getTime();
+		return (persistedCount.get() + failedCount.get()) * 1000.0 / Math.max(1, elapsedMillis);
+	}
+
+	synchronized void started() {
+		if (startedTime == null) {
+			startedTime = new Date();
+		}
+	}
+
+	void persisted(int count) {
+		persistedCount.addAndGet(count);
+		finishIfDone();
+	}
+
+	void failed(String identifier, Exception e) {
+		if (failureMessages.size() < MAX_FAILURE_MESSAGES) {
+			failureMessages.add(identifier + ": " + e);
+		}
+		failedCount.incrementAndGet();
+		finishIfDone();
+	}
+
+	private synchronized void finishIfDone() {
+		if (finishedTime == null && persistedCount.get() + failedCount.get() >= reportCount) {
+			finishedTime = new Date();
+		}
+	}
+
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.stagingdata.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.search.nibrs.model.AbstractReport;
+import org.search.nibrs.model.GroupAIncidentReport;
+import org.search.nibrs.model.GroupBArrestReport;
+import org.search.nibrs.stagingdata.controller.BadRequestException;
+import org.search.nibrs.stagingdata.controller.ServiceUnavailableException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Asynchronous ingestion of Group A incident reports and Group B arrest reports.
+ * <br/>
+ * A submitted batch of reports is queued and becomes an IngestJob, whose id is returned at once; the reports are persisted in the
+ * background by a fixed set of workers.  Each worker persists whatever has accumulated in its queue, up to staging.ingest.batchSize
+ * reports (from any number of jobs) at a time, with the set-based bulk saves.  If a bulk save fails, the worker saves the reports one at
+ * a time, so that only the bad reports fail.  Reports are assigned to workers by identifier, so reports for the same incident or arrest
+ * are persisted in the order in which they were submitted.
+ * <br/>
+ * At most staging.ingest.queueCapacity reports can be waiting at once.  A batch that does not fit is rejected with
+ * ServiceUnavailableException (HTTP 503), so that the client backs off and tries again.
+ */
+@Service
+public class IngestJobService {
+
+	private static final Log log = LogFactory.getLog(IngestJobService.class);
+
+	@Autowired
+	private GroupAIncidentService groupAIncidentService;
+	@Autowired
+	private ArrestReportService arrestReportService;
+
+	@Value("${staging.ingest.workerCount:4}")
+	private int workerCount;
+	@Value("${staging.ingest.queueCapacity:10000}")
+	private int queueCapacity;
+	@Value("${staging.ingest.batchSize:500}")
+	private int batchSize;
+	@Value("${staging.ingest.maxJobs:1000}")
+	private int maxJobs;
+
+	private Semaphore queuePermits;
+	private List<BlockingQueue<IngestItem>> queues;
+	private List<Thread> workers;
+	private Map<String, IngestJob> jobs;
+
+	@PostConstruct
+	void start() {
+		queuePermits = new Semaphore(queueCapacity);
+		jobs = new LinkedHashMap<String, IngestJob>() {
+			private static final long serialVersionUID = 1L;
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, IngestJob> eldest) {
+				return size() > maxJobs;
+			}
+		};
+		queues = new ArrayList<>(workerCount);
+		workers = new ArrayList<>(workerCount);
+		for (int i = 0; i < workerCount; i++) {
+			BlockingQueue<IngestItem> queue = new LinkedBlockingQueue<>();
+			Thread worker = new Thread(() -> work(queue), "staging-ingest-worker-" + (i + 1));
+			worker.setDaemon(true);
+			queues.add(queue);
+			workers.add(worker);
+			worker.start();
+		}
+	}
+
+	@PreDestroy
+	void stop() {
+		workers.forEach(Thread::interrupt);
+	}
+
+	public IngestJob submitGroupAIncidentReports(GroupAIncidentReport... groupAIncidentReports) {
+		return submit(Arrays.asList(groupAIncidentReports));
+	}
+
+	public IngestJob submitGroupBArrestReports(GroupBArrestReport... groupBArrestReports) {
+		return submit(Arrays.asList(groupBArrestReports));
+	}
+
+	/**
+	 * Get a job.
+	 * @param jobId the job id
+	 * @return the job, or null if there is no such job, or it finished so long ago that it has been forgotten
+	 */
+	public IngestJob getJob(String jobId) {
+		synchronized (jobs) {
+			return jobs.get(jobId);
+		}
+	}
+
+	/**
+	 * Get the most recently submitted jobs, up to staging.ingest.maxJobs, oldest first.
+	 */
+	public List<IngestJob> getJobs() {
+		synchronized (jobs) {
+			return new ArrayList<>(jobs.values());
+		}
+	}
+
+	/**
+	 * The number of reports waiting to be persisted.
+	 */
+	public int getQueuedReportCount() {
+		return queueCapacity - queuePermits.availablePermits();
+	}
+
+	private IngestJob submit(List<? extends AbstractReport> reports) {
+
+		if (reports.size() > queueCapacity) {
+			throw new BadRequestException("A batch can have at most " + queueCapacity + " reports, this one has " + reports.size());
+		}
+		if (!queuePermits.tryAcquire(reports.size())) {
+			throw new ServiceUnavailableException("The ingest queue is full, try again later");
+		}
+
+		IngestJob job = new IngestJob(UUID.randomUUID().toString(), reports.size());
+		synchronized (jobs) {
+			jobs.put(job.getJobId(), job);
+		}
+		for (AbstractReport report : reports) {
+			int worker = Math.floorMod(Objects.hashCode(report.getIdentifier()), queues.size());
+			queues.get(worker).add(new IngestItem(job, report));
+		}
+		log.info("Queued job " + job.getJobId() + " with " + reports.size() + " reports");
+		return job;
+
+	}
+
+	private void work(BlockingQueue<IngestItem> queue) {
+		List<IngestItem> items = new ArrayList<>(batchSize);
+		while (!Thread.currentThread().isInterrupted()) {
+			try {
+				items.add(queue.take());
+			} catch (InterruptedException e) {
+				return;
+			}
+			queue.drainTo(items, batchSize - 1);
+			queuePermits.release(items.size());
+			try {
+				persist(items);
+			} catch (RuntimeException e) {
+				log.error("Unexpected failure persisting " + items.size() + " reports", e);
+			}
+			items.clear();
+		}
+	}
+
+	private void persist(List<IngestItem> items) {
+
+		List<IngestItem> groupAItems = new ArrayList<>();
+		List<IngestItem> groupBItems = new ArrayList<>();
+		for (IngestItem item : items) {
+			item.job.started();
+			if (item.report instanceof GroupAIncidentReport) {
+				groupAItems.add(item);
+			} else if (item.report instanceof GroupBArrestReport) {
+				groupBItems.add(item);
+			} else {
+				item.job.failed(item.report.getIdentifier(),
+						new IllegalArgumentException("The report type " + item.report.getClass().getName() + " is not supported"));
+			}
+		}
+
+		persist(groupAItems, reports -> groupAIncidentService.bulkSaveGroupAIncidentReports(
+				reports.toArray(new GroupAIncidentReport[reports.size()])));
+		persist(groupBItems, reports -> arrestReportService.bulkSaveGroupBArrestReports(
+				reports.toArray(new GroupBArrestReport[reports.size()])));
+
+	}
+
+	private void persist(List<IngestItem> items, Consumer<List<AbstractReport>> bulkSave) {
+
+		if (items.isEmpty()) {
+			return;
+		}
+
+		List<AbstractReport> reports = new ArrayList<>(items.size());
+		items.forEach(item -> reports.add(item.report));
+		try {
+			bulkSave.accept(reports);
+			items.forEach(item -> item.job.persisted(1));
+			return;
+		} catch (RuntimeException e) {
+			if (items.size() == 1) {
+				log.warn("Failed to persist report " + items.get(0).report.getIdentifier(), e);
+				items.get(0).job.failed(items.get(0).report.getIdentifier(), e);
+				return;
+			}
+			log.warn("Failed to persist a batch of " + items.size() + " reports, persisting them one at a time", e);
+		}
+
+		for (IngestItem item : items) {
+			persist(Collections.singletonList(item), bulkSave);
+		}
+
+	}
+
+	private static final class IngestItem {
+
+		private final IngestJob job;
+		private final AbstractReport report;
+
+		IngestItem(IngestJob job, AbstractReport report) {
+			this.job = job;
+			this.report = report;
+		}
+
+	}
+
+}
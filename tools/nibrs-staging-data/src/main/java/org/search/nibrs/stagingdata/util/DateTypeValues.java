@@ -0,0 +1,86 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.stagingdata.util;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.IsoFields;
+
+import org.apache.commons.lang3.StringUtils;
+import org.search.nibrs.stagingdata.model.DateType;
+
+/**
+ * The attribute values of the DateType row for a day, shared by the generated DateType insert script (SqlScriptFromExcelGenerator) and
+ * the rows CodeTableService adds for days the table does not have yet, so the two cannot drift apart.
+ */
+public final class DateTypeValues {
+
+	/**
+	 * The DateType columns that values() returns, in order; the key column (DateTypeID) is not included.
+	 */
+	public static final String COLUMNS = "CalendarDate, Year, YearLabel, CalendarQuarter, Month, MonthName, FullMonth, Day, DayOfWeek, "
+			+ "DayOfWeekSort, DateMMDDYYYY";
+
+	private static final DateTimeFormatter DATE_MMDDYYYY_FORMATTER = DateTimeFormatter.ofPattern("MMddyyyy");
+
+	private DateTypeValues() {
+	}
+
+	/**
+	 * The values of the DateType columns (in the order of COLUMNS) for the specified day.
+	 */
+	public static Object[] values(LocalDate localDate) {
+		return new Object[] {
+				java.sql.Date.valueOf(localDate),
+				localDate.getYear(),
+				String.valueOf(localDate.getYear()),
+				localDate.get(IsoFields.QUARTER_OF_YEAR),
+				localDate.getMonthValue(),
+				capitalize(Month.of(localDate.getMonthValue()).toString()),
+				localDate.toString().substring(0, 7),
+				localDate.getDayOfYear(),
+				capitalize(localDate.getDayOfWeek().toString()),
+				// Sunday first
+				localDate.getDayOfWeek().getValue() % 7 + 1,
+				localDate.format(DATE_MMDDYYYY_FORMATTER)
+		};
+	}
+
+	/**
+	 * A new (unsaved) DateType row for the specified day.
+	 */
+	public static DateType newDateType(LocalDate localDate) {
+		Object[] values = values(localDate);
+		return new DateType(null, 
+				(java.sql.Date) values[0], 
+				(Integer) values[1], 
+				(String) values[2], 
+				(Integer) values[3], 
+				(Integer) values[4], 
+				(String) values[5], 
+				(String) values[6], 
+				(Integer) values[7], 
+				(String) values[8], 
+				(Integer) values[9], 
+				(String) values[10]);
+	}
+
+	private static String capitalize(String string) {
+		return StringUtils.capitalize(string.toLowerCase());
+	}
+
+}
@@ -24,13 +24,9 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDate;
-import java.time.Month;
-import java.time.format.DateTimeFormatter;
-import java.time.temporal.IsoFields;
 import java.util.HashSet;
 import java.util.Set;
 
-import org.apache.commons.lang3.StringUtils;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
@@ -170,27 +166,17 @@ public class SqlScriptFromExcelGenerator {
 	}
 
 	private static void appendDateTypeFieldValues(LocalDate localDate, StringBuilder insertString) {
-		insertString.append(", '" + java.sql.Date.valueOf(localDate) + "' ");
-		insertString.append(", " + localDate.getYear() + " ");
-		insertString.append(", '" + String.valueOf(localDate.getYear()) + "'");
-		insertString.append(", " + localDate.get(IsoFields.QUARTER_OF_YEAR) + " ");
-		insertString.append(", " + localDate.getMonthValue() + " ");
-		insertString.append(", '" + capitalize(Month.of(localDate.getMonthValue()).toString()) + "'");
-		insertString.append(", '" + localDate.toString().substring(0, 7) + "' ");
-		insertString.append(", " +  localDate.getDayOfYear() + " ");
-		insertString.append(", '" + capitalize(localDate.getDayOfWeek().toString()) + "'");
-		insertString.append(", " + getDayOfWeekSort(localDate)  + "");
-		
-		DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMddyyyy");
-		insertString.append(", '" + localDate.format( formatter) + "'");
+		for (Object value : DateTypeValues.values(localDate)) {
+			if (value instanceof Number) {
+				insertString.append(", " + value);
+			}
+			else {
+				insertString.append(", '" + value + "'");
+			}
+		}
 		insertString.append( ");\n");
 	}
 
-	private static String capitalize(String string){
-		if (StringUtils.isBlank(string)) return string; 
-		
-		return StringUtils.capitalize(string.toLowerCase());
-	}
 	private static String getTableName(String sheetName) {
 		switch (sheetName) {
 		case "AggravatedAssaultHomicideCircum":
@@ -208,15 +194,4 @@ public class SqlScriptFromExcelGenerator {
 		}
 	}
 
-	private static int getDayOfWeekSort(LocalDate localDate) {
-		localDate.getDayOfWeek().getValue();  
-		
-		switch (localDate.getDayOfWeek()){
-		case SUNDAY: 
-			return 1; 
-		default: 
-			return localDate.getDayOfWeek().getValue() + 1; 
-		}
-	}
-
 }
\ No newline at end of file
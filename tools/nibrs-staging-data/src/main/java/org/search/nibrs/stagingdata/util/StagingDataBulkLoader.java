@@ -0,0 +1,211 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.stagingdata.util;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.search.nibrs.common.NIBRSError;
+import org.search.nibrs.flatfile.importer.IncidentBuilder;
+import org.search.nibrs.importer.ReportListener;
+import org.search.nibrs.model.AbstractReport;
+import org.search.nibrs.model.GroupAIncidentReport;
+import org.search.nibrs.model.GroupBArrestReport;
+import org.search.nibrs.stagingdata.NibrsDataApplication;
+import org.search.nibrs.stagingdata.repository.segment.AdministrativeSegmentJdbcRepository;
+import org.search.nibrs.stagingdata.repository.segment.ArrestReportSegmentJdbcRepository;
+import org.search.nibrs.stagingdata.repository.segment.SurrogateKeyAllocator;
+import org.search.nibrs.stagingdata.service.ArrestReportService;
+import org.search.nibrs.stagingdata.service.GroupAIncidentService;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+
+/**
+ * Offline loader of NIBRS flat files straight into the staging database, for back-loading large submissions without going through
+ * the REST API one report at a time.
+ * <br/>
+ * Each file is parsed with the flat file IncidentBuilder, and the reports are saved in batches with the set-based bulk saves of
+ * GroupAIncidentService and ArrestReportService.  The surrogate keys of the new segments are assigned by the loader, so each batch is
+ * a handful of JDBC batch inserts with no keys to read back.  Since the keys are counted in memory, nothing else should write to the
+ * staging database while the loader runs.  Against MySQL, add rewriteBatchedStatements=true to the datasource URL so that each JDBC
+ * batch is sent as multi-row INSERT statements.
+ * <br/>
+ * The files are expected to have been validated already; reports that the parser cannot read are skipped and counted.
+ * <br/>
+ * Usage: StagingDataBulkLoader [--spring.datasource.url=...] [--staging.bulkLoad.batchSize=1000] [--staging.bulkLoad.parserCount=n] file...
+ */
+public class StagingDataBulkLoader {
+
+	private static final Log log = LogFactory.getLog(StagingDataBulkLoader.class);
+
+	public static final int DEFAULT_BATCH_SIZE = 1000;
+
+	private final GroupAIncidentService groupAIncidentService;
+	private final ArrestReportService arrestReportService;
+	private final int batchSize;
+
+	public StagingDataBulkLoader(GroupAIncidentService groupAIncidentService, ArrestReportService arrestReportService, int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be at least one, was " + batchSize);
+		}
+		this.groupAIncidentService = groupAIncidentService;
+		this.arrestReportService = arrestReportService;
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Load one flat file.
+	 * @param file the file
+	 * @param parserCount the number of threads that parse the file
+	 * @return the counts of reports loaded and skipped
+	 * @throws IOException if the file cannot be read
+	 */
+	public LoadResults load(Path file, int parserCount) throws IOException {
+
+		LoadResults results = new LoadResults();
+		BatchingReportListener listener = new BatchingReportListener(results);
+
+		IncidentBuilder incidentBuilder = new IncidentBuilder();
+		incidentBuilder.addIncidentListener(listener);
+		incidentBuilder.buildIncidents(file, file.toString(), parserCount);
+		listener.flush();
+
+		log.info("Loaded " + file + ": " + results.getGroupAIncidentReportCount() + " Group A incident reports, "
+				+ results.getGroupBArrestReportCount() + " Group B arrest reports, " + results.getSkippedReportCount() + " reports skipped");
+		return results;
+
+	}
+
+	/**
+	 * Collects the reports from the parser, and saves them whenever a batch is full.
+	 */
+	private final class BatchingReportListener implements ReportListener {
+
+		private final LoadResults results;
+		private final List<GroupAIncidentReport> groupAIncidentReports = new ArrayList<>();
+		private final List<GroupBArrestReport> groupBArrestReports = new ArrayList<>();
+
+		BatchingReportListener(LoadResults results) {
+			this.results = results;
+		}
+
+		@Override
+		public void newReport(AbstractReport report, List<NIBRSError> errorList) {
+			if (!errorList.isEmpty()) {
+				log.warn("Skipping " + report.getUniqueReportDescription() + ", which has " + errorList.size() + " error(s)");
+				results.skippedReportCount++;
+			} else if (report instanceof GroupAIncidentReport) {
+				groupAIncidentReports.add((GroupAIncidentReport) report);
+				if (groupAIncidentReports.size() == batchSize) {
+					flushGroupAIncidentReports();
+				}
+			} else if (report instanceof GroupBArrestReport) {
+				groupBArrestReports.add((GroupBArrestReport) report);
+				if (groupBArrestReports.size() == batchSize) {
+					flushGroupBArrestReports();
+				}
+			} else {
+				results.skippedReportCount++;
+			}
+		}
+
+		void flush() {
+			flushGroupAIncidentReports();
+			flushGroupBArrestReports();
+		}
+
+		private void flushGroupAIncidentReports() {
+			if (!groupAIncidentReports.isEmpty()) {
+				results.groupAIncidentReportCount += groupAIncidentService.bulkSaveGroupAIncidentReports(
+						groupAIncidentReports.toArray(new GroupAIncidentReport[groupAIncidentReports.size()])).size();
+				groupAIncidentReports.clear();
+			}
+		}
+
+		private void flushGroupBArrestReports() {
+			if (!groupBArrestReports.isEmpty()) {
+				results.groupBArrestReportCount += arrestReportService.bulkSaveGroupBArrestReports(
+						groupBArrestReports.toArray(new GroupBArrestReport[groupBArrestReports.size()])).size();
+				groupBArrestReports.clear();
+			}
+		}
+
+	}
+
+	/**
+	 * The counts of reports loaded from a file.  Reports that replace an earlier report in the same batch (same incident number or
+	 * arrest transaction number) are not counted separately.
+	 */
+	public static final class LoadResults {
+
+		private int groupAIncidentReportCount;
+		private int groupBArrestReportCount;
+		private int skippedReportCount;
+
+		public int getGroupAIncidentReportCount() {
+			return groupAIncidentReportCount;
+		}
+
+		public int getGroupBArrestReportCount() {
+			return groupBArrestReportCount;
+		}
+
+		public int getSkippedReportCount() {
+			return skippedReportCount;
+		}
+
+	}
+
+	public static void main(String[] args) throws IOException {
+
+		// devtools would otherwise restart the loader in a new class loader
+		System.setProperty("spring.devtools.restart.enabled", "false");
+
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(NibrsDataApplication.class).web(false).run(args)) {
+
+			Environment environment = context.getEnvironment();
+			int batchSize = environment.getProperty("staging.bulkLoad.batchSize", Integer.class, DEFAULT_BATCH_SIZE);
+			int parserCount = environment.getProperty("staging.bulkLoad.parserCount", Integer.class, Runtime.getRuntime().availableProcessors());
+
+			SurrogateKeyAllocator keyAllocator = new SurrogateKeyAllocator(context.getBean(DataSource.class));
+			context.getBean(AdministrativeSegmentJdbcRepository.class).setKeyAllocator(keyAllocator);
+			context.getBean(ArrestReportSegmentJdbcRepository.class).setKeyAllocator(keyAllocator);
+
+			StagingDataBulkLoader loader = new StagingDataBulkLoader(context.getBean(GroupAIncidentService.class),
+					context.getBean(ArrestReportService.class), batchSize);
+
+			List<String> files = context.getBean(ApplicationArguments.class).getNonOptionArgs();
+			if (files.isEmpty()) {
+				log.error("No flat files specified");
+			}
+			for (String file : files) {
+				loader.load(Paths.get(file), parserCount);
+			}
+
+		}
+
+	}
+
+}
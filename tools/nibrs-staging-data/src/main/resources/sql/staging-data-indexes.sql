@@ -0,0 +1,28 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/*
+ * Indexes that support the keyset-paged and streamed reads of administrative segments (/groupAIncidentReports/page and 
+ * /groupAIncidentReports/stream): each filter (ORI, incident date, UCR offense code) is matched by an index that ends with the 
+ * AdministrativeSegmentID, so a page is read in id order straight from the index.
+ *
+ * The staging database itself is not created by this service (spring.jpa.hibernate.ddl-auto=none), so these statements must be run
+ * against it, or added to the DDL it is created from, when this version is deployed.  The tests run them after schema.sql.
+ */
+CREATE INDEX administrativesegment_ori_idx ON AdministrativeSegment (ORI, AdministrativeSegmentID);
+CREATE INDEX administrativesegment_incidentdate_idx ON AdministrativeSegment (IncidentDate, AdministrativeSegmentID);
+CREATE INDEX administrativesegment_incidentnumber_idx ON AdministrativeSegment (IncidentNumber);
+CREATE INDEX offensesegment_administrativesegment_idx ON OffenseSegment (AdministrativeSegmentID, UCROffenseCodeTypeID);
@@ -13,7 +13,7 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package org.search.nibrs.staging.data;
+package org.search.nibrs.stagingdata;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
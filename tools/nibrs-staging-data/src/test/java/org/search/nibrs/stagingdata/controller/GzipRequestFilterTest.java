@@ -0,0 +1,102 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.stagingdata.controller;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.FileCopyUtils;
+
+public class GzipRequestFilterTest {
+
+	private static final String BODY = "[{\"incidentNumber\":\"54236732\",\"ori\":\"WA1234567\"},{\"incidentNumber\":\"54236733\",\"ori\":\"WA1234567\"}]";
+
+	@Test
+	public void testGzipRequest() throws Exception {
+		byte[] compressed = gzip(BODY.getBytes(StandardCharsets.UTF_8));
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/groupAIncidentReports/bulk");
+		request.setContent(compressed);
+		request.addHeader(HttpHeaders.CONTENT_TYPE, "application/json");
+		request.addHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+		request.addHeader(HttpHeaders.CONTENT_LENGTH, compressed.length);
+
+		HttpServletRequest filtered = filter(request);
+		assertThat(filtered, not(sameInstance(request)));
+		assertThat(new String(FileCopyUtils.copyToByteArray(filtered.getInputStream()), StandardCharsets.UTF_8), equalTo(BODY));
+		assertThat(filtered.getInputStream().isFinished(), equalTo(true));
+
+		// no header of the filtered request describes the compressed body
+		assertThat(filtered.getHeader(HttpHeaders.CONTENT_ENCODING), nullValue());
+		assertThat(filtered.getHeader("content-length"), nullValue());
+		assertFalse(filtered.getHeaders(HttpHeaders.CONTENT_ENCODING).hasMoreElements());
+		assertFalse(filtered.getHeaders(HttpHeaders.CONTENT_LENGTH).hasMoreElements());
+		assertThat(filtered.getIntHeader(HttpHeaders.CONTENT_LENGTH), equalTo(-1));
+		assertThat(filtered.getContentLength(), equalTo(-1));
+		assertThat(filtered.getContentLengthLong(), equalTo(-1L));
+		List<String> headerNames = Collections.list(filtered.getHeaderNames());
+		assertThat(headerNames, equalTo(Collections.singletonList(HttpHeaders.CONTENT_TYPE)));
+		assertThat(Collections.list(filtered.getHeaders(HttpHeaders.CONTENT_TYPE)), equalTo(Collections.singletonList("application/json")));
+	}
+
+	@Test
+	public void testGzipRequestReader() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/groupAIncidentReports/bulk");
+		request.setContent(gzip(BODY.getBytes(StandardCharsets.UTF_8)));
+		request.addHeader(HttpHeaders.CONTENT_ENCODING, "GZIP");
+		assertThat(FileCopyUtils.copyToString(filter(request).getReader()), equalTo(BODY));
+	}
+
+	@Test
+	public void testUncompressedRequest() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/groupAIncidentReports/bulk");
+		request.setContent(BODY.getBytes(StandardCharsets.UTF_8));
+		request.addHeader(HttpHeaders.CONTENT_LENGTH, BODY.length());
+		assertThat(filter(request), sameInstance(request));
+	}
+
+	private static HttpServletRequest filter(MockHttpServletRequest request) throws Exception {
+		MockFilterChain filterChain = new MockFilterChain();
+		new GzipRequestFilter().doFilter(request, new MockHttpServletResponse(), filterChain);
+		return (HttpServletRequest) filterChain.getRequest();
+	}
+
+	private static byte[] gzip(byte[] body) throws IOException {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(compressed)) {
+			gzipOutputStream.write(body);
+		}
+		return compressed.toByteArray();
+	}
+
+}
@@ -25,9 +25,12 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.StreamSupport;
 
+import javax.sql.DataSource;
+
 import org.apache.commons.lang3.time.DateUtils;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -55,7 +58,9 @@ import org.search.nibrs.stagingdata.repository.SegmentActionTypeRepository;
 import org.search.nibrs.stagingdata.repository.SexOfPersonTypeRepository;
 import org.search.nibrs.stagingdata.repository.TypeOfArrestTypeRepository;
 import org.search.nibrs.stagingdata.repository.UcrOffenseCodeTypeRepository;
+import org.search.nibrs.stagingdata.repository.segment.ArrestReportSegmentJdbcRepository;
 import org.search.nibrs.stagingdata.repository.segment.ArrestReportSegmentRepository;
+import org.search.nibrs.stagingdata.repository.segment.SurrogateKeyAllocator;
 import org.search.nibrs.stagingdata.util.BaselineIncidentFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -91,6 +96,10 @@ public class ArrestReportServiceTest {
 	public ResidentStatusOfPersonTypeRepository residentStatusOfPersonTypeRepository; 
 	@Autowired
 	public ArresteeWasArmedWithTypeRepository arresteeWasArmedWithTypeRepository; 
+	@Autowired
+	public ArrestReportSegmentJdbcRepository arrestReportSegmentJdbcRepository; 
+	@Autowired
+	public DataSource dataSource; 
 	
 	@Test
 	public void test() {
@@ -307,6 +316,34 @@ public class ArrestReportServiceTest {
 		
 	}
 
+	@Test
+	public void bulkSaveGroupBArrestReportsWithAssignedKeysTest(){
+		GroupBArrestReport groupBArrestReport = BaselineIncidentFactory.getBaselineGroupBArrestReport();
+		groupBArrestReport.getArrestee().setArrestTransactionNumber("bulk1");
+		GroupBArrestReport otherGroupBArrestReport = BaselineIncidentFactory.getBaselineGroupBArrestReport();
+		otherGroupBArrestReport.getArrestee().setArrestTransactionNumber("bulk2");
+		
+		arrestReportSegmentJdbcRepository.setKeyAllocator(new SurrogateKeyAllocator(dataSource));
+		try {
+			List<ArrestReportSegment> saved = 
+					arrestReportService.bulkSaveGroupBArrestReports(groupBArrestReport, otherGroupBArrestReport);
+			assertThat(saved.size(), equalTo(2));
+			assertThat(saved.get(1).getArrestReportSegmentId(), equalTo(saved.get(0).getArrestReportSegmentId() + 1));
+			
+			ArrestReportSegment persisted = 
+					arrestReportService.findArrestReportSegment(saved.get(0).getArrestReportSegmentId());
+			assertThat(persisted.getArrestTransactionNumber(), equalTo("bulk1"));
+			assertThat(persisted.getArrestDateType().getDateTypeId(), equalTo(2693));
+			assertThat(persisted.getArrestReportSegmentWasArmedWiths().size(), equalTo(1));
+			
+			arrestReportService.bulkSaveGroupBArrestReports(groupBArrestReport);
+			ArrestReportSegment replaced = arrestReportSegmentRepository.findByArrestTransactionNumber("bulk1");
+			assertThat(replaced.getArrestReportSegmentId(), equalTo(saved.get(1).getArrestReportSegmentId() + 1));
+		} finally {
+			arrestReportSegmentJdbcRepository.setKeyAllocator(null);
+		}
+	}
+
 	private void testDeleteGroupBArrestReport(GroupBArrestReport groupBArrestReport) {
 		arrestReportService.deleteGroupBArrestReport(groupBArrestReport.getIdentifier()); 
 		
@@ -18,15 +18,23 @@ package org.search.nibrs.stagingdata.service;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.junit.Assert.assertThat;
 
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.Map;
 
+import javax.sql.DataSource;
+
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.search.nibrs.stagingdata.model.Agency;
+import org.search.nibrs.stagingdata.model.DateType;
 import org.search.nibrs.stagingdata.model.SegmentActionTypeType;
+import org.search.nibrs.stagingdata.repository.DateTypeRepository;
 import org.search.nibrs.stagingdata.repository.SegmentActionTypeRepository;
+import org.search.nibrs.stagingdata.util.DateTypeValues;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.junit4.SpringRunner;
 
 @RunWith(SpringRunner.class)
@@ -37,6 +45,10 @@ public class CodeTableServiceTest {
 	public CodeTableService codeTableService; 
 	@Autowired
 	public SegmentActionTypeRepository segmentActionTypeRepository; 
+	@Autowired
+	public DateTypeRepository dateTypeRepository; 
+	@Autowired
+	public DataSource dataSource; 
 	
 	@Test
 	public void getCodeTableTypeTest() {
@@ -54,5 +66,89 @@ public class CodeTableServiceTest {
 		assertThat(map.size(), equalTo(7));
 	}
 
+	@Test
+	public void getCodeTableTypeFromSnapshotTest() {
+		SegmentActionTypeType segmentActionTypeType = 
+				codeTableService.getCodeTableType("I", SegmentActionTypeType.class, SegmentActionTypeType::new);
+		assertThat(segmentActionTypeType.getSegmentActionTypeTypeId(), equalTo(1));
+		
+		SegmentActionTypeType segmentActionTypeTypeUnknown = 
+				codeTableService.getCodeTableType("Q", SegmentActionTypeType.class, SegmentActionTypeType::new);
+		assertThat(segmentActionTypeTypeUnknown.getSegmentActionTypeTypeId(), equalTo(99998));
+		
+		Map<String, Integer> counts = codeTableService.refreshCodeTables();
+		assertThat(counts.get("SegmentActionTypeType"), equalTo(7));
+		
+		segmentActionTypeType = codeTableService.getCodeTableType("I", SegmentActionTypeType.class, SegmentActionTypeType::new);
+		assertThat(segmentActionTypeType.getSegmentActionTypeTypeId(), equalTo(1));
+	}
+
+	@Test
+	public void getAgencyAddedAfterStartupTest() {
+		Agency agency = codeTableService.getCodeTableType("agencyORI", Agency.class, Agency::new);
+		assertThat(agency.getAgencyId(), equalTo(1));
+		assertThat(codeTableService.getCodeTableType("WA1234567", Agency.class, Agency::new).getAgencyId(), equalTo(99998));
+		
+		// an agency added since the snapshot was taken is found without a refresh, and kept in the snapshot
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.update("insert into Agency values ('2', 'WA1234567', 'New Agency', 2, 'WA', 'Washington', 1000)");
+		try {
+			assertThat(codeTableService.getCodeTableType("WA1234567", Agency.class, Agency::new).getAgencyId(), equalTo(2));
+			jdbcTemplate.update("delete from Agency where agencyId = 2");
+			assertThat(codeTableService.getCodeTableType("WA1234567 ", Agency.class, Agency::new).getAgencyId(), equalTo(2));
+		} finally {
+			jdbcTemplate.update("delete from Agency where agencyId = 2");
+			codeTableService.refreshCodeTables();
+		}
+		assertThat(codeTableService.getCodeTableType("WA1234567", Agency.class, Agency::new).getAgencyId(), equalTo(99998));
+	}
+
+	@Test
+	public void getDateTypeTest() {
+		DateType dateType = codeTableService.getDateType(java.sql.Date.valueOf(LocalDate.of(2016, 6, 12)));
+		assertThat(dateType.getDateTypeId(), equalTo(2355));
+		assertThat(dateType.getDateMMDDYYYY(), equalTo("06122016"));
+		
+		assertThat(codeTableService.getDateType(null).getDateTypeId(), equalTo(99998));
+		
+		DateType generated = codeTableService.getDateType(java.sql.Date.valueOf(LocalDate.of(1995, 3, 5)));
+		assertThat(generated.getDateMMDDYYYY(), equalTo("03051995"));
+		assertThat(generated.getFullMonth(), equalTo("1995-03"));
+		assertThat(generated.getDayOfWeek(), equalTo("Sunday"));
+		assertThat(generated.getDayOfWeekSort(), equalTo(1));
+		assertThat(codeTableService.loadDateTypes(1995, 1995), equalTo(0));
+		assertThat(dateTypeRepository.findFirstByDateMMDDYYYY("03051995").getDateTypeId(), equalTo(generated.getDateTypeId()));
+	}
+
+	@Test
+	public void generatedDateTypeMatchesScriptTest() {
+		DateType scripted = dateTypeRepository.findFirstByDateMMDDYYYY("06122016");
+		DateType generated = DateTypeValues.newDateType(LocalDate.of(2016, 6, 12));
+		assertThat(generated.getCalendarDate().getTime(), equalTo(scripted.getCalendarDate().getTime()));
+		assertThat(generated.getYear(), equalTo(scripted.getYear()));
+		assertThat(generated.getYearLabel(), equalTo(scripted.getYearLabel()));
+		assertThat(generated.getCalendarQuarter(), equalTo(scripted.getCalendarQuarter()));
+		assertThat(generated.getMonth(), equalTo(scripted.getMonth()));
+		assertThat(generated.getMonthName(), equalTo(scripted.getMonthName()));
+		assertThat(generated.getFullMonth(), equalTo(scripted.getFullMonth()));
+		assertThat(generated.getDay(), equalTo(scripted.getDay()));
+		assertThat(generated.getDayOfWeek(), equalTo(scripted.getDayOfWeek()));
+		assertThat(generated.getDayOfWeekSort(), equalTo(scripted.getDayOfWeekSort()));
+		assertThat(generated.getDateMMDDYYYY(), equalTo(scripted.getDateMMDDYYYY()));
+	}
+
+	@Test
+	public void refreshDateTypesTest() {
+		DateType generated = codeTableService.getDateType(java.sql.Date.valueOf(LocalDate.of(2001, 2, 3)));
+		assertThat(dateTypeRepository.findByCalendarDateBetween(java.sql.Date.valueOf(LocalDate.of(2001, 1, 1)), 
+				java.sql.Date.valueOf(LocalDate.of(2001, 12, 31))).size(), equalTo(365));
+		
+		codeTableService.refreshCodeTables();
+		assertThat(codeTableService.getDateType(java.sql.Date.valueOf(LocalDate.of(2016, 6, 12))).getDateTypeId(), equalTo(2355));
+		
+		// the reloaded index no longer covers 2001, but the rows are already in the table, so none are inserted again
+		assertThat(codeTableService.loadDateTypes(2001, 2001), equalTo(0));
+		assertThat(codeTableService.getDateType(java.sql.Date.valueOf(LocalDate.of(2001, 2, 3))).getDateTypeId(), equalTo(generated.getDateTypeId()));
+	}
 
 }
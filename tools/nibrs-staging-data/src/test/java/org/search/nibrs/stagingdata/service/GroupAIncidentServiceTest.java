@@ -39,6 +39,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.search.nibrs.common.ParsedObject;
 import org.search.nibrs.model.GroupAIncidentReport;
+import org.search.nibrs.model.NIBRSAge;
 import org.search.nibrs.stagingdata.model.Agency;
 import org.search.nibrs.stagingdata.model.AggravatedAssaultHomicideCircumstancesType;
 import org.search.nibrs.stagingdata.model.ArresteeSegmentWasArmedWith;
@@ -797,6 +798,71 @@ public class GroupAIncidentServiceTest {
 		return administrativeSegment; 
 	}
 
+	@Test
+	public void testBulkSaveGroupAIncidentReports(){
+		GroupAIncidentReport groupAIncidentReport = BaselineIncidentFactory.getBaselineIncident();
+		GroupAIncidentReport otherGroupAIncidentReport = BaselineIncidentFactory.getBaselineIncident();
+		otherGroupAIncidentReport.setIncidentNumber("54236733");
+		
+		List<AdministrativeSegment> saved = 
+				groupAIncidentService.bulkSaveGroupAIncidentReports(groupAIncidentReport, otherGroupAIncidentReport);
+		assertThat(saved.size(), equalTo(2));
+		
+		AdministrativeSegment persisted = 
+				groupAIncidentService.findAdministrativeSegment(saved.get(0).getAdministrativeSegmentId());
+		assertThat(persisted.getIncidentNumber(), equalTo("54236732"));
+		assertThat(persisted.getIncidentDateType().getDateTypeId(), equalTo(2324));
+		assertThat(persisted.getOffenseSegments().size(), equalTo(1));
+		OffenseSegment offenseSegment = persisted.getOffenseSegments().stream().findFirst().get();
+		assertThat(offenseSegment.getBiasMotivationTypes().stream().findFirst().get().getBiasMotivationCode(), equalTo("15"));
+		assertThat(persisted.getVictimSegments().size(), equalTo(groupAIncidentReport.getVictimCount()));
+		assertThat(persisted.getOffenderSegments().size(), equalTo(groupAIncidentReport.getOffenderCount()));
+		assertThat(persisted.getArresteeSegments().size(), equalTo(groupAIncidentReport.getArresteeCount()));
+		assertThat(persisted.getPropertySegments().size(), equalTo(groupAIncidentReport.getPropertyCount()));
+		VictimSegment victimSegment = persisted.getVictimSegments().stream().findFirst().get();
+		assertThat(victimSegment.getOffenseSegments().size(), equalTo(1));
+		assertThat(victimSegment.getVictimOffenderAssociations().size(), equalTo(1));
+		
+		groupAIncidentReport.removeProperty(0);
+		groupAIncidentService.bulkSaveGroupAIncidentReports(groupAIncidentReport);
+		
+		assertNull(groupAIncidentService.findAdministrativeSegment(persisted.getAdministrativeSegmentId()));
+		AdministrativeSegment updated = administrativeSegmentRepository.findByIncidentNumber("54236732");
+		assertThat(updated.getPropertySegments().size(), equalTo(groupAIncidentReport.getPropertyCount()));
+		assertNotNull(administrativeSegmentRepository.findByIncidentNumber("54236733"));
+	}
+	
+	@Test
+	public void testFindAdministrativeSegmentPage(){
+		GroupAIncidentReport[] groupAIncidentReports = new GroupAIncidentReport[3];
+		for (int i = 0; i < groupAIncidentReports.length; i++){
+			groupAIncidentReports[i] = BaselineIncidentFactory.getBaselineIncident();
+			groupAIncidentReports[i].setOri("WA7654321");
+			groupAIncidentReports[i].setIncidentNumber("5423680" + i);
+		}
+		groupAIncidentService.bulkSaveGroupAIncidentReports(groupAIncidentReports);
+		
+		AdministrativeSegmentPage page = groupAIncidentService.findAdministrativeSegmentPage("WA7654321", null, null, "13A", null, 2);
+		assertThat(page.getAdministrativeSegments().size(), equalTo(2));
+		assertThat(page.getAdministrativeSegments().get(0).getIncidentNumber(), equalTo("54236800"));
+		assertThat(page.getAdministrativeSegments().get(0).getOffenseSegments().size(), equalTo(1));
+		assertNotNull(page.getNextAfterId());
+		
+		page = groupAIncidentService.findAdministrativeSegmentPage("WA7654321", null, null, "13A", page.getNextAfterId(), 2);
+		assertThat(page.getAdministrativeSegments().size(), equalTo(1));
+		assertThat(page.getAdministrativeSegments().get(0).getIncidentNumber(), equalTo("54236802"));
+		assertNull(page.getNextAfterId());
+		
+		assertTrue(groupAIncidentService.findAdministrativeSegmentPage("WA7654321", null, null, "09A", null, 2)
+				.getAdministrativeSegments().isEmpty());
+		
+		List<String> streamed = new ArrayList<>();
+		int count = groupAIncidentService.streamAdministrativeSegments("WA7654321", null, null, null, 
+				AdministrativeSegment::getIncidentNumber, streamed::add);
+		assertThat(count, equalTo(3));
+		assertThat(streamed, equalTo(Arrays.asList("54236800", "54236801", "54236802")));
+	}
+	
 	@Test
 	public void testSaveGroupAIncidentReport(){
 		GroupAIncidentReport groupAIncidentReport = BaselineIncidentFactory.getBaselineIncident();
@@ -1121,7 +1187,7 @@ public class GroupAIncidentServiceTest {
 		v.setTypeOfInjury(0, "N");
 		v.setAggravatedAssaultHomicideCircumstances(0, "01");
 		v.setVictimSequenceNumber(new ParsedObject<>(2));
-		v.setAgeString("2530");
+		v.setAge(NIBRSAge.getAge(25, 30));
 		v.setEthnicity("N");
 		v.setResidentStatus("R");
 		v.setSex("M");
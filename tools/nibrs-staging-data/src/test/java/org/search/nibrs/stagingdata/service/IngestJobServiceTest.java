@@ -0,0 +1,80 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.stagingdata.service;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.search.nibrs.model.GroupAIncidentReport;
+import org.search.nibrs.model.GroupBArrestReport;
+import org.search.nibrs.stagingdata.repository.segment.AdministrativeSegmentRepository;
+import org.search.nibrs.stagingdata.repository.segment.ArrestReportSegmentRepository;
+import org.search.nibrs.stagingdata.util.BaselineIncidentFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class IngestJobServiceTest {
+
+	@Autowired
+	public IngestJobService ingestJobService; 
+	@Autowired
+	public AdministrativeSegmentRepository administrativeSegmentRepository; 
+	@Autowired
+	public ArrestReportSegmentRepository arrestReportSegmentRepository; 
+	
+	@Test
+	public void submitGroupAIncidentReportsTest() throws InterruptedException {
+		GroupAIncidentReport groupAIncidentReport = BaselineIncidentFactory.getBaselineIncident();
+		groupAIncidentReport.setIncidentNumber("ingest1");
+		GroupAIncidentReport otherGroupAIncidentReport = BaselineIncidentFactory.getBaselineIncident();
+		otherGroupAIncidentReport.setIncidentNumber("ingest2");
+		
+		IngestJob job = ingestJobService.submitGroupAIncidentReports(groupAIncidentReport, otherGroupAIncidentReport);
+		assertThat(job.getReportCount(), equalTo(2));
+		assertThat(ingestJobService.getJob(job.getJobId()), equalTo(job));
+		
+		waitForJob(job);
+		assertThat(job.getStatus(), equalTo(IngestJob.Status.COMPLETED));
+		assertThat(job.getPersistedCount(), equalTo(2));
+		assertThat(job.getFailedCount(), equalTo(0));
+		assertNotNull(administrativeSegmentRepository.findByIncidentNumber("ingest1"));
+		assertNotNull(administrativeSegmentRepository.findByIncidentNumber("ingest2"));
+	}
+	
+	@Test
+	public void submitGroupBArrestReportsTest() throws InterruptedException {
+		GroupBArrestReport groupBArrestReport = BaselineIncidentFactory.getBaselineGroupBArrestReport();
+		groupBArrestReport.getArrestee().setArrestTransactionNumber("ingest3");
+		
+		IngestJob job = ingestJobService.submitGroupBArrestReports(groupBArrestReport);
+		waitForJob(job);
+		assertThat(job.getStatus(), equalTo(IngestJob.Status.COMPLETED));
+		assertNotNull(arrestReportSegmentRepository.findByArrestTransactionNumber("ingest3"));
+	}
+	
+	private void waitForJob(IngestJob job) throws InterruptedException {
+		for (int i = 0; i < 300 && job.getFinishedTime() == null; i++) {
+			Thread.sleep(100);
+		}
+	}
+
+}
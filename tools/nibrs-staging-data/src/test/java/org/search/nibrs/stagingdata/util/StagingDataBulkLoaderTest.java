@@ -0,0 +1,149 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.stagingdata.util;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.search.nibrs.stagingdata.repository.segment.AdministrativeSegmentJdbcRepository;
+import org.search.nibrs.stagingdata.repository.segment.ArrestReportSegmentJdbcRepository;
+import org.search.nibrs.stagingdata.repository.segment.SurrogateKeyAllocator;
+import org.search.nibrs.stagingdata.service.ArrestReportService;
+import org.search.nibrs.stagingdata.service.GroupAIncidentService;
+import org.search.nibrs.stagingdata.util.StagingDataBulkLoader.LoadResults;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class StagingDataBulkLoaderTest {
+
+	private static final int INCIDENT_COUNT = 10;
+	private static final int ARREST_REPORT_COUNT = 5;
+	private static final int BATCH_SIZE = 4;
+
+	// one incident with an offense, a property, a victim, two offenders and an arrestee, with its incident number (and the arrestee's
+	// arrest transaction number) left as a format argument
+	private static final String GROUP_A_INCIDENT_REPORT = 
+		"00881I022003    TN0060000%1$-12s20020102 10N                                      N\n" +
+		"00712I022003    TN0060000%1$-12s220CN  20  N            88        \n" +
+		"03073I022003    TN0060000%1$-12s713000000020                                                                                                                                                                                                                                                                  \n" +
+		"01414I022003    TN0060000%1$-12s001220                           I46  FWNR                                                              \n" +
+		"00465I022003    TN0060000%1$-12s0124  MW \n" +
+		"00465I022003    TN0060000%1$-12s00       \n" +
+		"01106I022003    TN0060000%1$-12s01%1$-12s20021230TM22001    24  MWNR                                \n";
+
+	// a Group B arrest report with an armed-with value, with its arrest transaction number left as a format argument
+	private static final String GROUP_B_ARREST_REPORT = 
+		"00667A022003    TN0060000%1$-12s0120021230O90D01    40  FANR \n";
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Autowired
+	public GroupAIncidentService groupAIncidentService; 
+	@Autowired
+	public ArrestReportService arrestReportService; 
+	@Autowired
+	public AdministrativeSegmentJdbcRepository administrativeSegmentJdbcRepository; 
+	@Autowired
+	public ArrestReportSegmentJdbcRepository arrestReportSegmentJdbcRepository; 
+	@Autowired
+	public DataSource dataSource; 
+
+	private JdbcTemplate jdbcTemplate;
+
+	@Before
+	public void setUp() {
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		// as the loader's main() does
+		SurrogateKeyAllocator keyAllocator = new SurrogateKeyAllocator(dataSource);
+		administrativeSegmentJdbcRepository.setKeyAllocator(keyAllocator);
+		arrestReportSegmentJdbcRepository.setKeyAllocator(keyAllocator);
+	}
+
+	@After
+	public void tearDown() {
+		administrativeSegmentJdbcRepository.setKeyAllocator(null);
+		arrestReportSegmentJdbcRepository.setKeyAllocator(null);
+	}
+
+	@Test
+	public void loadTest() throws Exception {
+
+		// more reports of each kind than fit in one batch, with the Group B reports in between
+		Path file = temporaryFolder.newFile("bulk.txt").toPath();
+		try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+			for (int i = 0; i < INCIDENT_COUNT; i++) {
+				writer.write(String.format(GROUP_A_INCIDENT_REPORT, String.format("BULKLD%04d", i)));
+				if (i < ARREST_REPORT_COUNT) {
+					writer.write(String.format(GROUP_B_ARREST_REPORT, String.format("BULKLD%04d", i)));
+				}
+			}
+		}
+
+		LoadResults results = new StagingDataBulkLoader(groupAIncidentService, arrestReportService, BATCH_SIZE).load(file, 2);
+		assertThat(results.getGroupAIncidentReportCount(), equalTo(INCIDENT_COUNT));
+		assertThat(results.getGroupBArrestReportCount(), equalTo(ARREST_REPORT_COUNT));
+		assertThat(results.getSkippedReportCount(), equalTo(0));
+
+		assertThat(countRows("AdministrativeSegment a WHERE a.IncidentNumber LIKE 'BULKLD%'"), equalTo(INCIDENT_COUNT));
+		
+		// every child segment joins to one of the new administrative segments
+		String administrativeSegmentJoin = " s JOIN AdministrativeSegment a ON s.AdministrativeSegmentID = a.AdministrativeSegmentID "
+				+ "WHERE a.IncidentNumber LIKE 'BULKLD%'";
+		assertThat(countRows("OffenseSegment" + administrativeSegmentJoin), equalTo(INCIDENT_COUNT));
+		assertThat(countRows("PropertySegment" + administrativeSegmentJoin), equalTo(INCIDENT_COUNT));
+		assertThat(countRows("VictimSegment" + administrativeSegmentJoin), equalTo(INCIDENT_COUNT));
+		assertThat(countRows("OffenderSegment" + administrativeSegmentJoin), equalTo(INCIDENT_COUNT * 2));
+		assertThat(countRows("ArresteeSegment" + administrativeSegmentJoin), equalTo(INCIDENT_COUNT));
+		// and the grandchildren join to the segments of the same incident
+		assertThat(countRows("VictimOffenseAssociation va JOIN VictimSegment s ON va.VictimSegmentID = s.VictimSegmentID "
+				+ "JOIN OffenseSegment o ON va.OffenseSegmentID = o.OffenseSegmentID "
+				+ "JOIN AdministrativeSegment a ON s.AdministrativeSegmentID = a.AdministrativeSegmentID "
+				+ "AND o.AdministrativeSegmentID = a.AdministrativeSegmentID WHERE a.IncidentNumber LIKE 'BULKLD%'"), 
+				equalTo(INCIDENT_COUNT));
+		assertThat(countRows("PropertyType pt JOIN PropertySegment s ON pt.PropertySegmentID = s.PropertySegmentID "
+				+ "JOIN AdministrativeSegment a ON s.AdministrativeSegmentID = a.AdministrativeSegmentID WHERE a.IncidentNumber LIKE 'BULKLD%'"), 
+				equalTo(INCIDENT_COUNT));
+
+		assertThat(countRows("ArrestReportSegment r WHERE r.ArrestTransactionNumber LIKE 'BULKLD%'"), equalTo(ARREST_REPORT_COUNT));
+		assertThat(countRows("ArrestReportSegmentWasArmedWith w JOIN ArrestReportSegment r ON w.ArrestReportSegmentID = r.ArrestReportSegmentID "
+				+ "WHERE r.ArrestTransactionNumber LIKE 'BULKLD%'"), 
+				equalTo(ARREST_REPORT_COUNT));
+
+	}
+
+	private int countRows(String from) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + from, Integer.class);
+	}
+
+}
@@ -0,0 +1,489 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+-- Test data for the embedded database: the code tables, as generated from codeSpreadSheets/NIBRSCodeTables.xlsx by
+-- SqlScriptFromExcelGenerator, with the generator's DateType rows (one per day from 2010 through 2100, numbered from 1) computed here
+-- rather than listed.
+insert into SegmentActionTypeType  values ('1', 'I', 'Incident Report');
+insert into SegmentActionTypeType  values ('2', 'A', 'Add Arrest');
+insert into SegmentActionTypeType  values ('3', 'M', 'Modify');
+insert into SegmentActionTypeType  values ('4', 'D', 'Delete');
+insert into SegmentActionTypeType  values ('5', 'W', 'Time-Window Submission');
+insert into SegmentActionTypeType  values ('99999', '9', 'Unknown');
+insert into SegmentActionTypeType  values ('99998', ' ', 'Blank');
+insert into ClearedExceptionallyType  values ('1', 'A', 'Death of Offender');
+insert into ClearedExceptionallyType  values ('2', 'B', 'Prosecution Declined');
+insert into ClearedExceptionallyType  values ('3', 'C', 'In Custody of Other Jurisdiction');
+insert into ClearedExceptionallyType  values ('4', 'D', 'Victim Refused to Cooperate');
+insert into ClearedExceptionallyType  values ('5', 'E', 'Juvenile/No Custody');
+insert into ClearedExceptionallyType  values ('6', 'N', 'Not Applicable');
+insert into ClearedExceptionallyType  values ('99999', '9', 'Unknown');
+insert into ClearedExceptionallyType  values ('99998', ' ', 'Blank');
+insert into UCROffenseCodeType  values ('91', '09A', 'Murder and Nonnegligent Manslaughter', 'Group A', 'Violent Crime', 'Murder and Nonnegligent Manslaughter', 'Person');
+insert into UCROffenseCodeType  values ('92', '09B', 'Negligent Manslaughter', 'Group A', 'Other', 'Negligent Manslaughter', 'Person');
+insert into UCROffenseCodeType  values ('93', '09C', 'Justifiable Homicide', 'Group A', 'Other', 'Justifiable Homicide', 'Not a Crime');
+insert into UCROffenseCodeType  values ('100', '100', 'Kidnapping/Abduction', 'Group A', 'Other', 'Kidnapping/Abduction', 'Person');
+insert into UCROffenseCodeType  values ('120', '120', 'Robbery', 'Group A', 'Violent Crime', 'Robbery', 'Person');
+insert into UCROffenseCodeType  values ('131', '13A', 'Assault-Aggravated Assault', 'Group A', 'Violent Crime', 'Assault Offenses', 'Person');
+insert into UCROffenseCodeType  values ('132', '13B', 'Assault-Simple Assault', 'Group A', 'Other', 'Assault Offenses', 'Person');
+insert into UCROffenseCodeType  values ('133', '13C', 'Assault-Intimidation', 'Group A', 'Other', 'Assault Offenses', 'Person');
+insert into UCROffenseCodeType  values ('200', '200', 'Arson', 'Group A', 'Property Crime', 'Arson', 'Property');
+insert into UCROffenseCodeType  values ('210', '210', 'Extortion/Blackmail', 'Group A', 'Other', 'Extortion/Blackmail', 'Property');
+insert into UCROffenseCodeType  values ('220', '220', 'Burglary/Breaking & Entering', 'Group A', 'Property Crime', 'Burglary/Breaking & Entering', 'Property');
+insert into UCROffenseCodeType  values ('231', '23A', 'Larceny/Theft Offenses-Pocket-Picking', 'Group A', 'Property Crime', 'Larceny/Theft Offenses', 'Property');
+insert into UCROffenseCodeType  values ('232', '23B', 'Larceny/Theft Offenses-Purse-Snatching', 'Group A', 'Property Crime', 'Larceny/Theft Offenses', 'Property');
+insert into UCROffenseCodeType  values ('233', '23C', 'Larceny/Theft Offenses-Shoplifting', 'Group A', 'Property Crime', 'Larceny/Theft Offenses', 'Property');
+insert into UCROffenseCodeType  values ('234', '23D', 'Larceny/Theft Offenses-Theft from Building', 'Group A', 'Property Crime', 'Larceny/Theft Offenses', 'Property');
+insert into UCROffenseCodeType  values ('235', '23E', 'Larceny/Theft Offenses-From Coin-Operated Machine or Device', 'Group A', 'Property Crime', 'Larceny/Theft Offenses', 'Property');
+insert into UCROffenseCodeType  values ('236', '23F', 'Larceny/Theft Offenses-Theft from Motor Vehicle', 'Group A', 'Property Crime', 'Larceny/Theft Offenses', 'Property');
+insert into UCROffenseCodeType  values ('237', '23G', 'Larceny/Theft Offenses-Theft of Motor Vehicle Parts or Accessories', 'Group A', 'Property Crime', 'Larceny/Theft Offenses', 'Property');
+insert into UCROffenseCodeType  values ('238', '23H', 'Larceny/Theft Offenses-All Other Larceny', 'Group A', 'Property Crime', 'Larceny/Theft Offenses', 'Property');
+insert into UCROffenseCodeType  values ('240', '240', 'Motor Vehicle Theft', 'Group A', 'Property Crime', 'Motor Vehicle Theft', 'Property');
+insert into UCROffenseCodeType  values ('250', '250', 'Counterfeiting/Forgery', 'Group A', 'Other', 'Counterfeiting/Forgery', 'Property');
+insert into UCROffenseCodeType  values ('261', '26A', 'Fraud Offenses-False Pretenses/Swindle/Confidence Game', 'Group A', 'Other', 'Fraud Offenses', 'Property');
+insert into UCROffenseCodeType  values ('262', '26B', 'Fraud Offenses-Credit Card/Automatic Teller Machine Fraud', 'Group A', 'Other', 'Fraud Offenses', 'Property');
+insert into UCROffenseCodeType  values ('263', '26C', 'Fraud Offenses-Impersonation', 'Group A', 'Other', 'Fraud Offenses', 'Property');
+insert into UCROffenseCodeType  values ('264', '26D', 'Fraud Offenses-Welfare Fraud', 'Group A', 'Other', 'Fraud Offenses', 'Property');
+insert into UCROffenseCodeType  values ('265', '26E', 'Fraud Offenses-Wire Fraud', 'Group A', 'Other', 'Fraud Offenses', 'Property');
+insert into UCROffenseCodeType  values ('270', '270', 'Embezzlement', 'Group A', 'Other', 'Embezzlement', 'Property');
+insert into UCROffenseCodeType  values ('290', '290', 'Destruction/Damage/Vandalism of Property', 'Group A', 'Other', 'Destruction/Damage/Vandalism of Property', 'Property');
+insert into UCROffenseCodeType  values ('351', '35A', 'Drug/Narcotic Offenses-Drug/Narcotic Violations', 'Group A', 'Drug-Related Crime', 'Drug/Narcotic Offenses', 'Society');
+insert into UCROffenseCodeType  values ('352', '35B', 'Drug/Narcotic Offenses-Drug Equipment Violations', 'Group A', 'Drug-Related Crime', 'Drug/Narcotic Offenses', 'Society');
+insert into UCROffenseCodeType  values ('370', '370', 'Pornography/Obscene Material', 'Group A', 'Other', 'Pornography/Obscene Material', 'Society');
+insert into UCROffenseCodeType  values ('391', '39A', 'Gambling Offenses-Betting/Wagering', 'Group A', 'Other', 'Gambling Offenses', 'Society');
+insert into UCROffenseCodeType  values ('392', '39B', 'Gambling Offenses-Operating/Promoting/Assisting Gambling', 'Group A', 'Other', 'Gambling Offenses', 'Society');
+insert into UCROffenseCodeType  values ('393', '39C', 'Gambling Offenses-Gambling Equipment Violations', 'Group A', 'Other', 'Gambling Offenses', 'Society');
+insert into UCROffenseCodeType  values ('394', '39D', 'Gambling Offenses-Sports Tampering', 'Group A', 'Other', 'Gambling Offenses', 'Society');
+insert into UCROffenseCodeType  values ('401', '40A', 'Prostitution Offenses-Prostitution', 'Group A', 'Other', 'Prostitution Offenses', 'Society');
+insert into UCROffenseCodeType  values ('402', '40B', 'Prostitution Offenses-Assisting or Promoting Prostitution', 'Group A', 'Other', 'Prostitution Offenses', 'Society');
+insert into UCROffenseCodeType  values ('510', '510', 'Bribery', 'Group A', 'Other', 'Bribery', 'Property');
+insert into UCROffenseCodeType  values ('111', '11A', 'Sex Offenses, Forcible-Forcible Rape', 'Group A', 'Violent Crime', 'Sex Offenses', 'Person');
+insert into UCROffenseCodeType  values ('112', '11B', 'Sex Offenses, Forcible-Forcible Sodomy', 'Group A', 'Other', 'Sex Offenses', 'Person');
+insert into UCROffenseCodeType  values ('113', '11C', 'Sex Offenses, Forcible-Sexual Assault with an Object', 'Group A', 'Other', 'Sex Offenses', 'Person');
+insert into UCROffenseCodeType  values ('114', '11D', 'Sex Offenses, Forcible-Forcible Fondling', 'Group A', 'Other', 'Sex Offenses', 'Person');
+insert into UCROffenseCodeType  values ('280', '280', 'Stolen Property Offenses', 'Group A', 'Other', 'Stolen Property Offenses', 'Property');
+insert into UCROffenseCodeType  values ('361', '36A', 'Sex Offenses, Nonforcible-Incest', 'Group A', 'Other', 'Sex Offenses - Nonforcible', 'Person');
+insert into UCROffenseCodeType  values ('362', '36B', 'Sex Offenses, Nonforcible-Statutory Rape', 'Group A', 'Other', 'Sex Offenses - Nonforcible', 'Person');
+insert into UCROffenseCodeType  values ('520', '520', 'Weapon Law Violations', 'Group A', 'Other', 'Weapon Law Violations', 'Society');
+insert into UCROffenseCodeType  values ('901', '90A', 'Bad Checks', 'Group B', 'Other', 'Group B Offenses (Property)', 'Property');
+insert into UCROffenseCodeType  values ('902', '90B', 'Curfew/Loitering/Vagrancy Violations', 'Group B', 'Other', 'Group B Offenses (Society)', 'Society');
+insert into UCROffenseCodeType  values ('903', '90C', 'Disorderly Conduct', 'Group B', 'Other', 'Group B Offenses (Society)', 'Society');
+insert into UCROffenseCodeType  values ('904', '90D', 'Driving Under the Influence', 'Group B', 'Other', 'Group B Offenses (Society)', 'Society');
+insert into UCROffenseCodeType  values ('905', '90E', 'Drunkenness', 'Group B', 'Other', 'Group B Offenses (Society)', 'Society');
+insert into UCROffenseCodeType  values ('906', '90F', 'Family Offenses, Nonviolent', 'Group B', 'Other', 'Group B Offenses (Society)', 'Society');
+insert into UCROffenseCodeType  values ('907', '90G', 'Liquor Law Violations', 'Group B', 'Other', 'Group B Offenses (Society)', 'Society');
+insert into UCROffenseCodeType  values ('908', '90H', 'Peeping Tom', 'Group B', 'Other', 'Group B Offenses (Society)', 'Society');
+insert into UCROffenseCodeType  values ('909', '90I', 'Runaway', 'Group B', 'Other', 'Group B Offenses (Not a Crime)', 'Not a Crime');
+insert into UCROffenseCodeType  values ('910', '90J', 'Trespass of Real Property', 'Group B', 'Other', 'Group B Offenses (Society)', 'Society');
+insert into UCROffenseCodeType  values ('990', '90Z', 'All Other Offenses', 'Group B', 'Other', 'Group B Offenses (Other)', 'Other');
+insert into UCROffenseCodeType  values ('701', '720', 'Animal Cruelty', 'Group B', 'Other', 'Group B Offenses (Society)', 'Society');
+insert into UCROffenseCodeType  values ('702', '26F', 'Identity Theft', 'Group B', 'Other', 'Group B Offenses (Person)', 'Person');
+insert into UCROffenseCodeType  values ('403', '40C', 'Purchasing Prostitution', 'Group B', 'Other', 'Prostitution Offenses (Society)', 'Society');
+insert into UCROffenseCodeType  values ('641', '64A', 'Human Trafficking, Commercial Sex Acts', 'Group A', 'Other', 'Human Trafficking Offenses', 'Person');
+insert into UCROffenseCodeType  values ('642', '64B', 'Human Trafficking, Involuntary Servitude', 'Group A', 'Other', 'Human Trafficking Offenses', 'Person');
+insert into UCROffenseCodeType  values ('99999', '999', 'Unknown', 'Unknown', 'Unknown', 'Unknown', 'Unknown');
+insert into UCROffenseCodeType  values ('99998', ' ', 'Blank', 'Blank', 'Blank', 'Blank', 'Blank');
+insert into OffenderSuspectedOfUsingType  values ('1', 'A', 'Alcohol');
+insert into OffenderSuspectedOfUsingType  values ('2', 'C', 'Computer Equipment');
+insert into OffenderSuspectedOfUsingType  values ('3', 'D', 'Drugs/Narcotics');
+insert into OffenderSuspectedOfUsingType  values ('4', 'N', 'Not Applicable');
+insert into OffenderSuspectedOfUsingType  values ('99999', '9', 'Unknown');
+insert into OffenderSuspectedOfUsingType  values ('99998', ' ', 'Blank');
+insert into LocationTypeType  values ('1', '01', 'Air/Bus/Train Terminal');
+insert into LocationTypeType  values ('2', '02', 'Bank/Savings and Loan');
+insert into LocationTypeType  values ('3', '03', 'Bar/Nightclub');
+insert into LocationTypeType  values ('4', '04', 'Church/Synagogue/Temple/Mosque');
+insert into LocationTypeType  values ('5', '05', 'Commercial/Office Building');
+insert into LocationTypeType  values ('6', '06', 'Construction Site');
+insert into LocationTypeType  values ('7', '07', 'Convenience Store');
+insert into LocationTypeType  values ('8', '08', 'Department/Discount Store');
+insert into LocationTypeType  values ('9', '09', 'Drug Store/Doctor’s Office/Hospital');
+insert into LocationTypeType  values ('10', '10', 'Field/Woods');
+insert into LocationTypeType  values ('11', '11', 'Government/Public Building');
+insert into LocationTypeType  values ('12', '12', 'Grocery/Supermarket');
+insert into LocationTypeType  values ('13', '13', 'Highway/Road/Alley/Street/Sidewalk');
+insert into LocationTypeType  values ('14', '14', 'Hotel/Motel/Etc.');
+insert into LocationTypeType  values ('15', '15', 'Jail/Prison/Penitentiary/Corrections Facility');
+insert into LocationTypeType  values ('16', '16', 'Lake/Waterway/Beach');
+insert into LocationTypeType  values ('17', '17', 'Liquor Store');
+insert into LocationTypeType  values ('18', '18', 'Parking Lot/Garage');
+insert into LocationTypeType  values ('19', '19', 'Rental Storage Facility');
+insert into LocationTypeType  values ('20', '20', 'Residence/Home');
+insert into LocationTypeType  values ('21', '21', 'Restaurant');
+insert into LocationTypeType  values ('22', '22', 'School/College');
+insert into LocationTypeType  values ('23', '23', 'Service/Gas Station');
+insert into LocationTypeType  values ('24', '24', 'Specialty Store');
+insert into LocationTypeType  values ('25', '25', 'Other/Unknown');
+insert into LocationTypeType  values ('37', '37', 'Abandoned/Condemned Structure');
+insert into LocationTypeType  values ('38', '38', 'Amusement Park');
+insert into LocationTypeType  values ('39', '39', 'Arena/Stadium/Fairgrounds/Coliseum');
+insert into LocationTypeType  values ('40', '40', 'ATM Separate from Bank');
+insert into LocationTypeType  values ('41', '41', 'Auto Dealership New/Used');
+insert into LocationTypeType  values ('42', '42', 'Camp/Campground');
+insert into LocationTypeType  values ('44', '44', 'Daycare Facility');
+insert into LocationTypeType  values ('45', '45', 'Dock/Wharf/Freight/Modal Terminal');
+insert into LocationTypeType  values ('46', '46', 'Farm Facility');
+insert into LocationTypeType  values ('47', '47', 'Gambling Facility/Casino/Race Track');
+insert into LocationTypeType  values ('48', '48', 'Industrial Site');
+insert into LocationTypeType  values ('49', '49', 'Military Installation');
+insert into LocationTypeType  values ('50', '50', 'Park/Playground');
+insert into LocationTypeType  values ('51', '51', 'Rest Area');
+insert into LocationTypeType  values ('52', '52', 'School – College/University');
+insert into LocationTypeType  values ('53', '53', 'School – Elementary/Secondary');
+insert into LocationTypeType  values ('54', '54', 'Shelter – Mission/Homeless');
+insert into LocationTypeType  values ('55', '55', 'Shopping Mall');
+insert into LocationTypeType  values ('56', '56', 'Tribal Lands');
+insert into LocationTypeType  values ('57', '57', 'Community Center');
+insert into LocationTypeType  values ('99999', '99', 'Unknown');
+insert into LocationTypeType  values ('99998', ' ', 'Blank');
+insert into MethodOfEntryType  values ('2', 'F', 'Force');
+insert into MethodOfEntryType  values ('1', 'N', 'No Force');
+insert into MethodOfEntryType  values ('99999', '9', 'Unknown');
+insert into MethodOfEntryType  values ('99998', ' ', 'Blank');
+insert into TypeOfCriminalActivityType  values ('1', 'B', 'Buying/Receiving');
+insert into TypeOfCriminalActivityType  values ('2', 'C', 'Cultivating/Manufacturing/Publishing');
+insert into TypeOfCriminalActivityType  values ('3', 'D', 'Distributing/Selling');
+insert into TypeOfCriminalActivityType  values ('4', 'E', 'Exploiting Children');
+insert into TypeOfCriminalActivityType  values ('8', 'O', 'Operating/Promoting/Assisting');
+insert into TypeOfCriminalActivityType  values ('9', 'P', 'Possessing/Concealing');
+insert into TypeOfCriminalActivityType  values ('10', 'T', 'Transporting/Transmitting/Importing');
+insert into TypeOfCriminalActivityType  values ('11', 'U', 'Using/Consuming');
+insert into TypeOfCriminalActivityType  values ('6', 'J', 'Juvenile Gang');
+insert into TypeOfCriminalActivityType  values ('5', 'G', 'Other Gang');
+insert into TypeOfCriminalActivityType  values ('7', 'N', 'None/Unknown Gang Involvement');
+insert into TypeOfCriminalActivityType  values ('99999', '9', 'Unknown');
+insert into TypeOfCriminalActivityType  values ('99998', ' ', 'Blank');
+insert into TypeOfWeaponForceInvolvedType  values ('110', '11', 'Firearm');
+insert into TypeOfWeaponForceInvolvedType  values ('120', '12', 'Handgun');
+insert into TypeOfWeaponForceInvolvedType  values ('130', '13', 'Rifle');
+insert into TypeOfWeaponForceInvolvedType  values ('140', '14', 'Shotgun');
+insert into TypeOfWeaponForceInvolvedType  values ('150', '15', 'Other Firearm');
+insert into TypeOfWeaponForceInvolvedType  values ('200', '20', 'Knife/Cutting Instrument');
+insert into TypeOfWeaponForceInvolvedType  values ('300', '30', 'Blunt Object');
+insert into TypeOfWeaponForceInvolvedType  values ('350', '35', 'Motor Vehicle');
+insert into TypeOfWeaponForceInvolvedType  values ('400', '40', 'Personal Weapons');
+insert into TypeOfWeaponForceInvolvedType  values ('500', '50', 'Poison');
+insert into TypeOfWeaponForceInvolvedType  values ('600', '60', 'Explosives');
+insert into TypeOfWeaponForceInvolvedType  values ('650', '65', 'Fire/Incendiary Device');
+insert into TypeOfWeaponForceInvolvedType  values ('700', '70', 'Drugs/Narcotics/Sleeping Pills');
+insert into TypeOfWeaponForceInvolvedType  values ('850', '85', 'Asphyxiation');
+insert into TypeOfWeaponForceInvolvedType  values ('900', '90', 'Other');
+insert into TypeOfWeaponForceInvolvedType  values ('99999', '95', 'Unknown');
+insert into TypeOfWeaponForceInvolvedType  values ('99998', ' ', 'Blank');
+insert into BiasMotivationType  values ('11', '11', 'Anti-White', 'Racial');
+insert into BiasMotivationType  values ('12', '12', 'Anti-Black or African American', 'Racial');
+insert into BiasMotivationType  values ('13', '13', 'Anti-American Indian or Alaska Native', 'Racial');
+insert into BiasMotivationType  values ('14', '14', 'Anti-Asian', 'Racial');
+insert into BiasMotivationType  values ('15', '15', 'Anti-Multiple Races, Group', 'Racial');
+insert into BiasMotivationType  values ('16', '16', 'Anti-Native Hawaiian or Other Pacific Islander', 'Racial');
+insert into BiasMotivationType  values ('21', '21', 'Anti-Jewish', 'Religious');
+insert into BiasMotivationType  values ('22', '22', 'Anti-Catholic', 'Religious');
+insert into BiasMotivationType  values ('23', '23', 'Anti-Protestant', 'Religious');
+insert into BiasMotivationType  values ('24', '24', 'Anti-Islamic (Muslim)', 'Religious');
+insert into BiasMotivationType  values ('25', '25', 'Anti-Other Religion', 'Religious');
+insert into BiasMotivationType  values ('26', '26', 'Anti-Multiple Religions, Group', 'Religious');
+insert into BiasMotivationType  values ('27', '27', 'Anti-Atheism/Agnosticism', 'Religious');
+insert into BiasMotivationType  values ('32', '32', 'Anti-Hispanic or Latino', 'Ethnicity');
+insert into BiasMotivationType  values ('33', '33', 'Anti-Not Hispanic or Latino', 'Ethnicity');
+insert into BiasMotivationType  values ('41', '41', 'Anti-Gay', 'Sexual Orientation');
+insert into BiasMotivationType  values ('42', '42', 'Anti-Lesbian', 'Sexual Orientation');
+insert into BiasMotivationType  values ('43', '43', 'Anti-Lesbian, Gay, Bisexual, or Transgender (Mixed Group)', 'Sexual Orientation');
+insert into BiasMotivationType  values ('44', '44', 'Anti-Heterosexual', 'Sexual Orientation');
+insert into BiasMotivationType  values ('45', '45', 'Anti-Bisexual', 'Sexual Orientation');
+insert into BiasMotivationType  values ('51', '51', 'Anti-Physical Disability', 'Disabled Status');
+insert into BiasMotivationType  values ('52', '52', 'Anti-Mental Disability', 'Disabled Status');
+insert into BiasMotivationType  values ('61', '61', 'Anti-Male', 'Gender');
+insert into BiasMotivationType  values ('62', '62', 'Anti-Female', 'Gender');
+insert into BiasMotivationType  values ('71', '71', 'Anti-Transgender', 'Gender');
+insert into BiasMotivationType  values ('72', '72', 'Anti-Gender Non-Conforming', 'Gender');
+insert into BiasMotivationType  values ('88', '88', 'None (no bias)', 'None');
+insert into BiasMotivationType  values ('99999', '99', 'Unknown (offender’s motivation not known)', 'Unknown');
+insert into BiasMotivationType  values ('99998', ' ', 'Blank', 'Blank');
+insert into TypePropertyLossEtcType  values ('1', '1', 'None');
+insert into TypePropertyLossEtcType  values ('2', '2', 'Burned');
+insert into TypePropertyLossEtcType  values ('3', '3', 'Counterfeited/Forged');
+insert into TypePropertyLossEtcType  values ('4', '4', 'Destroyed/Damaged/Vandalized');
+insert into TypePropertyLossEtcType  values ('5', '5', 'Recovered');
+insert into TypePropertyLossEtcType  values ('6', '6', 'Seized');
+insert into TypePropertyLossEtcType  values ('7', '7', 'Stolen/Etc.');
+insert into TypePropertyLossEtcType  values ('99999', '8', 'Unknown');
+insert into TypePropertyLossEtcType  values ('99998', ' ', 'Blank');
+insert into PropertyDescriptionType  values ('1', '01', 'Aircraft');
+insert into PropertyDescriptionType  values ('2', '02', 'Alcohol');
+insert into PropertyDescriptionType  values ('3', '03', 'Automobiles');
+insert into PropertyDescriptionType  values ('4', '04', 'Bicycles');
+insert into PropertyDescriptionType  values ('5', '05', 'Buses');
+insert into PropertyDescriptionType  values ('6', '06', 'Clothes/Furs');
+insert into PropertyDescriptionType  values ('7', '07', 'Computer Hardware/software');
+insert into PropertyDescriptionType  values ('8', '08', 'Consumable Goods');
+insert into PropertyDescriptionType  values ('9', '09', 'Credit/Debit Cards');
+insert into PropertyDescriptionType  values ('10', '10', 'Drugs/Narcotics');
+insert into PropertyDescriptionType  values ('11', '11', 'Drug/Narcotic Equip.');
+insert into PropertyDescriptionType  values ('12', '12', 'Farm Equipment');
+insert into PropertyDescriptionType  values ('13', '13', 'Firearms');
+insert into PropertyDescriptionType  values ('14', '14', 'Gambling Equipment');
+insert into PropertyDescriptionType  values ('15', '15', 'Heavy Construction/Industrial Equipment');
+insert into PropertyDescriptionType  values ('16', '16', 'Household Goods');
+insert into PropertyDescriptionType  values ('17', '17', 'Jewelry/Precious Metals/Gems');
+insert into PropertyDescriptionType  values ('18', '18', 'Livestock');
+insert into PropertyDescriptionType  values ('19', '19', 'Merchandise');
+insert into PropertyDescriptionType  values ('20', '20', 'Money');
+insert into PropertyDescriptionType  values ('21', '21', 'Negotiable Instruments');
+insert into PropertyDescriptionType  values ('22', '22', 'Nonnegotiable Instruments');
+insert into PropertyDescriptionType  values ('23', '23', 'Office-Type Equipment');
+insert into PropertyDescriptionType  values ('24', '24', 'Other Motor Vehicles');
+insert into PropertyDescriptionType  values ('25', '25', 'Purses/Handbags/Wallets');
+insert into PropertyDescriptionType  values ('26', '26', 'Radios/TVs/VCRs/DVD players');
+insert into PropertyDescriptionType  values ('27', '27', 'Recordings-Audio/Visual');
+insert into PropertyDescriptionType  values ('28', '28', 'Recreational Vehicles');
+insert into PropertyDescriptionType  values ('29', '29', 'Structures-Single Occupancy Dwellings');
+insert into PropertyDescriptionType  values ('30', '30', 'Structures-Other Dwellings');
+insert into PropertyDescriptionType  values ('31', '31', 'Structures - Commercial/Business');
+insert into PropertyDescriptionType  values ('32', '32', 'Structures - Industrial/Manufacturing');
+insert into PropertyDescriptionType  values ('33', '33', 'Structures Public/Community');
+insert into PropertyDescriptionType  values ('34', '34', 'Structures-Storage');
+insert into PropertyDescriptionType  values ('35', '35', 'Structures-Other');
+insert into PropertyDescriptionType  values ('36', '36', 'Tools-Power/Hand');
+insert into PropertyDescriptionType  values ('37', '37', 'Trucks');
+insert into PropertyDescriptionType  values ('38', '38', 'Vehicle Parts/Accessories');
+insert into PropertyDescriptionType  values ('39', '39', 'Watercraft');
+insert into PropertyDescriptionType  values ('41', '41', 'Aircraft parts/accessories');
+insert into PropertyDescriptionType  values ('42', '42', 'Artistic supplies/accessories');
+insert into PropertyDescriptionType  values ('43', '43', 'Building materials');
+insert into PropertyDescriptionType  values ('44', '44', 'Camping/hunting/fishing equipment/supplies');
+insert into PropertyDescriptionType  values ('45', '45', 'Chemicals');
+insert into PropertyDescriptionType  values ('46', '46', 'Collections/collectibles');
+insert into PropertyDescriptionType  values ('47', '47', 'Crops');
+insert into PropertyDescriptionType  values ('48', '48', 'Decuments/personal or business');
+insert into PropertyDescriptionType  values ('49', '49', 'Explosives');
+insert into PropertyDescriptionType  values ('59', '59', 'Firearm accessories');
+insert into PropertyDescriptionType  values ('64', '64', 'Fuel');
+insert into PropertyDescriptionType  values ('65', '65', 'Identity documents');
+insert into PropertyDescriptionType  values ('66', '66', 'Identity--intangible');
+insert into PropertyDescriptionType  values ('67', '67', 'Law enforcement equipment');
+insert into PropertyDescriptionType  values ('68', '68', 'Lawn/yard/garden equipment');
+insert into PropertyDescriptionType  values ('69', '69', 'Logging equipment');
+insert into PropertyDescriptionType  values ('70', '70', 'Medical/medical lab equipment');
+insert into PropertyDescriptionType  values ('71', '71', 'Metals, non-precious');
+insert into PropertyDescriptionType  values ('72', '72', 'Musical instruments');
+insert into PropertyDescriptionType  values ('73', '73', 'Pets');
+insert into PropertyDescriptionType  values ('74', '74', 'Photographic/optical equipment');
+insert into PropertyDescriptionType  values ('75', '75', 'Portable electronic communications');
+insert into PropertyDescriptionType  values ('76', '76', 'Recreational/sports equipment');
+insert into PropertyDescriptionType  values ('77', '77', 'Other');
+insert into PropertyDescriptionType  values ('78', '78', 'Trailers');
+insert into PropertyDescriptionType  values ('79', '79', 'Watercraft equipment/parts/accessories');
+insert into PropertyDescriptionType  values ('80', '80', 'Weapons--other');
+insert into PropertyDescriptionType  values ('88', '88', 'Pending Inventory (of Property)');
+insert into PropertyDescriptionType  values ('99999', '99', 'Unknown');
+insert into PropertyDescriptionType  values ('99998', ' ', 'Blank');
+insert into SuspectedDrugTypeType  values ('1', 'A', 'Crack Cocaine');
+insert into SuspectedDrugTypeType  values ('2', 'B', 'Cocaine (all forms except Crack)');
+insert into SuspectedDrugTypeType  values ('3', 'C', 'Hashish');
+insert into SuspectedDrugTypeType  values ('4', 'D', 'Heroin');
+insert into SuspectedDrugTypeType  values ('5', 'E', 'Marijuana');
+insert into SuspectedDrugTypeType  values ('6', 'F', 'Morphine');
+insert into SuspectedDrugTypeType  values ('7', 'G', 'Opium');
+insert into SuspectedDrugTypeType  values ('8', 'H', 'Other Narcotics');
+insert into SuspectedDrugTypeType  values ('9', 'I', 'LSD');
+insert into SuspectedDrugTypeType  values ('10', 'J', 'PCP');
+insert into SuspectedDrugTypeType  values ('11', 'K', 'Other Hallucinogens');
+insert into SuspectedDrugTypeType  values ('12', 'L', 'Amphetamines/Methamphetamines');
+insert into SuspectedDrugTypeType  values ('13', 'M', 'Other Stimulants');
+insert into SuspectedDrugTypeType  values ('14', 'N', 'Barbiturates');
+insert into SuspectedDrugTypeType  values ('15', 'O', 'Other Depressants');
+insert into SuspectedDrugTypeType  values ('16', 'P', 'Other Drugs');
+insert into SuspectedDrugTypeType  values ('99999', 'U', 'Unknown');
+insert into SuspectedDrugTypeType  values ('93', 'X', 'Over 3 Drug Types');
+insert into SuspectedDrugTypeType  values ('99998', ' ', 'Blank');
+insert into TypeDrugMeasurementType  values ('9', 'DU', 'Dosage Units/Items');
+insert into TypeDrugMeasurementType  values ('7', 'FO', 'Fluid Ounce');
+insert into TypeDrugMeasurementType  values ('8', 'GL', 'Gallon');
+insert into TypeDrugMeasurementType  values ('1', 'GM', 'Gram');
+insert into TypeDrugMeasurementType  values ('2', 'KG', 'Kilogram');
+insert into TypeDrugMeasurementType  values ('4', 'LB', 'Pound');
+insert into TypeDrugMeasurementType  values ('6', 'LT', 'Liter');
+insert into TypeDrugMeasurementType  values ('5', 'ML', 'Milliliter');
+insert into TypeDrugMeasurementType  values ('10', 'NP', 'Number of Plants');
+insert into TypeDrugMeasurementType  values ('3', 'OZ', 'Ounce');
+insert into TypeDrugMeasurementType  values ('11', 'XX', 'Not Reported');
+insert into TypeDrugMeasurementType  values ('99999', '99', 'Unknown');
+insert into TypeDrugMeasurementType  values ('99998', ' ', 'Blank');
+insert into TypeOfVictimType  values ('2', 'B', 'Business');
+insert into TypeOfVictimType  values ('3', 'F', 'Financial Institution');
+insert into TypeOfVictimType  values ('4', 'G', 'Government');
+insert into TypeOfVictimType  values ('1', 'I', 'Individual');
+insert into TypeOfVictimType  values ('5', 'L', 'Law Enforcement Officer');
+insert into TypeOfVictimType  values ('8', 'O', 'Other');
+insert into TypeOfVictimType  values ('6', 'R', 'Religious Organization');
+insert into TypeOfVictimType  values ('7', 'S', 'Society/Public');
+insert into TypeOfVictimType  values ('99999', 'U', 'Unknown');
+insert into TypeOfVictimType  values ('99998', ' ', 'Blank');
+insert into OfficerActivityCircumstanceType  values ('1', '01', 'Responding to Disturbance');
+insert into OfficerActivityCircumstanceType  values ('2', '02', 'Burglaries in Progress or Pursuing Burglary Suspects');
+insert into OfficerActivityCircumstanceType  values ('3', '03', 'Robberies in Progress or Pursuing Robbery Suspects');
+insert into OfficerActivityCircumstanceType  values ('4', '04', 'Attempting Other Arrests');
+insert into OfficerActivityCircumstanceType  values ('5', '05', 'Civil Disorder (Riot, Mass Disobedience)');
+insert into OfficerActivityCircumstanceType  values ('6', '06', 'Handling, Transporting, Custody of Prisoners');
+insert into OfficerActivityCircumstanceType  values ('7', '07', 'Investigating Suspicious Persons or Circumstances');
+insert into OfficerActivityCircumstanceType  values ('8', '08', 'Ambush - No Warning');
+insert into OfficerActivityCircumstanceType  values ('9', '09', 'Mentally Deranged Assailant');
+insert into OfficerActivityCircumstanceType  values ('10', '10', 'Traffic Pursuits and Stops');
+insert into OfficerActivityCircumstanceType  values ('11', '11', 'All Other');
+insert into OfficerActivityCircumstanceType  values ('99999', '99', 'Unknown');
+insert into OfficerActivityCircumstanceType  values ('99998', ' ', 'Blank');
+insert into OfficerAssignmentTypeType  values ('1', 'F', 'Two-Officer Vehicle - pertains to uniformed officers');
+insert into OfficerAssignmentTypeType  values ('2', 'G', 'One-Officer Vehicle (Alone) - pertains to uniformed officers');
+insert into OfficerAssignmentTypeType  values ('3', 'H', 'One-Officer Vehicle (Assisted) - pertains to uniformed officers');
+insert into OfficerAssignmentTypeType  values ('4', 'I', 'Detective or Special Assignment (Alone) - pertains to nonuniformed officers');
+insert into OfficerAssignmentTypeType  values ('5', 'J', 'Detective or Special Assignment (Assisted) - pertains to nonuniformed officers');
+insert into OfficerAssignmentTypeType  values ('6', 'K', 'Other (Alone) - pertains to officers in other capacities, such as foot patrol, off duty, etc.');
+insert into OfficerAssignmentTypeType  values ('7', 'L', 'Other (Assisted) - pertains to officers in other capacities, such as foot patrol, off duty, etc.');
+insert into OfficerAssignmentTypeType  values ('99999', '9', 'Unknown');
+insert into OfficerAssignmentTypeType  values ('99998', ' ', 'Blank');
+insert into SexOfPersonType  values ('1', 'F', 'Female');
+insert into SexOfPersonType  values ('2', 'M', 'Male');
+insert into SexOfPersonType  values ('99999', 'U', 'Unknown');
+insert into SexOfPersonType  values ('99998', ' ', 'Blank');
+insert into RaceOfPersonType  values ('1', 'W', 'White');
+insert into RaceOfPersonType  values ('2', 'B', 'Black or African American');
+insert into RaceOfPersonType  values ('3', 'I', 'American Indian or Alaska Native');
+insert into RaceOfPersonType  values ('4', 'A', 'Asian');
+insert into RaceOfPersonType  values ('5', 'P', 'Native Hawaiian or Other Pacific Islander');
+insert into RaceOfPersonType  values ('99999', 'U', 'Unknown');
+insert into RaceOfPersonType  values ('99998', ' ', 'Blank');
+insert into EthnicityOfPersonType  values ('2', 'H', 'Hispanic or Latino');
+insert into EthnicityOfPersonType  values ('1', 'N', 'Not Hispanic or Latino');
+insert into EthnicityOfPersonType  values ('99999', 'U', 'Unknown');
+insert into EthnicityOfPersonType  values ('99998', ' ', 'Blank');
+insert into ResidentStatusOfPersonType  values ('1', 'N', 'Nonresident');
+insert into ResidentStatusOfPersonType  values ('2', 'R', 'Resident');
+insert into ResidentStatusOfPersonType  values ('99999', 'U', 'Unknown');
+insert into ResidentStatusOfPersonType  values ('99998', ' ', 'Blank');
+insert into AggravatedAssaultHomicideCircumstancesType  values ('1', '01', 'Argument');
+insert into AggravatedAssaultHomicideCircumstancesType  values ('2', '02', 'Assault on Law Enforcement Officer(s)');
+insert into AggravatedAssaultHomicideCircumstancesType  values ('3', '03', 'Drug Dealing');
+insert into AggravatedAssaultHomicideCircumstancesType  values ('4', '04', 'Gangland (Organized Crime Involvement)');
+insert into AggravatedAssaultHomicideCircumstancesType  values ('5', '05', 'Juvenile Gang');
+insert into AggravatedAssaultHomicideCircumstancesType  values ('6', '06', 'Lovers Quarrel');
+insert into AggravatedAssaultHomicideCircumstancesType  values ('7', '07', 'Mercy Killing');
+insert into AggravatedAssaultHomicideCircumstancesType  values ('8', '08', 'Other Felony Involved');
+insert into AggravatedAssaultHomicideCircumstancesType  values ('9', '09', 'Other Circumstances');
+insert into AggravatedAssaultHomicideCircumstancesType  values ('10', '10', 'Unknown Circumstances');
+insert into AggravatedAssaultHomicideCircumstancesType  values ('30', '30', 'Child Playing With Weapon');
+insert into AggravatedAssaultHomicideCircumstancesType  values ('31', '31', 'Gun-Cleaning Accident');
+insert into AggravatedAssaultHomicideCircumstancesType  values ('32', '32', 'Hunting Accident');
+insert into AggravatedAssaultHomicideCircumstancesType  values ('33', '33', 'Other Negligent Weapon Handling');
+insert into AggravatedAssaultHomicideCircumstancesType  values ('34', '34', 'Other Negligent Killings');
+insert into AggravatedAssaultHomicideCircumstancesType  values ('20', '20', 'Criminal Killed by Private Citizen');
+insert into AggravatedAssaultHomicideCircumstancesType  values ('21', '21', 'Criminal Killed by Police Officer');
+insert into AggravatedAssaultHomicideCircumstancesType  values ('99999', '99', 'Unknown');
+insert into AggravatedAssaultHomicideCircumstancesType  values ('99998', ' ', 'Blank');
+insert into AdditionalJustifiableHomicideCircumstancesType  values ('1', 'A', 'Criminal Attacked Police Officer and That Officer Killed Criminal');
+insert into AdditionalJustifiableHomicideCircumstancesType  values ('2', 'B', 'Criminal Attacked Police Officer and Criminal Killed by Another Police Officer');
+insert into AdditionalJustifiableHomicideCircumstancesType  values ('3', 'C', 'Criminal Attacked a Civilian');
+insert into AdditionalJustifiableHomicideCircumstancesType  values ('4', 'D', 'Criminal Attempted Flight From a Crime');
+insert into AdditionalJustifiableHomicideCircumstancesType  values ('5', 'E', 'Criminal Killed in Commission of a Crime');
+insert into AdditionalJustifiableHomicideCircumstancesType  values ('6', 'F', 'Criminal Resisted Arrest');
+insert into AdditionalJustifiableHomicideCircumstancesType  values ('7', 'G', 'Unable to Determine/Not Enough Information');
+insert into AdditionalJustifiableHomicideCircumstancesType  values ('99998', ' ', 'Blank');
+insert into AdditionalJustifiableHomicideCircumstancesType  values ('99999', '9', 'Unknown');
+insert into TypeInjuryType  values ('3', 'B', 'Apparent Broken Bones');
+insert into TypeInjuryType  values ('5', 'I', 'Possible Internal Injury');
+insert into TypeInjuryType  values ('7', 'L', 'Severe Laceration');
+insert into TypeInjuryType  values ('2', 'M', 'Apparent Minor Injury');
+insert into TypeInjuryType  values ('1', 'N', 'None');
+insert into TypeInjuryType  values ('4', 'O', 'Other Major Injury');
+insert into TypeInjuryType  values ('6', 'T', 'Loss of Teeth');
+insert into TypeInjuryType  values ('8', 'U', 'Unconsciousness');
+insert into TypeInjuryType  values ('99998', ' ', 'Blank');
+insert into TypeInjuryType  values ('99999', '9', 'Unknown');
+insert into VictimOffenderRelationshipType  values ('1', 'SE', 'Victim Was Spouse');
+insert into VictimOffenderRelationshipType  values ('2', 'CS', 'Victim Was Common-Law Spouse');
+insert into VictimOffenderRelationshipType  values ('3', 'PA', 'Victim Was Parent');
+insert into VictimOffenderRelationshipType  values ('4', 'SB', 'Victim Was Sibling');
+insert into VictimOffenderRelationshipType  values ('5', 'CH', 'Victim Was Child');
+insert into VictimOffenderRelationshipType  values ('6', 'GP', 'Victim Was Grandparent');
+insert into VictimOffenderRelationshipType  values ('7', 'GC', 'Victim Was Grandchild');
+insert into VictimOffenderRelationshipType  values ('8', 'IL', 'Victim Was In-law');
+insert into VictimOffenderRelationshipType  values ('9', 'SP', 'Victim Was Stepparent');
+insert into VictimOffenderRelationshipType  values ('10', 'SC', 'Victim Was Stepchild');
+insert into VictimOffenderRelationshipType  values ('11', 'SS', 'Victim Was Stepsibling');
+insert into VictimOffenderRelationshipType  values ('12', 'OF', 'Victim Was Other Family Member');
+insert into VictimOffenderRelationshipType  values ('13', 'VO', 'Victim Was Offender');
+insert into VictimOffenderRelationshipType  values ('14', 'AQ', 'Victim Was Acquaintance');
+insert into VictimOffenderRelationshipType  values ('15', 'FR', 'Victim Was Friend');
+insert into VictimOffenderRelationshipType  values ('16', 'NE', 'Victim Was Neighbor');
+insert into VictimOffenderRelationshipType  values ('17', 'BE', 'Victim Was Babysittee (the baby)');
+insert into VictimOffenderRelationshipType  values ('18', 'BG', 'Victim Was Boyfriend/Girlfriend');
+insert into VictimOffenderRelationshipType  values ('19', 'CF', 'Victim Was Child of Boyfriend or Girlfriend');
+insert into VictimOffenderRelationshipType  values ('20', 'HR', 'Homosexual Relationship');
+insert into VictimOffenderRelationshipType  values ('21', 'XS', 'Victim was Ex-Spouse');
+insert into VictimOffenderRelationshipType  values ('22', 'EE', 'Victim was Employee');
+insert into VictimOffenderRelationshipType  values ('23', 'ER', 'Victim was Employer');
+insert into VictimOffenderRelationshipType  values ('24', 'OK', 'Victim was Otherwise Known');
+insert into VictimOffenderRelationshipType  values ('25', 'ST', 'Victim Was Stranger');
+insert into VictimOffenderRelationshipType  values ('99999', 'RU', 'Relationship Unknown');
+insert into VictimOffenderRelationshipType  values ('99998', '  ', 'Blank');
+insert into TypeOfArrestType  values ('1', 'O', 'On-View Arrest');
+insert into TypeOfArrestType  values ('2', 'S', 'Summoned/Cited');
+insert into TypeOfArrestType  values ('3', 'T', 'Taken Into Custody');
+insert into TypeOfArrestType  values ('99998', ' ', 'Blank');
+insert into TypeOfArrestType  values ('99999', '9', 'Unknown');
+insert into MultipleArresteeSegmentsIndicatorType  values ('1', 'C', 'Count Arrestee');
+insert into MultipleArresteeSegmentsIndicatorType  values ('2', 'M', 'Multiple');
+insert into MultipleArresteeSegmentsIndicatorType  values ('9', 'N', 'Not Applicable');
+insert into MultipleArresteeSegmentsIndicatorType  values ('99998', ' ', 'Blank');
+insert into ArresteeWasArmedWithType  values ('1', '01', 'Unarmed');
+insert into ArresteeWasArmedWithType  values ('110', '11', 'Firearm (type not stated)');
+insert into ArresteeWasArmedWithType  values ('120', '12', 'Handgun');
+insert into ArresteeWasArmedWithType  values ('130', '13', 'Rifle');
+insert into ArresteeWasArmedWithType  values ('140', '14', 'Shotgun');
+insert into ArresteeWasArmedWithType  values ('150', '15', 'Other Firearm');
+insert into ArresteeWasArmedWithType  values ('200', '16', 'Lethal Cutting Instrument');
+insert into ArresteeWasArmedWithType  values ('300', '17', 'Club/Blackjack/Brass Knuckles');
+insert into ArresteeWasArmedWithType  values ('99998', ' ', 'Blank');
+insert into ArresteeWasArmedWithType  values ('99999', '99', 'Unknown');
+insert into DispositionOfArresteeUnder18Type  values ('2', 'H', 'Handled Within Department');
+insert into DispositionOfArresteeUnder18Type  values ('1', 'R', 'Referred to Other Authorities');
+insert into DispositionOfArresteeUnder18Type  values ('99998', ' ', 'Blank');
+insert into DispositionOfArresteeUnder18Type  values ('99999', '9', 'Unknown');
+insert into AgencyType  values ('1', '0', 'Covered by another agency');
+insert into AgencyType  values ('2', '1', 'City');
+insert into AgencyType  values ('3', '2', 'County');
+insert into AgencyType  values ('4', '3', 'University or college');
+insert into AgencyType  values ('5', '4', 'State Police');
+insert into AgencyType  values ('6', '5', 'Special Agency');
+insert into AgencyType  values ('7', '6', 'Other state agencies');
+insert into AgencyType  values ('8', '7', 'Tribal agencies');
+insert into AgencyType  values ('9', '8', 'Federal agencies');
+insert into AgencyType  values ('99998', ' ', 'Blank');
+insert into AgencyType  values ('99999', '9', 'Unknown');
+insert into CargoTheftIndicatorType  values ('1', 'Y', 'Yes');
+insert into CargoTheftIndicatorType  values ('2', 'N', 'No');
+insert into CargoTheftIndicatorType  values ('99998', ' ', 'Blank');
+insert into CargoTheftIndicatorType  values ('99999', '9', 'Unknown');
+insert into DateType  select X, D, YEAR(D), CAST(YEAR(D) AS CHAR(4)), QUARTER(D), MONTH(D), 
+ CASE MONTH(D) WHEN 1 THEN 'January' WHEN 2 THEN 'February' WHEN 3 THEN 'March' WHEN 4 THEN 'April' WHEN 5 THEN 'May' WHEN 6 THEN 'June' 
+ WHEN 7 THEN 'July' WHEN 8 THEN 'August' WHEN 9 THEN 'September' WHEN 10 THEN 'October' WHEN 11 THEN 'November' ELSE 'December' END, 
+ FORMATDATETIME(D, 'yyyy-MM'), DAY_OF_YEAR(D), 
+ CASE DAY_OF_WEEK(D) WHEN 1 THEN 'Sunday' WHEN 2 THEN 'Monday' WHEN 3 THEN 'Tuesday' WHEN 4 THEN 'Wednesday' WHEN 5 THEN 'Thursday' 
+ WHEN 6 THEN 'Friday' ELSE 'Saturday' END, 
+ DAY_OF_WEEK(D), FORMATDATETIME(D, 'MMddyyyy') 
+ from (select X, DATEADD('DAY', X - 1, DATE '2010-01-01') D from SYSTEM_RANGE(1, 33237));
+insert into DateType  values ('99999', '1889-01-01' , 0 , 'UNK', 0 , 0 , 'Unknown', 'Unknown' , 0 , 'Unknown', 0, 'Unknown');
+insert into DateType  values ('99998', '1890-01-01' , 0 , 'BLK', 0 , 0 , 'Blank', 'Blank' , 0 , 'Blank', 0, 'Blank');
+insert into Agency  values ('1', 'agencyORI', 'Agency Name', 2, 'WI', 'Wisconsin', 12345678);
+insert into Agency  values ('99998', '', 'Blank', 99998, 'NA', 'Blank', 0);
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2016 Research Triangle Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.validation;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.search.nibrs.common.NIBRSError;
+import org.search.nibrs.importer.ReportListener;
+import org.search.nibrs.model.AbstractReport;
+
+/**
+ * A ReportListener adapter that validates reports on a pool of worker threads while the importer keeps reading the submission.
+ * <br/>
+ * Each report is handed to a worker as soon as the importer has built it.  Once validated, the report is passed to the downstream
+ * listener along with its import errors followed by its validation errors (the same list a listener that called
+ * SubmissionValidator.validateReport itself would build).  The downstream listener is always called on the importer's thread, one report at
+ * a time, and in the order in which the importer produced the reports, so it does not need to be thread-safe.
+ * <br/>
+ * At most queueCapacity reports are in flight at once; when that many are outstanding the importer waits for the oldest one, so memory
+ * use does not grow with the size of the submission.  Call finish() after the importer returns to deliver the remaining reports and
+ * release the worker threads.
+ */
+public class PipelinedValidationListener implements ReportListener {
+
+	private static final Log log = LogFactory.getLog(PipelinedValidationListener.class);
+
+	private static final AtomicInteger POOL_NUMBER = new AtomicInteger(1);
+
+	private static final class PendingReport {
+
+		private final AbstractReport report;
+		private final List<NIBRSError> importErrors;
+		private final Future<List<NIBRSError>> validationErrors;
+
+		PendingReport(AbstractReport report, List<NIBRSError> importErrors, Future<List<NIBRSError>> validationErrors) {
+			this.report = report;
+			this.importErrors = importErrors;
+			this.validationErrors = validationErrors;
+		}
+
+	}
+
+	private final SubmissionValidator submissionValidator;
+	private final ReportListener downstreamListener;
+	private final int queueCapacity;
+	private final ExecutorService executor;
+	private final Deque<PendingReport> pendingReports = new ArrayDeque<>();
+
+	/**
+	 * Create a listener that allows four in-flight reports per worker.
+	 * @param submissionValidator the validator to apply to each report
+	 * @param downstreamListener the listener that receives each report and its errors
+	 * @param workerCount the number of worker threads
+	 */
+	public PipelinedValidationListener(SubmissionValidator submissionValidator, ReportListener downstreamListener, int workerCount) {
+		this(submissionValidator, downstreamListener, workerCount, workerCount * 4);
+	}
+
+	/**
+	 * Create a listener.
+	 * @param submissionValidator the validator to apply to each report
+	 * @param downstreamListener the listener that receives each report and its errors
+	 * @param workerCount the number of worker threads
+	 * @param queueCapacity the maximum number of reports that have been received but not yet passed downstream
+	 */
+	public PipelinedValidationListener(SubmissionValidator submissionValidator, ReportListener downstreamListener, int workerCount, int queueCapacity) {
+		if (workerCount < 1) {
+			throw new IllegalArgumentException("Worker count must be at least one, was " + workerCount);
+		}
+		if (queueCapacity < 1) {
+			throw new IllegalArgumentException("Queue capacity must be at least one, was " + queueCapacity);
+		}
+		this.submissionValidator = submissionValidator;
+		this.downstreamListener = downstreamListener;
+		this.queueCapacity = queueCapacity;
+		String threadNamePrefix = "nibrs-validation-" + POOL_NUMBER.getAndIncrement() + "-worker-";
+		AtomicInteger threadNumber = new AtomicInteger(1);
+		// idle workers time out, so the pool does not leak threads if the importer fails and finish() is never called
+		ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(workerCount, workerCount, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+			Thread t = new Thread(r, threadNamePrefix + threadNumber.getAndIncrement());
+			t.setDaemon(true);
+			return t;
+		});
+		threadPoolExecutor.allowCoreThreadTimeOut(true);
+		this.executor = threadPoolExecutor;
+	}
+
+	@Override
+	public void newReport(AbstractReport report, List<NIBRSError> errorList) {
+		while (!pendingReports.isEmpty() && (pendingReports.size() >= queueCapacity || pendingReports.peekFirst().validationErrors.isDone())) {
+			deliver(pendingReports.removeFirst());
+		}
+		Future<List<NIBRSError>> validationErrors = executor.submit(() -> submissionValidator.validateReport(report));
+		pendingReports.addLast(new PendingReport(report, new ArrayList<>(errorList), validationErrors));
+	}
+
+	/**
+	 * Wait for all outstanding reports to be validated and passed downstream, then stop the worker threads.  The listener cannot be used
+	 * after this method is called.
+	 */
+	public void finish() {
+		try {
+			while (!pendingReports.isEmpty()) {
+				deliver(pendingReports.removeFirst());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void deliver(PendingReport pendingReport) {
+		List<NIBRSError> errorList = pendingReport.importErrors;
+		try {
+			errorList.addAll(pendingReport.validationErrors.get());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			executor.shutdownNow();
+			throw new IllegalStateException("Interrupted while validating report " + pendingReport.report.getUniqueReportDescription(), e);
+		} catch (ExecutionException e) {
+			log.error("Unable to validate report " + pendingReport.report.getUniqueReportDescription(), e.getCause());
+			executor.shutdownNow();
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new RuntimeException(cause);
+		}
+		downstreamListener.newReport(pendingReport.report, errorList);
+	}
+
+}
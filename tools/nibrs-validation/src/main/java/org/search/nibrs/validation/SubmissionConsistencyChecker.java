@@ -0,0 +1,155 @@
+/*
+ * Copyright 2016 Research Triangle Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.validation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.search.nibrs.common.NIBRSError;
+import org.search.nibrs.model.AbstractReport;
+import org.search.nibrs.model.GroupAIncidentReport;
+import org.search.nibrs.model.codes.NIBRSErrorCode;
+import org.search.nibrs.validation.duplicate.IncidentKeySet;
+
+/**
+ * Applies the edits that compare each report in a submission with the reports before it: every report must have the same month and year of
+ * submission as the first (error 058), and an ORI from the same state (error 059), and no incident report ('I') may repeat the ORI and
+ * incident number of an earlier one (error 056).
+ * <br/>
+ * Reports are checked one at a time, in submission order.  Apart from the reference values, which are taken from the first report that has
+ * one, the checker keeps the incidents added so far in an IncidentKeySet, which holds a bounded number of them in memory and spills the rest
+ * to sorted runs on disk behind a Bloom filter, so its memory use does not grow with the submission.  Because the checker sees the reports in
+ * order, a repeated incident is always reported against its second occurrence, however the reports were validated.  A checker is not
+ * thread-safe, and is good for one submission; call reset() before reusing it, and close() to delete anything it spilled.
+ */
+public class SubmissionConsistencyChecker implements Closeable {
+
+	private static final int STATE_CODE_LENGTH = 2;
+
+	private Integer referenceMonthOfTape;
+	private Integer referenceYearOfTape;
+	private String referenceStateCode;
+	private final IncidentKeySet incidentKeys;
+
+	public SubmissionConsistencyChecker() {
+		this(new IncidentKeySet());
+	}
+
+	/**
+	 * Create a checker that keeps the incidents of the submission in the specified set, which it takes over.
+	 * @param incidentKeys an empty set
+	 */
+	public SubmissionConsistencyChecker(IncidentKeySet incidentKeys) {
+		this.incidentKeys = incidentKeys;
+	}
+
+	/**
+	 * Check the next report in the submission against the first.
+	 * @param report the report
+	 * @return the errors for the report (empty if it is consistent with the rest of the submission)
+	 */
+	public List<NIBRSError> check(AbstractReport report) {
+
+		List<NIBRSError> ret = new ArrayList<>();
+
+		Integer month = report.getMonthOfTape();
+		Integer year = report.getYearOfTape();
+		if (referenceMonthOfTape == null) {
+			referenceMonthOfTape = month;
+		}
+		if (referenceYearOfTape == null) {
+			referenceYearOfTape = year;
+		}
+		if (month != null && !month.equals(referenceMonthOfTape)) {
+			ret.add(createError(report, NIBRSErrorCode._058, "Month of Tape", month));
+		} else if (year != null && !year.equals(referenceYearOfTape)) {
+			ret.add(createError(report, NIBRSErrorCode._058, "Year of Tape", year));
+		}
+
+		String ori = report.getOri();
+		if (ori != null && ori.length() >= STATE_CODE_LENGTH) {
+			String stateCode = ori.substring(0, STATE_CODE_LENGTH);
+			if (referenceStateCode == null) {
+				referenceStateCode = stateCode;
+			} else if (!referenceStateCode.equals(stateCode)) {
+				ret.add(createError(report, NIBRSErrorCode._059, "1", ori));
+			}
+		}
+
+		if (report instanceof GroupAIncidentReport) {
+			checkDuplicateIncident((GroupAIncidentReport) report, ret);
+		}
+
+		return ret;
+
+	}
+
+	private void checkDuplicateIncident(GroupAIncidentReport report, List<NIBRSError> errorList) {
+		String incidentNumber = report.getIncidentNumber();
+		if (incidentNumber == null) {
+			return;
+		}
+		String ori = report.getOri();
+		try {
+			if (report.getReportActionType() == 'I') {
+				if (incidentKeys.contains(ori, incidentNumber)) {
+					errorList.add(createError(report, NIBRSErrorCode._056, "2", incidentNumber));
+				} else {
+					incidentKeys.add(ori, incidentNumber);
+				}
+			} else if (report.getReportActionType() == 'D' && incidentKeys.contains(ori, incidentNumber)) {
+				// a delete earlier in the submission allows the incident to be added again
+				incidentKeys.remove(ori, incidentNumber);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Forget the reference values and incidents, so the checker can be used for another submission.
+	 */
+	public void reset() {
+		referenceMonthOfTape = null;
+		referenceYearOfTape = null;
+		referenceStateCode = null;
+		close();
+	}
+
+	/**
+	 * Delete the incidents the checker has spilled to disk.  The checker forgets them, as with reset(), and may still be used.
+	 */
+	@Override
+	public void close() {
+		try {
+			incidentKeys.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static NIBRSError createError(AbstractReport report, NIBRSErrorCode code, String dataElementIdentifier, Object value) {
+		NIBRSError ret = report.getErrorTemplate();
+		ret.setNIBRSErrorCode(code);
+		ret.setDataElementIdentifier(dataElementIdentifier);
+		ret.setValue(value);
+		return ret;
+	}
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2016 Research Triangle Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.validation;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.search.nibrs.common.NIBRSError;
+import org.search.nibrs.importer.ReportListener;
+import org.search.nibrs.model.AbstractReport;
+
+/**
+ * A ReportListener adapter that applies the submission consistency edits (errors 056, 058 and 059) to reports as they stream past, appending any
+ * errors to the report's error list before passing it to the downstream listener.
+ * <br/>
+ * The edits depend on the order of the reports, so this listener must see them in submission order, on one thread at a time.  To combine it
+ * with pipelined validation, make it the downstream listener of a PipelinedValidationListener, which delivers reports in that order.  Close
+ * the listener once the submission is done, to delete any incidents the checker spilled to disk.
+ */
+public class SubmissionConsistencyListener implements ReportListener, Closeable {
+
+	private final SubmissionConsistencyChecker checker = new SubmissionConsistencyChecker();
+	private final ReportListener downstreamListener;
+
+	/**
+	 * Create a listener for one submission.
+	 * @param downstreamListener the listener that receives each report and its errors
+	 */
+	public SubmissionConsistencyListener(ReportListener downstreamListener) {
+		this.downstreamListener = downstreamListener;
+	}
+
+	@Override
+	public void newReport(AbstractReport report, List<NIBRSError> errorList) {
+		List<NIBRSError> consistencyErrors = checker.check(report);
+		if (!consistencyErrors.isEmpty()) {
+			List<NIBRSError> el = new ArrayList<>(errorList.size() + consistencyErrors.size());
+			el.addAll(errorList);
+			el.addAll(consistencyErrors);
+			errorList = el;
+		}
+		downstreamListener.newReport(report, errorList);
+	}
+
+	@Override
+	public void close() {
+		checker.close();
+	}
+
+}
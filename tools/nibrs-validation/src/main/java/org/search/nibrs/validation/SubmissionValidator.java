@@ -15,8 +15,18 @@
  */
 package org.search.nibrs.validation;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -25,9 +35,13 @@ import org.search.nibrs.model.AbstractReport;
 import org.search.nibrs.model.GroupAIncidentReport;
 import org.search.nibrs.model.GroupBArrestReport;
 import org.search.nibrs.model.NIBRSSubmission;
+import org.search.nibrs.model.VictimSegment;
 import org.search.nibrs.model.ZeroReport;
+import org.search.nibrs.model.codes.NIBRSErrorCode;
+import org.search.nibrs.validation.duplicate.IncidentKeyIndex;
 import org.search.nibrs.validation.groupa.GroupAIncidentReportValidator;
 import org.search.nibrs.validation.groupb.GroupBArrestReportValidator;
+import org.search.nibrs.validation.ori.OriRegistry;
 import org.search.nibrs.validation.zeroreport.ZeroReportValidator;
 
 /**
@@ -36,26 +50,183 @@ import org.search.nibrs.validation.zeroreport.ZeroReportValidator;
 public class SubmissionValidator {
 
 	private static final Log log = LogFactory.getLog(SubmissionValidator.class);
-
+	
+	private static final AtomicInteger POOL_NUMBER = new AtomicInteger(1);
+	private static final long WORKER_KEEP_ALIVE_SECONDS = 60;
+	
+	private final ZeroReportValidator zeroReportValidator;
+	private final GroupAIncidentReportValidator groupAValidator;
+	private final GroupBArrestReportValidator groupBValidator;
+	private volatile int parallelism = 1;
+	private ThreadPoolExecutor executor;
+	private IncidentKeyIndex incidentKeyIndex;
+	private OriRegistry oriRegistry;
+	
+	/**
+	 * Create a submission validator that applies the rules for the latest version of the spec.
+	 */
+	public SubmissionValidator() {
+		this(ValidationConstants.SPEC__LATEST);
+	}
+	
+	/**
+	 * Create a submission validator that applies the rules for the specified version of the spec.  The rules themselves
+	 * are shared with every other validator for the same spec version, so creating a validator is cheap.
+	 * @param specVersion the spec version (one of the SPEC__ constants in ValidationConstants)
+	 */
+	public SubmissionValidator(String specVersion) {
+		ValidationRuleSet ruleSet = ValidationRuleSet.forSpecVersion(specVersion);
+		zeroReportValidator = new ZeroReportValidator();
+		groupAValidator = new GroupAIncidentReportValidator(ruleSet);
+		groupBValidator = new GroupBArrestReportValidator(ruleSet);
+	}
 
 	/**
-	 * Apply edits to validate all Reports within the specified submission.
+	 * Apply edits to validate all Reports within the specified submission.  If the parallelism of this validator is greater than one,
+	 * the reports are validated concurrently; either way, the errors are returned in the order in which the reports appear in the submission.
 	 * 
 	 * @param nibrsSubmission submission containing all the reports to be validated
 	 * @return A List of all errors encountered in validating the submission
 	 */
 	public List<NIBRSError> validate(NIBRSSubmission nibrsSubmission) {
 
-		List<NIBRSError> errorList = new ArrayList<NIBRSError>();
 		List<AbstractReport> reportList = nibrsSubmission.getReports();
-
-		for (AbstractReport report : reportList) {
-			List<NIBRSError> singleReportErrorsList = validateReport(report);
-			errorList.addAll(singleReportErrorsList);
+		
+		List<List<NIBRSError>> reportErrorLists = null;
+		
+		if (parallelism > 1 && reportList.size() > 1) {
+			reportErrorLists = validateReportsInParallel(reportList);
+		} else {
+			reportErrorLists = new ArrayList<>(reportList.size());
+			for (AbstractReport report : reportList) {
+				reportErrorLists.add(validateReport(report));
+			}
 		}
 
-		return errorList;
+		return mergeReportErrors(reportList, reportErrorLists);
+		
+	}
+	
+	private List<List<NIBRSError>> validateReportsInParallel(List<AbstractReport> reportList) {
 		
+		List<List<NIBRSError>> ret = new ArrayList<>(reportList.size());
+		ThreadPoolExecutor executor = getExecutor();
+		// only a couple of reports per worker are in flight at once, so the work queued does not grow with the size of the submission
+		int maxInFlight = executor.getMaximumPoolSize() * 2;
+		Deque<Future<List<NIBRSError>>> futures = new ArrayDeque<>(maxInFlight);
+		
+		try {
+			for (AbstractReport report : reportList) {
+				if (futures.size() >= maxInFlight) {
+					ret.add(futures.removeFirst().get());
+				}
+				futures.addLast(executor.submit(() -> validateReport(report)));
+			}
+			// collect in submission order, so that the result does not depend on which worker finished first
+			while (!futures.isEmpty()) {
+				ret.add(futures.removeFirst().get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while validating submission", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new RuntimeException(cause);
+		} finally {
+			futures.forEach(future -> future.cancel(true));
+		}
+		
+		return ret;
+		
+	}
+	
+	/**
+	 * The workers that validate reports in parallel, which are created with the first parallel validation and reused by later ones.
+	 * Idle workers time out, so a validator that is no longer used does not hold on to threads.
+	 */
+	private synchronized ThreadPoolExecutor getExecutor() {
+		if (executor == null) {
+			String threadNamePrefix = "nibrs-validation-" + POOL_NUMBER.getAndIncrement() + "-worker-";
+			AtomicInteger threadNumber = new AtomicInteger(1);
+			executor = new ThreadPoolExecutor(parallelism, parallelism, WORKER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+				Thread t = new Thread(r, threadNamePrefix + threadNumber.getAndIncrement());
+				t.setDaemon(true);
+				return t;
+			});
+			executor.allowCoreThreadTimeOut(true);
+		}
+		return executor;
+	}
+	
+	/**
+	 * Merge the per-report error lists into the error list for the whole submission.  This runs on the calling thread, after all the reports
+	 * have been validated, and visits the reports in submission order; checks that span reports belong here rather than in the per-report
+	 * validators, so that the per-report phase can run concurrently.
+	 * @param reportList the reports in the submission
+	 * @param reportErrorLists the errors for each report, in the same order as reportList
+	 * @return the errors for the submission
+	 */
+	protected List<NIBRSError> mergeReportErrors(List<AbstractReport> reportList, List<List<NIBRSError>> reportErrorLists) {
+		List<NIBRSError> errorList = new ArrayList<NIBRSError>();
+		try (SubmissionConsistencyChecker consistencyChecker = new SubmissionConsistencyChecker()) {
+			for (int i = 0; i < reportList.size(); i++) {
+				errorList.addAll(reportErrorLists.get(i));
+				errorList.addAll(consistencyChecker.check(reportList.get(i)));
+			}
+		}
+		return errorList;
+	}
+	
+	/**
+	 * The number of worker threads used to validate the reports in a submission.  A value of one (the default) validates reports serially on the calling thread.
+	 * The workers are shared by every submission that this validator validates.
+	 * @return the parallelism
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	public synchronized void setParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be at least one, was " + parallelism);
+		}
+		if (executor != null && parallelism != this.parallelism) {
+			// validations already running keep the old workers until they finish
+			executor.shutdown();
+			executor = null;
+		}
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * The index of incidents accepted in earlier submissions, against which incident reports are checked for duplicates (error 056).  If null
+	 * (the default), that check is not made.  The index is only queried here.  Incidents repeated within a submission are found by
+	 * SubmissionConsistencyChecker, whether or not an index is set; the caller should record the reports it accepts only once the whole
+	 * submission has been validated (see PendingIncidentKeys), so that no report is checked against its own submission.
+	 * @return the index
+	 */
+	public IncidentKeyIndex getIncidentKeyIndex() {
+		return incidentKeyIndex;
+	}
+
+	public void setIncidentKeyIndex(IncidentKeyIndex incidentKeyIndex) {
+		this.incidentKeyIndex = incidentKeyIndex;
+	}
+
+	/**
+	 * The registry of valid ORIs, against which report ORIs and officer other-jurisdiction ORIs are checked (error 052).  If null (the default),
+	 * that check is not made.
+	 * @return the registry
+	 */
+	public OriRegistry getOriRegistry() {
+		return oriRegistry;
+	}
+
+	public void setOriRegistry(OriRegistry oriRegistry) {
+		this.oriRegistry = oriRegistry;
 	}
 
 	/**
@@ -71,22 +242,67 @@ public class SubmissionValidator {
 
 		if (report instanceof ZeroReport) {
 			ZeroReport zeroReport = (ZeroReport) report;
-			ZeroReportValidator zeroReportValidator = new ZeroReportValidator();
 			nibrsErrorList = zeroReportValidator.validate(zeroReport);
 		} else if (report instanceof GroupAIncidentReport) {
 			GroupAIncidentReport groupAIncidentReport = (GroupAIncidentReport) report;
-			GroupAIncidentReportValidator groupAValidator = new GroupAIncidentReportValidator();
 			nibrsErrorList = groupAValidator.validate(groupAIncidentReport);
+			NIBRSError duplicateIncidentError = checkDuplicateIncident(groupAIncidentReport);
+			if (duplicateIncidentError != null) {
+				nibrsErrorList.add(duplicateIncidentError);
+			}
 		} else if (report instanceof GroupBArrestReport) {
 			GroupBArrestReport groupBIncidentReport = (GroupBArrestReport) report;
-			GroupBArrestReportValidator groupBValidator = new GroupBArrestReportValidator();
 			nibrsErrorList = groupBValidator.validate(groupBIncidentReport);
 		}
 
+		if (oriRegistry != null) {
+			checkOris(report, nibrsErrorList);
+		}
+
 		log.info("Found " + nibrsErrorList.size() + " errors");
 
 		return nibrsErrorList;
 		
 	}
 
+	private void checkOris(AbstractReport report, List<NIBRSError> nibrsErrorList) {
+		String ori = report.getOri();
+		if (ori != null && !ori.trim().isEmpty() && !oriRegistry.contains(ori)) {
+			NIBRSError e = report.getErrorTemplate();
+			e.setNIBRSErrorCode(NIBRSErrorCode._052);
+			e.setDataElementIdentifier("1");
+			e.setValue(ori);
+			nibrsErrorList.add(e);
+		}
+		if (report instanceof GroupAIncidentReport) {
+			for (VictimSegment victim : ((GroupAIncidentReport) report).getVictims()) {
+				String officerOri = victim.getOfficerOtherJurisdictionORI();
+				if (officerOri != null && !officerOri.trim().isEmpty() && !oriRegistry.contains(officerOri)) {
+					NIBRSError e = victim.getErrorTemplate();
+					e.setNIBRSErrorCode(NIBRSErrorCode._052);
+					e.setDataElementIdentifier("25C");
+					e.setValue(officerOri);
+					nibrsErrorList.add(e);
+				}
+			}
+		}
+	}
+
+	private NIBRSError checkDuplicateIncident(GroupAIncidentReport report) {
+		NIBRSError ret = null;
+		if (incidentKeyIndex != null && report.getReportActionType() == 'I') {
+			try {
+				if (incidentKeyIndex.contains(report.getOri(), report.getIncidentNumber())) {
+					ret = report.getErrorTemplate();
+					ret.setNIBRSErrorCode(NIBRSErrorCode._056);
+					ret.setDataElementIdentifier("2");
+					ret.setValue(report.getIncidentNumber());
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException("Unable to check for duplicate incident " + report.getUniqueReportDescription(), e);
+			}
+		}
+		return ret;
+	}
+
 }
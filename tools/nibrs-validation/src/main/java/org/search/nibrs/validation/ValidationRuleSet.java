@@ -0,0 +1,145 @@
+/*
+ * Copyright 2016 Research Triangle Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.validation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.search.nibrs.model.ArresteeSegment;
+import org.search.nibrs.model.GroupAIncidentReport;
+import org.search.nibrs.model.GroupBArrestReport;
+import org.search.nibrs.model.OffenderSegment;
+import org.search.nibrs.model.OffenseSegment;
+import org.search.nibrs.model.PropertySegment;
+import org.search.nibrs.model.VictimSegment;
+import org.search.nibrs.validation.groupa.GroupAIncidentReportRulesFactory;
+import org.search.nibrs.validation.groupa.OffenderSegmentRulesFactory;
+import org.search.nibrs.validation.groupa.OffenseSegmentRulesFactory;
+import org.search.nibrs.validation.groupa.PropertySegmentRulesFactory;
+import org.search.nibrs.validation.groupa.VictimSegmentRulesFactory;
+import org.search.nibrs.validation.groupb.GroupBArrestReportRulesFactory;
+import org.search.nibrs.validation.rules.Rule;
+
+/**
+ * Registry of the compiled rule lists for a single version of the NIBRS spec.  Building the rules is expensive (every bean
+ * property rule introspects its subject class), so each spec version's rule set is built once, on first use, and then shared
+ * by every validator.  Instances are immutable and safe to use from multiple threads.
+ */
+public final class ValidationRuleSet {
+
+	private static final Logger LOG = LogManager.getLogger(ValidationRuleSet.class);
+
+	private static final Map<String, ValidationRuleSet> RULE_SETS = new ConcurrentHashMap<>();
+
+	private final String specVersion;
+	private final List<Rule<GroupAIncidentReport>> incidentReportRules;
+	private final List<Rule<OffenseSegment>> offenseSegmentRules;
+	private final List<Rule<PropertySegment>> propertySegmentRules;
+	private final List<Rule<VictimSegment>> victimSegmentRules;
+	private final List<Rule<OffenderSegment>> offenderSegmentRules;
+	private final List<Rule<ArresteeSegment>> groupAArresteeSegmentRules;
+	private final List<Rule<GroupBArrestReport>> arrestReportRules;
+	private final List<Rule<ArresteeSegment>> groupBArresteeSegmentRules;
+
+	/**
+	 * Get the shared rule set for the latest version of the spec.
+	 * @return the rule set
+	 */
+	public static ValidationRuleSet latest() {
+		return forSpecVersion(ValidationConstants.SPEC__LATEST);
+	}
+
+	/**
+	 * Get the shared rule set for the specified version of the spec, building it if this is the first request for that version.
+	 * @param specVersion the spec version (one of the SPEC__ constants in ValidationConstants)
+	 * @return the rule set
+	 * @throws IllegalArgumentException if the spec version is not supported
+	 */
+	public static ValidationRuleSet forSpecVersion(String specVersion) {
+		if (!(ValidationConstants.SPEC__2_1.equals(specVersion) || ValidationConstants.SPEC__3_1.equals(specVersion))) {
+			throw new IllegalArgumentException("Invalid spec version: " + specVersion);
+		}
+		ValidationRuleSet ret = RULE_SETS.get(specVersion);
+		if (ret == null) {
+			ret = RULE_SETS.computeIfAbsent(specVersion, ValidationRuleSet::new);
+		}
+		return ret;
+	}
+
+	private ValidationRuleSet(String specVersion) {
+
+		LOG.debug("Building validation rule set for spec version " + specVersion);
+
+		this.specVersion = specVersion;
+
+		incidentReportRules = immutableCopy(new GroupAIncidentReportRulesFactory().getRulesList());
+		offenseSegmentRules = immutableCopy(new OffenseSegmentRulesFactory().getRulesList());
+		propertySegmentRules = immutableCopy(new PropertySegmentRulesFactory().getRulesList());
+		victimSegmentRules = immutableCopy(VictimSegmentRulesFactory.instance().getRulesList(specVersion));
+		offenderSegmentRules = immutableCopy(OffenderSegmentRulesFactory.instance().getRulesList(specVersion));
+		groupAArresteeSegmentRules = immutableCopy(ArresteeSegmentRulesFactory.instance(ArresteeSegmentRulesFactory.GROUP_A_ARRESTEE_MODE).getRulesList());
+
+		arrestReportRules = immutableCopy(new GroupBArrestReportRulesFactory().getRulesList());
+		groupBArresteeSegmentRules = immutableCopy(ArresteeSegmentRulesFactory.instance(ArresteeSegmentRulesFactory.GROUP_B_ARRESTEE_MODE).getRulesList());
+
+	}
+
+	private static <T> List<T> immutableCopy(List<T> list) {
+		return Collections.unmodifiableList(new ArrayList<>(list));
+	}
+
+	public String getSpecVersion() {
+		return specVersion;
+	}
+
+	public List<Rule<GroupAIncidentReport>> getIncidentReportRules() {
+		return incidentReportRules;
+	}
+
+	public List<Rule<OffenseSegment>> getOffenseSegmentRules() {
+		return offenseSegmentRules;
+	}
+
+	public List<Rule<PropertySegment>> getPropertySegmentRules() {
+		return propertySegmentRules;
+	}
+
+	public List<Rule<VictimSegment>> getVictimSegmentRules() {
+		return victimSegmentRules;
+	}
+
+	public List<Rule<OffenderSegment>> getOffenderSegmentRules() {
+		return offenderSegmentRules;
+	}
+
+	public List<Rule<ArresteeSegment>> getGroupAArresteeSegmentRules() {
+		return groupAArresteeSegmentRules;
+	}
+
+	public List<Rule<GroupBArrestReport>> getArrestReportRules() {
+		return arrestReportRules;
+	}
+
+	public List<Rule<ArresteeSegment>> getGroupBArresteeSegmentRules() {
+		return groupBArresteeSegmentRules;
+	}
+
+}
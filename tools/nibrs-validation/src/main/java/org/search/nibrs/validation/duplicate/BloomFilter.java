@@ -0,0 +1,132 @@
+/*
+ * Copyright 2016 Research Triangle Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.validation.duplicate;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Bloom filter over fixed-width byte keys.  Bits are set with compare-and-set, so keys may be added while other threads query the filter.
+ */
+class BloomFilter {
+
+	private static final int FILE_VERSION = 1;
+
+	private final AtomicLongArray bits;
+	private final long bitCount;
+	private final int hashCount;
+
+	/**
+	 * Create an empty filter sized for the specified number of keys.
+	 * @param expectedKeyCount the number of keys the filter should hold
+	 * @param falsePositiveProbability the false-positive rate once the filter holds that many keys
+	 */
+	BloomFilter(long expectedKeyCount, double falsePositiveProbability) {
+		long n = Math.max(expectedKeyCount, 1);
+		long m = (long) Math.ceil(-n * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+		m = Math.min(Math.max(m, 64), (long) Integer.MAX_VALUE * 64);
+		this.bits = new AtomicLongArray((int) ((m + 63) / 64));
+		this.bitCount = bits.length() * 64L;
+		this.hashCount = Math.max(1, Math.min(30, (int) Math.round((double) bitCount / n * Math.log(2))));
+	}
+
+	private BloomFilter(AtomicLongArray bits, int hashCount) {
+		this.bits = bits;
+		this.bitCount = bits.length() * 64L;
+		this.hashCount = hashCount;
+	}
+
+	void add(byte[] key) {
+		long h1 = hash(key);
+		long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+		for (int i = 0; i < hashCount; i++) {
+			long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bitCount;
+			int word = (int) (bit >>> 6);
+			long mask = 1L << bit;
+			long current = bits.get(word);
+			while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+				current = bits.get(word);
+			}
+		}
+	}
+
+	/**
+	 * Whether the specified key might have been added.  A false return means the key has definitely not been added.
+	 */
+	boolean mightContain(byte[] key) {
+		long h1 = hash(key);
+		long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+		for (int i = 0; i < hashCount; i++) {
+			long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bitCount;
+			if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	long getBitCount() {
+		return bitCount;
+	}
+
+	void write(DataOutputStream out) throws IOException {
+		out.writeInt(FILE_VERSION);
+		out.writeInt(hashCount);
+		out.writeInt(bits.length());
+		for (int i = 0; i < bits.length(); i++) {
+			out.writeLong(bits.get(i));
+		}
+	}
+
+	static BloomFilter read(DataInputStream in) throws IOException {
+		int version = in.readInt();
+		if (version != FILE_VERSION) {
+			throw new IOException("Unsupported bloom filter file version " + version);
+		}
+		int hashCount = in.readInt();
+		int wordCount = in.readInt();
+		if (hashCount < 1 || wordCount < 1) {
+			throw new IOException("Corrupt bloom filter file");
+		}
+		AtomicLongArray bits = new AtomicLongArray(wordCount);
+		for (int i = 0; i < wordCount; i++) {
+			bits.set(i, in.readLong());
+		}
+		return new BloomFilter(bits, hashCount);
+	}
+
+	private static long hash(byte[] key) {
+		// FNV-1a, then a finalizer to spread the low-entropy ASCII keys across all 64 bits
+		long h = 0xCBF29CE484222325L;
+		for (byte b : key) {
+			h ^= b & 0xFF;
+			h *= 0x100000001B3L;
+		}
+		return mix(h);
+	}
+
+	private static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		h *= 0xC4CEB93FE1A85EC9L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+}
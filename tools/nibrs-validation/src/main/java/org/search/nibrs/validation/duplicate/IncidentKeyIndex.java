@@ -0,0 +1,485 @@
+/*
+ * Copyright 2016 Research Triangle Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.validation.duplicate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.search.nibrs.model.AbstractReport;
+import org.search.nibrs.model.GroupAIncidentReport;
+
+/**
+ * A persistent index of the incidents (ORI plus incident number) that have been accepted in earlier submissions, used to detect duplicate
+ * incidents (error 056).
+ * <br/>
+ * The index is sized for a history of tens of millions of incidents, so very little of it is kept in memory.  A Bloom filter answers most
+ * queries for new incidents without touching the disk.  The keys themselves are kept in sorted run files in the index directory, and
+ * keys added since the last flush are held in memory until the next one.  Each flush writes a new run, then merges it with its older
+ * neighbours while they are no more than twice its size, which keeps the number of runs logarithmic in the number of keys.
+ * <br/>
+ * Queries may be made from any number of threads, including while keys are being added or the index is being flushed.  Keys should be
+ * added and removed from one thread at a time, normally as each submission is accepted, followed by a call to flush() to make them durable.
+ * Only one index object (in one process) may have a directory open at a time.
+ */
+public class IncidentKeyIndex implements Closeable {
+
+	private static final Log log = LogFactory.getLog(IncidentKeyIndex.class);
+
+	static final int ORI_WIDTH = 9;
+	static final int INCIDENT_NUMBER_WIDTH = 12;
+
+	public static final long DEFAULT_EXPECTED_KEY_COUNT = 50_000_000L;
+	public static final double DEFAULT_FALSE_POSITIVE_PROBABILITY = 0.01;
+
+	private static final String BLOOM_FILTER_FILE_NAME = "keys.bloom";
+	private static final String LOCK_FILE_NAME = "index.lock";
+	private static final String STAGING_DIRECTORY_NAME = "pending";
+
+	private static final class State {
+
+		private final ConcurrentSkipListMap<String, Boolean> pendingKeys;
+		private final List<KeyRun> runs;
+
+		State(ConcurrentSkipListMap<String, Boolean> pendingKeys, List<KeyRun> runs) {
+			this.pendingKeys = pendingKeys;
+			this.runs = runs;
+		}
+
+	}
+
+	private final Path directory;
+	private final FileChannel lockChannel;
+	private final FileLock lock;
+	private final BloomFilter bloomFilter;
+	private final ReadWriteLock runLock = new ReentrantReadWriteLock();
+	private final Object writeLock = new Object();
+
+	private volatile State state;
+	private long nextGeneration;
+	private int flushThreshold = 1_000_000;
+	private boolean closed;
+
+	/**
+	 * Open (or create) the index in the specified directory, with a Bloom filter sized for the default number of keys.
+	 * @param directory the index directory
+	 */
+	public IncidentKeyIndex(Path directory) throws IOException {
+		this(directory, DEFAULT_EXPECTED_KEY_COUNT, DEFAULT_FALSE_POSITIVE_PROBABILITY);
+	}
+
+	/**
+	 * Open (or create) the index in the specified directory.  The Bloom filter sizing only applies when the filter is (re)built; an index whose
+	 * existing filter is current keeps it.
+	 * @param directory the index directory
+	 * @param expectedKeyCount the number of keys the Bloom filter should be sized for (it is sized for at least twice the keys already in the index)
+	 * @param falsePositiveProbability the Bloom filter false-positive rate at that number of keys
+	 */
+	public IncidentKeyIndex(Path directory, long expectedKeyCount, double falsePositiveProbability) throws IOException {
+		if (expectedKeyCount < 1) {
+			throw new IllegalArgumentException("Expected key count must be at least one, was " + expectedKeyCount);
+		}
+		if (!(falsePositiveProbability > 0 && falsePositiveProbability < 1)) {
+			throw new IllegalArgumentException("False positive probability must be between zero and one, was " + falsePositiveProbability);
+		}
+		this.directory = Files.createDirectories(directory);
+		this.lockChannel = FileChannel.open(directory.resolve(LOCK_FILE_NAME), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		FileLock fileLock = null;
+		try {
+			fileLock = lockChannel.tryLock();
+		} catch (OverlappingFileLockException e) {
+			// already open in this process
+		} finally {
+			if (fileLock == null) {
+				lockChannel.close();
+			}
+		}
+		if (fileLock == null) {
+			throw new IOException("Incident key index " + directory + " is already open");
+		}
+		this.lock = fileLock;
+		try {
+			// staged by submissions that were never committed or rolled back
+			IncidentKeySet.deleteDirectory(directory.resolve(STAGING_DIRECTORY_NAME));
+			List<KeyRun> runs = openRuns();
+			this.nextGeneration = runs.isEmpty() ? 1 : runs.get(0).getLastGeneration() + 1;
+			this.state = new State(new ConcurrentSkipListMap<>(), runs);
+			this.bloomFilter = loadBloomFilter(runs, expectedKeyCount, falsePositiveProbability);
+		} catch (IOException | RuntimeException e) {
+			releaseLock();
+			throw e;
+		}
+	}
+
+	/**
+	 * Whether the specified incident has been added to the index (and not since removed).
+	 * @param ori the ORI
+	 * @param incidentNumber the incident number
+	 */
+	public boolean contains(String ori, String incidentNumber) throws IOException {
+		String key = key(ori, incidentNumber);
+		if (key == null) {
+			return false;
+		}
+		byte[] keyBytes = key.getBytes(StandardCharsets.US_ASCII);
+		if (!bloomFilter.mightContain(keyBytes)) {
+			return false;
+		}
+		runLock.readLock().lock();
+		try {
+			State s = state;
+			Boolean pending = s.pendingKeys.get(key);
+			if (pending != null) {
+				return pending;
+			}
+			for (KeyRun run : s.runs) {
+				Boolean found = run.lookup(keyBytes);
+				if (found != null) {
+					return found;
+				}
+			}
+			return false;
+		} finally {
+			runLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Add an incident to the index.  The addition is visible to queries immediately, and durable once the index is flushed.
+	 * @param ori the ORI
+	 * @param incidentNumber the incident number
+	 * @return whether the incident was not already in the index
+	 */
+	public boolean add(String ori, String incidentNumber) throws IOException {
+		String key = key(ori, incidentNumber);
+		if (key == null) {
+			log.warn("Not indexing incident with invalid ORI/incident number " + ori + "/" + incidentNumber);
+			return false;
+		}
+		synchronized (writeLock) {
+			checkOpen();
+			boolean ret = !contains(ori, incidentNumber);
+			bloomFilter.add(key.getBytes(StandardCharsets.US_ASCII));
+			state.pendingKeys.put(key, Boolean.TRUE);
+			flushIfFull();
+			return ret;
+		}
+	}
+
+	/**
+	 * Remove an incident from the index, so that it may be submitted again.
+	 * @param ori the ORI
+	 * @param incidentNumber the incident number
+	 * @return whether the incident was in the index
+	 */
+	public boolean remove(String ori, String incidentNumber) throws IOException {
+		String key = key(ori, incidentNumber);
+		if (key == null) {
+			return false;
+		}
+		synchronized (writeLock) {
+			checkOpen();
+			boolean ret = contains(ori, incidentNumber);
+			if (ret) {
+				// the bloom filter cannot forget the key, so a later query for it costs a lookup in the runs
+				state.pendingKeys.put(key, Boolean.FALSE);
+				flushIfFull();
+			}
+			return ret;
+		}
+	}
+
+	/**
+	 * Update the index for a report that has been accepted: an incident report ('I') adds its incident, and a delete ('D') removes it.  Other
+	 * reports and action types leave the index unchanged.  While a submission is being validated against the index, use PendingIncidentKeys to
+	 * hold its accepted reports back until it is complete.
+	 * @param report the accepted report
+	 */
+	public void recordAcceptedReport(AbstractReport report) throws IOException {
+		if (report instanceof GroupAIncidentReport) {
+			GroupAIncidentReport groupAIncidentReport = (GroupAIncidentReport) report;
+			if (report.getReportActionType() == 'I') {
+				add(report.getOri(), groupAIncidentReport.getIncidentNumber());
+			} else if (report.getReportActionType() == 'D') {
+				remove(report.getOri(), groupAIncidentReport.getIncidentNumber());
+			}
+		}
+	}
+
+	/**
+	 * Flush the index, then make the specified run, staged in getStagingDirectory(), the newest run of the index.  Its added keys are added and
+	 * its removed keys removed, all in one step.
+	 * @param stagedRun the run, which the index takes over
+	 */
+	void addRun(KeyRun stagedRun) throws IOException {
+		synchronized (writeLock) {
+			flush();
+			KeyRun run = stagedRun.moveTo(directory, nextGeneration++);
+			// the filter must know the keys before any query can find the run
+			run.addKeysTo(bloomFilter);
+			List<KeyRun> runs = new ArrayList<>(state.runs.size() + 1);
+			runs.add(run);
+			runs.addAll(state.runs);
+			setState(new State(state.pendingKeys, Collections.unmodifiableList(runs)), Collections.emptyList());
+			mergeRuns();
+			writeBloomFilter();
+		}
+	}
+
+	/**
+	 * The directory in which to stage runs for addRun().  It is on the same file system as the index, and emptied when the index is opened.
+	 */
+	Path getStagingDirectory() throws IOException {
+		return Files.createDirectories(directory.resolve(STAGING_DIRECTORY_NAME));
+	}
+
+	/**
+	 * Write the keys added or removed since the last flush to disk, along with the Bloom filter.
+	 */
+	public void flush() throws IOException {
+		synchronized (writeLock) {
+			checkOpen();
+			State s = state;
+			if (s.pendingKeys.isEmpty()) {
+				return;
+			}
+			KeyRun run = KeyRun.write(directory, nextGeneration++, s.pendingKeys.entrySet().iterator());
+			List<KeyRun> runs = new ArrayList<>(s.runs.size() + 1);
+			runs.add(run);
+			runs.addAll(s.runs);
+			setState(new State(new ConcurrentSkipListMap<>(), Collections.unmodifiableList(runs)), Collections.emptyList());
+			mergeRuns();
+			writeBloomFilter();
+		}
+	}
+
+	/**
+	 * Flush the index and release its directory.
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (writeLock) {
+			if (closed) {
+				return;
+			}
+			try {
+				flush();
+			} finally {
+				closed = true;
+				runLock.writeLock().lock();
+				try {
+					for (KeyRun run : state.runs) {
+						run.close();
+					}
+				} finally {
+					runLock.writeLock().unlock();
+					releaseLock();
+				}
+			}
+		}
+	}
+
+	/**
+	 * The number of pending keys at which add() and remove() flush the index themselves.
+	 */
+	public int getFlushThreshold() {
+		return flushThreshold;
+	}
+
+	public void setFlushThreshold(int flushThreshold) {
+		if (flushThreshold < 1) {
+			throw new IllegalArgumentException("Flush threshold must be at least one, was " + flushThreshold);
+		}
+		this.flushThreshold = flushThreshold;
+	}
+
+	int getRunCount() {
+		return state.runs.size();
+	}
+
+	/**
+	 * The fixed-width key for an incident, or null if the ORI or incident number is missing, too long or not printable ASCII.
+	 */
+	static String key(String ori, String incidentNumber) {
+		String o = ori == null ? null : ori.trim();
+		String n = incidentNumber == null ? null : incidentNumber.trim();
+		if (o == null || n == null || o.isEmpty() || n.isEmpty() || o.length() > ORI_WIDTH || n.length() > INCIDENT_NUMBER_WIDTH) {
+			return null;
+		}
+		StringBuilder sb = new StringBuilder(ORI_WIDTH + INCIDENT_NUMBER_WIDTH);
+		appendPadded(sb, o, ORI_WIDTH);
+		appendPadded(sb, n, INCIDENT_NUMBER_WIDTH);
+		for (int i = 0; i < sb.length(); i++) {
+			char c = sb.charAt(i);
+			if (c < ' ' || c > '~') {
+				return null;
+			}
+		}
+		return sb.toString();
+	}
+
+	private static void appendPadded(StringBuilder sb, String s, int width) {
+		sb.append(s);
+		for (int i = s.length(); i < width; i++) {
+			sb.append(' ');
+		}
+	}
+
+	private void flushIfFull() throws IOException {
+		if (state.pendingKeys.size() >= flushThreshold) {
+			flush();
+		}
+	}
+
+	private void checkOpen() {
+		if (closed) {
+			throw new IllegalStateException("Incident key index " + directory + " has been closed");
+		}
+	}
+
+	private void mergeRuns() throws IOException {
+		List<KeyRun> runs = state.runs;
+		long mergedRecordCount = runs.get(0).getRecordCount();
+		int mergeCount = 1;
+		while (mergeCount < runs.size() && runs.get(mergeCount).getRecordCount() <= 2 * mergedRecordCount) {
+			mergedRecordCount += runs.get(mergeCount).getRecordCount();
+			mergeCount++;
+		}
+		if (mergeCount > 1) {
+			List<KeyRun> mergedRuns = runs.subList(0, mergeCount);
+			KeyRun merged = KeyRun.merge(directory, mergedRuns, mergeCount == runs.size());
+			log.debug("Merged incident key index runs " + mergedRuns + " into " + merged);
+			List<KeyRun> newRuns = new ArrayList<>(runs.size() - mergeCount + 1);
+			newRuns.add(merged);
+			newRuns.addAll(runs.subList(mergeCount, runs.size()));
+			setState(new State(state.pendingKeys, Collections.unmodifiableList(newRuns)), new ArrayList<>(mergedRuns));
+		}
+	}
+
+	private void setState(State newState, List<KeyRun> obsoleteRuns) throws IOException {
+		runLock.writeLock().lock();
+		try {
+			state = newState;
+			for (KeyRun run : obsoleteRuns) {
+				run.delete();
+			}
+		} finally {
+			runLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Open the runs in the index directory, newest first.  Runs left behind by a merge that was interrupted before they could be deleted
+	 * are deleted now.
+	 */
+	private List<KeyRun> openRuns() throws IOException {
+		List<KeyRun> runs = new ArrayList<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+			for (Path file : files) {
+				String fileName = file.getFileName().toString();
+				if (fileName.endsWith(".tmp")) {
+					Files.delete(file);
+				} else if (KeyRun.isRunFileName(fileName)) {
+					runs.add(KeyRun.open(file));
+				}
+			}
+		}
+		List<KeyRun> ret = new ArrayList<>(runs.size());
+		for (KeyRun run : runs) {
+			boolean obsolete = false;
+			for (KeyRun other : runs) {
+				obsolete |= other.covers(run);
+			}
+			if (obsolete) {
+				log.info("Deleting incident key index run " + run + ", which was merged into a later run");
+				run.delete();
+			} else {
+				ret.add(run);
+			}
+		}
+		ret.sort((r1, r2) -> Long.compare(r2.getLastGeneration(), r1.getLastGeneration()));
+		return Collections.unmodifiableList(ret);
+	}
+
+	/**
+	 * Load the saved Bloom filter if it is current (was written after the newest run), otherwise build it from the runs.
+	 */
+	private BloomFilter loadBloomFilter(List<KeyRun> runs, long expectedKeyCount, double falsePositiveProbability) throws IOException {
+		long lastGeneration = runs.isEmpty() ? 0 : runs.get(0).getLastGeneration();
+		Path file = directory.resolve(BLOOM_FILTER_FILE_NAME);
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+			if (in.readLong() == lastGeneration) {
+				return BloomFilter.read(in);
+			}
+		} catch (NoSuchFileException e) {
+			// a new index, or one whose filter was never written
+		} catch (IOException e) {
+			log.warn("Unable to read incident key index bloom filter " + file + ", rebuilding it", e);
+		}
+		long recordCount = 0;
+		for (KeyRun run : runs) {
+			recordCount += run.getRecordCount();
+		}
+		BloomFilter ret = new BloomFilter(Math.max(expectedKeyCount, 2 * recordCount), falsePositiveProbability);
+		if (!runs.isEmpty()) {
+			log.info("Building incident key index bloom filter from " + recordCount + " keys");
+			for (KeyRun run : runs) {
+				run.addKeysTo(ret);
+			}
+		}
+		return ret;
+	}
+
+	private void writeBloomFilter() throws IOException {
+		Path file = directory.resolve(BLOOM_FILTER_FILE_NAME);
+		Path temp = directory.resolve(BLOOM_FILTER_FILE_NAME + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+			out.writeLong(state.runs.get(0).getLastGeneration());
+			bloomFilter.write(out);
+		}
+		Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private void releaseLock() throws IOException {
+		try {
+			lock.release();
+		} finally {
+			lockChannel.close();
+		}
+	}
+
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2016 Research Triangle Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.validation.duplicate;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The incidents (ORI plus incident number) added to and removed from one submission so far, held in a bounded amount of memory however long
+ * the submission is.
+ * <br/>
+ * Up to a fixed number of keys are kept in memory.  When that fills, they are spilled to a sorted run (the same KeyRun files that
+ * IncidentKeyIndex keeps) in a scratch directory, and runs are merged with their older neighbours while they are no more than twice the size
+ * of the newest, as in the index.  Once a set has spilled, a Bloom filter of fixed size is put in front of the runs, so only keys that hit it
+ * are looked up on disk.  A set that never fills its memory never touches the disk.
+ * <br/>
+ * Instances are not thread-safe.  Close a set to delete its scratch directory.
+ */
+public class IncidentKeySet implements Closeable {
+
+	public static final int DEFAULT_MEMORY_KEY_LIMIT = 65_536;
+	public static final long DEFAULT_EXPECTED_KEY_COUNT = 1_000_000L;
+
+	private static final String DIRECTORY_PREFIX = "incident-keys-";
+
+	private final Path parentDirectory;
+	private final int memoryKeyLimit;
+	private final long expectedKeyCount;
+	private final double falsePositiveProbability;
+
+	private TreeMap<String, Boolean> memoryKeys = new TreeMap<>();
+	private final List<KeyRun> runs = new ArrayList<>();
+	private BloomFilter bloomFilter;
+	private Path directory;
+	private long nextGeneration = 1;
+
+	/**
+	 * Create an empty set that spills to the default temporary-file directory.
+	 */
+	public IncidentKeySet() {
+		this(null, DEFAULT_MEMORY_KEY_LIMIT, DEFAULT_EXPECTED_KEY_COUNT, IncidentKeyIndex.DEFAULT_FALSE_POSITIVE_PROBABILITY);
+	}
+
+	/**
+	 * Create an empty set.
+	 * @param parentDirectory the directory in which to create the scratch directory, or null for the default temporary-file directory
+	 * @param memoryKeyLimit the number of keys kept in memory before they are spilled to disk
+	 * @param expectedKeyCount the number of keys the Bloom filter should be sized for (a longer submission only costs more lookups)
+	 * @param falsePositiveProbability the Bloom filter false-positive rate at that number of keys
+	 */
+	public IncidentKeySet(Path parentDirectory, int memoryKeyLimit, long expectedKeyCount, double falsePositiveProbability) {
+		if (memoryKeyLimit < 1) {
+			throw new IllegalArgumentException("Memory key limit must be at least one, was " + memoryKeyLimit);
+		}
+		if (expectedKeyCount < 1) {
+			throw new IllegalArgumentException("Expected key count must be at least one, was " + expectedKeyCount);
+		}
+		if (!(falsePositiveProbability > 0 && falsePositiveProbability < 1)) {
+			throw new IllegalArgumentException("False positive probability must be between zero and one, was " + falsePositiveProbability);
+		}
+		this.parentDirectory = parentDirectory;
+		this.memoryKeyLimit = memoryKeyLimit;
+		this.expectedKeyCount = expectedKeyCount;
+		this.falsePositiveProbability = falsePositiveProbability;
+	}
+
+	/**
+	 * Whether the specified incident has been added to the set (and not since removed).  An incident whose ORI or incident number is missing,
+	 * too long or not printable ASCII is never in the set.
+	 * @param ori the ORI
+	 * @param incidentNumber the incident number
+	 */
+	public boolean contains(String ori, String incidentNumber) throws IOException {
+		String key = IncidentKeyIndex.key(ori, incidentNumber);
+		if (key == null) {
+			return false;
+		}
+		Boolean found = memoryKeys.get(key);
+		if (found != null) {
+			return found;
+		}
+		byte[] keyBytes = key.getBytes(StandardCharsets.US_ASCII);
+		if (bloomFilter == null || !bloomFilter.mightContain(keyBytes)) {
+			return false;
+		}
+		for (KeyRun run : runs) {
+			found = run.lookup(keyBytes);
+			if (found != null) {
+				return found;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Add an incident to the set.
+	 * @param ori the ORI
+	 * @param incidentNumber the incident number
+	 * @return whether the incident could be added (false if its ORI or incident number is invalid)
+	 */
+	public boolean add(String ori, String incidentNumber) throws IOException {
+		return record(IncidentKeyIndex.key(ori, incidentNumber), Boolean.TRUE);
+	}
+
+	/**
+	 * Record that an incident has been removed.  The removal is kept, rather than the key simply being forgotten, so that a run made from the
+	 * set can remove the incident from an IncidentKeyIndex.
+	 * @param ori the ORI
+	 * @param incidentNumber the incident number
+	 * @return whether the removal could be recorded (false if the ORI or incident number is invalid)
+	 */
+	public boolean remove(String ori, String incidentNumber) throws IOException {
+		return record(IncidentKeyIndex.key(ori, incidentNumber), Boolean.FALSE);
+	}
+
+	/**
+	 * Write everything in the set to a single run, which the caller takes over (the set no longer refers to it, and closing the set does not
+	 * delete it).  The set is empty afterwards.
+	 */
+	KeyRun toRun() throws IOException {
+		if (!memoryKeys.isEmpty() || runs.isEmpty()) {
+			spill();
+		}
+		if (runs.size() > 1) {
+			mergeRuns(runs.size());
+		}
+		KeyRun ret = runs.remove(0);
+		bloomFilter = null;
+		return ret;
+	}
+
+	/**
+	 * Delete the runs and the scratch directory.  The set is empty afterwards, and may be used again.
+	 */
+	@Override
+	public void close() throws IOException {
+		memoryKeys = new TreeMap<>();
+		bloomFilter = null;
+		try {
+			for (KeyRun run : runs) {
+				run.delete();
+			}
+		} finally {
+			runs.clear();
+			if (directory != null) {
+				deleteDirectory(directory);
+				directory = null;
+			}
+		}
+	}
+
+	/**
+	 * Delete a directory and everything in it, if it exists.
+	 */
+	static void deleteDirectory(Path directory) throws IOException {
+		if (!Files.isDirectory(directory)) {
+			return;
+		}
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+			for (Path file : files) {
+				if (Files.isDirectory(file)) {
+					deleteDirectory(file);
+				} else {
+					Files.deleteIfExists(file);
+				}
+			}
+		}
+		Files.deleteIfExists(directory);
+	}
+
+	private boolean record(String key, Boolean added) throws IOException {
+		if (key == null) {
+			return false;
+		}
+		memoryKeys.put(key, added);
+		if (added && bloomFilter != null) {
+			bloomFilter.add(key.getBytes(StandardCharsets.US_ASCII));
+		}
+		if (memoryKeys.size() >= memoryKeyLimit) {
+			spill();
+		}
+		return true;
+	}
+
+	private void spill() throws IOException {
+		if (directory == null) {
+			directory = parentDirectory == null ? Files.createTempDirectory(DIRECTORY_PREFIX)
+					: Files.createTempDirectory(Files.createDirectories(parentDirectory), DIRECTORY_PREFIX);
+		}
+		if (bloomFilter == null) {
+			// until now every key was in memory, so they are all still there to build the filter from
+			bloomFilter = new BloomFilter(expectedKeyCount, falsePositiveProbability);
+			for (Map.Entry<String, Boolean> entry : memoryKeys.entrySet()) {
+				if (entry.getValue()) {
+					bloomFilter.add(entry.getKey().getBytes(StandardCharsets.US_ASCII));
+				}
+			}
+		}
+		runs.add(0, KeyRun.write(directory, nextGeneration++, memoryKeys.entrySet().iterator()));
+		memoryKeys = new TreeMap<>();
+		long mergedRecordCount = runs.get(0).getRecordCount();
+		int mergeCount = 1;
+		while (mergeCount < runs.size() && runs.get(mergeCount).getRecordCount() <= 2 * mergedRecordCount) {
+			mergedRecordCount += runs.get(mergeCount).getRecordCount();
+			mergeCount++;
+		}
+		if (mergeCount > 1) {
+			mergeRuns(mergeCount);
+		}
+	}
+
+	/**
+	 * Merge the newest runs into one.  Removed keys are kept, since they may still have to hide keys in an index.
+	 */
+	private void mergeRuns(int mergeCount) throws IOException {
+		List<KeyRun> mergedRuns = new ArrayList<>(runs.subList(0, mergeCount));
+		KeyRun merged = KeyRun.merge(directory, mergedRuns, false);
+		runs.subList(0, mergeCount).clear();
+		runs.add(0, merged);
+		for (KeyRun run : mergedRuns) {
+			run.delete();
+		}
+	}
+
+	int getRunCount() {
+		return runs.size();
+	}
+
+}
@@ -0,0 +1,350 @@
+/*
+ * Copyright 2016 Research Triangle Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.validation.duplicate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * An immutable file of index records, sorted by key.  Each record is a fixed-width ASCII key followed by one byte that says whether the
+ * key was added or removed.
+ * <br/>
+ * The first key of every block of BLOCK_RECORDS records is held in memory, so a lookup reads a single block from disk.  Lookups use
+ * positional reads and may be made from any number of threads at once.
+ * <br/>
+ * A run covers a range of generations: a run written from newly added keys covers just its own generation, and a run merged from others
+ * covers all of theirs.  When two runs have the same key, the one with the later generations wins.
+ */
+class KeyRun implements Closeable {
+
+	static final int KEY_WIDTH = IncidentKeyIndex.ORI_WIDTH + IncidentKeyIndex.INCIDENT_NUMBER_WIDTH;
+	static final int RECORD_WIDTH = KEY_WIDTH + 1;
+	static final int BLOCK_RECORDS = 256;
+
+	private static final byte ADDED = 'A';
+	private static final byte REMOVED = 'D';
+
+	private static final String FILE_NAME_PREFIX = "keys-";
+	private static final String FILE_NAME_SUFFIX = ".run";
+
+	private final Path file;
+	private final long firstGeneration;
+	private final long lastGeneration;
+	private final FileChannel channel;
+	private final long recordCount;
+	private final byte[][] blockFirstKeys;
+
+	private KeyRun(Path file, long firstGeneration, long lastGeneration) throws IOException {
+		this.file = file;
+		this.firstGeneration = firstGeneration;
+		this.lastGeneration = lastGeneration;
+		this.channel = FileChannel.open(file, StandardOpenOption.READ);
+		long size = channel.size();
+		if (size % RECORD_WIDTH != 0) {
+			channel.close();
+			throw new IOException("Index run " + file + " is truncated");
+		}
+		this.recordCount = size / RECORD_WIDTH;
+		this.blockFirstKeys = new byte[(int) ((recordCount + BLOCK_RECORDS - 1) / BLOCK_RECORDS)][];
+		try {
+			for (int i = 0; i < blockFirstKeys.length; i++) {
+				ByteBuffer buffer = ByteBuffer.allocate(KEY_WIDTH);
+				readFully(buffer, (long) i * BLOCK_RECORDS * RECORD_WIDTH);
+				blockFirstKeys[i] = buffer.array();
+			}
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Open an existing run.
+	 * @return the run, or null if the file is not named like a run
+	 */
+	static KeyRun open(Path file) throws IOException {
+		long[] generations = parseFileName(file.getFileName().toString());
+		return generations == null ? null : new KeyRun(file, generations[0], generations[1]);
+	}
+
+	static boolean isRunFileName(String fileName) {
+		return parseFileName(fileName) != null;
+	}
+
+	/**
+	 * Write a run for a single generation from the specified entries, which must be in key order.  A TRUE value means the key was added, and
+	 * FALSE that it was removed.
+	 */
+	static KeyRun write(Path directory, long generation, Iterator<Map.Entry<String, Boolean>> entries) throws IOException {
+		Path file = directory.resolve(fileName(generation, generation));
+		Path temp = directory.resolve(file.getFileName() + ".tmp");
+		try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16)) {
+			while (entries.hasNext()) {
+				Map.Entry<String, Boolean> entry = entries.next();
+				out.write(entry.getKey().getBytes(StandardCharsets.US_ASCII));
+				out.write(entry.getValue() ? ADDED : REMOVED);
+			}
+		}
+		Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+		return new KeyRun(file, generation, generation);
+	}
+
+	/**
+	 * Merge the specified runs into one that covers all of their generations.  The runs must cover a contiguous range of generations.
+	 * @param dropRemoved whether to leave out removed keys altogether, which is only safe when no older run remains for them to hide
+	 */
+	static KeyRun merge(Path directory, List<KeyRun> runs, boolean dropRemoved) throws IOException {
+		long firstGeneration = Long.MAX_VALUE;
+		long lastGeneration = Long.MIN_VALUE;
+		for (KeyRun run : runs) {
+			firstGeneration = Math.min(firstGeneration, run.firstGeneration);
+			lastGeneration = Math.max(lastGeneration, run.lastGeneration);
+		}
+		Path file = directory.resolve(fileName(firstGeneration, lastGeneration));
+		Path temp = directory.resolve(file.getFileName() + ".tmp");
+		List<RecordCursor> cursors = new ArrayList<>(runs.size());
+		// equal keys come off the queue newest first, so the first of them is the one to keep
+		PriorityQueue<RecordCursor> queue = new PriorityQueue<>(Math.max(1, runs.size()), (c1, c2) -> {
+			int ret = compare(c1.record, c2.record);
+			return ret != 0 ? ret : Long.compare(c2.generation, c1.generation);
+		});
+		try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16)) {
+			for (KeyRun run : runs) {
+				RecordCursor cursor = new RecordCursor(run);
+				cursors.add(cursor);
+				if (cursor.next()) {
+					queue.add(cursor);
+				}
+			}
+			byte[] lastKey = null;
+			while (!queue.isEmpty()) {
+				RecordCursor cursor = queue.poll();
+				byte[] record = cursor.record;
+				if (lastKey == null || compare(lastKey, record) != 0) {
+					lastKey = Arrays.copyOf(record, KEY_WIDTH);
+					if (!dropRemoved || record[KEY_WIDTH] == ADDED) {
+						out.write(record);
+					}
+				}
+				if (cursor.next()) {
+					queue.add(cursor);
+				}
+			}
+		} finally {
+			for (RecordCursor cursor : cursors) {
+				cursor.close();
+			}
+		}
+		Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		return new KeyRun(file, firstGeneration, lastGeneration);
+	}
+
+	/**
+	 * Move this run into the specified directory, where it covers just the specified generation, whatever generations it covered before.  The
+	 * directory must be on the same file system.  The run is closed; use the one returned.
+	 */
+	KeyRun moveTo(Path directory, long generation) throws IOException {
+		close();
+		Path target = directory.resolve(fileName(generation, generation));
+		Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+		return new KeyRun(target, generation, generation);
+	}
+
+	/**
+	 * Look up a key.
+	 * @return TRUE if the key was added, FALSE if it was removed, or null if this run has no record of it
+	 */
+	Boolean lookup(byte[] key) throws IOException {
+		int low = 0;
+		int high = blockFirstKeys.length - 1;
+		int block = -1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (compare(blockFirstKeys[mid], key) <= 0) {
+				block = mid;
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+		if (block < 0) {
+			return null;
+		}
+		long firstRecord = (long) block * BLOCK_RECORDS;
+		int records = (int) Math.min(BLOCK_RECORDS, recordCount - firstRecord);
+		ByteBuffer buffer = ByteBuffer.allocate(records * RECORD_WIDTH);
+		readFully(buffer, firstRecord * RECORD_WIDTH);
+		byte[] bytes = buffer.array();
+		low = 0;
+		high = records - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int c = compare(bytes, mid * RECORD_WIDTH, key);
+			if (c < 0) {
+				low = mid + 1;
+			} else if (c > 0) {
+				high = mid - 1;
+			} else {
+				return bytes[mid * RECORD_WIDTH + KEY_WIDTH] == ADDED;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Add every key this run records as added to the specified filter.
+	 */
+	void addKeysTo(BloomFilter bloomFilter) throws IOException {
+		try (RecordCursor cursor = new RecordCursor(this)) {
+			while (cursor.next()) {
+				if (cursor.record[KEY_WIDTH] == ADDED) {
+					bloomFilter.add(Arrays.copyOf(cursor.record, KEY_WIDTH));
+				}
+			}
+		}
+	}
+
+	long getRecordCount() {
+		return recordCount;
+	}
+
+	long getFirstGeneration() {
+		return firstGeneration;
+	}
+
+	long getLastGeneration() {
+		return lastGeneration;
+	}
+
+	boolean covers(KeyRun other) {
+		return this != other && firstGeneration <= other.firstGeneration && other.lastGeneration <= lastGeneration;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Close the run and delete its file.
+	 */
+	void delete() throws IOException {
+		close();
+		Files.deleteIfExists(file);
+	}
+
+	@Override
+	public String toString() {
+		return file.getFileName().toString();
+	}
+
+	private void readFully(ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position + buffer.position());
+			if (read < 0) {
+				throw new EOFException("Unexpected end of index run " + file);
+			}
+		}
+	}
+
+	private static String fileName(long firstGeneration, long lastGeneration) {
+		return String.format("%s%016d-%016d%s", FILE_NAME_PREFIX, firstGeneration, lastGeneration, FILE_NAME_SUFFIX);
+	}
+
+	private static long[] parseFileName(String fileName) {
+		if (!fileName.startsWith(FILE_NAME_PREFIX) || !fileName.endsWith(FILE_NAME_SUFFIX)) {
+			return null;
+		}
+		String[] generations = fileName.substring(FILE_NAME_PREFIX.length(), fileName.length() - FILE_NAME_SUFFIX.length()).split("-");
+		if (generations.length != 2) {
+			return null;
+		}
+		try {
+			return new long[] {Long.parseLong(generations[0]), Long.parseLong(generations[1])};
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	static int compare(byte[] key1, byte[] key2) {
+		return compare(key1, 0, key2);
+	}
+
+	private static int compare(byte[] bytes, int offset, byte[] key) {
+		for (int i = 0; i < KEY_WIDTH; i++) {
+			int c = (bytes[offset + i] & 0xFF) - (key[i] & 0xFF);
+			if (c != 0) {
+				return c;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Reads the records of a run in order, for merging and for rebuilding the bloom filter.
+	 */
+	private static final class RecordCursor implements Closeable {
+
+		private final InputStream in;
+		private final long generation;
+		private final byte[] record = new byte[RECORD_WIDTH];
+
+		RecordCursor(KeyRun run) throws IOException {
+			this.in = new BufferedInputStream(Files.newInputStream(run.file), 1 << 16);
+			this.generation = run.lastGeneration;
+		}
+
+		boolean next() throws IOException {
+			int read = 0;
+			while (read < RECORD_WIDTH) {
+				int n = in.read(record, read, RECORD_WIDTH - read);
+				if (n < 0) {
+					if (read == 0) {
+						return false;
+					}
+					throw new EOFException("Truncated index record");
+				}
+				read += n;
+			}
+			return true;
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+
+	}
+
+}
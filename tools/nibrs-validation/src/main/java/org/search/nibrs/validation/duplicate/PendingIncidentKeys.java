@@ -0,0 +1,120 @@
+/*
+ * Copyright 2016 Research Triangle Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.validation.duplicate;
+
+import java.io.IOException;
+
+import org.search.nibrs.model.AbstractReport;
+import org.search.nibrs.model.GroupAIncidentReport;
+
+/**
+ * The changes to an IncidentKeyIndex from the reports accepted in one submission, held back until the whole submission has been validated
+ * and then applied to the index in one step by commit().
+ * <br/>
+ * Recording accepted reports in the index as they are delivered would let reports still being validated see incidents from their own
+ * submission, so whether a repeated incident got error 056 would depend on thread timing, and validating the same file twice would reject
+ * every incident the first pass recorded.  Repeats within a submission are the job of SubmissionConsistencyChecker; the index only ever
+ * holds incidents from submissions that have been committed.
+ * <br/>
+ * The changes are staged in an IncidentKeySet in the index's staging directory, so a submission of millions of incidents holds no more of
+ * them in memory than a short one.  On commit the set is written as one sorted run and added to the index as its newest run; a submission
+ * that is neither committed nor rolled back leaves its staged keys behind until the index is next opened.  Instances are not thread-safe;
+ * record reports from the thread that delivers them in submission order.
+ */
+public class PendingIncidentKeys {
+
+	private final IncidentKeyIndex index;
+	private final int memoryKeyLimit;
+	private IncidentKeySet keys;
+	private int size;
+
+	/**
+	 * Create an empty set of changes to the specified index.
+	 * @param index the index
+	 */
+	public PendingIncidentKeys(IncidentKeyIndex index) {
+		this(index, IncidentKeySet.DEFAULT_MEMORY_KEY_LIMIT);
+	}
+
+	PendingIncidentKeys(IncidentKeyIndex index, int memoryKeyLimit) {
+		this.index = index;
+		this.memoryKeyLimit = memoryKeyLimit;
+	}
+
+	/**
+	 * Note a report that has been accepted: an incident report ('I') will add its incident to the index, and a delete ('D') will remove it.
+	 * Other reports and action types are ignored.  When the same incident is recorded more than once, the last report wins.
+	 * @param report the accepted report
+	 */
+	public void recordAcceptedReport(AbstractReport report) throws IOException {
+		if (report instanceof GroupAIncidentReport) {
+			char actionType = report.getReportActionType();
+			String incidentNumber = ((GroupAIncidentReport) report).getIncidentNumber();
+			boolean recorded = false;
+			if (actionType == 'I') {
+				recorded = getKeys().add(report.getOri(), incidentNumber);
+			} else if (actionType == 'D') {
+				recorded = getKeys().remove(report.getOri(), incidentNumber);
+			}
+			if (recorded) {
+				size++;
+			}
+		}
+	}
+
+	/**
+	 * The number of changes waiting to be committed.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Apply the changes to the index and flush it.  The changes are then forgotten, so committing again does nothing until more reports are
+	 * recorded.
+	 */
+	public void commit() throws IOException {
+		if (size == 0) {
+			index.flush();
+		} else {
+			index.addRun(keys.toRun());
+		}
+		rollback();
+	}
+
+	/**
+	 * Forget the changes without applying them, deleting the staged keys.
+	 */
+	public void rollback() throws IOException {
+		size = 0;
+		if (keys != null) {
+			try {
+				keys.close();
+			} finally {
+				keys = null;
+			}
+		}
+	}
+
+	private IncidentKeySet getKeys() throws IOException {
+		if (keys == null) {
+			keys = new IncidentKeySet(index.getStagingDirectory(), memoryKeyLimit, IncidentKeySet.DEFAULT_EXPECTED_KEY_COUNT,
+					IncidentKeyIndex.DEFAULT_FALSE_POSITIVE_PROBABILITY);
+		}
+		return keys;
+	}
+
+}
@@ -28,7 +28,7 @@ import org.search.nibrs.model.OffenseSegment;
 import org.search.nibrs.model.PropertySegment;
 import org.search.nibrs.model.VictimSegment;
 import org.search.nibrs.model.codes.NIBRSErrorCode;
-import org.search.nibrs.validation.ArresteeSegmentRulesFactory;
+import org.search.nibrs.validation.ValidationRuleSet;
 import org.search.nibrs.validation.rules.Rule;
 
 /**
@@ -40,21 +40,31 @@ public class GroupAIncidentReportValidator {
 	@SuppressWarnings("unused")
 	private static final Logger LOG = LogManager.getLogger(GroupAIncidentReportValidator.class);
 	
-	private List<Rule<GroupAIncidentReport>> incidentReportRules = new ArrayList<>();
-	private List<Rule<OffenseSegment>> offenseSegmentRules = new ArrayList<>();
-	private List<Rule<PropertySegment>> propertySegmentRules = new ArrayList<>();
-	private List<Rule<VictimSegment>> victimSegmentRules = new ArrayList<>();
-	private List<Rule<OffenderSegment>> offenderSegmentRules = new ArrayList<>();
-	private List<Rule<ArresteeSegment>> groupAArresteeSegmentRules = new ArrayList<>();
-	
+	private List<Rule<GroupAIncidentReport>> incidentReportRules;
+	private List<Rule<OffenseSegment>> offenseSegmentRules;
+	private List<Rule<PropertySegment>> propertySegmentRules;
+	private List<Rule<VictimSegment>> victimSegmentRules;
+	private List<Rule<OffenderSegment>> offenderSegmentRules;
+	private List<Rule<ArresteeSegment>> groupAArresteeSegmentRules;
 	
+	/**
+	 * Create a validator that applies the shared rule set for the latest version of the spec.
+	 */
 	public GroupAIncidentReportValidator() {
-		incidentReportRules = new GroupAIncidentReportRulesFactory().getRulesList();
-		offenseSegmentRules = new OffenseSegmentRulesFactory().getRulesList();
-		propertySegmentRules = new PropertySegmentRulesFactory().getRulesList();
-		victimSegmentRules = VictimSegmentRulesFactory.instance().getRulesList();
-		offenderSegmentRules = OffenderSegmentRulesFactory.instance().getRulesList();
-		groupAArresteeSegmentRules = ArresteeSegmentRulesFactory.instance(ArresteeSegmentRulesFactory.GROUP_A_ARRESTEE_MODE).getRulesList();
+		this(ValidationRuleSet.latest());
+	}
+	
+	/**
+	 * Create a validator that applies the rules in the specified rule set.
+	 * @param ruleSet the (shared, immutable) rule set
+	 */
+	public GroupAIncidentReportValidator(ValidationRuleSet ruleSet) {
+		incidentReportRules = ruleSet.getIncidentReportRules();
+		offenseSegmentRules = ruleSet.getOffenseSegmentRules();
+		propertySegmentRules = ruleSet.getPropertySegmentRules();
+		victimSegmentRules = ruleSet.getVictimSegmentRules();
+		offenderSegmentRules = ruleSet.getOffenderSegmentRules();
+		groupAArresteeSegmentRules = ruleSet.getGroupAArresteeSegmentRules();
 	}
 
 	public List<NIBRSError> validate(GroupAIncidentReport groupAIncidentReport) {
@@ -412,7 +412,8 @@ public class VictimSegmentRulesFactory {
 	}
 
 	Rule<VictimSegment> getRule404ForOfficerOriOtherJurisdiction() {
-		// note:  we cannot check if an ORI is in the FBI's database.  And the field is always optional, so nothing to test here
+		// note:  the field is always optional, so nothing to test here; whether the ORI is in the UCR ORI file (052) is checked by
+		// SubmissionValidator when it has an OriRegistry
 		return new NullObjectRule<>();
 	}
 
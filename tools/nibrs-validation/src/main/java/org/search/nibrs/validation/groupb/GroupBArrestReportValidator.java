@@ -21,7 +21,7 @@ import java.util.List;
 import org.search.nibrs.common.NIBRSError;
 import org.search.nibrs.model.ArresteeSegment;
 import org.search.nibrs.model.GroupBArrestReport;
-import org.search.nibrs.validation.ArresteeSegmentRulesFactory;
+import org.search.nibrs.validation.ValidationRuleSet;
 import org.search.nibrs.validation.rules.Rule;
 
 /**
@@ -30,12 +30,23 @@ import org.search.nibrs.validation.rules.Rule;
  */
 public class GroupBArrestReportValidator {
 	
-	private List<Rule<GroupBArrestReport>> incidentReportRules = new ArrayList<>();
-	private List<Rule<ArresteeSegment>> groupBArresteeSegmentRules = new ArrayList<>();
+	private List<Rule<GroupBArrestReport>> incidentReportRules;
+	private List<Rule<ArresteeSegment>> groupBArresteeSegmentRules;
 	
+	/**
+	 * Create a validator that applies the shared rule set for the latest version of the spec.
+	 */
 	public GroupBArrestReportValidator() {
-		incidentReportRules = new GroupBArrestReportRulesFactory().getRulesList();
-		groupBArresteeSegmentRules = ArresteeSegmentRulesFactory.instance(ArresteeSegmentRulesFactory.GROUP_B_ARRESTEE_MODE).getRulesList();
+		this(ValidationRuleSet.latest());
+	}
+	
+	/**
+	 * Create a validator that applies the rules in the specified rule set.
+	 * @param ruleSet the (shared, immutable) rule set
+	 */
+	public GroupBArrestReportValidator(ValidationRuleSet ruleSet) {
+		incidentReportRules = ruleSet.getArrestReportRules();
+		groupBArresteeSegmentRules = ruleSet.getGroupBArresteeSegmentRules();
 	}
 
 	public List<NIBRSError> validate(GroupBArrestReport groupBIncidentReport) {
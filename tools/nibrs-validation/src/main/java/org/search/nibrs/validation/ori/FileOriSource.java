@@ -0,0 +1,54 @@
+/*
+ * Copyright 2016 Research Triangle Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.validation.ori;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * ORIs read from a text file, such as an extract of the FBI ORI file.  Each non-blank line that does not start with '#' begins with a
+ * nine-character ORI; anything after the ORI (agency name, state, and so on) is ignored.
+ */
+public class FileOriSource implements OriSource {
+
+	private final Path file;
+
+	public FileOriSource(Path file) {
+		this.file = file;
+	}
+
+	@Override
+	public void readOris(Consumer<String> consumer) throws IOException {
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.ISO_8859_1)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (!line.trim().isEmpty() && !line.startsWith("#")) {
+					consumer.accept(line.length() > OriRegistry.ORI_LENGTH ? line.substring(0, OriRegistry.ORI_LENGTH) : line);
+				}
+			}
+		}
+	}
+
+	@Override
+	public String getDescription() {
+		return file.toString();
+	}
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2016 Research Triangle Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.validation.ori;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.Consumer;
+
+import javax.sql.DataSource;
+
+/**
+ * ORIs read from a database, by default from the Agency table of the staging database.  The whole table is read in one query, so loading
+ * costs one round trip however many ORIs there are.
+ */
+public class JdbcOriSource implements OriSource {
+
+	public static final String DEFAULT_QUERY = "SELECT AgencyORI FROM Agency";
+
+	private final DataSource dataSource;
+	private final String query;
+
+	/**
+	 * Create a source that reads the Agency table.
+	 * @param dataSource the staging database
+	 */
+	public JdbcOriSource(DataSource dataSource) {
+		this(dataSource, DEFAULT_QUERY);
+	}
+
+	/**
+	 * Create a source that reads the ORIs from the first column of the specified query's results.
+	 * @param dataSource the database
+	 * @param query the query
+	 */
+	public JdbcOriSource(DataSource dataSource, String query) {
+		this.dataSource = dataSource;
+		this.query = query;
+	}
+
+	@Override
+	public void readOris(Consumer<String> consumer) throws IOException {
+		try (Connection connection = dataSource.getConnection();
+				Statement statement = connection.createStatement()) {
+			statement.setFetchSize(1000);
+			try (ResultSet resultSet = statement.executeQuery(query)) {
+				while (resultSet.next()) {
+					String ori = resultSet.getString(1);
+					if (ori != null) {
+						consumer.accept(ori);
+					}
+				}
+			}
+		} catch (SQLException e) {
+			throw new IOException("Unable to read ORIs using query " + query, e);
+		}
+	}
+
+	@Override
+	public String getDescription() {
+		return query;
+	}
+
+}
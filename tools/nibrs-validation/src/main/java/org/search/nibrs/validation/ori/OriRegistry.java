@@ -0,0 +1,164 @@
+/*
+ * Copyright 2016 Research Triangle Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.validation.ori;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * The set of valid ORIs (the UCR ORI file), against which report ORIs and officer other-jurisdiction ORIs are checked (error 052).
+ * <br/>
+ * Each ORI is nine characters from [0-9A-Z], so it is encoded as a base-36 long, and the ORIs are held in an open-addressing hash table of
+ * those longs: about 16 bytes per ORI, and a lookup is a hash and (usually) one probe, without creating any objects.
+ * <br/>
+ * The registry can be reloaded from its source at any time, from any thread.  The new table is built alongside the old one, which keeps
+ * answering queries until the new one replaces it, so validation does not need to stop.
+ */
+public class OriRegistry {
+
+	private static final Log log = LogFactory.getLog(OriRegistry.class);
+
+	public static final int ORI_LENGTH = 9;
+
+	private static final long EMPTY = 0;
+
+	private final OriSource source;
+
+	private volatile long[] table;
+	private volatile int size;
+
+	/**
+	 * Create a registry and load it from the specified source.
+	 * @param source the source
+	 * @throws IOException if the source cannot be read
+	 */
+	public OriRegistry(OriSource source) throws IOException {
+		this.source = source;
+		reload();
+	}
+
+	/**
+	 * Whether the specified ORI is in the registry.
+	 * @param ori the ORI
+	 */
+	public boolean contains(String ori) {
+		long code = encode(ori);
+		if (code == EMPTY) {
+			return false;
+		}
+		long[] t = table;
+		int mask = t.length - 1;
+		for (int i = hash(code) & mask; ; i = (i + 1) & mask) {
+			long entry = t[i];
+			if (entry == code) {
+				return true;
+			}
+			if (entry == EMPTY) {
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * The number of ORIs in the registry.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Reload the registry from its source.  If the source cannot be read, the registry keeps its current contents.
+	 * @throws IOException if the source cannot be read
+	 */
+	public void reload() throws IOException {
+
+		long[][] codes = new long[][] {new long[1024]};
+		int[] count = new int[1];
+		int[] invalidCount = new int[1];
+
+		source.readOris(ori -> {
+			long code = encode(ori.trim());
+			if (code == EMPTY) {
+				invalidCount[0]++;
+			} else {
+				if (count[0] == codes[0].length) {
+					codes[0] = Arrays.copyOf(codes[0], count[0] * 2);
+				}
+				codes[0][count[0]++] = code;
+			}
+		});
+
+		long[] sortedCodes = codes[0];
+		Arrays.sort(sortedCodes, 0, count[0]);
+		int distinctCount = 0;
+		for (int i = 0; i < count[0]; i++) {
+			if (i == 0 || sortedCodes[i] != sortedCodes[i - 1]) {
+				sortedCodes[distinctCount++] = sortedCodes[i];
+			}
+		}
+
+		// a load factor of at most one half keeps probe sequences short
+		int capacity = Integer.highestOneBit(Math.max(16, distinctCount * 2 - 1)) << 1;
+		long[] newTable = new long[capacity];
+		int mask = capacity - 1;
+		for (int i = 0; i < distinctCount; i++) {
+			int slot = hash(sortedCodes[i]) & mask;
+			while (newTable[slot] != EMPTY) {
+				slot = (slot + 1) & mask;
+			}
+			newTable[slot] = sortedCodes[i];
+		}
+
+		table = newTable;
+		size = distinctCount;
+
+		log.info("Loaded " + distinctCount + " ORIs from " + source.getDescription()
+				+ (invalidCount[0] > 0 ? ", skipping " + invalidCount[0] + " that are not nine characters of [0-9A-Z]" : ""));
+
+	}
+
+	/**
+	 * Encode an ORI as a non-zero base-36 number, or return EMPTY if it is not nine characters of [0-9A-Z].
+	 */
+	static long encode(String ori) {
+		if (ori == null || ori.length() != ORI_LENGTH) {
+			return EMPTY;
+		}
+		long ret = 0;
+		for (int i = 0; i < ORI_LENGTH; i++) {
+			char c = ori.charAt(i);
+			int digit;
+			if (c >= '0' && c <= '9') {
+				digit = c - '0';
+			} else if (c >= 'A' && c <= 'Z') {
+				digit = c - 'A' + 10;
+			} else {
+				return EMPTY;
+			}
+			ret = ret * 36 + digit;
+		}
+		return ret + 1;
+	}
+
+	private static int hash(long code) {
+		long h = code * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2016 Research Triangle Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.validation.ori;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Where an OriRegistry loads its ORIs from.
+ */
+public interface OriSource {
+
+	/**
+	 * Pass every ORI in the source to the specified consumer.
+	 * @param consumer the consumer
+	 * @throws IOException if the source cannot be read
+	 */
+	void readOris(Consumer<String> consumer) throws IOException;
+
+	/**
+	 * A description of the source, for logging.
+	 */
+	String getDescription();
+
+}
@@ -19,6 +19,13 @@ import java.beans.BeanInfo;
 import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.function.Function;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -29,16 +36,18 @@ import org.search.nibrs.model.GroupBArrestReport;
 import org.search.nibrs.model.codes.NIBRSErrorCode;
 
 /**
- * Abstract base class for rules that obtain values to test from a named bean property.
+ * Abstract base class for rules that obtain values to test from a named bean property.  The property's read method is resolved
+ * once, when the rule is constructed, into a Function that calls the getter directly (falling back to reflection if a direct
+ * accessor cannot be generated), so applying the rule does not go through reflection.
  *
  * @param <T> The class of subjects to which this rule applies
  */
 public abstract class AbstractBeanPropertyRule<T extends ValidationTarget> implements Rule<T> {
 	
-	@SuppressWarnings("unused")
 	private static final Logger LOG = LogManager.getLogger(AbstractBeanPropertyRule.class);
 	
 	protected PropertyDescriptor property;
+	protected Function<T, Object> propertyAccessor;
 	protected String dataElementIdentifier;
 	protected NIBRSErrorCode errorCode;
 	
@@ -52,34 +61,75 @@ public abstract class AbstractBeanPropertyRule<T extends ValidationTarget> imple
 					break;
 				}
 			}
-			if (property == null) {
+			if (property == null || property.getReadMethod() == null) {
 				throw new RuntimeException("No property named " + propertyName + " found on subject class " + subjectClass);
 			}
 		} catch (IntrospectionException e) {
 			// this really should never happen...
 			throw new RuntimeException(e);
 		}
+		propertyAccessor = createPropertyAccessor(property.getReadMethod(), subjectClass);
 		this.dataElementIdentifier = dataElementIdentifier;
 		this.errorCode = errorCode;
 	}
+	
+	/**
+	 * Create a function that reads the property value from a subject.  We generate a lambda that invokes the getter directly,
+	 * which the JIT can inline; if that is not possible (for example, if the getter is declared on a non-public class) we fall
+	 * back to invoking the read method reflectively.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> Function<T, Object> createPropertyAccessor(Method readMethod, Class<T> subjectClass) {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			MethodHandle getter = lookup.unreflect(readMethod);
+			CallSite site = LambdaMetafactory.metafactory(lookup, "apply", MethodType.methodType(Function.class),
+					MethodType.methodType(Object.class, Object.class), getter,
+					MethodType.methodType(getter.type().wrap().returnType(), subjectClass));
+			return (Function<T, Object>) site.getTarget().invokeExact();
+		} catch (Throwable t) {
+			LOG.debug("Unable to generate accessor for " + readMethod + ", falling back to reflection", t);
+			return new ReflectivePropertyAccessor<>(readMethod);
+		}
+	}
 
-	@Override
-	public final NIBRSError apply(T subject) {
-		NIBRSError ret = null;
-		if (!ignore(subject)) {
+	/**
+	 * Reads a property by invoking its read method reflectively, for getters that a generated accessor cannot call.
+	 */
+	static final class ReflectivePropertyAccessor<T> implements Function<T, Object> {
+
+		private final Method readMethod;
+
+		ReflectivePropertyAccessor(Method readMethod) {
+			this.readMethod = readMethod;
+			// a public getter on a non-public class can only be invoked once it is made accessible
+			readMethod.setAccessible(true);
+		}
+
+		@Override
+		public Object apply(T subject) {
 			try {
-				Object value = property.getReadMethod().invoke(subject, new Object[0]);
-				if (propertyViolatesRule(value, subject)) {
-					ret = subject.getErrorTemplate();
-					ret.setNIBRSErrorCode(errorCode);
-					ret.setValue(value);
-					ret.setDataElementIdentifier(dataElementIdentifier);
-				}
+				return readMethod.invoke(subject);
 			} catch (ReflectiveOperationException e) {
 				// this really should never happen...
 				throw new RuntimeException(e);
 			}
 		}
+
+	}
+
+	@Override
+	public final NIBRSError apply(T subject) {
+		NIBRSError ret = null;
+		if (!ignore(subject)) {
+			Object value = propertyAccessor.apply(subject);
+			if (propertyViolatesRule(value, subject)) {
+				ret = subject.getErrorTemplate();
+				ret.setNIBRSErrorCode(errorCode);
+				ret.setValue(value);
+				ret.setDataElementIdentifier(dataElementIdentifier);
+			}
+		}
 		return ret;
 	}
 	
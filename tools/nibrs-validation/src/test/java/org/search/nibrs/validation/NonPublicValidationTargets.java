@@ -0,0 +1,48 @@
+/*
+ * Copyright 2016 Research Triangle Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.validation;
+
+import org.search.nibrs.common.NIBRSError;
+import org.search.nibrs.common.ValidationTarget;
+
+/**
+ * Hands out a validation target whose class is not public, and is in a different package from the rules, so that rules cannot
+ * generate a direct accessor for its properties.
+ */
+public final class NonPublicValidationTargets {
+	
+	private NonPublicValidationTargets() {
+	}
+	
+	public static ValidationTarget newTarget(String value) {
+		return new NonPublicTarget(value);
+	}
+	
+	static final class NonPublicTarget implements ValidationTarget {
+		private final String value;
+		NonPublicTarget(String value) {
+			this.value = value;
+		}
+		public String getValue() {
+			return value;
+		}
+		@Override
+		public NIBRSError getErrorTemplate() {
+			return new NIBRSError();
+		}
+	}
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2016 Research Triangle Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.validation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.search.nibrs.common.NIBRSError;
+import org.search.nibrs.model.AbstractReport;
+import org.search.nibrs.model.codes.NIBRSErrorCode;
+
+public class PipelinedValidationListenerTest {
+
+	private List<AbstractReport> reports;
+
+	@Before
+	public void init() {
+		RuleViolationExemplarFactory exemplarFactory = RuleViolationExemplarFactory.getInstance();
+		reports = new ArrayList<>();
+		for (Integer ruleNumber : new Integer[] {115, 201, 404}) {
+			reports.addAll(exemplarFactory.getGroupAIncidentsThatViolateRule(ruleNumber));
+		}
+		reports.addAll(exemplarFactory.getGroupBArrestsThatViolateRule(701));
+	}
+
+	@Test
+	public void testReportsDeliveredInOrderWithValidationErrors() {
+
+		SubmissionValidator submissionValidator = new SubmissionValidator();
+
+		List<AbstractReport> deliveredReports = new ArrayList<>();
+		List<NIBRSError> deliveredErrors = new ArrayList<>();
+		PipelinedValidationListener listener = new PipelinedValidationListener(submissionValidator, (report, errorList) -> {
+			deliveredReports.add(report);
+			deliveredErrors.addAll(errorList);
+		}, 4, 3);
+
+		NIBRSError importError = new NIBRSError();
+		importError.setNIBRSErrorCode(NIBRSErrorCode._001);
+
+		List<NIBRSError> expectedErrors = new ArrayList<>();
+		for (AbstractReport report : reports) {
+			listener.newReport(report, Collections.singletonList(importError));
+			expectedErrors.add(importError);
+			expectedErrors.addAll(submissionValidator.validateReport(report));
+		}
+		listener.finish();
+
+		assertEquals(reports.size(), deliveredReports.size());
+		for (int i = 0; i < reports.size(); i++) {
+			assertSame(reports.get(i), deliveredReports.get(i));
+		}
+
+		assertFalse(deliveredErrors.isEmpty());
+		assertEquals(expectedErrors.size(), deliveredErrors.size());
+		for (int i = 0; i < expectedErrors.size(); i++) {
+			assertEquals(expectedErrors.get(i).getNIBRSErrorCode(), deliveredErrors.get(i).getNIBRSErrorCode());
+			assertSame(expectedErrors.get(i).getReport(), deliveredErrors.get(i).getReport());
+		}
+
+	}
+
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2016 Research Triangle Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.validation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.search.nibrs.common.NIBRSError;
+import org.search.nibrs.model.AbstractReport;
+import org.search.nibrs.model.GroupAIncidentReport;
+import org.search.nibrs.model.NIBRSSubmission;
+import org.search.nibrs.model.codes.NIBRSErrorCode;
+import org.search.nibrs.validation.duplicate.IncidentKeySet;
+
+public class SubmissionConsistencyCheckerTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testConsistentReports() {
+		SubmissionConsistencyChecker checker = new SubmissionConsistencyChecker();
+		for (int i = 0; i < 3; i++) {
+			assertTrue(checker.check(createReport("WA1234567", 5, 2016)).isEmpty());
+		}
+		assertTrue(checker.check(createReport("WA7654321", 5, 2016)).isEmpty());
+	}
+
+	@Test
+	public void testMonthAndYearMismatch() {
+		SubmissionConsistencyChecker checker = new SubmissionConsistencyChecker();
+		assertTrue(checker.check(createReport("WA1234567", 5, 2016)).isEmpty());
+
+		AbstractReport report = createReport("WA1234567", 6, 2016);
+		List<NIBRSError> errorList = checker.check(report);
+		assertEquals(1, errorList.size());
+		NIBRSError e = errorList.get(0);
+		assertEquals(NIBRSErrorCode._058, e.getNIBRSErrorCode());
+		assertEquals("Month of Tape", e.getDataElementIdentifier());
+		assertEquals(6, e.getValue());
+		assertSame(report, e.getReport());
+
+		errorList = checker.check(createReport("WA1234567", 5, 2017));
+		assertEquals(1, errorList.size());
+		assertEquals(NIBRSErrorCode._058, errorList.get(0).getNIBRSErrorCode());
+		assertEquals("Year of Tape", errorList.get(0).getDataElementIdentifier());
+		assertEquals(2017, errorList.get(0).getValue());
+	}
+
+	@Test
+	public void testStateMismatch() {
+		SubmissionConsistencyChecker checker = new SubmissionConsistencyChecker();
+		assertTrue(checker.check(createReport("WA1234567", 5, 2016)).isEmpty());
+
+		List<NIBRSError> errorList = checker.check(createReport("MD1234567", 6, 2016));
+		assertEquals(2, errorList.size());
+		assertEquals(NIBRSErrorCode._058, errorList.get(0).getNIBRSErrorCode());
+		assertEquals(NIBRSErrorCode._059, errorList.get(1).getNIBRSErrorCode());
+		assertEquals("1", errorList.get(1).getDataElementIdentifier());
+		assertEquals("MD1234567", errorList.get(1).getValue());
+
+		checker.reset();
+		assertTrue(checker.check(createReport("MD1234567", 6, 2016)).isEmpty());
+	}
+
+	@Test
+	public void testReferenceFromFirstReportWithValue() {
+		SubmissionConsistencyChecker checker = new SubmissionConsistencyChecker();
+		assertTrue(checker.check(createReport(null, null, null)).isEmpty());
+		assertTrue(checker.check(createReport("WA1234567", 5, 2016)).isEmpty());
+		assertEquals(NIBRSErrorCode._059, checker.check(createReport("MD1234567", 5, 2016)).get(0).getNIBRSErrorCode());
+	}
+
+	@Test
+	public void testSubmissionValidatorAndListener() {
+
+		NIBRSSubmission submission = new NIBRSSubmission();
+		submission.addReports(Arrays.asList(createReport("WA1234567", 5, 2016), createReport("MD1234567", 5, 2016), createReport("WA1234567", 6, 2016)));
+
+		SubmissionValidator submissionValidator = new SubmissionValidator();
+		submissionValidator.setParallelism(2);
+		List<NIBRSError> submissionErrors = submissionValidator.validate(submission);
+		assertEquals(1, countErrors(submissionErrors, NIBRSErrorCode._058));
+		assertEquals(1, countErrors(submissionErrors, NIBRSErrorCode._059));
+
+		// the listener, downstream of pipelined validation, sees the reports in order and finds the same errors
+		List<NIBRSError> streamedErrors = new ArrayList<>();
+		PipelinedValidationListener listener = new PipelinedValidationListener(submissionValidator,
+				new SubmissionConsistencyListener((report, errorList) -> streamedErrors.addAll(errorList)), 2);
+		for (AbstractReport report : submission.getReports()) {
+			listener.newReport(report, Collections.emptyList());
+		}
+		listener.finish();
+
+		assertEquals(submissionErrors.size(), streamedErrors.size());
+		for (int i = 0; i < submissionErrors.size(); i++) {
+			assertEquals(submissionErrors.get(i).getNIBRSErrorCode(), streamedErrors.get(i).getNIBRSErrorCode());
+			assertSame(submissionErrors.get(i).getReport(), streamedErrors.get(i).getReport());
+		}
+
+	}
+
+	@Test
+	public void testDuplicateIncident() {
+		SubmissionConsistencyChecker checker = new SubmissionConsistencyChecker();
+		assertTrue(checker.check(createIncident("WA1234567", "11111111", 'I')).isEmpty());
+		assertTrue(checker.check(createIncident("WA1234567", "22222222", 'I')).isEmpty());
+		assertTrue(checker.check(createIncident("WA7654321", "11111111", 'I')).isEmpty());
+
+		GroupAIncidentReport repeat = createIncident("WA1234567", "11111111", 'I');
+		List<NIBRSError> errorList = checker.check(repeat);
+		assertEquals(1, errorList.size());
+		NIBRSError e = errorList.get(0);
+		assertEquals(NIBRSErrorCode._056, e.getNIBRSErrorCode());
+		assertEquals("2", e.getDataElementIdentifier());
+		assertEquals("11111111", e.getValue());
+		assertSame(repeat, e.getReport());
+
+		// a delete, or a report with another action type, does not count as a repeat, and a delete allows the incident to be added again
+		assertTrue(checker.check(createIncident("WA1234567", "22222222", 'D')).isEmpty());
+		assertTrue(checker.check(createIncident("WA1234567", "22222222", 'I')).isEmpty());
+		assertTrue(checker.check(createIncident("WA7654321", "11111111", 'W')).isEmpty());
+
+		checker.reset();
+		assertTrue(checker.check(createIncident("WA1234567", "11111111", 'I')).isEmpty());
+	}
+
+	@Test
+	public void testDuplicateIncidentSpilled() throws IOException {
+		// only a hundred incidents are held in memory, so most of the lookups go through the Bloom filter to the spilled runs
+		Path scratch = temporaryFolder.newFolder().toPath();
+		try (SubmissionConsistencyChecker checker = new SubmissionConsistencyChecker(new IncidentKeySet(scratch, 100, 1000, 0.01))) {
+			for (int i = 0; i < 3000; i++) {
+				assertTrue(checker.check(createIncident("WA1234567", String.valueOf(10000000 + i), 'I')).isEmpty());
+			}
+			assertTrue(checker.check(createIncident("WA1234567", "10000042", 'D')).isEmpty());
+			for (int i = 0; i < 3000; i++) {
+				List<NIBRSError> errorList = checker.check(createIncident("WA1234567", String.valueOf(10000000 + i), 'I'));
+				assertEquals(String.valueOf(i), i == 42 ? 0 : 1, countErrors(errorList, NIBRSErrorCode._056));
+			}
+			assertEquals(1, fileCount(scratch));
+		}
+		assertEquals(0, fileCount(scratch));
+	}
+
+	@Test
+	public void testDuplicateIncidentIndependentOfThreads() {
+
+		// each incident number appears three times, so the second and third occurrences are the repeats, however the reports are scheduled
+		NIBRSSubmission submission = new NIBRSSubmission();
+		List<AbstractReport> reportList = new ArrayList<>();
+		for (int i = 0; i < 300; i++) {
+			reportList.add(createIncident("WA1234567", String.valueOf(10000000 + i % 100), 'I'));
+		}
+		submission.addReports(reportList);
+
+		SubmissionValidator submissionValidator = new SubmissionValidator();
+		submissionValidator.setParallelism(4);
+		for (int run = 0; run < 3; run++) {
+
+			List<NIBRSError> submissionErrors = submissionValidator.validate(submission);
+			assertDuplicatesAfterFirstHundred(reportList, submissionErrors);
+
+			List<NIBRSError> streamedErrors = new ArrayList<>();
+			PipelinedValidationListener listener = new PipelinedValidationListener(submissionValidator,
+					new SubmissionConsistencyListener((report, errorList) -> streamedErrors.addAll(errorList)), 4);
+			for (AbstractReport report : reportList) {
+				listener.newReport(report, Collections.emptyList());
+			}
+			listener.finish();
+			assertDuplicatesAfterFirstHundred(reportList, streamedErrors);
+
+		}
+
+	}
+
+	private static void assertDuplicatesAfterFirstHundred(List<AbstractReport> reportList, List<NIBRSError> errorList) {
+		List<AbstractReport> duplicates = new ArrayList<>();
+		for (NIBRSError e : errorList) {
+			if (e.getNIBRSErrorCode() == NIBRSErrorCode._056) {
+				duplicates.add(e.getReport());
+			}
+		}
+		assertEquals(reportList.subList(100, reportList.size()), duplicates);
+	}
+
+	private static GroupAIncidentReport createIncident(String ori, String incidentNumber, char reportActionType) {
+		GroupAIncidentReport ret = createReport(ori, 5, 2016);
+		ret.setIncidentNumber(incidentNumber);
+		ret.setReportActionType(reportActionType);
+		return ret;
+	}
+
+	private static long fileCount(Path directory) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.count();
+		}
+	}
+
+	private static long countErrors(List<NIBRSError> errorList, NIBRSErrorCode code) {
+		return errorList.stream().filter(e -> e.getNIBRSErrorCode() == code).count();
+	}
+
+	private static GroupAIncidentReport createReport(String ori, Integer month, Integer year) {
+		GroupAIncidentReport ret = BaselineIncidentFactory.getBaselineIncident();
+		ret.setOri(ori);
+		ret.setMonthOfTape(month);
+		ret.setYearOfTape(year);
+		return ret;
+	}
+
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2016 Research Triangle Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.validation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.search.nibrs.common.NIBRSError;
+import org.search.nibrs.model.AbstractReport;
+import org.search.nibrs.model.GroupAIncidentReport;
+import org.search.nibrs.model.NIBRSSubmission;
+import org.search.nibrs.model.codes.NIBRSErrorCode;
+import org.search.nibrs.validation.duplicate.IncidentKeyIndex;
+import org.search.nibrs.validation.duplicate.PendingIncidentKeys;
+import org.search.nibrs.validation.ori.FileOriSource;
+import org.search.nibrs.validation.ori.OriRegistry;
+
+public class SubmissionValidatorTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private NIBRSSubmission submission;
+
+	@Before
+	public void init() {
+		RuleViolationExemplarFactory exemplarFactory = RuleViolationExemplarFactory.getInstance();
+		submission = new NIBRSSubmission();
+		for (Integer ruleNumber : new Integer[] {115, 201, 252, 404}) {
+			submission.addReports(new ArrayList<>(exemplarFactory.getGroupAIncidentsThatViolateRule(ruleNumber)));
+		}
+		submission.addReports(new ArrayList<>(exemplarFactory.getGroupBArrestsThatViolateRule(701)));
+	}
+
+	@Test
+	public void testParallelValidationMatchesSerial() {
+
+		SubmissionValidator serialValidator = new SubmissionValidator();
+		List<NIBRSError> serialErrors = serialValidator.validate(submission);
+		assertFalse(serialErrors.isEmpty());
+
+		SubmissionValidator parallelValidator = new SubmissionValidator();
+		parallelValidator.setParallelism(4);
+		List<NIBRSError> parallelErrors = parallelValidator.validate(submission);
+
+		assertEquals(serialErrors.size(), parallelErrors.size());
+		for (int i = 0; i < serialErrors.size(); i++) {
+			NIBRSError serialError = serialErrors.get(i);
+			NIBRSError parallelError = parallelErrors.get(i);
+			assertEquals(serialError.getReport(), parallelError.getReport());
+			assertEquals(serialError.getNIBRSErrorCode(), parallelError.getNIBRSErrorCode());
+			assertEquals(serialError.getDataElementIdentifier(), parallelError.getDataElementIdentifier());
+		}
+
+	}
+
+	@Test
+	public void testParallelValidationReusesWorkers() {
+
+		Set<String> workerNames = ConcurrentHashMap.newKeySet();
+		SubmissionValidator validator = new SubmissionValidator() {
+			@Override
+			public List<NIBRSError> validateReport(AbstractReport report) {
+				workerNames.add(Thread.currentThread().getName());
+				return super.validateReport(report);
+			}
+		};
+		validator.setParallelism(3);
+		for (int i = 0; i < 5; i++) {
+			validator.validate(submission);
+		}
+		assertTrue(workerNames.size() <= 3);
+
+	}
+
+	@Test
+	public void testParallelValidationLimitsReportsInFlight() throws Exception {
+
+		AbstractReport firstReport = submission.getReports().get(0);
+		CountDownLatch releaseFirstReport = new CountDownLatch(1);
+		AtomicInteger otherReportsValidated = new AtomicInteger();
+		SubmissionValidator validator = new SubmissionValidator() {
+			@Override
+			public List<NIBRSError> validateReport(AbstractReport report) {
+				if (report == firstReport && releaseFirstReport.getCount() > 0) {
+					try {
+						releaseFirstReport.await(10, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				} else {
+					otherReportsValidated.incrementAndGet();
+				}
+				return super.validateReport(report);
+			}
+		};
+		validator.setParallelism(2);
+
+		// while the first report is held up, the other workers can only get through the reports already submitted
+		AtomicInteger validatedWhileHeld = new AtomicInteger();
+		Thread releaser = new Thread(() -> {
+			try {
+				Thread.sleep(500);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			validatedWhileHeld.set(otherReportsValidated.get());
+			releaseFirstReport.countDown();
+		});
+		releaser.start();
+		validator.validate(submission);
+		releaser.join();
+
+		assertTrue(submission.getReports().size() > 100);
+		assertTrue("validated " + validatedWhileHeld.get() + " reports while the first was held", validatedWhileHeld.get() <= 3);
+
+	}
+
+	@Test
+	public void testDuplicateIncident() throws Exception {
+
+		GroupAIncidentReport incident = BaselineIncidentFactory.getBaselineIncident();
+		incident.setOri("WA1234567");
+		incident.setReportActionType('I');
+
+		try (IncidentKeyIndex index = new IncidentKeyIndex(temporaryFolder.newFolder().toPath(), 1000, 0.01)) {
+
+			SubmissionValidator validator = new SubmissionValidator();
+			validator.setIncidentKeyIndex(index);
+			assertFalse(containsErrorCode(validator.validateReport(incident), NIBRSErrorCode._056));
+
+			index.recordAcceptedReport(incident);
+			List<NIBRSError> errorList = validator.validateReport(incident);
+			assertTrue(containsErrorCode(errorList, NIBRSErrorCode._056));
+			for (NIBRSError e : errorList) {
+				if (e.getNIBRSErrorCode() == NIBRSErrorCode._056) {
+					assertEquals("2", e.getDataElementIdentifier());
+					assertEquals(incident.getIncidentNumber(), e.getValue());
+				}
+			}
+
+			GroupAIncidentReport delete = new GroupAIncidentReport(incident);
+			delete.setReportActionType('D');
+			index.recordAcceptedReport(delete);
+			assertFalse(containsErrorCode(validator.validateReport(incident), NIBRSErrorCode._056));
+
+		}
+
+	}
+
+	@Test
+	public void testDuplicateIncidentsRecordedOnCommit() throws Exception {
+
+		NIBRSSubmission submission = new NIBRSSubmission();
+		for (int i = 0; i < 20; i++) {
+			GroupAIncidentReport incident = BaselineIncidentFactory.getBaselineIncident();
+			incident.setOri("WA1234567");
+			incident.setIncidentNumber(String.valueOf(20000000 + i));
+			incident.setReportActionType('I');
+			submission.addReport(incident);
+		}
+
+		try (IncidentKeyIndex index = new IncidentKeyIndex(temporaryFolder.newFolder().toPath(), 1000, 0.01)) {
+
+			SubmissionValidator validator = new SubmissionValidator();
+			validator.setIncidentKeyIndex(index);
+			validator.setParallelism(4);
+			PendingIncidentKeys pendingIncidentKeys = new PendingIncidentKeys(index);
+
+			// validating a submission does not change the index, so validating it again finds no duplicates
+			for (int run = 0; run < 2; run++) {
+				PipelinedValidationListener listener = new PipelinedValidationListener(validator, new SubmissionConsistencyListener((report, el) -> {
+					assertFalse(containsErrorCode(el, NIBRSErrorCode._056));
+					try {
+						pendingIncidentKeys.recordAcceptedReport(report);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}), 4);
+				for (AbstractReport report : submission.getReports()) {
+					listener.newReport(report, Collections.emptyList());
+				}
+				listener.finish();
+				assertFalse(index.contains("WA1234567", "20000000"));
+				if (run == 0) {
+					pendingIncidentKeys.rollback();
+				}
+			}
+
+			assertEquals(20, pendingIncidentKeys.size());
+			pendingIncidentKeys.commit();
+			assertEquals(0, pendingIncidentKeys.size());
+			assertEquals(20, validator.validate(submission).stream().filter(e -> e.getNIBRSErrorCode() == NIBRSErrorCode._056).count());
+
+		}
+
+	}
+
+	@Test
+	public void testOriRegistry() throws Exception {
+
+		GroupAIncidentReport incident = BaselineIncidentFactory.getBaselineIncident();
+		incident.setOri("WA1234567");
+		incident.getVictims().get(0).setOfficerOtherJurisdictionORI("WA7654321");
+
+		File oriFile = temporaryFolder.newFile();
+		Files.write(oriFile.toPath(), Arrays.asList("WA1234567", "WA7654321"));
+		OriRegistry oriRegistry = new OriRegistry(new FileOriSource(oriFile.toPath()));
+		SubmissionValidator validator = new SubmissionValidator();
+		validator.setOriRegistry(oriRegistry);
+		assertFalse(containsErrorCode(validator.validateReport(incident), NIBRSErrorCode._052));
+
+		incident.setOri("WA0000000");
+		incident.getVictims().get(0).setOfficerOtherJurisdictionORI("WA0000001");
+		List<String> dataElements = new ArrayList<>();
+		for (NIBRSError e : validator.validateReport(incident)) {
+			if (e.getNIBRSErrorCode() == NIBRSErrorCode._052) {
+				dataElements.add(e.getDataElementIdentifier());
+			}
+		}
+		assertEquals(Arrays.asList("1", "25C"), dataElements);
+
+	}
+
+	private static boolean containsErrorCode(List<NIBRSError> errorList, NIBRSErrorCode code) {
+		return errorList.stream().anyMatch(e -> e.getNIBRSErrorCode() == code);
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testInvalidParallelism() {
+		new SubmissionValidator().setParallelism(0);
+	}
+
+}
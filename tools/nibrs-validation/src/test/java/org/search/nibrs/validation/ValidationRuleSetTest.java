@@ -0,0 +1,59 @@
+/*
+ * Copyright 2016 Research Triangle Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.validation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class ValidationRuleSetTest {
+
+	@Test
+	public void testRuleSetsAreShared() {
+		ValidationRuleSet latest = ValidationRuleSet.latest();
+		assertSame(latest, ValidationRuleSet.forSpecVersion(ValidationConstants.SPEC__LATEST));
+		assertEquals(ValidationConstants.SPEC__LATEST, latest.getSpecVersion());
+		assertNotSame(latest, ValidationRuleSet.forSpecVersion(ValidationConstants.SPEC__2_1));
+		assertSame(ValidationRuleSet.forSpecVersion(ValidationConstants.SPEC__2_1), ValidationRuleSet.forSpecVersion(ValidationConstants.SPEC__2_1));
+	}
+
+	@Test
+	public void testRuleListsPopulated() {
+		ValidationRuleSet ruleSet = ValidationRuleSet.latest();
+		assertFalse(ruleSet.getIncidentReportRules().isEmpty());
+		assertFalse(ruleSet.getOffenseSegmentRules().isEmpty());
+		assertFalse(ruleSet.getPropertySegmentRules().isEmpty());
+		assertFalse(ruleSet.getVictimSegmentRules().isEmpty());
+		assertFalse(ruleSet.getOffenderSegmentRules().isEmpty());
+		assertFalse(ruleSet.getGroupAArresteeSegmentRules().isEmpty());
+		assertFalse(ruleSet.getArrestReportRules().isEmpty());
+		assertFalse(ruleSet.getGroupBArresteeSegmentRules().isEmpty());
+	}
+
+	@Test(expected=UnsupportedOperationException.class)
+	public void testRuleListsImmutable() {
+		ValidationRuleSet.latest().getVictimSegmentRules().clear();
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testInvalidSpecVersion() {
+		ValidationRuleSet.forSpecVersion("1.0");
+	}
+
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2016 Research Triangle Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.validation.duplicate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class IncidentKeyIndexTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private Path directory;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = temporaryFolder.newFolder("index").toPath();
+	}
+
+	@Test
+	public void testAddAndRemove() throws IOException {
+		try (IncidentKeyIndex index = new IncidentKeyIndex(directory, 1000, 0.01)) {
+			assertFalse(index.contains("WA1234567", "54236732"));
+			assertTrue(index.add("WA1234567", "54236732"));
+			assertTrue(index.contains("WA1234567", "54236732"));
+			assertTrue(index.contains("WA1234567", "54236732    "));
+			assertFalse(index.contains("WA1234568", "54236732"));
+			assertFalse(index.add("WA1234567", "54236732"));
+			index.flush();
+			assertTrue(index.contains("WA1234567", "54236732"));
+			assertTrue(index.remove("WA1234567", "54236732"));
+			assertFalse(index.contains("WA1234567", "54236732"));
+			assertFalse(index.remove("WA1234567", "54236732"));
+			index.flush();
+			assertFalse(index.contains("WA1234567", "54236732"));
+			assertTrue(index.add("WA1234567", "54236732"));
+			assertTrue(index.contains("WA1234567", "54236732"));
+		}
+	}
+
+	@Test
+	public void testInvalidKeys() throws IOException {
+		assertNull(IncidentKeyIndex.key(null, "1"));
+		assertNull(IncidentKeyIndex.key("WA1234567", " "));
+		assertNull(IncidentKeyIndex.key("WA12345678", "1"));
+		assertNull(IncidentKeyIndex.key("WA1234567", "1234567890123"));
+		assertNull(IncidentKeyIndex.key("WA1234567", "12\u00e93"));
+		assertEquals("WA1234567123         ", IncidentKeyIndex.key("WA1234567", "123"));
+		try (IncidentKeyIndex index = new IncidentKeyIndex(directory, 1000, 0.01)) {
+			assertFalse(index.add("WA12345678", "1"));
+			assertFalse(index.contains("WA12345678", "1"));
+		}
+	}
+
+	@Test
+	public void testPersistence() throws IOException {
+		try (IncidentKeyIndex index = new IncidentKeyIndex(directory, 1000, 0.01)) {
+			addKeys(index, 0, 500);
+			index.flush();
+			index.remove(ori(7), incidentNumber(7));
+		}
+		try (IncidentKeyIndex index = new IncidentKeyIndex(directory, 1000, 0.01)) {
+			assertKeys(index, 0, 500, 7);
+		}
+		// without its saved bloom filter, the index rebuilds one from the runs
+		Files.delete(directory.resolve("keys.bloom"));
+		try (IncidentKeyIndex index = new IncidentKeyIndex(directory, 1000, 0.01)) {
+			assertKeys(index, 0, 500, 7);
+		}
+	}
+
+	@Test
+	public void testMerge() throws IOException {
+		try (IncidentKeyIndex index = new IncidentKeyIndex(directory, 10000, 0.01)) {
+			index.setFlushThreshold(100);
+			addKeys(index, 0, 6400);
+			index.remove(ori(42), incidentNumber(42));
+			index.flush();
+			// merging keeps the number of runs logarithmic in the number of flushes
+			assertTrue(String.valueOf(index.getRunCount()), index.getRunCount() <= 8);
+			assertKeys(index, 0, 6400, 42);
+		}
+		try (IncidentKeyIndex index = new IncidentKeyIndex(directory, 10000, 0.01)) {
+			assertKeys(index, 0, 6400, 42);
+		}
+	}
+
+	@Test
+	public void testSecondOpenFails() throws IOException {
+		try (IncidentKeyIndex index = new IncidentKeyIndex(directory, 1000, 0.01)) {
+			try {
+				new IncidentKeyIndex(directory, 1000, 0.01).close();
+				throw new AssertionError("Expected the second open to fail");
+			} catch (IOException e) {
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void testConcurrentQueries() throws Exception {
+		try (IncidentKeyIndex index = new IncidentKeyIndex(directory, 100000, 0.01)) {
+			index.setFlushThreshold(500);
+			addKeys(index, 0, 5000);
+			AtomicBoolean done = new AtomicBoolean();
+			ExecutorService executor = Executors.newFixedThreadPool(4);
+			try {
+				List<Future<Integer>> futures = new ArrayList<>();
+				for (int t = 0; t < 4; t++) {
+					futures.add(executor.submit(() -> {
+						int misses = 0;
+						while (!done.get()) {
+							for (int i = 0; i < 5000; i += 7) {
+								if (!index.contains(ori(i), incidentNumber(i))) {
+									misses++;
+								}
+							}
+						}
+						return misses;
+					}));
+				}
+				// flushes and merges happen underneath the readers
+				addKeys(index, 5000, 20000);
+				index.flush();
+				done.set(true);
+				for (Future<Integer> future : futures) {
+					assertEquals(0, future.get().intValue());
+				}
+			} finally {
+				executor.shutdownNow();
+			}
+			assertKeys(index, 0, 20000, -1);
+		}
+	}
+
+	private static void addKeys(IncidentKeyIndex index, int from, int to) throws IOException {
+		for (int i = from; i < to; i++) {
+			assertTrue(index.add(ori(i), incidentNumber(i)));
+		}
+	}
+
+	private static void assertKeys(IncidentKeyIndex index, int from, int to, int removed) throws IOException {
+		for (int i = from; i < to; i++) {
+			assertEquals(String.valueOf(i), i != removed, index.contains(ori(i), incidentNumber(i)));
+			assertFalse(index.contains(ori(i), incidentNumber(i) + "X"));
+		}
+	}
+
+	private static String ori(int i) {
+		return String.format("WA%07d", i % 13);
+	}
+
+	private static String incidentNumber(int i) {
+		return "INC" + (i * 7919L % 1000003);
+	}
+
+}
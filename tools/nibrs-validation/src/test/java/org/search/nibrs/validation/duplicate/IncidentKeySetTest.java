@@ -0,0 +1,118 @@
+/*
+ * Copyright 2016 Research Triangle Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.validation.duplicate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class IncidentKeySetTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private Path directory;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = temporaryFolder.newFolder("scratch").toPath();
+	}
+
+	@Test
+	public void testInMemory() throws IOException {
+		try (IncidentKeySet set = new IncidentKeySet(directory, 1000, 1000, 0.01)) {
+			assertFalse(set.contains("WA1234567", "54236732"));
+			assertTrue(set.add("WA1234567", "54236732"));
+			assertTrue(set.contains("WA1234567", "54236732  "));
+			assertFalse(set.contains("WA1234568", "54236732"));
+			assertTrue(set.remove("WA1234567", "54236732"));
+			assertFalse(set.contains("WA1234567", "54236732"));
+			assertFalse(set.add("WA12345678", "1"));
+			assertFalse(set.contains("WA12345678", "1"));
+			// nothing was spilled, so the disk was never touched
+			assertEquals(0, set.getRunCount());
+			assertEquals(0, fileCount(directory));
+		}
+	}
+
+	@Test
+	public void testSpilled() throws IOException {
+		try (IncidentKeySet set = new IncidentKeySet(directory, 100, 1000, 0.01)) {
+			for (int i = 0; i < 10000; i++) {
+				assertFalse(set.contains(ori(i), incidentNumber(i)));
+				assertTrue(set.add(ori(i), incidentNumber(i)));
+			}
+			// runs are merged as they are spilled, so there are only a few of them
+			assertTrue(String.valueOf(set.getRunCount()), set.getRunCount() <= 10);
+			for (int i = 0; i < 10000; i += 3) {
+				set.remove(ori(i), incidentNumber(i));
+			}
+			for (int i = 0; i < 10000; i++) {
+				assertEquals(String.valueOf(i), i % 3 != 0, set.contains(ori(i), incidentNumber(i)));
+				assertFalse(set.contains(ori(i), incidentNumber(i) + "X"));
+			}
+			// a removed incident may be added again
+			set.add(ori(0), incidentNumber(0));
+			assertTrue(set.contains(ori(0), incidentNumber(0)));
+			assertEquals(1, fileCount(directory));
+		}
+		assertEquals(0, fileCount(directory));
+	}
+
+	@Test
+	public void testToRun() throws IOException {
+		try (IncidentKeySet set = new IncidentKeySet(directory, 100, 1000, 0.01)) {
+			for (int i = 0; i < 1000; i++) {
+				set.add(ori(i), incidentNumber(i));
+			}
+			set.remove(ori(7), incidentNumber(7));
+			set.remove("WA7654321", "NOTADDED");
+			try (KeyRun run = set.toRun()) {
+				assertEquals(1001, run.getRecordCount());
+				assertTrue(run.lookup(IncidentKeyIndex.key(ori(1), incidentNumber(1)).getBytes()));
+				assertFalse(run.lookup(IncidentKeyIndex.key(ori(7), incidentNumber(7)).getBytes()));
+				assertFalse(run.lookup(IncidentKeyIndex.key("WA7654321", "NOTADDED").getBytes()));
+			}
+			assertEquals(0, set.getRunCount());
+			assertFalse(set.contains(ori(1), incidentNumber(1)));
+		}
+	}
+
+	private static long fileCount(Path directory) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.count();
+		}
+	}
+
+	private static String ori(int i) {
+		return String.format("WA%07d", i % 13);
+	}
+
+	private static String incidentNumber(int i) {
+		return "INC" + (i * 7919L % 1000003);
+	}
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2016 Research Triangle Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.validation.duplicate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.search.nibrs.model.GroupAIncidentReport;
+
+public class PendingIncidentKeysTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private Path directory;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = temporaryFolder.newFolder("index").toPath();
+	}
+
+	@Test
+	public void testCommit() throws IOException {
+		try (IncidentKeyIndex index = new IncidentKeyIndex(directory, 10000, 0.01)) {
+			for (int i = 0; i < 10; i++) {
+				index.add("WA7654321", "OLD" + i);
+			}
+			index.flush();
+			PendingIncidentKeys pendingIncidentKeys = new PendingIncidentKeys(index, 100);
+			for (int i = 0; i < 1000; i++) {
+				pendingIncidentKeys.recordAcceptedReport(createIncident("WA1234567", "NEW" + i, 'I'));
+			}
+			pendingIncidentKeys.recordAcceptedReport(createIncident("WA7654321", "OLD3", 'D'));
+			// within the submission, the last report for an incident wins
+			pendingIncidentKeys.recordAcceptedReport(createIncident("WA1234567", "NEW5", 'D'));
+			pendingIncidentKeys.recordAcceptedReport(createIncident("WA1234567", "NEW6", 'D'));
+			pendingIncidentKeys.recordAcceptedReport(createIncident("WA1234567", "NEW6", 'I'));
+			pendingIncidentKeys.recordAcceptedReport(createIncident("WA1234567", "NEW7", 'W'));
+			assertEquals(1004, pendingIncidentKeys.size());
+
+			// the changes are staged on disk, and the index does not see them
+			assertTrue(fileCount(index.getStagingDirectory()) > 0);
+			assertFalse(index.contains("WA1234567", "NEW0"));
+			assertTrue(index.contains("WA7654321", "OLD3"));
+
+			pendingIncidentKeys.commit();
+			assertEquals(0, pendingIncidentKeys.size());
+			assertEquals(0, fileCount(index.getStagingDirectory()));
+			for (int i = 0; i < 1000; i++) {
+				assertEquals(String.valueOf(i), i != 5, index.contains("WA1234567", "NEW" + i));
+			}
+			for (int i = 0; i < 10; i++) {
+				assertEquals(String.valueOf(i), i != 3, index.contains("WA7654321", "OLD" + i));
+			}
+			// committing with nothing recorded changes nothing
+			pendingIncidentKeys.commit();
+			assertTrue(index.contains("WA1234567", "NEW0"));
+		}
+		try (IncidentKeyIndex index = new IncidentKeyIndex(directory, 10000, 0.01)) {
+			assertTrue(index.contains("WA1234567", "NEW999"));
+			assertFalse(index.contains("WA1234567", "NEW5"));
+			assertFalse(index.contains("WA7654321", "OLD3"));
+		}
+	}
+
+	@Test
+	public void testRollback() throws IOException {
+		try (IncidentKeyIndex index = new IncidentKeyIndex(directory, 10000, 0.01)) {
+			PendingIncidentKeys pendingIncidentKeys = new PendingIncidentKeys(index, 100);
+			for (int i = 0; i < 1000; i++) {
+				pendingIncidentKeys.recordAcceptedReport(createIncident("WA1234567", "NEW" + i, 'I'));
+			}
+			pendingIncidentKeys.rollback();
+			assertEquals(0, pendingIncidentKeys.size());
+			assertEquals(0, fileCount(index.getStagingDirectory()));
+			pendingIncidentKeys.commit();
+			assertFalse(index.contains("WA1234567", "NEW0"));
+		}
+	}
+
+	@Test
+	public void testAbandonedChangesDeletedOnOpen() throws IOException {
+		try (IncidentKeyIndex index = new IncidentKeyIndex(directory, 10000, 0.01)) {
+			PendingIncidentKeys pendingIncidentKeys = new PendingIncidentKeys(index, 100);
+			for (int i = 0; i < 1000; i++) {
+				pendingIncidentKeys.recordAcceptedReport(createIncident("WA1234567", "NEW" + i, 'I'));
+			}
+		}
+		try (IncidentKeyIndex index = new IncidentKeyIndex(directory, 10000, 0.01)) {
+			assertEquals(0, fileCount(index.getStagingDirectory()));
+			assertFalse(index.contains("WA1234567", "NEW0"));
+		}
+	}
+
+	private static GroupAIncidentReport createIncident(String ori, String incidentNumber, char reportActionType) {
+		GroupAIncidentReport ret = new GroupAIncidentReport();
+		ret.setOri(ori);
+		ret.setIncidentNumber(incidentNumber);
+		ret.setReportActionType(reportActionType);
+		return ret;
+	}
+
+	private static long fileCount(Path directory) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.count();
+		}
+	}
+
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2016 Research Triangle Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.validation.ori;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class OriRegistryTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testEncode() {
+		assertEquals(1, OriRegistry.encode("000000000"));
+		assertEquals(OriRegistry.encode("ZZZZZZZZZ") - 1, (long) Math.pow(36, 9) - 1);
+		assertTrue(OriRegistry.encode("WA1234567") != OriRegistry.encode("WA1234568"));
+		assertEquals(0, OriRegistry.encode(null));
+		assertEquals(0, OriRegistry.encode("WA123456"));
+		assertEquals(0, OriRegistry.encode("WA12345678"));
+		assertEquals(0, OriRegistry.encode("wa1234567"));
+		assertEquals(0, OriRegistry.encode("WA12 4567"));
+	}
+
+	@Test
+	public void testFileSource() throws IOException {
+		Path file = writeOriFile("# ORI file extract", "WA1234567 SOME POLICE DEPARTMENT", "", "MD0000001", "MD0000001", "bad");
+		OriRegistry registry = new OriRegistry(new FileOriSource(file));
+		assertEquals(2, registry.size());
+		assertTrue(registry.contains("WA1234567"));
+		assertTrue(registry.contains("MD0000001"));
+		assertFalse(registry.contains("MD0000002"));
+		assertFalse(registry.contains("WA123456"));
+		assertFalse(registry.contains(null));
+	}
+
+	@Test
+	public void testManyOris() throws IOException {
+		List<String> oris = new ArrayList<>();
+		for (int i = 0; i < 25000; i++) {
+			oris.add(ori(i));
+		}
+		OriRegistry registry = new OriRegistry(new ListOriSource(oris));
+		assertEquals(oris.size(), registry.size());
+		for (int i = 0; i < 25000; i++) {
+			assertTrue(registry.contains(ori(i)));
+			assertFalse(registry.contains(ori(i + 25000)));
+		}
+	}
+
+	@Test
+	public void testReloadWhileQuerying() throws Exception {
+		ListOriSource source = new ListOriSource(Arrays.asList("WA1234567"));
+		OriRegistry registry = new OriRegistry(source);
+		AtomicBoolean done = new AtomicBoolean();
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			List<Future<Integer>> futures = new ArrayList<>();
+			for (int t = 0; t < 2; t++) {
+				futures.add(executor.submit(() -> {
+					int misses = 0;
+					while (!done.get()) {
+						if (!registry.contains("WA1234567")) {
+							misses++;
+						}
+					}
+					return misses;
+				}));
+			}
+			for (int i = 0; i < 50; i++) {
+				List<String> oris = new ArrayList<>(Arrays.asList("WA1234567"));
+				for (int j = 0; j < i * 100; j++) {
+					oris.add(ori(j));
+				}
+				source.oris = oris;
+				registry.reload();
+				assertEquals(oris.size(), registry.size());
+			}
+			done.set(true);
+			for (Future<Integer> future : futures) {
+				assertEquals(0, future.get().intValue());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testFailedReloadKeepsContents() throws IOException {
+		Path file = writeOriFile("WA1234567");
+		OriRegistry registry = new OriRegistry(new FileOriSource(file));
+		Files.delete(file);
+		try {
+			registry.reload();
+			throw new AssertionError("Expected reload to fail");
+		} catch (IOException e) {
+			// expected
+		}
+		assertTrue(registry.contains("WA1234567"));
+	}
+
+	private Path writeOriFile(String... lines) throws IOException {
+		Path file = temporaryFolder.newFile().toPath();
+		Files.write(file, Arrays.asList(lines), StandardCharsets.ISO_8859_1);
+		return file;
+	}
+
+	private static String ori(int i) {
+		return String.format("%s%07d", i % 2 == 0 ? "VA" : "NC", i);
+	}
+
+	private static final class ListOriSource implements OriSource {
+
+		private volatile List<String> oris;
+
+		ListOriSource(List<String> oris) {
+			this.oris = oris;
+		}
+
+		@Override
+		public void readOris(Consumer<String> consumer) {
+			oris.forEach(consumer);
+		}
+
+		@Override
+		public String getDescription() {
+			return "list";
+		}
+
+	}
+
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2016 Research Triangle Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.validation.rules;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.search.nibrs.common.NIBRSError;
+import org.search.nibrs.common.ParsedObject;
+import org.search.nibrs.common.ValidationTarget;
+import org.search.nibrs.model.codes.NIBRSErrorCode;
+import org.search.nibrs.validation.NonPublicValidationTargets;
+
+public class AbstractBeanPropertyRuleTest {
+	
+	public static final class TestSubject implements ValidationTarget {
+		private int intValue = 7;
+		private long longValue = 1L << 40;
+		private double doubleValue = 2.5;
+		private boolean booleanValue = true;
+		private char charValue = 'x';
+		private Integer boxedValue;
+		private String stringValue;
+		private ParsedObject<Integer> parsedValue = ParsedObject.getMissingParsedObject();
+		public int getIntValue() {
+			return intValue;
+		}
+		public long getLongValue() {
+			return longValue;
+		}
+		public double getDoubleValue() {
+			return doubleValue;
+		}
+		public boolean isBooleanValue() {
+			return booleanValue;
+		}
+		public char getCharValue() {
+			return charValue;
+		}
+		public Integer getBoxedValue() {
+			return boxedValue;
+		}
+		public String getStringValue() {
+			return stringValue;
+		}
+		public ParsedObject<Integer> getParsedValue() {
+			return parsedValue;
+		}
+		@Override
+		public NIBRSError getErrorTemplate() {
+			return new NIBRSError();
+		}
+	}
+	
+	/**
+	 * A rule that every value violates, so that the error it returns carries the value that the accessor read.
+	 */
+	private static final class ValueReportingRule<T extends ValidationTarget> extends AbstractBeanPropertyRule<T> {
+		ValueReportingRule(String propertyName, Class<T> subjectClass) {
+			super(propertyName, "1", subjectClass, NIBRSErrorCode._101);
+		}
+		@Override
+		protected boolean propertyViolatesRule(Object value, T subject) {
+			return true;
+		}
+	}
+	
+	private static <T extends ValidationTarget> Object readValue(String propertyName, Class<T> subjectClass, T subject) {
+		ValueReportingRule<T> rule = new ValueReportingRule<>(propertyName, subjectClass);
+		return rule.apply(subject).getValue();
+	}
+	
+	@Test
+	public void testPrimitiveGetters() {
+		TestSubject subject = new TestSubject();
+		assertEquals(Integer.valueOf(7), readValue("intValue", TestSubject.class, subject));
+		assertEquals(Long.valueOf(1L << 40), readValue("longValue", TestSubject.class, subject));
+		assertEquals(Double.valueOf(2.5), readValue("doubleValue", TestSubject.class, subject));
+		assertEquals(Boolean.TRUE, readValue("booleanValue", TestSubject.class, subject));
+		assertEquals(Character.valueOf('x'), readValue("charValue", TestSubject.class, subject));
+		subject.intValue = -3;
+		subject.booleanValue = false;
+		assertEquals(Integer.valueOf(-3), readValue("intValue", TestSubject.class, subject));
+		assertEquals(Boolean.FALSE, readValue("booleanValue", TestSubject.class, subject));
+	}
+	
+	@Test
+	public void testObjectGetters() {
+		TestSubject subject = new TestSubject();
+		assertNull(readValue("boxedValue", TestSubject.class, subject));
+		assertNull(readValue("stringValue", TestSubject.class, subject));
+		assertSame(subject.parsedValue, readValue("parsedValue", TestSubject.class, subject));
+		subject.boxedValue = 1000;
+		subject.stringValue = "foo";
+		assertEquals(Integer.valueOf(1000), readValue("boxedValue", TestSubject.class, subject));
+		assertEquals("foo", readValue("stringValue", TestSubject.class, subject));
+	}
+	
+	@Test
+	public void testGeneratedAccessor() {
+		ValueReportingRule<TestSubject> rule = new ValueReportingRule<>("intValue", TestSubject.class);
+		assertFalse(rule.propertyAccessor instanceof AbstractBeanPropertyRule.ReflectivePropertyAccessor);
+	}
+	
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testReflectionFallback() {
+		ValidationTarget subject = NonPublicValidationTargets.newTarget("foo");
+		Class<ValidationTarget> subjectClass = (Class<ValidationTarget>) subject.getClass();
+		ValueReportingRule<ValidationTarget> rule = new ValueReportingRule<>("value", subjectClass);
+		assertTrue(rule.propertyAccessor instanceof AbstractBeanPropertyRule.ReflectivePropertyAccessor);
+		assertEquals("foo", rule.apply(subject).getValue());
+		assertNull(rule.apply(NonPublicValidationTargets.newTarget(null)).getValue());
+	}
+	
+	@Test(expected=RuntimeException.class)
+	public void testNoSuchProperty() {
+		new ValueReportingRule<>("noSuchValue", TestSubject.class);
+	}
+
+}
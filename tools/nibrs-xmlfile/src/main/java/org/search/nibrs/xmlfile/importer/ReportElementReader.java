@@ -0,0 +1,167 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.xmlfile.importer;
+
+import java.io.InputStream;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.search.nibrs.xmlfile.util.NibrsNamespaceContext.NIBRS_NAMESPACES;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Pulls the nibrs:Report elements of a submission from a stream one at a time, so that only one report is held in memory at once.
+ * <br/>
+ * Each report is returned as a small DOM of its own, whose document element is a shallow copy of the nibrs:Submission element, with
+ * the same names, namespaces, attributes, text and comments that parsing the whole submission would have produced.  That lets the
+ * XPath-based builder code run against it unchanged.
+ */
+class ReportElementReader implements AutoCloseable {
+
+	private static final String SUBMISSION_ELEMENT_NAME = "Submission";
+	private static final String REPORT_ELEMENT_NAME = "Report";
+
+	private final XMLStreamReader reader;
+	private final DocumentBuilder documentBuilder;
+
+	private Element submissionTemplate;
+	private int depth;
+
+	/**
+	 * Create a reader.
+	 * @param xmlInputFactory the factory for the underlying stream reader
+	 * @param documentBuilder the builder that creates a document for each report
+	 * @param inputStream the submission
+	 */
+	ReportElementReader(XMLInputFactory xmlInputFactory, DocumentBuilder documentBuilder, InputStream inputStream) throws XMLStreamException {
+		this.reader = xmlInputFactory.createXMLStreamReader(inputStream);
+		this.documentBuilder = documentBuilder;
+	}
+
+	/**
+	 * Read the next report.
+	 * @return the nibrs:Report element, or null if there are no more reports in the submission
+	 */
+	Element nextReport() throws XMLStreamException {
+		while (reader.hasNext()) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+				if (depth == 1) {
+					readSubmissionElement();
+				} else if (depth == 2 && submissionTemplate != null && isNibrsElement(REPORT_ELEMENT_NAME)) {
+					Document document = documentBuilder.newDocument();
+					Element submission = (Element) document.importNode(submissionTemplate, false);
+					document.appendChild(submission);
+					Element report = readElement(document, submission);
+					depth--;
+					return report;
+				}
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public void close() throws XMLStreamException {
+		reader.close();
+	}
+
+	private void readSubmissionElement() {
+		if (isNibrsElement(SUBMISSION_ELEMENT_NAME)) {
+			Document document = documentBuilder.newDocument();
+			submissionTemplate = createElement(document);
+			document.appendChild(submissionTemplate);
+		}
+	}
+
+	private boolean isNibrsElement(String localName) {
+		return NIBRS_NAMESPACES.NIBRS.getNamespace().equals(reader.getNamespaceURI()) && localName.equals(reader.getLocalName());
+	}
+
+	/**
+	 * Read the element at the reader's current START_ELEMENT, and all of its content, leaving the reader at the matching END_ELEMENT.
+	 */
+	private Element readElement(Document document, Node parent) throws XMLStreamException {
+		Element ret = createElement(document);
+		parent.appendChild(ret);
+		Node current = ret;
+		int elementDepth = 1;
+		while (elementDepth > 0) {
+			switch (reader.next()) {
+			case XMLStreamConstants.START_ELEMENT:
+				Element child = createElement(document);
+				current.appendChild(child);
+				current = child;
+				elementDepth++;
+				break;
+			case XMLStreamConstants.END_ELEMENT:
+				current = current.getParentNode();
+				elementDepth--;
+				break;
+			case XMLStreamConstants.CHARACTERS:
+			case XMLStreamConstants.SPACE:
+				current.appendChild(document.createTextNode(reader.getText()));
+				break;
+			case XMLStreamConstants.CDATA:
+				current.appendChild(document.createCDATASection(reader.getText()));
+				break;
+			case XMLStreamConstants.COMMENT:
+				current.appendChild(document.createComment(reader.getText()));
+				break;
+			case XMLStreamConstants.PROCESSING_INSTRUCTION:
+				current.appendChild(document.createProcessingInstruction(reader.getPITarget(), reader.getPIData()));
+				break;
+			default:
+				break;
+			}
+		}
+		return ret;
+	}
+
+	private Element createElement(Document document) {
+		Element ret = document.createElementNS(emptyToNull(reader.getNamespaceURI()), qualifiedName(reader.getPrefix(), reader.getLocalName()));
+		for (int i = 0; i < reader.getNamespaceCount(); i++) {
+			String prefix = reader.getNamespacePrefix(i);
+			ret.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI,
+					prefix == null || prefix.isEmpty() ? XMLConstants.XMLNS_ATTRIBUTE : XMLConstants.XMLNS_ATTRIBUTE + ":" + prefix,
+					reader.getNamespaceURI(i));
+		}
+		for (int i = 0; i < reader.getAttributeCount(); i++) {
+			ret.setAttributeNS(emptyToNull(reader.getAttributeNamespace(i)), qualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)),
+					reader.getAttributeValue(i));
+		}
+		return ret;
+	}
+
+	private static String qualifiedName(String prefix, String localName) {
+		return prefix == null || prefix.isEmpty() ? localName : prefix + ":" + localName;
+	}
+
+	private static String emptyToNull(String s) {
+		return s == null || s.isEmpty() ? null : s;
+	}
+
+}
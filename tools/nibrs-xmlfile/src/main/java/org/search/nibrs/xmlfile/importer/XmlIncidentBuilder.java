@@ -15,6 +15,7 @@
  */
 package org.search.nibrs.xmlfile.importer;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringReader;
@@ -32,6 +33,7 @@ import java.util.Map;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
 
 import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -57,7 +59,6 @@ import org.search.nibrs.model.codes.NIBRSErrorCode;
 import org.search.nibrs.xmlfile.util.NibrsStringUtils;
 import org.search.nibrs.xmlfile.util.XmlUtils;
 import org.springframework.stereotype.Component;
-import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -78,12 +79,14 @@ public class XmlIncidentBuilder extends AbstractIncidentBuilder{
 	private static final Log log = LogFactory.getLog(XmlIncidentBuilder.class);;
 	
 	private DocumentBuilder documentBuilder; 
+	private XMLInputFactory xmlInputFactory;
 	private Map<String, String> victimToSubjectRelationshipCodeMap = new HashMap<>(); 
 
 	public XmlIncidentBuilder() throws ParserConfigurationException {
 		super();
 		setDateFormat(new SimpleDateFormat("yyyy-MM-dd"));
 		initDocumentBuilder();
+		initXmlInputFactory();
 		initVictimToSubjectRelationshipCodeMap();
 	}
 
@@ -149,6 +152,15 @@ public class XmlIncidentBuilder extends AbstractIncidentBuilder{
 		documentBuilder.setEntityResolver(new NullResolver());
 	}
 
+	private void initXmlInputFactory() {
+		xmlInputFactory = XMLInputFactory.newInstance();
+		xmlInputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+		xmlInputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+		xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		// resolve external entities to nothing, as NullResolver does for the document builder
+		xmlInputFactory.setXMLResolver((publicId, systemId, baseUri, namespace) -> new ByteArrayInputStream(new byte[0]));
+	}
+
 	public void addIncidentListener(ReportListener listener) {
 		getListeners().add(listener);
 	}
@@ -158,7 +170,8 @@ public class XmlIncidentBuilder extends AbstractIncidentBuilder{
 	}
 
 	/**
-	 * Read NIBRS incidents in the XML format from the input stream.
+	 * Read NIBRS incidents in the XML format from the input stream.  The submission is read one nibrs:Report at a time, and each report
+	 * is passed to the listeners as soon as it has been read, so memory use does not grow with the size of the submission.
 	 * @param reader the source of the data
 	 * @throws Exception 
 	 */
@@ -170,19 +183,16 @@ public class XmlIncidentBuilder extends AbstractIncidentBuilder{
 		
 		List<NIBRSError> errorList = new ArrayList<NIBRSError>();
 		
-		Document document;
-		
-		try {
-			document = documentBuilder.parse(inputStream);
-			NodeList reportElements = (NodeList) XmlUtils.xPathNodeListSearch(document, "nibrs:Submission/nibrs:Report");
+		try (ReportElementReader reportElementReader = new ReportElementReader(xmlInputFactory, documentBuilder, inputStream)) {
+			
+			Element reportNode;
+			int reportNumber = 1;
 			
-			for(int i=0; i < reportElements.getLength(); i++){
+			while ((reportNode = reportElementReader.nextReport()) != null) {
 				ReportSource reportSource = new ReportSource();
-				reportSource.setSourceLocation(String.valueOf(i+1));
+				reportSource.setSourceLocation(String.valueOf(reportNumber++));
 				reportSource.setSourceName(readerLocationName);
 				
-				Element reportNode = (Element)reportElements.item(i);
-				
 				ReportBaseData reportBaseData = new ReportBaseData();
 				List<NIBRSError> reportBaseDataErrors = reportBaseData.setData(reportSource, reportNode);
 				errorList.addAll(reportBaseDataErrors);
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.xmlfile.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+/**
+ * Cache of compiled xpath expressions, keyed by expression string and resolved against the NIBRS namespace context.
+ * <br/>
+ * Compiled expressions (and the XPath objects that compile them) are not thread-safe, so each thread has its own cache.  Some of the
+ * expressions the importer uses embed element ids, so each cache keeps only the most recently used expressions rather than growing without
+ * bound.
+ */
+public final class XPathExpressionCache {
+
+	static final int MAX_ENTRIES = 1024;
+
+	private static final ThreadLocal<XPathExpressionCache> CACHE = ThreadLocal.withInitial(XPathExpressionCache::new);
+
+	private final XPath xpath;
+
+	private final Map<String, XPathExpression> expressions = new LinkedHashMap<String, XPathExpression>(256, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, XPathExpression> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+
+	private XPathExpressionCache() {
+		xpath = XPathFactory.newInstance().newXPath();
+		xpath.setNamespaceContext(XmlUtils.NIBRS_NAMESPACE_CONTEXT);
+	}
+
+	/**
+	 * Get the compiled form of the specified xpath, compiling it if the current thread has not used it recently.  The expression must only
+	 * be evaluated on the current thread.
+	 * @param xPath the xpath
+	 * @return the compiled expression
+	 * @throws XPathExpressionException if the xpath cannot be compiled
+	 */
+	public static XPathExpression getExpression(String xPath) throws XPathExpressionException {
+		return CACHE.get().compile(xPath);
+	}
+
+	private XPathExpression compile(String xPath) throws XPathExpressionException {
+		XPathExpression ret = expressions.get(xPath);
+		if (ret == null) {
+			ret = xpath.compile(xPath);
+			expressions.put(xPath, ret);
+		}
+		return ret;
+	}
+
+	static int size() {
+		return CACHE.get().expressions.size();
+	}
+
+}
@@ -41,11 +41,9 @@ import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
 import javax.xml.validation.Validator;
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.w3c.dom.Attr;
 import org.w3c.dom.Document;
@@ -166,9 +164,7 @@ public class XmlUtils {
             return null;
         }
         try{
-	        XPath xpath = XPathFactory.newInstance().newXPath();
-	        xpath.setNamespaceContext(NIBRS_NAMESPACE_CONTEXT);
-	        XPathExpression expression = xpath.compile(xPath);
+	        XPathExpression expression = XPathExpressionCache.getExpression(xPath);
 	        return (Node) expression.evaluate(context, XPathConstants.NODE);
         }
         catch (Exception e){
@@ -190,13 +186,11 @@ public class XmlUtils {
         {
             return null;
         }
-        XPath xpath = XPathFactory.newInstance().newXPath();
-        xpath.setNamespaceContext(NIBRS_NAMESPACE_CONTEXT);
         XPathExpression expression;
         
         String value = null;
 		try {
-			expression = xpath.compile(xPath);
+			expression = XPathExpressionCache.getExpression(xPath);
 			value = (String) expression.evaluate(context, XPathConstants.STRING);
 		} catch (XPathExpressionException e) {
 			// TODO Auto-generated catch block
@@ -216,12 +210,10 @@ public class XmlUtils {
         {
             return null;
         }
-        XPath xpath = XPathFactory.newInstance().newXPath();
-        xpath.setNamespaceContext(NIBRS_NAMESPACE_CONTEXT);
         XPathExpression expression;
         NodeList result = null;
 		try {
-			expression = xpath.compile(xPath);
+			expression = XPathExpressionCache.getExpression(xPath);
 			result = (NodeList) expression.evaluate(context, XPathConstants.NODESET);
 		} catch (XPathExpressionException e) {
 			
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.xmlfile.importer;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.search.nibrs.common.NIBRSError;
+import org.search.nibrs.common.ReportSource;
+import org.search.nibrs.model.AbstractReport;
+import org.search.nibrs.xmlfile.util.XmlUtils;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+public class XmlIncidentBuilderStreamingTest {
+
+	private static final String[] SAMPLES = new String[] {"nibrs_AllFields_Sample.xml", "nibrs_GroupAReplace_Sample.xml",
+			"nibrs_GroupBArrestDelete_Sample.xml", "nibrs_GroupBArrest_Sample.xml", "nibrs_IncidentDelete_Sample.xml", "nibrs_ZeroReport_Sample.xml"};
+
+	private Document submission;
+
+	@Before
+	public void setUp() throws Exception {
+		// one submission with the reports from all of the samples, several times over
+		DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+		documentBuilderFactory.setNamespaceAware(true);
+		for (int i = 0; i < 3; i++) {
+			for (String sample : SAMPLES) {
+				Document d = documentBuilderFactory.newDocumentBuilder().parse(new File("src/test/resources/iep-sample/" + sample));
+				if (submission == null) {
+					submission = d;
+				} else {
+					NodeList reports = XmlUtils.xPathNodeListSearch(d, "nibrs:Submission/nibrs:Report");
+					for (int r = 0; r < reports.getLength(); r++) {
+						Node report = submission.importNode(reports.item(r), true);
+						submission.getDocumentElement().appendChild(report);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testStreamingMatchesDocument() throws Exception {
+
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		TransformerFactory.newInstance().newTransformer().transform(new DOMSource(submission), new StreamResult(os));
+
+		List<AbstractReport> streamedReports = new ArrayList<>();
+		List<NIBRSError> streamedErrors = new ArrayList<>();
+		XmlIncidentBuilder incidentBuilder = new XmlIncidentBuilder();
+		incidentBuilder.addIncidentListener((report, errorList) -> {
+			streamedReports.add(report);
+			streamedErrors.addAll(errorList);
+		});
+		incidentBuilder.buildIncidents(new ByteArrayInputStream(os.toByteArray()), "test");
+
+		// build the same reports from the whole-document DOM, the way the builder used to
+		List<AbstractReport> documentReports = new ArrayList<>();
+		XmlIncidentBuilder documentIncidentBuilder = new XmlIncidentBuilder();
+		NodeList reportElements = XmlUtils.xPathNodeListSearch(submission, "nibrs:Submission/nibrs:Report");
+		for (int i = 0; i < reportElements.getLength(); i++) {
+			ReportSource reportSource = new ReportSource();
+			reportSource.setSourceLocation(String.valueOf(i + 1));
+			reportSource.setSourceName("test");
+			Element reportElement = (Element) reportElements.item(i);
+			ReportBaseData reportBaseData = new ReportBaseData();
+			if (reportBaseData.setData(reportSource, reportElement).isEmpty()) {
+				documentReports.add(documentIncidentBuilder.buildReport(new ArrayList<>(), reportElement, "test", reportBaseData));
+			}
+		}
+
+		assertEquals(SAMPLES.length * 3, documentReports.size());
+		assertEquals(documentReports.size(), streamedReports.size());
+		for (int i = 0; i < documentReports.size(); i++) {
+			AbstractReport expected = documentReports.get(i);
+			AbstractReport actual = streamedReports.get(i);
+			assertEquals(expected.getClass(), actual.getClass());
+			assertEquals(expected, actual);
+			assertEquals(expected.getSource().getSourceLocation(), actual.getSource().getSourceLocation());
+		}
+		assertEquals(0, streamedErrors.size());
+
+	}
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.xmlfile.util;
+
+import static org.junit.Assert.*;
+
+import java.io.StringReader;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPathExpression;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+public class TestXPathExpressionCache
+{
+
+	@Test
+	public void testSameThreadSharesExpression() throws Exception
+	{
+		XPathExpression e1 = XPathExpressionCache.getExpression("nibrs:Report/nc:Incident");
+		XPathExpression e2 = XPathExpressionCache.getExpression("nibrs:Report/nc:Incident");
+		assertSame(e1, e2);
+		AtomicReference<XPathExpression> other = new AtomicReference<>();
+		Thread t = new Thread(() -> {
+			try {
+				other.set(XPathExpressionCache.getExpression("nibrs:Report/nc:Incident"));
+			} catch (Exception e) {
+				throw new RuntimeException(e);
+			}
+		});
+		t.start();
+		t.join();
+		assertNotNull(other.get());
+		assertNotSame(e1, other.get());
+	}
+
+	@Test
+	public void testBounded() throws Exception
+	{
+		for (int i = 0; i < XPathExpressionCache.MAX_ENTRIES + 10; i++) {
+			XPathExpressionCache.getExpression("nc:Person[@s:id = 'Person" + i + "']");
+		}
+		assertEquals(XPathExpressionCache.MAX_ENTRIES, XPathExpressionCache.size());
+	}
+
+	@Test
+	public void testSearchUsesNamespaces() throws Exception
+	{
+		DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+		dbf.setNamespaceAware(true);
+		String xml = "<nibrs:Submission xmlns:nibrs=\"http://fbi.gov/cjis/nibrs/4.0\"><nibrs:Report>A</nibrs:Report></nibrs:Submission>";
+		Document d = dbf.newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+		assertEquals("A", XmlUtils.xPathStringSearch(d, "nibrs:Submission/nibrs:Report"));
+		assertEquals("A", XmlUtils.xPathNodeSearch(d, "nibrs:Submission/nibrs:Report").getTextContent());
+		assertEquals(1, XmlUtils.xPathNodeListSearch(d, "nibrs:Submission/nibrs:Report").getLength());
+	}
+
+}
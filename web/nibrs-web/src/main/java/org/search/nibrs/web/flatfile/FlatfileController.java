@@ -15,40 +15,37 @@
  */
 package org.search.nibrs.web.flatfile;
 
-import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.Reader;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.search.nibrs.common.NIBRSError;
-import org.search.nibrs.flatfile.importer.IncidentBuilder;
-import org.search.nibrs.importer.ReportListener;
-import org.search.nibrs.model.AbstractReport;
-import org.search.nibrs.validation.SubmissionValidator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 @Controller
 public class FlatfileController {
 	private final Log log = LogFactory.getLog(this.getClass());
 
-	final List<String> acceptedFileTypes = Arrays.asList("application/zip", "text/plain", "application/octet-stream");
+	@Autowired
+	private ValidationJobService validationJobService;
+
+	final List<String> acceptedFileTypes = Arrays.asList("application/zip", "application/x-zip-compressed", "application/gzip", 
+			"application/x-gzip", "text/plain", "application/octet-stream");
 	
 	@GetMapping("/")
 	public String getFileUploadForm(Model model) throws IOException {
@@ -60,46 +57,42 @@ public class FlatfileController {
 	public String handleFileUpload(@RequestParam("file") MultipartFile multipartFile,
 			RedirectAttributes redirectAttributes, Model model) throws IOException {
 
-		String readerLocationName = "console";
-		
-		log.info("processing file: " + multipartFile.getName());
+		log.info("processing file: " + multipartFile.getOriginalFilename());
 		if (!acceptedFileTypes.contains(multipartFile.getContentType())){
 			throw new IllegalArgumentException("The file type is not supported"); 
 		}
 		
-		Reader inputReader = null;
-		if (multipartFile.getContentType().equals("application/zip")){
-			InputStream stream = getUnzippedInputStream(multipartFile);
-			inputReader = new BufferedReader(new InputStreamReader(stream));
-		}
-		else {
-			inputReader = new BufferedReader(new InputStreamReader(multipartFile.getInputStream()));
-		}
+		ValidationJob job = validationJobService.submit(multipartFile);
+		model.addAttribute("job", job);
 		
-		IncidentBuilder incidentBuilder = new IncidentBuilder();
-		SubmissionValidator submissionValidator = new SubmissionValidator();
-
-		final List<NIBRSError> errorList = new ArrayList<>();
+        return "validationProgress :: #content";
+    }
 
-		incidentBuilder.addIncidentListener(new ReportListener() {
-			@Override
-			public void newReport(AbstractReport report, List<NIBRSError> el) {
-				errorList.addAll(el);
-				errorList.addAll(submissionValidator.validateReport(report));
-			}
-		});
+	/**
+	 * Follow the progress of a validation job as a stream of server-sent events.
+	 */
+	@GetMapping("/validationJobs/{jobId}/progress")
+	@ResponseBody
+	public SseEmitter getValidationProgress(@PathVariable String jobId) {
+		return validationJobService.followProgress(getValidationJob(jobId));
+	}
 
-		incidentBuilder.buildIncidents(inputReader, readerLocationName);
-		inputReader.close();
+	@GetMapping("/validationJobs/{jobId}/report")
+	public String getValidationReport(@PathVariable String jobId, Model model) {
+		
+		ValidationJob job = getValidationJob(jobId);
+		if (job.getStatus() != ValidationJob.Status.COMPLETED) {
+			throw new IllegalStateException("The validation of " + job.getFileName() + " has not completed");
+		}
 		
-		List<NIBRSError> filteredErrorList = errorList.stream()
+		List<NIBRSError> filteredErrorList = job.getErrorList().stream()
 				.filter(error->error.getReport() != null)
 				.collect(Collectors.toList()); 
 		
 		model.addAttribute("errorList", filteredErrorList);
 		
-        return "validationReport :: #content";
-    }
+		return "validationReport :: #content";
+	}
 
 	@GetMapping("/about")
 	public String getAbout(Model model){
@@ -126,33 +119,22 @@ public class FlatfileController {
 	}
 	
 
-	/**
-	 * Get only the first entry of the zipped resource. 
-	 * @param multipartFile
-	 * @return
-	 * @throws IOException
-	 */
-	private InputStream getUnzippedInputStream(MultipartFile multipartFile) throws IOException {
-		ZipInputStream zippedStream = new ZipInputStream(multipartFile.getInputStream());
-		
-        ZipEntry zipEntry = zippedStream.getNextEntry();
-        
-        log.info("Unzipping " + zipEntry.getName());
-        ByteArrayOutputStream bout = new ByteArrayOutputStream();
-        for (int c = zippedStream.read(); c != -1; c = zippedStream.read()) {
-          bout.write(c);
-        }
-        
-        zippedStream.closeEntry();
-		zippedStream.close();
-		
-		
-		ByteArrayInputStream inStream = new ByteArrayInputStream( bout.toByteArray() );
-		bout.close();
-		
-		return inStream;
+	private ValidationJob getValidationJob(String jobId) {
+		ValidationJob job = validationJobService.getJob(jobId);
+		if (job == null) {
+			throw new ValidationJobNotFoundException("There is no validation job " + jobId);
+		}
+		return job;
+	}
+
+	@ResponseStatus(code=HttpStatus.NOT_FOUND)
+	static class ValidationJobNotFoundException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		ValidationJobNotFoundException(String errorMessage) {
+			super(errorMessage);
+		}
 	}
 
-	
 }
 
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.web.flatfile;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.search.nibrs.common.NIBRSError;
+
+/**
+ * The validation of one uploaded file, which runs in the background while its progress is reported to the page.
+ */
+public class ValidationJob {
+
+	public enum Status {
+		RUNNING, COMPLETED, FAILED
+	}
+
+	private final String jobId;
+	private final String fileName;
+	private volatile Status status = Status.RUNNING;
+	private volatile String failureMessage;
+	private final AtomicInteger lineCount = new AtomicInteger();
+	private final AtomicInteger reportCount = new AtomicInteger();
+	private final List<NIBRSError> errorList = Collections.synchronizedList(new ArrayList<>());
+
+	ValidationJob(String jobId, String fileName) {
+		this.jobId = jobId;
+		this.fileName = fileName;
+	}
+
+	public String getJobId() {
+		return jobId;
+	}
+
+	public String getFileName() {
+		return fileName;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	public String getFailureMessage() {
+		return failureMessage;
+	}
+
+	/**
+	 * The number of lines parsed so far.
+	 */
+	public int getLineCount() {
+		return lineCount.get();
+	}
+
+	/**
+	 * The number of reports validated so far.
+	 */
+	public int getReportCount() {
+		return reportCount.get();
+	}
+
+	/**
+	 * The number of errors found so far.
+	 */
+	public int getErrorCount() {
+		return errorList.size();
+	}
+
+	List<NIBRSError> getErrorList() {
+		synchronized (errorList) {
+			return new ArrayList<>(errorList);
+		}
+	}
+
+	void linesParsed(int count) {
+		lineCount.addAndGet(count);
+	}
+
+	void reportValidated(List<NIBRSError> errors) {
+		reportCount.incrementAndGet();
+		errorList.addAll(errors);
+	}
+
+	void completed() {
+		status = Status.COMPLETED;
+	}
+
+	void failed(String failureMessage) {
+		this.failureMessage = failureMessage;
+		status = Status.FAILED;
+	}
+
+}
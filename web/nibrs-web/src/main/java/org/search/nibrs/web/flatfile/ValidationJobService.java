@@ -0,0 +1,313 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.web.flatfile;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.search.nibrs.flatfile.importer.IncidentBuilder;
+import org.search.nibrs.validation.PipelinedValidationListener;
+import org.search.nibrs.validation.SubmissionConsistencyListener;
+import org.search.nibrs.validation.SubmissionValidator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Validates uploaded files in the background, so that a large file does not hold up the request that uploads it (and run into the 
+ * timeouts of proxies in front of the application).  The upload is saved to a temporary file, and a ValidationJob is returned at once.  
+ * The page then follows the job's progress through a stream of server-sent events, and fetches the error report when it is done.
+ * <br/>
+ * A zip file is read one entry at a time, straight from the archive, and every entry is validated as a submission of its own.  A gzip
+ * file is decompressed as it is read.
+ */
+@Service
+public class ValidationJobService {
+
+	private final Log log = LogFactory.getLog(this.getClass());
+
+	private static final long PROGRESS_INTERVAL_MILLIS = 500;
+	private static final long PROGRESS_TIMEOUT_MILLIS = 60 * 60 * 1000;
+	private static final int MAGIC_LENGTH = 4;
+
+	@Value("${nibrs.web.validationJobThreads:2}")
+	private int validationJobThreads;
+	@Value("${nibrs.web.maxValidationJobs:50}")
+	private int maxValidationJobs;
+
+	private ExecutorService executor;
+	private ScheduledExecutorService progressScheduler;
+	private Map<String, ValidationJob> jobs;
+	private final Map<String, List<SseEmitter>> progressEmitters = new LinkedHashMap<>();
+
+	@PostConstruct
+	void start() {
+		AtomicInteger threadNumber = new AtomicInteger(1);
+		executor = Executors.newFixedThreadPool(validationJobThreads, r -> {
+			Thread t = new Thread(r, "nibrs-web-validation-" + threadNumber.getAndIncrement());
+			t.setDaemon(true);
+			return t;
+		});
+		progressScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "nibrs-web-validation-progress");
+			t.setDaemon(true);
+			return t;
+		});
+		progressScheduler.scheduleWithFixedDelay(this::sendProgress, PROGRESS_INTERVAL_MILLIS, PROGRESS_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+		jobs = new LinkedHashMap<String, ValidationJob>() {
+			private static final long serialVersionUID = 1L;
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, ValidationJob> eldest) {
+				return size() > maxValidationJobs;
+			}
+		};
+	}
+
+	@PreDestroy
+	void stop() {
+		executor.shutdownNow();
+		progressScheduler.shutdownNow();
+	}
+
+	/**
+	 * Save an uploaded file and start validating it.
+	 * @return the job, which is running
+	 */
+	public ValidationJob submit(MultipartFile multipartFile) throws IOException {
+		File file = File.createTempFile("nibrs-web-upload-", ".tmp");
+		multipartFile.transferTo(file);
+
+		ValidationJob job = new ValidationJob(UUID.randomUUID().toString(), multipartFile.getOriginalFilename());
+		synchronized (jobs) {
+			jobs.put(job.getJobId(), job);
+		}
+		executor.execute(() -> {
+			try {
+				validate(file, job);
+				job.completed();
+				log.info("Validated " + job.getFileName() + ": " + job.getReportCount() + " reports, " + job.getErrorCount() + " errors");
+			} catch (Exception e) {
+				log.error("Unable to validate " + job.getFileName(), e);
+				job.failed(e.getMessage() == null ? e.getClass().getName() : e.getMessage());
+			} finally {
+				if (!file.delete()) {
+					file.deleteOnExit();
+				}
+				sendProgress(job);
+			}
+		});
+		return job;
+	}
+
+	/**
+	 * Get a job.
+	 * @return the job, or null if there is no such job, or it finished so long ago that it has been forgotten
+	 */
+	public ValidationJob getJob(String jobId) {
+		synchronized (jobs) {
+			return jobs.get(jobId);
+		}
+	}
+
+	/**
+	 * Open a stream of "progress" events, each the job as JSON, that ends with a "complete" event once the job has completed or failed.
+	 */
+	public SseEmitter followProgress(ValidationJob job) {
+		SseEmitter emitter = new SseEmitter(PROGRESS_TIMEOUT_MILLIS);
+		synchronized (progressEmitters) {
+			progressEmitters.computeIfAbsent(job.getJobId(), id -> new CopyOnWriteArrayList<>()).add(emitter);
+		}
+		Runnable remove = () -> {
+			synchronized (progressEmitters) {
+				List<SseEmitter> emitters = progressEmitters.get(job.getJobId());
+				if (emitters != null) {
+					emitters.remove(emitter);
+				}
+			}
+		};
+		emitter.onCompletion(remove);
+		emitter.onTimeout(remove);
+		// the job may have finished before the page asked to follow it
+		sendProgress(job);
+		return emitter;
+	}
+
+	private void sendProgress() {
+		try {
+			List<String> jobIds;
+			synchronized (progressEmitters) {
+				jobIds = new ArrayList<>(progressEmitters.keySet());
+			}
+			for (String jobId : jobIds) {
+				ValidationJob job = getJob(jobId);
+				if (job == null) {
+					completeEmitters(jobId);
+				} else {
+					sendProgress(job);
+				}
+			}
+		} catch (RuntimeException e) {
+			// keep the scheduled task running
+			log.warn("Unable to send validation progress", e);
+		}
+	}
+
+	private void sendProgress(ValidationJob job) {
+		List<SseEmitter> emitters;
+		synchronized (progressEmitters) {
+			emitters = progressEmitters.get(job.getJobId());
+		}
+		if (emitters == null) {
+			return;
+		}
+		boolean finished = job.getStatus() != ValidationJob.Status.RUNNING;
+		for (SseEmitter emitter : emitters) {
+			try {
+				synchronized (emitter) {
+					emitter.send(SseEmitter.event().name("progress").data(job));
+					if (finished) {
+						emitter.send(SseEmitter.event().name("complete").data(job));
+					}
+				}
+			} catch (IOException | IllegalStateException e) {
+				// the page has gone away
+				emitters.remove(emitter);
+			}
+		}
+		if (finished) {
+			completeEmitters(job.getJobId());
+		}
+	}
+
+	private void completeEmitters(String jobId) {
+		List<SseEmitter> emitters;
+		synchronized (progressEmitters) {
+			emitters = progressEmitters.remove(jobId);
+		}
+		if (emitters != null) {
+			emitters.forEach(SseEmitter::complete);
+		}
+	}
+
+	/**
+	 * Validate a saved upload: a zip archive, each entry of which is a submission; a gzip file, decompressed as it is read; or a plain 
+	 * submission.  What kind of file it is is worked out from its first bytes, not from the content type the browser sent, which varies 
+	 * from one browser (and operating system) to another.
+	 */
+	private void validate(File file, ValidationJob job) throws IOException {
+		try (InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
+			inputStream.mark(MAGIC_LENGTH);
+			byte[] magic = new byte[MAGIC_LENGTH];
+			int magicLength = inputStream.read(magic);
+			inputStream.reset();
+			
+			if (magicLength == 4 && magic[0] == 'P' && magic[1] == 'K' && magic[2] == 3 && magic[3] == 4) {
+				ZipInputStream zippedStream = new ZipInputStream(inputStream);
+				for (ZipEntry zipEntry = zippedStream.getNextEntry(); zipEntry != null; zipEntry = zippedStream.getNextEntry()) {
+					// skip folders, and the resource forks that the Mac adds to archives
+					if (zipEntry.isDirectory() || zipEntry.getName().startsWith("__MACOSX/")) {
+						continue;
+					}
+					log.info("Validating " + zipEntry.getName() + " in " + job.getFileName());
+					// the entry is read straight from the archive; the reader is not closed, which would close the archive
+					validate(new InputStreamReader(zippedStream), zipEntry.getName(), job);
+					zippedStream.closeEntry();
+				}
+			}
+			else if (magicLength >= 2 && (magic[0] & 0xff) == 0x1f && (magic[1] & 0xff) == 0x8b) {
+				validate(new InputStreamReader(new GZIPInputStream(inputStream)), "console", job);
+			}
+			else {
+				validate(new InputStreamReader(inputStream), "console", job);
+			}
+		}
+	}
+
+	private void validate(Reader reader, String readerLocationName, ValidationJob job) throws IOException {
+		IncidentBuilder incidentBuilder = new IncidentBuilder();
+		SubmissionValidator submissionValidator = new SubmissionValidator();
+
+		PipelinedValidationListener validationListener = new PipelinedValidationListener(submissionValidator, 
+				new SubmissionConsistencyListener((report, el) -> job.reportValidated(el)), Runtime.getRuntime().availableProcessors());
+		incidentBuilder.addIncidentListener(validationListener);
+
+		incidentBuilder.buildIncidents(new LineCountingReader(reader, job), readerLocationName);
+		validationListener.finish();
+	}
+
+	/**
+	 * Counts the lines read through it into the job's progress.
+	 */
+	private static final class LineCountingReader extends FilterReader {
+
+		private final ValidationJob job;
+
+		LineCountingReader(Reader reader, ValidationJob job) {
+			super(reader);
+			this.job = job;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int c = super.read();
+			if (c == '\n') {
+				job.linesParsed(1);
+			}
+			return c;
+		}
+
+		@Override
+		public int read(char[] cbuf, int off, int len) throws IOException {
+			int count = super.read(cbuf, off, len);
+			int lines = 0;
+			for (int i = off; i < off + count; i++) {
+				if (cbuf[i] == '\n') {
+					lines++;
+				}
+			}
+			job.linesParsed(lines);
+			return count;
+		}
+
+	}
+
+}
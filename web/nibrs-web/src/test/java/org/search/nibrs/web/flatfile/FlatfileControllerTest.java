@@ -0,0 +1,212 @@
+/*
+ * Copyright 2016 SEARCH-The National Consortium for Justice Information and Statistics
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.search.nibrs.web.flatfile;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.fileUpload;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.util.NestedServletException;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class FlatfileControllerTest {
+
+	// test.txt is one incident of 8 lines
+	private static final int LINE_COUNT = 8;
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private ValidationJobService validationJobService;
+
+	private byte[] submission;
+
+	@Before
+	public void setUp() throws IOException {
+		try (InputStream inputStream = getClass().getResourceAsStream("/test.txt")) {
+			submission = StreamUtils.copyToByteArray(inputStream);
+		}
+	}
+
+	@Test
+	public void testValidationJob() throws Exception {
+		ValidationJob job = upload("test.txt", "text/plain", submission);
+		List<JsonNode> events = followProgress(job);
+		
+		// a progress event (at least), then the complete event, with the final counts
+		assertTrue(events.size() >= 2);
+		JsonNode complete = events.get(events.size() - 1);
+		assertEquals("complete", complete.get("event").asText());
+		assertEquals("progress", events.get(events.size() - 2).get("event").asText());
+		assertEquals("COMPLETED", complete.get("status").asText());
+		assertEquals(LINE_COUNT, complete.get("lineCount").asInt());
+		assertEquals(1, complete.get("reportCount").asInt());
+		assertEquals(job.getErrorCount(), complete.get("errorCount").asInt());
+		for (JsonNode progress : events.subList(0, events.size() - 1)) {
+			assertEquals("progress", progress.get("event").asText());
+			assertTrue(progress.get("reportCount").asInt() <= 1);
+		}
+		
+		assertEquals(ValidationJob.Status.COMPLETED, job.getStatus());
+		assertNull(job.getFailureMessage());
+		mockMvc.perform(get("/validationJobs/" + job.getJobId() + "/report"))
+			.andExpect(status().isOk());
+	}
+
+	@Test
+	public void testZipFileIsRecognizedByItsContent() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ZipOutputStream zipOutputStream = new ZipOutputStream(bytes)) {
+			for (String name : new String[] {"submissions/", "submissions/1.txt", "submissions/2.txt"}) {
+				zipOutputStream.putNextEntry(new ZipEntry(name));
+				if (!name.endsWith("/")) {
+					zipOutputStream.write(submission);
+				}
+				zipOutputStream.closeEntry();
+			}
+			// as added by the Mac's Finder, which are not submissions
+			zipOutputStream.putNextEntry(new ZipEntry("__MACOSX/submissions/._1.txt"));
+			zipOutputStream.write(new byte[] {0, 5, 22, 7, 0, 2, 0, 0, 'M', 'a', 'c', ' ', 'O', 'S', ' ', 'X'});
+			zipOutputStream.closeEntry();
+		}
+		ValidationJob single = upload("test.txt", "text/plain", submission);
+		followProgress(single);
+		ValidationJob job = upload("submissions.bin", "application/octet-stream", bytes.toByteArray());
+		followProgress(job);
+		
+		assertEquals(ValidationJob.Status.COMPLETED, job.getStatus());
+		assertEquals(2 * LINE_COUNT, job.getLineCount());
+		assertEquals(2, job.getReportCount());
+		assertEquals(2 * single.getErrorCount(), job.getErrorCount());
+	}
+
+	@Test
+	public void testGzipFileIsRecognizedByItsContent() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(bytes)) {
+			gzipOutputStream.write(submission);
+		}
+		ValidationJob job = upload("test.txt", "application/octet-stream", bytes.toByteArray());
+		followProgress(job);
+		
+		assertEquals(ValidationJob.Status.COMPLETED, job.getStatus());
+		assertEquals(LINE_COUNT, job.getLineCount());
+		assertEquals(1, job.getReportCount());
+	}
+
+	@Test
+	public void testFailedValidationJob() throws Exception {
+		// a zip archive cut off in the middle of its entry
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ZipOutputStream zipOutputStream = new ZipOutputStream(bytes)) {
+			zipOutputStream.putNextEntry(new ZipEntry("test.txt"));
+			for (int i = 0; i < 50; i++) {
+				zipOutputStream.write(submission);
+			}
+			zipOutputStream.closeEntry();
+		}
+		ValidationJob job = upload("broken.zip", "application/zip", Arrays.copyOf(bytes.toByteArray(), bytes.size() / 2));
+		JsonNode complete = followProgress(job).stream().filter(event -> event.get("event").asText().equals("complete")).findFirst().get();
+		
+		assertEquals("FAILED", complete.get("status").asText());
+		assertEquals(ValidationJob.Status.FAILED, job.getStatus());
+		assertNotNull(job.getFailureMessage());
+		try {
+			mockMvc.perform(get("/validationJobs/" + job.getJobId() + "/report"));
+			fail("There is no report of a failed job");
+		} catch (NestedServletException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+	}
+
+	@Test
+	public void testUnknownValidationJob() throws Exception {
+		mockMvc.perform(get("/validationJobs/none/progress")).andExpect(status().isNotFound());
+	}
+
+	private ValidationJob upload(String fileName, String contentType, byte[] content) throws Exception {
+		MvcResult result = mockMvc.perform(fileUpload("/").file(new MockMultipartFile("file", fileName, contentType, content)))
+			.andExpect(status().isOk())
+			.andExpect(content().string(containsString("/validationJobs/")))
+			.andReturn();
+		ValidationJob job = (ValidationJob) result.getModelAndView().getModel().get("job");
+		assertEquals(job, validationJobService.getJob(job.getJobId()));
+		return job;
+	}
+
+	/**
+	 * Follow the progress of a job until it is done.
+	 * @return the events sent, each the job as JSON with the name of the event added as "event"
+	 */
+	private List<JsonNode> followProgress(ValidationJob job) throws Exception {
+		MvcResult result = mockMvc.perform(get("/validationJobs/" + job.getJobId() + "/progress"))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+		// the stream ends when the job is done
+		result.getAsyncResult(30000);
+		
+		ObjectMapper objectMapper = new ObjectMapper();
+		List<JsonNode> ret = new ArrayList<>();
+		String event = null;
+		for (String line : result.getResponse().getContentAsString().split("\n")) {
+			if (line.startsWith("event:")) {
+				event = line.substring("event:".length());
+			}
+			else if (line.startsWith("data:")) {
+				JsonNode data = objectMapper.readTree(line.substring("data:".length()));
+				((ObjectNode) data).put("event", event);
+				ret.add(data);
+			}
+		}
+		return ret;
+	}
+
+}